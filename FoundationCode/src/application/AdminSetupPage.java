@@ -231,15 +231,14 @@ public class AdminSetupPage {
 		if (input.isEmpty()) {}
 		else
 		{
-			String errMessage = PasswordEvaluator.evaluateUsername(inputText);
-			//updateFlags();
-			if (errMessage != "") {
-				System.out.println(errMessage);
+			PasswordEvaluator.Evaluation result = PasswordEvaluator.checkUsername(inputText);
+			if (!result.isValid()) {
+				System.out.println(result.getErrorMessage());
 				label.setText("The username must be at least 4 characters long.\nCan only include: upper case and lower case letters and numbers.");
 				label.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
 				usernameSet=false;
 			}
-			else if (PasswordEvaluator.UfoundLongEnough) {
+			else if (result.foundLongEnough()) {
 				label.setText("Success! The username satisfies the requirements.");
 				label.setStyle("-fx-text-fill: green; -fx-font-size: 12px;");
 				usernameSet=true;
@@ -260,17 +259,16 @@ public class AdminSetupPage {
 		if (input.isEmpty()) {}
 		else
 		{
-			String errMessage = PasswordEvaluator.evaluatePassword(inputText);
-			//updateFlags();
-			if (errMessage != "") {
+			PasswordEvaluator.Evaluation result = PasswordEvaluator.checkPassword(inputText);
+			if (!result.isValid()) {
 				//label.setText("Failure! The password is not valid.");
 				label.setText("Password must be at least 6 characters long and include:\nUpper case letter, lower case letter, a digit and a special symbol.");
 				label.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
 				passwordSet=false;
 			}
-			else if (PasswordEvaluator.PfoundUpperCase && PasswordEvaluator.PfoundLowerCase &&
-					PasswordEvaluator.PfoundNumericDigit && PasswordEvaluator.PfoundSpecialChar &&
-					PasswordEvaluator.PfoundLongEnough) {
+			else if (result.foundUpperCase() && result.foundLowerCase() &&
+					result.foundNumericDigit() && result.foundSpecialChar() &&
+					result.foundLongEnough()) {
 				label.setText("Success! The password satisfies the requirements.");
 				label.setStyle("-fx-text-fill: green; -fx-font-size: 12px;");
 				passwordSet=true;
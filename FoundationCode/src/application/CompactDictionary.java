@@ -0,0 +1,606 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * CompactDictionary is a read-only word list for the spell checker that can hold a
+ * full-size English dictionary without adding much to the heap.
+ *
+ * The words, sorted, and a SymSpell-style "symmetric delete" index are stored in one
+ * flat buffer: normally a file built once by main() and memory-mapped, so the data
+ * lives in the page cache rather than on the heap. The index has a few dozen deletes
+ * per word, so it is most of the file; it is kept small by storing each distinct
+ * delete hash once, delta-encoded, with the ids of its words as varint gaps. That is
+ * still about 110 bytes per word (13.5 MB for 120,000 words, against 25.5 MB as plain
+ * hash and id pairs): the price of suggestions that cost one lookup per delete of the
+ * query instead of a walk over the word list. contains() is a binary search over
+ * the sorted words. suggest() finds words within MAX_EDIT_DISTANCE edits by looking up
+ * the strings obtained by deleting up to that many letters from the start of the word;
+ * every dictionary word sharing one of those strings is a candidate, and candidates
+ * are ranked by their real edit distance and then by frequency.
+ *
+ * Words are lower-case ASCII letters only, which is what SpellChecker looks up.
+ */
+public final class CompactDictionary {
+
+    public static final int MAX_EDIT_DISTANCE = 2;
+    // Deletes are generated from this many leading letters only, as in SymSpell; edits
+    // further along still match because the prefix is then unchanged
+    private static final int PREFIX_LENGTH = 7;
+    private static final int MAX_WORD_LENGTH = 40;
+    private static final int SHORT_WORD_LENGTH = 5;
+
+    private static final int FILE_MAGIC = 0x51414443; // "QADC"
+    private static final int FILE_VERSION = 2;
+    private static final int HEADER_INTS = 7;
+    // Delete entries per block; a lookup binary-searches the blocks and scans one
+    private static final int BLOCK_SIZE = 16;
+
+    /*
+     * Buffer layout (ints are big-endian, varints are unsigned LEB128):
+     *   header     magic, version, word count N, block count B, entries size E,
+     *              max edit distance, prefix length
+     *   offsets    N + 1 ints, start of each word in the letters section
+     *   counts     N ints, word frequencies (0 if the list had none)
+     *   blocks     B ints, the first delete hash of each block, ascending
+     *   starts     B + 1 ints, where each block starts in the entries section
+     *   entries    E bytes; per distinct delete hash, ascending: varint hash minus the
+     *              previous hash of the block (0 for the first), varint size of the ids
+     *              in bytes, then the ids of the words with that delete as varints,
+     *              the first as is and the rest as gaps from the one before
+     *   letters    the words, concatenated in sorted order
+     */
+    private final ByteBuffer data;
+    private final int wordCount;
+    private final int blockCount;
+    private final int offsetsAt;
+    private final int countsAt;
+    private final int blocksAt;
+    private final int startsAt;
+    private final int entriesAt;
+    private final int lettersAt;
+
+    private CompactDictionary(ByteBuffer data) throws IOException {
+        if (data.capacity() < HEADER_INTS * 4 || data.getInt(0) != FILE_MAGIC || data.getInt(4) != FILE_VERSION) {
+            throw new IOException("Not a dictionary file");
+        }
+        if (data.getInt(20) != MAX_EDIT_DISTANCE || data.getInt(24) != PREFIX_LENGTH) {
+            throw new IOException("Dictionary was built with different edit distance settings");
+        }
+        this.data = data;
+        this.wordCount = data.getInt(8);
+        this.blockCount = data.getInt(12);
+        int entriesSize = data.getInt(16);
+        long sections = 4L * (HEADER_INTS + (wordCount + 1L) + wordCount + blockCount + (blockCount + 1L)) + entriesSize;
+        if (wordCount < 0 || blockCount < 0 || entriesSize < 0 || sections > data.capacity()) {
+            throw new IOException("Dictionary file is truncated");
+        }
+        this.offsetsAt = HEADER_INTS * 4;
+        this.countsAt = offsetsAt + (wordCount + 1) * 4;
+        this.blocksAt = countsAt + wordCount * 4;
+        this.startsAt = blocksAt + blockCount * 4;
+        this.entriesAt = startsAt + (blockCount + 1) * 4;
+        this.lettersAt = entriesAt + entriesSize;
+        if (data.getInt(startsAt + blockCount * 4) != entriesSize || lettersAt + offset(wordCount) != data.capacity()) {
+            throw new IOException("Dictionary file is truncated");
+        }
+    }
+
+    /**
+     * Builds an in-memory dictionary from a word collection (all frequencies 0).
+     */
+    public static CompactDictionary of(Collection<String> words) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String word : words) {
+            counts.put(word, 0);
+        }
+        try {
+            return new CompactDictionary(build(counts));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);   // a freshly built buffer is always valid
+        }
+    }
+
+    /**
+     * Memory-maps a dictionary file written by write(), or returns null when the file
+     * is missing or unreadable.
+     */
+    public static CompactDictionary load(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new CompactDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable dictionary " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a dictionary file for the given words and frequencies (via a temporary file,
+     * so a crash never leaves half a dictionary behind). Words that are not plain ASCII
+     * letters are skipped and upper case is folded.
+     */
+    public static void write(Map<String, Integer> wordCounts, Path file) throws IOException {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : wordCounts.entrySet()) {
+            counts.merge(entry.getKey().toLowerCase(), entry.getValue(), Math::max);
+        }
+        ByteBuffer buffer = build(counts);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * True if word (lower case) is in the dictionary.
+     */
+    public boolean contains(CharSequence word) {
+        int low = 0;
+        int high = wordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareWord(mid, word);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dictionary words within MAX_EDIT_DISTANCE edits (insertions, deletions,
+     * substitutions and swaps of adjacent letters) of word, or one edit for words under
+     * five letters, closest and most frequent first. The word itself is never suggested.
+     */
+    public List<String> suggest(String word, int limit) {
+        if (word.isEmpty() || word.length() > MAX_WORD_LENGTH || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Two edits turn a short word into almost anything, so short words get one
+        int maxDistance = word.length() < SHORT_WORD_LENGTH ? 1 : MAX_EDIT_DISTANCE;
+        // Collect candidate ids first; a word shares several deletes with the query
+        Ids ids = new Ids();
+        for (String delete : deletes(word, maxDistance)) {
+            addWordsWithDelete(delete.hashCode(), ids);
+        }
+        int idCount = ids.count;
+        Arrays.sort(ids.ids, 0, idCount);
+
+        List<Candidate> found = new ArrayList<>();
+        EditDistance distance = new EditDistance(word);
+        for (int i = 0; i < idCount; i++) {
+            int id = ids.ids[i];
+            if (i > 0 && id == ids.ids[i - 1]) {
+                continue;
+            }
+            int start = offset(id);
+            int length = offset(id + 1) - start;
+            if (Math.abs(length - word.length()) > maxDistance) {
+                continue;
+            }
+            int d = distance.to(data, lettersAt + start, length, maxDistance);
+            if (d > 0 && d <= maxDistance) {
+                found.add(new Candidate(id, d, data.getInt(countsAt + id * 4)));
+            }
+        }
+        found.sort(null);
+        List<String> suggestions = new ArrayList<>(Math.min(limit, found.size()));
+        for (int i = 0; i < found.size() && i < limit; i++) {
+            suggestions.add(wordAt(found.get(i).id));
+        }
+        return suggestions;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final int id;
+        final int distance;
+        final int count;
+
+        Candidate(int id, int distance, int count) {
+            this.id = id;
+            this.distance = distance;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (distance != other.distance) {
+                return Integer.compare(distance, other.distance);
+            }
+            if (count != other.count) {
+                return Integer.compare(other.count, count);
+            }
+            return Integer.compare(id, other.id);   // ids are in alphabetical order
+        }
+    }
+
+    private int offset(int id) {
+        return data.getInt(offsetsAt + id * 4);
+    }
+
+    private String wordAt(int id) {
+        int start = offset(id);
+        byte[] letters = new byte[offset(id + 1) - start];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = data.get(lettersAt + start + i);
+        }
+        return new String(letters, StandardCharsets.US_ASCII);
+    }
+
+    private int compareWord(int id, CharSequence word) {
+        int start = lettersAt + offset(id);
+        int length = offset(id + 1) - offset(id);
+        int shared = Math.min(length, word.length());
+        for (int i = 0; i < shared; i++) {
+            int diff = (data.get(start + i) & 0xff) - word.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - word.length();
+    }
+
+    // Adds the ids of the words that have a delete with this hash
+    private void addWordsWithDelete(int hash, Ids ids) {
+        // The last block starting at or before the hash is the only one that can hold it
+        int low = 0;
+        int high = blockCount - 1;
+        int block = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (data.getInt(blocksAt + mid * 4) <= hash) {
+                block = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (block < 0) {
+            return;
+        }
+        Varints in = new Varints(data, entriesAt + data.getInt(startsAt + block * 4));
+        int end = entriesAt + data.getInt(startsAt + (block + 1) * 4);
+        int entryHash = data.getInt(blocksAt + block * 4);
+        while (in.at < end) {
+            entryHash += (int) in.next();
+            int idsEnd = (int) in.next() + in.at;
+            if (entryHash > hash) {
+                return;
+            }
+            if (entryHash < hash) {
+                in.at = idsEnd;
+                continue;
+            }
+            int id = 0;
+            while (in.at < idsEnd) {
+                id += (int) in.next();
+                ids.add(id);
+            }
+            return;
+        }
+    }
+
+    // A growing list of word ids
+    private static final class Ids {
+        int[] ids = new int[64];
+        int count;
+
+        void add(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+    }
+
+    // Reads unsigned LEB128 varints from the buffer, starting at at
+    private static final class Varints {
+        private final ByteBuffer data;
+        int at;
+
+        Varints(ByteBuffer data, int at) {
+            this.data = data;
+            this.at = at;
+        }
+
+        long next() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data.get(at++);
+                value |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    // The word's prefix and every string made by deleting up to maxDistance letters from it
+    private static Set<String> deletes(String word, int maxDistance) {
+        Set<String> deletes = new HashSet<>();
+        String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        deletes.add(prefix);
+        List<String> round = Collections.singletonList(prefix);
+        for (int distance = 1; distance <= maxDistance; distance++) {
+            List<String> next = new ArrayList<>();
+            for (String s : round) {
+                for (int i = 0; i < s.length(); i++) {
+                    String delete = s.substring(0, i) + s.substring(i + 1);
+                    if (deletes.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            round = next;
+        }
+        return deletes;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent swaps) from one word
+     * to dictionary words read straight from the buffer. The rows are reused between
+     * calls, so checking a candidate allocates nothing.
+     */
+    static final class EditDistance {
+        private final String word;
+        private int[] twoBack;
+        private int[] previous;
+        private int[] current;
+
+        EditDistance(String word) {
+            this.word = word;
+            this.twoBack = new int[MAX_WORD_LENGTH + 1];
+            this.previous = new int[MAX_WORD_LENGTH + 1];
+            this.current = new int[MAX_WORD_LENGTH + 1];
+        }
+
+        // Distance to the length letters at start, or max + 1 as soon as it must exceed max
+        int to(ByteBuffer letters, int start, int length, int max) {
+            for (int j = 0; j <= length; j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= word.length(); i++) {
+                char a = word.charAt(i - 1);
+                current[0] = i;
+                int rowMin = i;
+                for (int j = 1; j <= length; j++) {
+                    char b = (char) letters.get(start + j - 1);
+                    int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + (a == b ? 0 : 1));
+                    if (i > 1 && j > 1 && a == letters.get(start + j - 2) && word.charAt(i - 2) == b) {
+                        d = Math.min(d, twoBack[j - 2] + 1);
+                    }
+                    current[j] = d;
+                    rowMin = Math.min(rowMin, d);
+                }
+                if (rowMin > max) {
+                    return max + 1;
+                }
+                int[] recycled = twoBack;
+                twoBack = previous;
+                previous = current;
+                current = recycled;
+            }
+            return previous[length];
+        }
+    }
+
+    private static ByteBuffer build(Map<String, Integer> sortedCounts) {
+        List<String> words = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : sortedCounts.entrySet()) {
+            if (isIndexable(entry.getKey())) {
+                words.add(entry.getKey());
+                counts.add(entry.getValue());
+            }
+        }
+
+        // (hash << 32 | id) pairs sort by hash, then word
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        int letters = 0;
+        for (int id = 0; id < words.size(); id++) {
+            letters += words.get(id).length();
+            for (String delete : deletes(words.get(id), MAX_EDIT_DISTANCE)) {
+                if (pairCount == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairCount * 2);
+                }
+                pairs[pairCount++] = ((long) delete.hashCode() << 32) | id;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        // One entry per distinct hash, BLOCK_SIZE entries to a block
+        VarintWriter entries = new VarintWriter();
+        VarintWriter entryIds = new VarintWriter();
+        List<Integer> blockHashes = new ArrayList<>();
+        List<Integer> blockStarts = new ArrayList<>();
+        int entryCount = 0;
+        int previousHash = 0;
+        for (int i = 0; i < pairCount; ) {
+            int hash = (int) (pairs[i] >> 32);
+            if (entryCount++ % BLOCK_SIZE == 0) {
+                blockHashes.add(hash);
+                blockStarts.add(entries.size());
+                previousHash = hash;
+            }
+            entryIds.reset();
+            int previousId = 0;
+            for (; i < pairCount && (int) (pairs[i] >> 32) == hash; i++) {
+                int id = (int) pairs[i];
+                entryIds.put(id - previousId);
+                previousId = id;
+            }
+            entries.put((hash - previousHash) & 0xffffffffL);
+            entries.put(entryIds.size());
+            entries.putAll(entryIds);
+            previousHash = hash;
+        }
+
+        int n = words.size();
+        int blocks = blockHashes.size();
+        ByteBuffer buffer = ByteBuffer.allocate(4 * (HEADER_INTS + (n + 1) + n + blocks + (blocks + 1))
+                + entries.size() + letters);
+        buffer.putInt(FILE_MAGIC).putInt(FILE_VERSION).putInt(n).putInt(blocks).putInt(entries.size())
+              .putInt(MAX_EDIT_DISTANCE).putInt(PREFIX_LENGTH);
+        int offset = 0;
+        for (String word : words) {
+            buffer.putInt(offset);
+            offset += word.length();
+        }
+        buffer.putInt(offset);
+        for (int count : counts) {
+            buffer.putInt(count);
+        }
+        for (int hash : blockHashes) {
+            buffer.putInt(hash);
+        }
+        for (int start : blockStarts) {
+            buffer.putInt(start);
+        }
+        buffer.putInt(entries.size());
+        buffer.put(entries.bytes, 0, entries.size());
+        for (String word : words) {
+            buffer.put(word.getBytes(StandardCharsets.US_ASCII));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Collects unsigned LEB128 varints while the index is built
+    private static final class VarintWriter {
+        byte[] bytes = new byte[256];
+        private int size;
+
+        void put(long value) {
+            while (true) {
+                if (size == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, size * 2);
+                }
+                if ((value & ~0x7fL) == 0) {
+                    bytes[size++] = (byte) value;
+                    return;
+                }
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+        }
+
+        void putAll(VarintWriter other) {
+            if (size + other.size > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + other.size));
+            }
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+    }
+
+    private static boolean isIndexable(String word) {
+        if (word.isEmpty() || word.length() > MAX_WORD_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a dictionary file from a word list with one word per line, optionally
+     * followed by whitespace and a frequency count (as in SymSpell's frequency lists).
+     * Usage: CompactDictionary &lt;word list&gt; [dictionary file]; the default output is
+     * the file SpellChecker loads, ~/FoundationDictionary.dict.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CompactDictionary <word list> [dictionary file]");
+            return;
+        }
+        Path output = args.length > 1 ? Paths.get(args[1]) : SpellChecker.defaultDictionaryFile();
+        Map<String, Integer> counts = readWordList(Paths.get(args[0]));
+        long start = System.nanoTime();
+        write(counts, output);
+        CompactDictionary dictionary = load(output);
+        System.out.printf("Wrote %d words to %s (%.1f MB) in %.1f s%n", dictionary.size(), output,
+                Files.size(output) / 1e6, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Reads a word list with one word per line, optionally followed by whitespace and a
+     * frequency count, into the map write() takes. Lines are read as UTF-8, with bytes
+     * that are not (older system lists are Latin-1) replaced; write() then skips the
+     * words that are not plain letters.
+     */
+    public static Map<String, Integer> readWordList(Path wordList) throws IOException {
+        Map<String, Integer> counts = new TreeMap<>();
+        CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(Files.newInputStream(wordList), utf8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields[0].isEmpty()) {
+                    continue;
+                }
+                int count = 0;
+                if (fields.length > 1) {
+                    try {
+                        count = (int) Math.min(Integer.MAX_VALUE, Long.parseLong(fields[1]));
+                    } catch (NumberFormatException e) {
+                        // no frequency on this line
+                    }
+                }
+                counts.merge(fields[0], count, Math::max);
+            }
+        }
+        return counts;
+    }
+}
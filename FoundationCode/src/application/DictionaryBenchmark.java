@@ -0,0 +1,149 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/*******
+ * <p> Title: DictionaryBenchmark Class. </p>
+ *
+ * <p> Description: Builds a CompactDictionary file for a synthetic word list (120,000 words
+ * unless a count is given as the first argument), maps it, and measures lookups and
+ * spelling suggestions. Queries for suggestions are dictionary words with one or two
+ * random typos; recall is how often the original word is among the first three
+ * suggestions. Heap growth is measured around loading the file. Writes only a
+ * temporary file. </p>
+ *
+ */
+public class DictionaryBenchmark {
+
+    private static final int DEFAULT_WORDS = 120_000;
+    private static final int QUERIES = 10_000;
+    private static final int SUGGESTIONS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_WORDS;
+        Random random = new Random(42);
+        List<String> words = vocabulary(count, random);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : words) {
+            counts.put(word, 1 + random.nextInt(1_000_000));
+        }
+
+        System.out.println("______________________________________");
+        System.out.println("\nCompactDictionary, " + words.size() + " words");
+
+        Path file = Files.createTempFile("benchmark", ".dict");
+        file.toFile().deleteOnExit();
+        long start = System.nanoTime();
+        CompactDictionary.write(counts, file);
+        System.out.printf("%nBuild: %.1f s, file %.1f MB%n", (System.nanoTime() - start) / 1e9, Files.size(file) / 1e6);
+
+        long heapBefore = usedHeap();
+        start = System.nanoTime();
+        CompactDictionary dictionary = CompactDictionary.load(file);
+        long loadNanos = System.nanoTime() - start;
+        long heapAfter = usedHeap();
+        System.out.printf("Load: %.2f ms, heap growth %d KB%n", loadNanos / 1e6, Math.max(0, heapAfter - heapBefore) / 1024);
+
+        String[] lookups = new String[QUERIES];
+        String[] typos = new String[QUERIES];
+        String[] originals = new String[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            String word = words.get(random.nextInt(words.size()));
+            lookups[q] = random.nextBoolean() ? word : word + "q";
+            originals[q] = word;
+            typos[q] = typo(random.nextInt(4) == 0 ? typo(word, random) : word, random);
+        }
+
+        // Warm up, then measure
+        for (int round = 0; round < 3; round++) {
+            for (int q = 0; q < QUERIES; q++) {
+                dictionary.contains(lookups[q]);
+                dictionary.suggest(typos[q], SUGGESTIONS);
+            }
+        }
+        long[] containsNanos = new long[QUERIES];
+        long[] suggestNanos = new long[QUERIES];
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            start = System.nanoTime();
+            dictionary.contains(lookups[q]);
+            containsNanos[q] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<String> suggestions = dictionary.suggest(typos[q], SUGGESTIONS);
+            suggestNanos[q] = System.nanoTime() - start;
+            if (suggestions.contains(originals[q]) || typos[q].equals(originals[q])) {
+                found++;
+            }
+        }
+        report("contains", containsNanos);
+        report("suggest", suggestNanos);
+        System.out.printf("Recall@%d for one or two typos: %.1f%%%n", SUGGESTIONS, 100.0 * found / QUERIES);
+        System.out.println("____________________________________________________________________________");
+    }
+
+    private static void report(String name, long[] nanos) {
+        Arrays.sort(nanos);
+        System.out.printf("%-9s median %6.2f us, p99 %6.2f us%n", name + ":",
+                nanos[nanos.length / 2] / 1e3, nanos[nanos.length * 99 / 100] / 1e3);
+    }
+
+    // One random deletion, insertion, substitution or adjacent swap
+    private static String typo(String word, Random random) {
+        char letter = (char) ('a' + random.nextInt(26));
+        int at = random.nextInt(word.length());
+        switch (random.nextInt(4)) {
+            case 0:
+                return word.length() > 2 ? word.substring(0, at) + word.substring(at + 1) : word + letter;
+            case 1:
+                return word.substring(0, at) + letter + word.substring(at);
+            case 2:
+                return word.substring(0, at) + letter + word.substring(at + 1);
+            default:
+                if (at == word.length() - 1) {
+                    at--;
+                }
+                return word.substring(0, at) + word.charAt(at + 1) + word.charAt(at) + word.substring(at + 2);
+        }
+    }
+
+    // Pronounceable made-up words of 3 to 12 letters
+    private static List<String> vocabulary(int count, Random random) {
+        String consonants = "bcdfghjklmnprstvwz";
+        String vowels = "aeiou";
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < count) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(5);
+            for (int s = 0; s < syllables; s++) {
+                word.append(consonants.charAt(random.nextInt(consonants.length())));
+                word.append(vowels.charAt(random.nextInt(vowels.length())));
+            }
+            if (random.nextBoolean()) {
+                word.append(consonants.charAt(random.nextInt(consonants.length())));
+            }
+            if (word.length() >= 3) {
+                words.add(word.toString());
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
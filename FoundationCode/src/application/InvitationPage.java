@@ -5,12 +5,18 @@ import databasePart1.*;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 /**
  * InvitePage class represents the page where an admin can generate an invitation code.
- * The invitation code is displayed upon clicking a button.
+ * The invitation code is displayed upon clicking a button. A whole course roster's worth
+ * of codes can also be generated at once, one per line, ready to copy.
  */
 
 public class InvitationPage {
@@ -37,18 +43,81 @@ public class InvitationPage {
 	    Label inviteCodeLabel = new Label(""); ;
         inviteCodeLabel.setStyle("-fx-font-size: 14px; -fx-font-style: italic;");
         
+        // Invitation codes only need the repository operations
+        AsyncDatabaseHelper<? extends QARepository> repository = databaseHelper.async();
+
         showCodeButton.setOnAction(a -> {
-        	// Generate the invitation code using the databaseHelper and set it to the label
-            String invitationCode = databaseHelper.generateInvitationCode();
-            inviteCodeLabel.setText(invitationCode);
+        	// Generate the invitation code on the database worker and set it to the label
+            repository.call(QARepository::generateInvitationCode, invitationCode -> inviteCodeLabel.setText(
+                    invitationCode != null ? invitationCode : "Could not generate a code. Please try again."),
+                    e -> inviteCodeLabel.setText("Could not generate a code. Please try again."));
+        });
+
+        // Codes for a whole roster, stored in one batch on the database worker
+        Label rosterLabel = new Label("Codes for a course roster");
+        rosterLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-padding: 20 0 5 0;");
+        TextField countField = new TextField();
+        countField.setPromptText("Number of students");
+        countField.setPrefWidth(150);
+        TextField daysField = new TextField("14");
+        daysField.setPromptText("Valid for days (0 = no expiry)");
+        daysField.setPrefWidth(200);
+        Button rosterButton = new Button("Generate Codes");
+        HBox rosterRow = new HBox(10, countField, daysField, rosterButton);
+        rosterRow.setStyle("-fx-alignment: center;");
+        TextArea rosterCodes = new TextArea();
+        rosterCodes.setEditable(false);
+        rosterCodes.setPrefRowCount(6);
+        rosterCodes.setMaxWidth(400);
+        Label rosterStatus = new Label("");
+        Button copyButton = new Button("Copy All");
+        copyButton.setDisable(true);
+
+        rosterButton.setOnAction(a -> {
+            int count;
+            int days;
+            try {
+                count = Integer.parseInt(countField.getText().trim());
+                days = daysField.getText().trim().isEmpty() ? 0 : Integer.parseInt(daysField.getText().trim());
+            } catch (NumberFormatException e) {
+                rosterStatus.setText("Enter the number of students and the days the codes stay valid.");
+                return;
+            }
+            if (count < 1 || count > DatabaseHelper.MAX_INVITATION_CODES_PER_CALL
+                    || days < 0 || days > DatabaseHelper.MAX_INVITATION_VALID_DAYS) {
+                rosterStatus.setText("Generate between 1 and " + DatabaseHelper.MAX_INVITATION_CODES_PER_CALL
+                        + " codes, valid for 0 to " + DatabaseHelper.MAX_INVITATION_VALID_DAYS + " days.");
+                return;
+            }
+            rosterButton.setDisable(true);
+            rosterStatus.setText("Generating...");
+            repository.call(db -> db.generateInvitationCodes(count, days * 24 * 60), codes -> {
+                rosterButton.setDisable(false);
+                rosterCodes.setText(String.join("\n", codes));
+                copyButton.setDisable(false);
+                rosterStatus.setText(codes.size() + " codes generated" + (days > 0 ? ", valid for " + days + " days." : "."));
+            }, e -> {
+                rosterButton.setDisable(false);
+                rosterStatus.setText("Could not generate the codes: " + e.getMessage());
+                e.printStackTrace();
+            });
+        });
+        copyButton.setOnAction(a -> {
+            ClipboardContent content = new ClipboardContent();
+            content.putString(rosterCodes.getText());
+            Clipboard.getSystemClipboard().setContent(content);
+            rosterStatus.setText("Codes copied to the clipboard.");
         });
+
         Button goBackButton = new Button("Go back"); goBackButton.setStyle("-fx-font-size: 14px; -fx-padding: 5 20; -fx-background-color: #666; -fx-text-fill: white;");
 	    goBackButton.setOnAction(a -> {
 	    	new AdminHomePage(databaseHelper).show(primaryStage,user);
 	    });
 
-        layout.getChildren().addAll(userLabel, showCodeButton, inviteCodeLabel, goBackButton);
-	    Scene inviteScene = new Scene(layout, 800, 400);
+        layout.getChildren().addAll(userLabel, showCodeButton, inviteCodeLabel,
+                rosterLabel, rosterRow, rosterCodes, rosterStatus, copyButton, goBackButton);
+        layout.setSpacing(5);
+	    Scene inviteScene = new Scene(layout, 800, 500);
 
 	    // Set the scene to primary stage
 	    primaryStage.setScene(inviteScene);
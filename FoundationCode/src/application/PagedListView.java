@@ -0,0 +1,158 @@
+package application;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+import databasePart1.AsyncDatabaseHelper;
+import databasePart1.Page;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
+import javafx.util.Callback;
+
+/**
+ * PagedListView shows a keyset-paginated query in a virtualized ListView.
+ * Only visible rows get cells, cells are recycled while scrolling, and the next
+ * page is fetched in the background once a row near the end of the loaded items
+ * becomes visible.
+ */
+public class PagedListView<T> {
+
+    /**
+     * Loads the page that follows the given cursor (null for the first page). The
+     * future must complete on the JavaFX Application Thread.
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        CompletableFuture<Page<T>> load(String cursor);
+    }
+
+    // Start fetching the next page when a row this close to the end is shown
+    private static final int PREFETCH_ROWS = 5;
+
+    private final ListView<T> listView = new ListView<>();
+    private final String emptyText;
+    private Comparator<? super T> order;   // the order the loader returns items in
+    private PageLoader<T> loader;
+    private String nextCursor;
+    private boolean loading;
+    private int generation;     // bumped by load() so stale page requests are dropped
+
+    public PagedListView(Callback<ListView<T>, ListCell<T>> cellFactory, String emptyText, Comparator<? super T> order) {
+        this.emptyText = emptyText;
+        this.order = order;
+        listView.setPlaceholder(placeholder(emptyText, false));
+        listView.setCellFactory(lv -> {
+            ListCell<T> cell = cellFactory.call(lv);
+            cell.indexProperty().addListener((obs, oldIndex, newIndex) -> maybeLoadMore(newIndex.intValue()));
+            return cell;
+        });
+    }
+
+    public ListView<T> getListView() { return listView; }
+    public ObservableList<T> getItems() { return listView.getItems(); }
+
+    /**
+     * Clears the list and starts paging through the given loader from its first page.
+     */
+    public void load(PageLoader<T> loader) {
+        this.loader = loader;
+        this.nextCursor = null;
+        generation++;
+        listView.getItems().clear();
+        fetch(null);
+    }
+
+    /**
+     * Same as load(loader), for a loader that returns its items in another order.
+     */
+    public void load(PageLoader<T> loader, Comparator<? super T> order) {
+        this.order = order;
+        load(loader);
+    }
+
+    public void reload() {
+        if (loader != null) {
+            load(loader);
+        }
+    }
+
+    /**
+     * Applies a change to one item in place: replaces it, removes it when it no longer
+     * belongs, or inserts it at its sorted position. Items that would sort after the
+     * loaded rows are left for a later page.
+     */
+    public void upsert(T item, Predicate<? super T> sameItem, boolean belongs) {
+        List<T> items = listView.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (sameItem.test(items.get(i))) {
+                if (belongs) {
+                    items.set(i, item);
+                } else {
+                    items.remove(i);
+                }
+                return;
+            }
+        }
+        if (!belongs) {
+            return;
+        }
+        int position = 0;
+        while (position < items.size() && order.compare(items.get(position), item) < 0) {
+            position++;
+        }
+        // While a page is in flight it will bring the item itself
+        if (!loading && (position < items.size() || nextCursor == null)) {
+            items.add(position, item);
+        }
+    }
+
+    public void removeIf(Predicate<? super T> filter) {
+        listView.getItems().removeIf(filter);
+    }
+
+    private void maybeLoadMore(int index) {
+        if (index < 0 || nextCursor == null || loading) {
+            return;
+        }
+        if (index >= listView.getItems().size() - PREFETCH_ROWS) {
+            // Items are only added once the page arrives, so this is safe during layout
+            fetch(nextCursor);
+        }
+    }
+
+    private void fetch(String cursor) {
+        loading = true;
+        int requestGeneration = generation;
+        if (listView.getItems().isEmpty()) {
+            listView.setPlaceholder(new ProgressIndicator());
+        }
+        loader.load(cursor).whenComplete((page, error) -> {
+            if (requestGeneration != generation) {
+                return; // a newer load() replaced this list
+            }
+            loading = false;
+            if (error != null) {
+                Throwable cause = AsyncDatabaseHelper.rootCause(error);
+                nextCursor = null;
+                listView.setPlaceholder(placeholder("Error loading questions: " + cause.getMessage(), true));
+                cause.printStackTrace();
+                return;
+            }
+            listView.setPlaceholder(placeholder(emptyText, false));
+            listView.getItems().addAll(page.getItems());
+            nextCursor = page.getNextCursor();
+        });
+    }
+
+    private static Label placeholder(String text, boolean error) {
+        Label label = new Label(text);
+        label.setWrapText(true);
+        label.setStyle(error ? "-fx-text-fill: red;" : "-fx-text-fill: #999; -fx-font-style: italic;");
+        return label;
+    }
+}
@@ -66,6 +66,10 @@ public class PasswordEvaluator {
 	 * This method is a mechanical transformation of a Directed Graph diagram into a Java
 	 * method.
 	 * 
+	 * This version prints a trace of every character it scans and keeps its state in the
+	 * static fields above, so only one thread may use it at a time. It is kept for the
+	 * FSM trace in PasswordEvaluationTestingAutomation; applications call checkPassword.
+	 * 
 	 * @param input		The input string for directed graph processing
 	 * @return			An output string that is empty if every things is okay or it will be
 	 * 						a string with a help description of the error follow by two lines
@@ -158,6 +162,10 @@ public class PasswordEvaluator {
 
 	}
 	
+	/**********
+	 * The username counterpart of evaluatePassword, with the same tracing and static
+	 * state; applications call checkUsername.
+	 */
 	public static String evaluateUsername(String input) {
 		// The following are the local variable used to perform the Directed Graph simulation
 		passwordErrorMessage = "";
@@ -234,4 +242,143 @@ public class PasswordEvaluator {
 		return errMessage + "conditions were not satisfied";
 
 	}
+
+	/**********************************************************************************************
+	 * 
+	 * Reentrant evaluation. The same directed graph as above, but each call keeps its state in
+	 * local variables, prints nothing and returns everything it found in one immutable
+	 * Evaluation, so any number of threads can evaluate at once (e.g. when provisioning many
+	 * accounts). Nothing is allocated apart from the Evaluation itself.
+	 * 
+	 */
+
+	private static final String PASSWORD_SPECIAL_CHARS = "~`!@#$%^&*()_-+{}[]|:,.?/";
+	private static final String USERNAME_SPECIAL_CHARS = PASSWORD_SPECIAL_CHARS + " ";
+	private static final int PASSWORD_MIN_LENGTH = 6;
+	private static final int USERNAME_MIN_LENGTH = 4;
+
+	// Bits of Evaluation.found
+	private static final int UPPER_CASE = 1;
+	private static final int LOWER_CASE = 2;
+	private static final int NUMERIC_DIGIT = 4;
+	private static final int SPECIAL_CHAR = 8;
+	private static final int LONG_ENOUGH = 16;
+	private static final int OTHER_CHAR = 32;
+
+	/**********
+	 * The outcome of checkPassword or checkUsername: the rule flags that evaluatePassword
+	 * and evaluateUsername leave in the static fields, the index of the error, and the same
+	 * error message they return.
+	 */
+	public static final class Evaluation {
+		private final boolean username;		// which rules apply
+		private final boolean empty;
+		private final int found;			// UPPER_CASE, LOWER_CASE, ... bits
+		private final int errorIndex;
+
+		private Evaluation(boolean username, boolean empty, int found, int errorIndex) {
+			this.username = username;
+			this.empty = empty;
+			this.found = found;
+			this.errorIndex = errorIndex;
+		}
+
+		public boolean isEmpty() { return empty; }
+		public boolean foundUpperCase() { return (found & UPPER_CASE) != 0; }
+		public boolean foundLowerCase() { return (found & LOWER_CASE) != 0; }
+		public boolean foundNumericDigit() { return (found & NUMERIC_DIGIT) != 0; }
+		public boolean foundSpecialChar() { return (found & SPECIAL_CHAR) != 0; }
+		public boolean foundLongEnough() { return (found & LONG_ENOUGH) != 0; }
+		public boolean foundOtherChar() { return (found & OTHER_CHAR) != 0; }
+
+		/**
+		 * The index of the invalid character, or the input length when a rule was not met,
+		 * or 0 when the input is valid or empty.
+		 */
+		public int getErrorIndex() { return errorIndex; }
+
+		public boolean isValid() {
+			if (empty || foundOtherChar()) {
+				return false;
+			}
+			// Usernames may not contain special characters; passwords need one of everything
+			return username
+				? !foundSpecialChar() && foundLongEnough()
+				: (found & (UPPER_CASE | LOWER_CASE | NUMERIC_DIGIT | SPECIAL_CHAR | LONG_ENOUGH))
+					== (UPPER_CASE | LOWER_CASE | NUMERIC_DIGIT | SPECIAL_CHAR | LONG_ENOUGH);
+		}
+
+		/**
+		 * The message evaluatePassword or evaluateUsername would have returned: empty when
+		 * the input is valid. Built on request, so evaluating never allocates it.
+		 */
+		public String getErrorMessage() {
+			if (empty) {
+				return "*** Error *** The password is empty!";
+			}
+			if (foundOtherChar()) {
+				return "*** Error *** An invalid character has been found!";
+			}
+			if (isValid()) {
+				return "";
+			}
+			StringBuilder message = new StringBuilder();
+			if (username) {
+				if (foundSpecialChar())
+					message.append("Special character; ");
+			} else {
+				if (!foundUpperCase())
+					message.append("Upper case; ");
+				if (!foundLowerCase())
+					message.append("Lower case; ");
+				if (!foundNumericDigit())
+					message.append("Numeric digits; ");
+				if (!foundSpecialChar())
+					message.append("Special character; ");
+			}
+			if (!foundLongEnough())
+				message.append("Long Enough; ");
+			return message.append("conditions were not satisfied").toString();
+		}
+	}
+
+	/**********
+	 * Evaluates a password against the same rules as evaluatePassword.
+	 */
+	public static Evaluation checkPassword(String input) {
+		return evaluate(input, false, PASSWORD_SPECIAL_CHARS, PASSWORD_MIN_LENGTH);
+	}
+
+	/**********
+	 * Evaluates a username against the same rules as evaluateUsername.
+	 */
+	public static Evaluation checkUsername(String input) {
+		return evaluate(input, true, USERNAME_SPECIAL_CHARS, USERNAME_MIN_LENGTH);
+	}
+
+	private static Evaluation evaluate(String input, boolean username, String specialChars, int minLength) {
+		if (input.isEmpty()) {
+			return new Evaluation(username, true, 0, 0);
+		}
+		int found = 0;
+		for (int ndx = 0; ndx < input.length(); ndx++) {
+			char c = input.charAt(ndx);
+			if (c >= 'A' && c <= 'Z') {
+				found |= UPPER_CASE;
+			} else if (c >= 'a' && c <= 'z') {
+				found |= LOWER_CASE;
+			} else if (c >= '0' && c <= '9') {
+				found |= NUMERIC_DIGIT;
+			} else if (specialChars.indexOf(c) >= 0) {
+				found |= SPECIAL_CHAR;
+			} else {
+				return new Evaluation(username, false, found | OTHER_CHAR, ndx);
+			}
+			if (ndx >= minLength - 1) {
+				found |= LONG_ENOUGH;
+			}
+		}
+		Evaluation evaluation = new Evaluation(username, false, found, 0);
+		return evaluation.isValid() ? evaluation : new Evaluation(username, false, found, input.length());
+	}
 }
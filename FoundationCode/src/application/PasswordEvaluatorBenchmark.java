@@ -0,0 +1,177 @@
+package application;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*******
+ * <p> Title: PasswordEvaluatorBenchmark Class. </p>
+ *
+ * <p> Description: Compares the tracing evaluatePassword with the reentrant checkPassword
+ * on generated passwords (valid ones, ones missing a rule, and ones with an invalid
+ * character). The legacy trace is sent to a discarding stream, so its figures leave out
+ * the cost of a real console and are a best case. Reports time and bytes allocated per
+ * call on one thread, throughput on every core, and how many results come out wrong when
+ * each evaluator is called from several threads at once (an exception counts as
+ * wrong). </p>
+ *
+ */
+public class PasswordEvaluatorBenchmark {
+
+    private static final int INPUTS = 10_000;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 20;
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789~!@#$%^&*()_-+";
+
+    // HotSpot counts the bytes each thread allocates
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        List<String> inputs = inputs(new Random(42));
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // The expected answers, from the legacy evaluator on one thread
+        String[] expected = new String[INPUTS];
+        System.setOut(discard);
+        for (int i = 0; i < INPUTS; i++) {
+            expected[i] = PasswordEvaluator.evaluatePassword(inputs.get(i)) + "@" + PasswordEvaluator.passwordIndexofError;
+        }
+        System.setOut(console);
+
+        console.println("______________________________________");
+        console.println("\nPassword evaluation, " + INPUTS + " inputs, " + cores + " cores");
+        console.printf("%n%-16s %10s %12s %14s %12s%n", "", "us/call", "bytes/call", "calls/s (all)", "wrong (all)");
+
+        System.setOut(discard);
+        double[] legacy = singleThread(inputs, true);
+        double legacyThroughput = throughput(inputs, true, cores);
+        int legacyWrong = concurrentMismatches(inputs, expected, true, cores);
+        System.setOut(console);
+        console.printf("%-16s %10.3f %12.0f %14.0f %12d%n", "evaluatePassword", legacy[0], legacy[1], legacyThroughput, legacyWrong);
+
+        double[] reentrant = singleThread(inputs, false);
+        double reentrantThroughput = throughput(inputs, false, cores);
+        int reentrantWrong = concurrentMismatches(inputs, expected, false, cores);
+        console.printf("%-16s %10.3f %12.0f %14.0f %12d%n", "checkPassword", reentrant[0], reentrant[1], reentrantThroughput, reentrantWrong);
+        console.println("____________________________________________________________________________");
+    }
+
+    private static int evaluate(String input, boolean legacy) {
+        if (legacy) {
+            return PasswordEvaluator.evaluatePassword(input).length();
+        }
+        return PasswordEvaluator.checkPassword(input).getErrorIndex();
+    }
+
+    // Median microseconds and mean bytes allocated per call
+    private static double[] singleThread(List<String> inputs, boolean legacy) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (String input : inputs) {
+                evaluate(input, legacy);
+            }
+        }
+        long[] nanos = new long[ROUNDS];
+        long allocated = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (String input : inputs) {
+                evaluate(input, legacy);
+            }
+            nanos[round] = System.nanoTime() - start;
+            allocated += THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+        }
+        Arrays.sort(nanos);
+        return new double[] {nanos[ROUNDS / 2] / 1e3 / inputs.size(), (double) allocated / ROUNDS / inputs.size()};
+    }
+
+    private static double throughput(List<String> inputs, boolean legacy, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (String input : inputs) {
+                            evaluate(input, legacy);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (double) threads * ROUNDS * inputs.size() / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Results that differ from the single-threaded answer when every core evaluates at once
+    private static int concurrentMismatches(List<String> inputs, String[] expected, boolean legacy, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(2, threads));
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < Math.max(2, threads); t++) {
+                futures.add(pool.submit(() -> {
+                    int wrong = 0;
+                    for (int i = 0; i < inputs.size(); i++) {
+                        String actual;
+                        if (legacy) {
+                            try {
+                                String message = PasswordEvaluator.evaluatePassword(inputs.get(i));
+                                actual = message + "@" + PasswordEvaluator.passwordIndexofError;
+                            } catch (RuntimeException e) {
+                                // Another thread swapped the input while this one was scanning it
+                                actual = e.toString();
+                            }
+                        } else {
+                            PasswordEvaluator.Evaluation result = PasswordEvaluator.checkPassword(inputs.get(i));
+                            actual = result.getErrorMessage() + "@" + result.getErrorIndex();
+                        }
+                        if (!actual.equals(expected[i])) {
+                            wrong++;
+                        }
+                    }
+                    return wrong;
+                }));
+            }
+            int wrong = 0;
+            for (Future<Integer> future : futures) {
+                wrong += future.get();
+            }
+            return wrong;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Passwords of 4 to 16 characters; about one in ten has a character outside the rules
+    private static List<String> inputs(Random random) {
+        List<String> inputs = new ArrayList<>(INPUTS);
+        for (int i = 0; i < INPUTS; i++) {
+            int length = 4 + random.nextInt(13);
+            StringBuilder password = new StringBuilder(length);
+            for (int c = 0; c < length; c++) {
+                password.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            if (random.nextInt(10) == 0) {
+                password.setCharAt(random.nextInt(length), random.nextBoolean() ? ' ' : 'é');
+            }
+            inputs.add(password.toString());
+        }
+        return inputs;
+    }
+}
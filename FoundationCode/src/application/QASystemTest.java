@@ -1,8 +1,18 @@
 package application;
 
 
+import databasePart1.AsyncDatabaseHelper;
+
 import databasePart1.DatabaseHelper;
 
+import databasePart1.Page;
+
+import databasePart1.QAEvent;
+
+import databasePart1.QAEventBus;
+
+import databasePart1.QuestionFilter;
+
 import org.junit.jupiter.api.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +44,12 @@ public class QASystemTest {
 
     static void setupDatabase() throws SQLException {
 
+        // Keep the spell checker off any dictionary file in the real home directory
+
+        System.setProperty("spellchecker.dictionary",
+
+            java.nio.file.Paths.get(System.getProperty("java.io.tmpdir"), "QASystemTest.dict").toString());
+
         db = new DatabaseHelper();
 
         db.connectToDatabase();
@@ -1058,4 +1074,2509 @@ public class QASystemTest {
 
     }
 
+    
+
+    @Test
+
+    @DisplayName("Test 32: Batched answer loading matches per-question loading")
+
+    void testBatchedAnswerLoading() throws SQLException {
+
+        Question q1 = new Question("Batched Load One", "First question for batched loading", testUser1.getUserName());
+
+        Question q2 = new Question("Batched Load Two", "Second question for batched loading", testUser1.getUserName());
+
+        int q1Id = db.createQuestion(q1);
+
+        int q2Id = db.createQuestion(q2);
+
+        db.createAnswer(new Answer(q1Id, "Answer one for q1", testUser2.getUserName()));
+
+        db.createAnswer(new Answer(q1Id, "Answer two for q1", testUser2.getUserName()));
+
+        db.createAnswer(new Answer(q2Id, "Answer one for q2", testUser2.getUserName()));
+
+        
+
+        List<Question> questions = List.of(db.getQuestionById(q1Id), db.getQuestionById(q2Id));
+
+        db.loadAnswersForQuestions(questions);
+
+        
+
+        assertEquals(2, questions.get(0).getAnswers().size(), "First question should have 2 answers");
+
+        assertEquals(1, questions.get(1).getAnswers().size(), "Second question should have 1 answer");
+
+        assertEquals(db.getAnswersForQuestion(q1Id).get(0).getId(), questions.get(0).getAnswers().get(0).getId(),
+
+            "Batched answers should keep the per-question ordering");
+
+        
+
+        List<Question> mine = db.getAllQuestions(testUser1.getUserName());
+
+        Question listed = mine.stream().filter(q -> q.getId() == q2Id).findFirst().orElse(null);
+
+        assertNotNull(listed, "Question should be listed for its author");
+
+        assertEquals(1, listed.getAnswers().size(), "Listed question should carry its answers");
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 33: Keyset pagination returns every question exactly once")
+
+    void testQuestionPagination() throws SQLException {
+
+        User pageUser = new User("pageTester", "Pass789!", "user");
+
+        if (!db.doesUserExist(pageUser.getUserName())) {
+
+            db.register(pageUser);
+
+        }
+
+        for (int i = 0; i < 5; i++) {
+
+            db.createQuestion(new Question("Paged question " + i, "Content for paged question " + i, pageUser.getUserName()));
+
+        }
+
+        
+
+        QuestionFilter filter = QuestionFilter.byAuthor(pageUser.getUserName());
+
+        List<Integer> seenIds = new java.util.ArrayList<>();
+
+        String cursor = null;
+
+        do {
+
+            Page<Question> page = db.getQuestionPage(filter, cursor, 2);
+
+            assertTrue(page.getItems().size() <= 2, "Page should not exceed the page size");
+
+            page.getItems().forEach(q -> seenIds.add(q.getId()));
+
+            cursor = page.getNextCursor();
+
+        } while (cursor != null);
+
+        
+
+        List<Question> all = db.getAllQuestions(pageUser.getUserName());
+
+        assertEquals(all.size(), seenIds.size(), "Pages should cover every question");
+
+        assertEquals(seenIds.size(), new java.util.HashSet<>(seenIds).size(), "No question should appear twice");
+
+        assertThrows(IllegalArgumentException.class, () -> db.getQuestionPage(filter, "not-a-cursor", 2),
+
+            "Malformed cursors should be rejected");
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 34: Async facade runs calls in order and surfaces errors")
+
+    void testAsyncDatabaseHelper() throws Exception {
+
+        AsyncDatabaseHelper<DatabaseHelper> async = new AsyncDatabaseHelper<>(db, Runnable::run);
+
+        try {
+
+            List<Integer> order = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+
+            java.util.concurrent.CompletableFuture<Integer> first = async.call(h -> { order.add(1); return h.getUserCount(); });
+
+            java.util.concurrent.CompletableFuture<Boolean> second = async.call(h -> { order.add(2); return h.doesUserExist(testUser1.getUserName()); });
+
+            assertEquals(db.getUserCount(), first.get(5, java.util.concurrent.TimeUnit.SECONDS), "Result should come from the wrapped helper");
+
+            assertTrue(second.get(5, java.util.concurrent.TimeUnit.SECONDS), "Existing user should be found");
+
+            assertEquals(List.of(1, 2), order, "Calls should run in submission order");
+
+            java.util.concurrent.CompletableFuture<Object> failing = async.call(h -> { throw new SQLException("boom"); });
+
+            java.util.concurrent.ExecutionException ex = assertThrows(java.util.concurrent.ExecutionException.class,
+
+                () -> failing.get(5, java.util.concurrent.TimeUnit.SECONDS));
+
+            assertEquals("boom", AsyncDatabaseHelper.rootCause(ex).getMessage(), "The call's own exception should be reported");
+
+            assertEquals(0, async.pendingProperty().get(), "No calls should be pending once all have completed");
+
+        } finally {
+
+            async.shutdown();
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 35: Mutations publish change events with the affected question")
+
+    void testChangeEvents() throws SQLException {
+
+        List<QAEvent> events = new java.util.ArrayList<>();
+
+        QAEventBus.Subscription subscription = db.events().subscribe(events::add);
+
+        try {
+
+            Question q = new Question("Event question title", "Content that should trigger events", testUser1.getUserName());
+
+            int qId = db.createQuestion(q);
+
+            Answer a = new Answer(qId, "An answer that should trigger events", testUser2.getUserName());
+
+            int aId = db.createAnswer(a);
+
+            db.upvoteAnswer(aId);
+
+            db.markAnswerAsRead(aId);
+
+            db.markQuestionResolved(qId, aId, testUser1.getUserName());
+
+            db.deleteAnswer(aId, testUser2.getUserName());
+
+            db.deleteQuestion(qId, testUser1.getUserName());
+
+            assertEquals(List.of(QAEvent.Type.QUESTION_CREATED, QAEvent.Type.ANSWER_CREATED, QAEvent.Type.ANSWER_UPVOTED,
+
+                    QAEvent.Type.ANSWER_READ, QAEvent.Type.QUESTION_RESOLVED, QAEvent.Type.ANSWER_DELETED, QAEvent.Type.QUESTION_DELETED),
+
+                events.stream().map(QAEvent::getType).collect(java.util.stream.Collectors.toList()), "Each change should publish one event");
+
+            assertTrue(events.stream().allMatch(e -> e.getQuestionId() == qId), "Answer events should carry their question id");
+
+            assertFalse(db.deleteQuestion(qId, testUser1.getUserName()), "Deleting again should fail");
+
+            assertEquals(7, events.size(), "Failed changes should not publish events");
+
+            q.markAsResolved(aId);
+
+            assertFalse(QuestionFilter.unresolved().matches(q), "Resolved question should not match the unresolved filter");
+
+            assertTrue(QuestionFilter.byAuthor(testUser1.getUserName()).matches(q), "Author filter should match the asker");
+
+        } finally {
+
+            subscription.close();
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 36: Full-text search ranks, stems, covers answers and stays current")
+
+    void testFullTextSearch() throws Exception {
+
+        int titleHit = db.createQuestion(new Question("Sorting zebrafish arrays", "Which algorithm suits this data best?", testUser1.getUserName()));
+
+        int bodyHit = db.createQuestion(new Question("Question about arrays", "My zebrafish data needs sorting somehow", testUser1.getUserName()));
+
+        int answerHit = db.createQuestion(new Question("Lab data question", "How should I store experiment results?", testUser1.getUserName()));
+
+        db.createAnswer(new Answer(answerHit, "Keep the zebrafish measurements in a table", testUser2.getUserName()));
+
+        List<Integer> ids = db.searchQuestions("zebrafish").stream().map(Question::getId).collect(java.util.stream.Collectors.toList());
+
+        assertEquals(List.of(titleHit, bodyHit, answerHit), ids, "Title matches should outrank body matches, which outrank answer matches");
+
+        assertTrue(db.searchQuestions("sorted zebrafishes").stream().anyMatch(q -> q.getId() == titleHit), "Stemmed forms should match");
+
+        assertTrue(db.searchQuestions("the of and").isEmpty(), "Stop words alone should match nothing");
+
+        Question edited = db.getQuestionById(bodyHit);
+
+        edited.setContent("My data needs sorting somehow");
+
+        db.updateQuestion(edited);
+
+        db.deleteQuestion(titleHit, testUser1.getUserName());
+
+        ids = db.searchQuestions("zebrafish").stream().map(Question::getId).collect(java.util.stream.Collectors.toList());
+
+        assertEquals(List.of(answerHit), ids, "Edits and deletes should update the index");
+
+        databasePart1.SearchIndex index = new databasePart1.SearchIndex();
+
+        index.index(db.getQuestionById(answerHit));
+
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("search", ".idx");
+
+        index.save(file, "v1");
+
+        assertEquals(1, databasePart1.SearchIndex.load(file, "v1").search("zebrafish", 10).size(), "Saved index should load back");
+
+        assertNull(databasePart1.SearchIndex.load(file, "v2"), "A stale index file should be rejected");
+
+        java.nio.file.Files.deleteIfExists(file);
+
+        // A saved index is rebuilt when a row's text changed, even to text of the same length
+
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("searchdb");
+
+        String url = "jdbc:h2:" + dir.resolve("qa");
+
+        DatabaseHelper fileHelper = new DatabaseHelper();
+
+        fileHelper.connectToDatabase(url);
+
+        try {
+
+            fileHelper.register(new User("indexAsker", "Pass123!", "user"));
+
+            int stored = fileHelper.createQuestion(new Question("Stored index question", "Where does the platypus live?", "indexAsker"));
+
+            fileHelper.closeConnection();
+
+            assertTrue(java.nio.file.Files.exists(dir.resolve("qa.search.idx")), "Closing should save the index");
+
+            try (java.sql.Connection conn = java.sql.DriverManager.getConnection(url, "sa", "");
+
+                 java.sql.Statement stmt = conn.createStatement()) {
+
+                stmt.executeUpdate("UPDATE questions SET content = 'Where does the aardvark live?' WHERE id = " + stored);
+
+            }
+
+            fileHelper = new DatabaseHelper();
+
+            fileHelper.connectToDatabase(url);
+
+            assertEquals(List.of(stored), ids(fileHelper.searchQuestions("aardvark")));
+
+            assertTrue(fileHelper.searchQuestions("platypus").isEmpty());
+
+        } finally {
+
+            fileHelper.closeConnection();
+
+            try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.list(dir)) {
+
+                for (java.nio.file.Path each : (Iterable<java.nio.file.Path>) files::iterator) {
+
+                    java.nio.file.Files.delete(each);
+
+                }
+
+            }
+
+            java.nio.file.Files.delete(dir);
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 37: Similar-question index suggests near duplicates and stays current")
+
+    void testSimilarQuestions() throws SQLException {
+
+        int original = db.createQuestion(new Question("How do I reverse a quokka linked list in place",
+
+            "I need to reverse the quokka list without allocating new nodes", testUser1.getUserName()));
+
+        List<Integer> ids = db.findSimilarQuestions("How to reverse a quokka linked list", "", 5)
+
+            .stream().map(Question::getId).collect(java.util.stream.Collectors.toList());
+
+        assertTrue(ids.contains(original), "A retyped title should find the original question");
+
+        assertTrue(db.findSimilarQuestions("Painting techniques for watercolor landscapes", "", 5)
+
+            .stream().noneMatch(q -> q.getId() == original), "Unrelated titles should not match");
+
+        Question edited = db.getQuestionById(original);
+
+        edited.setTitle("Choosing a hash function for strings");
+
+        db.updateQuestion(edited);
+
+        assertTrue(db.findSimilarQuestions("How to reverse a quokka linked list", "", 5)
+
+            .stream().noneMatch(q -> q.getId() == original), "Edited titles should be re-indexed");
+
+        db.deleteQuestion(original, testUser1.getUserName());
+
+        assertTrue(db.findSimilarQuestions("Choosing a hash function for strings", "", 5)
+
+            .stream().noneMatch(q -> q.getId() == original), "Deleted questions should leave the index");
+
+        // Heavy churn keeps every band's buckets consistent: live titles find themselves, removed ones never return
+
+        databasePart1.SimilarQuestionIndex churned = new databasePart1.SimilarQuestionIndex();
+
+        java.util.Random random = new java.util.Random(37);
+
+        String[] titles = new String[30_000];
+
+        List<Integer> live = new java.util.ArrayList<>();
+
+        List<Integer> removed = new java.util.ArrayList<>();
+
+        for (int id = 0; id < titles.length; id++) {
+
+            StringBuilder title = new StringBuilder();
+
+            for (int word = 0; word < 6; word++) {
+
+                title.append("term").append(Integer.toString(random.nextInt(4000), 36)).append(' ');
+
+            }
+
+            titles[id] = title.toString();
+
+            churned.index(id, titles[id], "");
+
+            live.add(id);
+
+            if (random.nextInt(3) == 0) {
+
+                int gone = live.remove(random.nextInt(live.size()));
+
+                churned.remove(gone);
+
+                removed.add(gone);
+
+            }
+
+        }
+
+        assertEquals(live.size(), churned.size());
+
+        for (int i = 0; i < 300; i++) {
+
+            int kept = live.get(random.nextInt(live.size()));
+
+            assertTrue(churned.findSimilar(titles[kept], "", 5).stream().anyMatch(m -> m.getQuestionId() == kept));
+
+            int gone = removed.get(random.nextInt(removed.size()));
+
+            assertTrue(churned.findSimilar(titles[gone], "", 5).stream().noneMatch(m -> m.getQuestionId() == gone));
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 38: Connection pool serves parallel callers and reports leaks and timeouts")
+
+    void testConnectionPool() throws Exception {
+
+        int id = db.createQuestion(new Question("Pool test question", "Read from many threads at once", testUser1.getUserName()));
+
+        java.util.concurrent.ExecutorService workers = java.util.concurrent.Executors.newFixedThreadPool(6);
+
+        List<java.util.concurrent.Future<String>> reads = new java.util.ArrayList<>();
+
+        for (int i = 0; i < 60; i++) {
+
+            reads.add(workers.submit(() -> db.getQuestionById(id).getTitle()));
+
+        }
+
+        for (java.util.concurrent.Future<String> read : reads) {
+
+            assertEquals("Pool test question", read.get());
+
+        }
+
+        workers.shutdown();
+
+        databasePart1.ConnectionPool.Stats stats = db.getPoolStats();
+
+        assertTrue(stats.getOpen() <= stats.getMaxSize(), "The pool should never exceed its size: " + stats);
+
+        assertEquals(0, stats.getActive(), "Every borrowed connection should have been returned: " + stats);
+
+        db.deleteQuestion(id, testUser1.getUserName());
+
+
+
+        try (databasePart1.ConnectionPool pool = new databasePart1.ConnectionPool("jdbc:h2:mem:poolTest", "sa", "", 1)) {
+
+            pool.setBorrowTimeoutMillis(100);
+
+            pool.setLeakThresholdMillis(50);
+
+            pool.setLeakTracesEnabled(true);
+
+            try (java.sql.Connection outer = pool.getConnection(); java.sql.Connection nested = pool.getConnection()) {
+
+                assertTrue(nested.isValid(1));
+
+                assertSame(outer.unwrap(java.sql.Connection.class), nested.unwrap(java.sql.Connection.class),
+
+                    "Nested borrows on one thread should reuse the held connection");
+
+                java.util.concurrent.Future<?> other = java.util.concurrent.Executors.newSingleThreadExecutor().submit(() -> {
+
+                    assertThrows(SQLException.class, pool::getConnection, "A full pool should time out");
+
+                    return null;
+
+                });
+
+                other.get();
+
+                Thread.sleep(1500);
+
+            }
+
+            assertEquals(1, pool.getStats().getTimeouts());
+
+            assertEquals(1, pool.getStats().getLeaksDetected(), "A connection held past the threshold should be reported");
+
+            assertEquals(1, pool.getStats().getIdle());
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 39: Prepared statements are cached per connection with LRU eviction")
+
+    void testStatementCache() throws Exception {
+
+        try (databasePart1.ConnectionPool pool = new databasePart1.ConnectionPool("jdbc:h2:mem:statementCacheTest", "sa", "", 1)) {
+
+            pool.setStatementCacheSize(2);
+
+            try (java.sql.Connection conn = pool.getConnection()) {
+
+                for (int i = 0; i < 3; i++) {
+
+                    try (java.sql.PreparedStatement ps = conn.prepareStatement("SELECT ? + 1")) {
+
+                        ps.setInt(1, i);
+
+                        try (java.sql.ResultSet rs = ps.executeQuery()) {
+
+                            assertTrue(rs.next());
+
+                            assertEquals(i + 1, rs.getInt(1), "A reused statement should see the new parameters");
+
+                        }
+
+                    }
+
+                }
+
+                assertEquals(2, pool.getStats().getStatementHits());
+
+                assertEquals(1, pool.getStats().getStatementMisses());
+
+                try (java.sql.PreparedStatement outer = conn.prepareStatement("SELECT 1");
+
+                     java.sql.PreparedStatement inner = conn.prepareStatement("SELECT 1")) {
+
+                    assertNotSame(outer, inner, "A statement still in use must not be handed out twice");
+
+                }
+
+                conn.prepareStatement("SELECT 2").close();
+
+                conn.prepareStatement("SELECT 3").close();
+
+                conn.prepareStatement("SELECT ? + 1").close();
+
+                assertEquals(6, pool.getStats().getStatementMisses(), "The least recently used statement should be evicted");
+
+            }
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 40: Schema migrations upgrade a legacy database once and detect edits")
+
+    void testSchemaMigrations() throws Exception {
+
+        try (java.sql.Connection conn = java.sql.DriverManager.getConnection("jdbc:h2:mem:migrationTest", "sa", "");
+
+             java.sql.Statement stmt = conn.createStatement()) {
+
+            // A database from before the migration history, still on the old password flag
+
+            stmt.execute("CREATE TABLE cse360users (id INT AUTO_INCREMENT PRIMARY KEY, userName VARCHAR(20) UNIQUE, "
+
+                + "password VARCHAR(20), otp VARCHAR(16), role VARCHAR(20), tempPassword_IsUsed BOOLEAN)");
+
+            stmt.execute("INSERT INTO cse360users (userName, role, tempPassword_IsUsed) VALUES ('legacy', 'user', TRUE)");
+
+
+
+            databasePart1.SchemaMigrator migrator = new databasePart1.SchemaMigrator(databasePart1.SchemaMigrations.all());
+
+            assertEquals(migrator.getMigrations().size(), migrator.migrate(conn), "Every migration should run on a legacy database");
+
+            assertEquals(0, migrator.migrate(conn), "Applied migrations should not run again");
+
+            assertEquals(migrator.getMigrations().size(), databasePart1.SchemaMigrator.currentVersion(conn));
+
+            try (java.sql.ResultSet rs = stmt.executeQuery("SELECT otpIsUsed FROM cse360users WHERE userName = 'legacy'")) {
+
+                assertTrue(rs.next());
+
+                assertTrue(rs.getBoolean(1), "The old flag should be carried over");
+
+            }
+
+            try (java.sql.ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES "
+
+                    + "WHERE INDEX_NAME = 'IDX_ANSWERS_QUESTION_ORDER'")) {
+
+                rs.next();
+
+                assertEquals(1, rs.getInt(1), "The answer lookup index should exist");
+
+            }
+
+
+
+            java.util.List<databasePart1.SchemaMigrator.Migration> edited = new java.util.ArrayList<>(databasePart1.SchemaMigrations.all());
+
+            edited.set(2, databasePart1.SchemaMigrator.Migration.sql(3, "Index the question and answer lookups",
+
+                "CREATE INDEX IF NOT EXISTS idx_other ON answers(answeredBy)"));
+
+            assertThrows(SQLException.class, () -> new databasePart1.SchemaMigrator(edited).migrate(conn),
+
+                "Editing an applied migration should be detected");
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 41: Read cache serves repeat reads and is invalidated by writes")
+
+    void testReadCache() throws Exception {
+
+        int id = db.createQuestion(new Question("Cached question title", "Content that will be cached", testUser1.getUserName()));
+
+        Question first = db.getQuestionById(id);
+
+        long hitsBefore = db.getReadCacheStats().get(0).getHits();
+
+        Question second = db.getQuestionById(id);
+
+        assertEquals(hitsBefore + 1, db.getReadCacheStats().get(0).getHits(), "The second read should be a cache hit");
+
+        second.setTitle("Changed only locally");
+
+        assertEquals("Cached question title", db.getQuestionById(id).getTitle(), "Callers should get their own copies");
+
+
+
+        int answerId = db.createAnswer(new Answer(id, "An answer that invalidates", testUser2.getUserName()));
+
+        assertEquals(1, db.getQuestionById(id).getAnswers().size(), "Creating an answer should invalidate the question");
+
+        db.upvoteAnswer(answerId);
+
+        assertEquals(1, db.getAnswersForQuestion(id).get(0).getUpvotes(), "Upvotes should invalidate cached answers");
+
+        Question edited = db.getQuestionById(id);
+
+        edited.setTitle("Edited cached question");
+
+        db.updateQuestion(edited);
+
+        assertTrue(db.getAllQuestions(testUser1.getUserName()).stream().anyMatch(q -> q.getTitle().equals("Edited cached question")),
+
+            "Edits should invalidate cached lists");
+
+        db.markQuestionResolved(id, answerId, testUser1.getUserName());
+
+        assertTrue(db.getUnresolvedQuestions().stream().noneMatch(q -> q.getId() == id), "Resolving should invalidate lists");
+
+        db.deleteQuestion(id, testUser1.getUserName());
+
+        assertNull(db.getQuestionById(id), "Deleted questions should not be served from the cache");
+
+        assertEquals(first.getId(), id);
+
+
+
+        databasePart1.EntityCache<Integer, String> cache = new databasePart1.EntityCache<>("test", 10, 50, String::length);
+
+        assertEquals("abcd", cache.get(1, k -> "abcd"));
+
+        assertEquals("efgh", cache.get(2, k -> "efgh"));
+
+        assertEquals("ijkl", cache.get(3, k -> "ijkl"));
+
+        assertEquals(1, cache.getStats().getEvictions(), "Going over the weight limit should evict the least recently used entry");
+
+        assertEquals("new", cache.get(1, k -> "new"), "The evicted entry should be loaded again");
+
+        Thread.sleep(80);
+
+        assertEquals("later", cache.get(3, k -> "later"), "Expired entries should be reloaded");
+
+        assertEquals(1, cache.getStats().getExpirations());
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 42: Answer counters stay in step with answer writes and back the summary page")
+
+    void testQuestionSummaryCounters() throws SQLException {
+
+        int id = db.createQuestion(new Question("Counter question title", "Checks the denormalized counters", testUser1.getUserName()));
+
+        int first = db.createAnswer(new Answer(id, "First counted answer", testUser2.getUserName()));
+
+        int second = db.createAnswer(new Answer(id, "Second counted answer", testUser2.getUserName()));
+
+        db.markAnswerAsRead(first);
+
+        db.markAnswerAsRead(first);
+
+        db.upvoteAnswer(second);
+
+        db.upvoteAnswer(second);
+
+        QuestionSummary summary = summaryOf(id);
+
+        assertEquals(2, summary.getAnswerCount());
+
+        assertEquals(1, summary.getUnreadAnswerCount(), "Reading an answer twice should count once");
+
+        assertEquals(2, summary.getTopUpvotes());
+
+        assertEquals(db.getQuestionById(id).getUnreadAnswerCount(), summary.getUnreadAnswerCount(),
+
+            "Counters should agree with the answers themselves");
+
+
+
+        db.deleteAnswer(second, testUser2.getUserName());
+
+        summary = summaryOf(id);
+
+        assertEquals(1, summary.getAnswerCount());
+
+        assertEquals(0, summary.getUnreadAnswerCount());
+
+        assertEquals(0, summary.getTopUpvotes(), "Deleting the top answer should recompute the maximum");
+
+        assertFalse(db.deleteAnswer(first, testUser1.getUserName()), "Only the author may delete an answer");
+
+        assertEquals(1, summaryOf(id).getAnswerCount(), "A refused delete should leave the counters alone");
+
+        db.deleteQuestion(id, testUser1.getUserName());
+
+    }
+
+
+
+    private static QuestionSummary summaryOf(int questionId) throws SQLException {
+
+        String cursor = null;
+
+        do {
+
+            databasePart1.Page<QuestionSummary> page = db.getQuestionSummaryPage(
+
+                QuestionFilter.byAuthor(testUser1.getUserName()), cursor, DatabaseHelper.MAX_PAGE_SIZE);
+
+            for (QuestionSummary summary : page.getItems()) {
+
+                if (summary.getId() == questionId) {
+
+                    return summary;
+
+                }
+
+            }
+
+            cursor = page.getNextCursor();
+
+        } while (cursor != null);
+
+        return null;
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 43: Bulk mark-as-read is one batched write with one change event")
+
+    void testMarkAnswersAsRead() throws SQLException {
+
+        int id = db.createQuestion(new Question("Bulk read question", "Many answers to mark as read", testUser1.getUserName()));
+
+        List<Integer> answerIds = new java.util.ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+
+            answerIds.add(db.createAnswer(new Answer(id, "Bulk answer number " + i, testUser2.getUserName())));
+
+        }
+
+        db.markAnswerAsRead(answerIds.get(0));
+
+        List<QAEvent> received = new java.util.ArrayList<>();
+
+        QAEventBus.Subscription sub = db.events().subscribe(received::add);
+
+        try {
+
+            assertEquals(199, db.markAnswersAsRead(id, answerIds), "Only the unread answers should change");
+
+        } finally {
+
+            sub.close();
+
+        }
+
+        assertEquals(1, received.size(), "The whole batch should publish one event");
+
+        assertEquals(QAEvent.Type.ANSWER_READ, received.get(0).getType());
+
+        assertEquals(0, db.getQuestionById(id).getUnreadAnswerCount());
+
+        assertEquals(0, summaryOf(id).getUnreadAnswerCount(), "The unread counter should be adjusted once for the batch");
+
+        assertEquals(0, db.markAnswersAsRead(id, answerIds), "Marking again should change nothing");
+
+        db.deleteQuestion(id, testUser1.getUserName());
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 44: Votes count at once, once per user, and reach the database in batches")
+
+    void testVoteAggregation() throws Exception {
+
+        int id = db.createQuestion(new Question("Vote aggregation question", "Who voted for which answer", testUser1.getUserName()));
+
+        int answerId = db.createAnswer(new Answer(id, "An answer worth voting for", testUser2.getUserName()));
+
+        assertTrue(db.voteForAnswer(answerId, testUser1.getUserName()));
+
+        assertFalse(db.voteForAnswer(answerId, testUser1.getUserName()), "A second vote by the same user should be refused");
+
+        assertEquals(1, db.getAnswersForQuestion(id).get(0).getUpvotes(), "The vote should count before it is written");
+
+        java.util.concurrent.ExecutorService voters = java.util.concurrent.Executors.newFixedThreadPool(8);
+
+        java.util.concurrent.atomic.AtomicInteger accepted = new java.util.concurrent.atomic.AtomicInteger();
+
+        for (int i = 0; i < 200; i++) {
+
+            String voter = "voter" + (i % 100);
+
+            voters.execute(() -> {
+
+                try {
+
+                    if (db.voteForAnswer(answerId, voter)) {
+
+                        accepted.incrementAndGet();
+
+                    }
+
+                } catch (SQLException e) {
+
+                    throw new RuntimeException(e);
+
+                }
+
+            });
+
+        }
+
+        voters.shutdown();
+
+        assertTrue(voters.awaitTermination(30, java.util.concurrent.TimeUnit.SECONDS));
+
+        assertEquals(100, accepted.get(), "Each of the 100 voters should be counted once");
+
+        assertEquals(101, db.getQuestionById(id).getAnswers().get(0).getUpvotes());
+
+        db.flushVotes();
+
+        assertEquals(101, db.getAnswersForQuestion(id).get(0).getUpvotes(), "The flushed count should match the optimistic one");
+
+        assertEquals(101, summaryOf(id).getTopUpvotes());
+
+        assertTrue(db.hasVoted(answerId, "voter7"));
+
+        assertFalse(db.voteForAnswer(answerId, "voter7"), "Written votes should still block a repeat");
+
+        assertFalse(db.voteForAnswer(-1, testUser1.getUserName()), "Votes for missing answers should be refused");
+
+        db.deleteQuestion(id, testUser1.getUserName());
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 45: Live validation is debounced and only the latest text is reported")
+
+    void testValidationPipeline() throws Exception {
+
+        List<String> validated = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+
+        List<InputValidator.ValidationReport> delivered = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+
+        java.util.concurrent.CountDownLatch done = new java.util.concurrent.CountDownLatch(1);
+
+        ValidationPipeline pipeline = new ValidationPipeline(text -> {
+
+            validated.add(text);
+
+            return InputValidator.validateAnswerContent(text);
+
+        }, report -> {
+
+            delivered.add(report);
+
+            done.countDown();
+
+        }, 100, Runnable::run);
+
+        String body = "This answer explains the recieve method in detail. ";
+
+        StringBuilder typed = new StringBuilder();
+
+        while (typed.length() < 480) {
+
+            typed.append(body);
+
+            pipeline.submit(typed.toString());
+
+        }
+
+        assertTrue(done.await(5, java.util.concurrent.TimeUnit.SECONDS), "The last edit should be validated");
+
+        Thread.sleep(200);
+
+        assertEquals(1, validated.size(), "A burst of edits should be validated once");
+
+        assertEquals(typed.toString(), validated.get(0), "Only the latest text should be validated");
+
+        assertEquals(1, delivered.size());
+
+        assertEquals(1, pipeline.getRuns());
+
+        pipeline.submit("Something else entirely");
+
+        pipeline.cancel();
+
+        Thread.sleep(200);
+
+        assertEquals(1, delivered.size(), "A cancelled run should not report");
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 46: SpellChecker reports every check from its single pass")
+
+    void testSpellCheckerSinglePass() {
+
+        SpellChecker.ValidationResult result = SpellChecker.validateText("how do i recieve teh zorblax  from a method ,dont know");
+
+        assertEquals(java.util.Arrays.asList(
+
+            "Sentence should start with a capital letter",
+
+            "Question should end with a question mark (?)",
+
+            "Remove extra spaces between words",
+
+            "Possible misspelling: 'zorblax'",
+
+            "Auto-corrected: recieve → receive, teh → the, dont → don't"), withoutSuggestions(result));
+
+        assertEquals("How do i receive the zorblax from a method,don't know", result.getCorrectedText());
+
+        result = SpellChecker.validateText("THE METHOD METHOD ZORBLAXES NULL!! zorblax?? node2 my_var ....");
+
+        assertEquals(java.util.Arrays.asList(
+
+            "Possible misspelling: 'zorblaxes'",
+
+            "Possible misspelling: 'zorblax'",
+
+            "Avoid excessive exclamation marks",
+
+            "Avoid multiple question marks",
+
+            "Use proper ellipsis (...) instead of multiple periods",
+
+            "Avoid using ALL CAPS - it's considered shouting",
+
+            "Repeated word detected: 'method'"), withoutSuggestions(result));
+
+        assertEquals("THE METHOD METHOD ZORBLAXES NULL!! zorblax?? node2 my_var....", result.getCorrectedText());
+
+        assertFalse(SpellChecker.validateText("   ").isValid());
+
+    }
+
+    
+
+    // Suggestions depend on which dictionary is installed
+
+    private static List<String> withoutSuggestions(SpellChecker.ValidationResult result) {
+
+        List<String> warnings = new java.util.ArrayList<>();
+
+        for (String warning : result.getWarnings()) {
+
+            warnings.add(warning.replaceFirst(" \\(did you mean: .*\\?\\)$", ""));
+
+        }
+
+        return warnings;
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 47: CompactDictionary maps its file and suggests close words")
+
+    void testCompactDictionary() throws Exception {
+
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("dictionary", ".dict");
+
+        file.toFile().deleteOnExit();   // a mapped file cannot be deleted on Windows while in use
+
+        java.util.Map<String, Integer> words = new java.util.HashMap<>();
+
+        for (String word : new String[] {"receive", "recipe", "relieve", "believe", "the", "their", "there", "separate"}) {
+
+            words.put(word, 10);
+
+        }
+
+        words.put("then", 50);
+
+        words.put("Don't", 1);
+
+        CompactDictionary.write(words, file);
+
+        CompactDictionary dictionary = CompactDictionary.load(file);
+
+        assertNotNull(dictionary);
+
+        assertEquals(9, dictionary.size(), "Words that are not plain letters should be skipped");
+
+        assertTrue(dictionary.contains("receive"));
+
+        assertFalse(dictionary.contains("receiv"));
+
+        assertEquals("receive", dictionary.suggest("recieve", 3).get(0), "An adjacent swap is one edit");
+
+        assertEquals(java.util.Arrays.asList("separate"), dictionary.suggest("seperete", 3));
+
+        assertEquals("then", dictionary.suggest("thn", 5).get(0), "Ties in distance go to the more frequent word");
+
+        assertTrue(dictionary.suggest("xylophone", 3).isEmpty());
+
+        java.nio.file.Path damaged = java.nio.file.Files.createTempFile("damaged", ".dict");
+
+        damaged.toFile().deleteOnExit();
+
+        java.nio.file.Files.write(damaged, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertNull(CompactDictionary.load(damaged), "A damaged file should be ignored");
+
+        // Seven-letter words missing two letters share exactly one delete with the word, so
+        // each must be found by that single lookup, whichever index block it lands in
+
+        java.util.Random random = new java.util.Random(7);
+
+        java.util.Set<String> vocabulary = new java.util.TreeSet<>();
+
+        while (vocabulary.size() < 5_000) {
+
+            StringBuilder word = new StringBuilder();
+
+            for (int i = 0; i < 7; i++) {
+
+                word.append((char) ('a' + random.nextInt(26)));
+
+            }
+
+            vocabulary.add(word.toString());
+
+        }
+
+        CompactDictionary large = CompactDictionary.of(vocabulary);
+
+        for (String word : vocabulary) {
+
+            int at = random.nextInt(6);
+
+            String typo = word.substring(0, at) + word.substring(at + 2);
+
+            assertTrue(large.suggest(typo, 50).contains(word), word + " from " + typo);
+
+        }
+
+        // Word lists are read as UTF-8, and a Latin-1 line does not stop the rest
+
+        java.nio.file.Path list = java.nio.file.Files.createTempFile("words", ".txt");
+
+        list.toFile().deleteOnExit();
+
+        java.nio.file.Files.write(list, new byte[] {'c', 'a', 'f', (byte) 0xe9, '\n', 'A', 'p', 'p', 'l', 'e', ' ', '4', '2', '\n', 'p', 'e', 'a', 'r', '\n'});
+
+        java.util.Map<String, Integer> read = CompactDictionary.readWordList(list);
+
+        assertEquals(Integer.valueOf(42), read.get("Apple"));
+
+        assertEquals(Integer.valueOf(0), read.get("pear"));
+
+        assertEquals(3, read.size());
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 48: checkPassword and checkUsername agree with the tracing evaluators and are thread-safe")
+
+    void testReentrantPasswordEvaluator() throws Exception {
+
+        String[] inputs = {"", "a", "Abc1!x", "abc1!x", "ABC1!X", "Abcde!", "Abc1de", "Ab1!", "Abc 1!x", "Abcé1!x",
+
+                "user", "usr", "user_1", "User Name", "~`!@#$%^&*()_-+{}[]|:,.?/", "ABCdef123"};
+
+        java.io.PrintStream console = System.out;
+
+        System.setOut(new java.io.PrintStream(java.io.OutputStream.nullOutputStream()));   // the legacy trace
+
+        try {
+
+            for (String input : inputs) {
+
+                String message = PasswordEvaluator.evaluatePassword(input);
+
+                PasswordEvaluator.Evaluation password = PasswordEvaluator.checkPassword(input);
+
+                assertEquals(message, password.getErrorMessage(), input);
+
+                assertEquals(message.isEmpty(), password.isValid(), input);
+
+                if (!input.isEmpty()) {
+
+                    assertEquals(PasswordEvaluator.passwordIndexofError, password.getErrorIndex(), input);
+
+                    assertEquals(PasswordEvaluator.PfoundUpperCase, password.foundUpperCase(), input);
+
+                    assertEquals(PasswordEvaluator.PfoundLowerCase, password.foundLowerCase(), input);
+
+                    assertEquals(PasswordEvaluator.PfoundNumericDigit, password.foundNumericDigit(), input);
+
+                    assertEquals(PasswordEvaluator.PfoundSpecialChar, password.foundSpecialChar(), input);
+
+                    assertEquals(PasswordEvaluator.PfoundLongEnough, password.foundLongEnough(), input);
+
+                }
+
+                message = PasswordEvaluator.evaluateUsername(input);
+
+                PasswordEvaluator.Evaluation username = PasswordEvaluator.checkUsername(input);
+
+                assertEquals(message, username.getErrorMessage(), input);
+
+                assertEquals(message.isEmpty(), username.isValid(), input);
+
+                if (!input.isEmpty()) {
+
+                    assertEquals(PasswordEvaluator.passwordIndexofError, username.getErrorIndex(), input);
+
+                    assertEquals(PasswordEvaluator.UfoundSpecialChar, username.foundSpecialChar(), input);
+
+                    assertEquals(PasswordEvaluator.UfoundLongEnough, username.foundLongEnough(), input);
+
+                }
+
+            }
+
+        } finally {
+
+            System.setOut(console);
+
+        }
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+
+        try {
+
+            List<java.util.concurrent.Future<Integer>> futures = new java.util.ArrayList<>();
+
+            for (int t = 0; t < 4; t++) {
+
+                futures.add(pool.submit(() -> {
+
+                    int wrong = 0;
+
+                    for (int round = 0; round < 20_000; round++) {
+
+                        if (!PasswordEvaluator.checkPassword("Abc1!x").isValid()
+
+                                || PasswordEvaluator.checkPassword("Abc 1!x").getErrorIndex() != 3) {
+
+                            wrong++;
+
+                        }
+
+                    }
+
+                    return wrong;
+
+                }));
+
+            }
+
+            for (java.util.concurrent.Future<Integer> future : futures) {
+
+                assertEquals(0, future.get(), "Concurrent evaluations should not affect each other");
+
+            }
+
+        } finally {
+
+            pool.shutdown();
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 49: Housekeeping purges expired OTPs and invitation codes in batches")
+
+    void testHousekeepingPurges() throws Exception {
+
+        withFreshDatabase("housekeepingTest", (helper, url) -> {
+
+            try (java.sql.Connection conn = java.sql.DriverManager.getConnection(url, "sa", "")) {
+
+                helper.register(new User("expiredOtp", "Pass123!", "user"));
+
+                helper.register(new User("liveOtp", "Pass123!", "user"));
+
+                assertTrue(helper.setOtp("expiredOtp", "111111", -1));
+
+                assertTrue(helper.setOtp("liveOtp", "222222", 30));
+
+                try (java.sql.PreparedStatement ps = conn.prepareStatement(
+
+                        "INSERT INTO InvitationCodes (code, isUsed, expiresAt) VALUES (?, ?, DATEADD('MINUTE', -5, CURRENT_TIMESTAMP))")) {
+
+                    for (int i = 0; i < DatabaseHelper.PURGE_BATCH_SIZE * 2 + 7; i++) {
+
+                        ps.setString(1, "x" + i);
+
+                        ps.setBoolean(2, i % 3 == 0);
+
+                        ps.addBatch();
+
+                    }
+
+                    ps.executeBatch();
+
+                }
+
+                String live = helper.generateInvitationCode(30);
+
+                String forever = helper.generateInvitationCode();
+
+                databasePart1.HousekeepingScheduler housekeeping = helper.getHousekeeping();
+
+                assertNotNull(housekeeping);
+
+                assertEquals(DatabaseHelper.PURGE_BATCH_SIZE * 2 + 7, housekeeping.runNow(DatabaseHelper.PURGE_EXPIRED_INVITATION_CODES),
+
+                        "Every expired code should be deleted, across several batches");
+
+                assertEquals(1, housekeeping.runNow(DatabaseHelper.PURGE_EXPIRED_OTPS));
+
+                assertEquals(0, housekeeping.runNow(DatabaseHelper.PURGE_EXPIRED_OTPS), "A purged OTP should not be matched again");
+
+                try (java.sql.Statement stmt = conn.createStatement();
+
+                     java.sql.ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM InvitationCodes")) {
+
+                    rs.next();
+
+                    assertEquals(2, rs.getInt(1));
+
+                }
+
+                assertFalse(helper.isOtpValid("expiredOtp", "111111"));
+
+                assertTrue(helper.isOtpValid("liveOtp", "222222"));
+
+                assertTrue(helper.validateInvitationCode(live));
+
+                assertTrue(helper.validateInvitationCode(forever));
+
+                databasePart1.HousekeepingScheduler.TaskStats otps = housekeeping.getStats(DatabaseHelper.PURGE_EXPIRED_OTPS);
+
+                assertEquals(2, otps.getRuns());
+
+                assertEquals(1, otps.getRowsAffected());
+
+                assertEquals(0, otps.getLastRowsAffected());
+
+                assertEquals(0, otps.getFailures());
+
+                assertEquals(4, housekeeping.getStats().size(), "Two purges, the trending save and the view flush");
+
+                housekeeping.setInterval(DatabaseHelper.PURGE_EXPIRED_OTPS, 20);
+
+                long deadline = System.currentTimeMillis() + 5_000;
+
+                while (housekeeping.getStats(DatabaseHelper.PURGE_EXPIRED_OTPS).getRuns() < 3 && System.currentTimeMillis() < deadline) {
+
+                    Thread.sleep(10);
+
+                }
+
+                assertTrue(housekeeping.getStats(DatabaseHelper.PURGE_EXPIRED_OTPS).getRuns() >= 3, "The task should run on its new interval");
+
+                assertEquals(20, housekeeping.getStats(DatabaseHelper.PURGE_EXPIRED_OTPS).getIntervalMillis());
+
+            }
+
+        });
+
+    }
+
+    
+
+    // A test body run against its own database; see withFreshDatabase
+
+    @FunctionalInterface
+
+    private interface FreshDatabaseTest {
+
+        void run(DatabaseHelper helper, String url) throws Exception;
+
+    }
+
+    
+
+    // Runs body against a new in-memory database called name through its own helper, then
+
+    // closes the helper and drops the database; the url is there for plain JDBC checks
+
+    private static void withFreshDatabase(String name, FreshDatabaseTest body) throws Exception {
+
+        String url = "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+
+        DatabaseHelper helper = new DatabaseHelper();
+
+        helper.connectToDatabase(url);
+
+        try {
+
+            body.run(helper, url);
+
+        } finally {
+
+            helper.closeConnection();
+
+            try (java.sql.Connection conn = java.sql.DriverManager.getConnection(url, "sa", "");
+
+                 java.sql.Statement stmt = conn.createStatement()) {
+
+                stmt.execute("SHUTDOWN");
+
+            }
+
+        }
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 50: Bulk invitation codes are random, distinct and replace collisions")
+
+    void testBulkInvitationCodes() throws Exception {
+
+        withFreshDatabase("invitationTest", (helper, url) -> {
+
+            List<String> roster = helper.generateInvitationCodes(300, 60);
+
+            assertEquals(300, new java.util.HashSet<>(roster).size(), "Codes should be distinct");
+
+            for (String code : roster) {
+
+                assertEquals(databasePart1.InvitationCodeGenerator.DEFAULT_LENGTH, code.length());
+
+                assertTrue(code.chars().allMatch(c -> databasePart1.InvitationCodeGenerator.DEFAULT_ALPHABET.indexOf(c) >= 0), code);
+
+            }
+
+            assertTrue(helper.validateInvitationCode(roster.get(0)));
+
+            assertFalse(helper.validateInvitationCode(roster.get(0)), "A code can only be redeemed once");
+
+            assertTrue(helper.validateInvitationCode(roster.get(299)));
+
+
+
+            // A generator replaying codes that collide with stored ones and with each other
+
+            java.util.Deque<String> script = new java.util.ArrayDeque<>(java.util.Arrays.asList(
+
+                    "AAAA", "BBBB", "AAAA", "CCCC", "CCCC", "AAAA", "DDDD"));
+
+            helper.setInvitationCodeGenerator(new databasePart1.InvitationCodeGenerator() {
+
+                @Override
+
+                public String next() {
+
+                    return script.removeFirst();
+
+                }
+
+            });
+
+            assertEquals(java.util.Arrays.asList("AAAA", "BBBB"), helper.generateInvitationCodes(2, 0));
+
+            assertEquals(java.util.Arrays.asList("CCCC", "DDDD"), helper.generateInvitationCodes(2, 0),
+
+                    "Colliding codes should be replaced until enough are stored");
+
+            assertTrue(script.isEmpty());
+
+
+
+            helper.setInvitationCodeGenerator(new databasePart1.InvitationCodeGenerator("AB", 1, new java.util.Random(7)));
+
+            assertThrows(SQLException.class, () -> helper.generateInvitationCodes(3, 0), "Only two codes exist");
+
+            assertEquals(2, helper.generateInvitationCodes(2, 0).size(), "The failed call should have stored nothing");
+
+            assertThrows(IllegalArgumentException.class, () -> helper.generateInvitationCodes(0, 0));
+
+            assertThrows(IllegalArgumentException.class, () -> new databasePart1.InvitationCodeGenerator("ABCA", 6));
+
+            assertThrows(IllegalArgumentException.class, () -> new databasePart1.InvitationCodeGenerator("AB", 11));
+
+        });
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 51: The H2 backend passes the repository conformance suite")
+
+    void testJdbcRepositoryConformance() throws Exception {
+
+        withFreshDatabase("conformanceTest", (helper, url) -> checkRepositoryConformance(helper));
+
+    }
+
+
+
+    @Test
+
+    @DisplayName("Test 52: The in-memory backend passes the conformance suite and takes concurrent writers")
+
+    void testInMemoryRepository() throws Exception {
+
+        checkRepositoryConformance(new databasePart1.InMemoryRepository());
+
+
+
+        databasePart1.InMemoryRepository repo = new databasePart1.InMemoryRepository();
+
+        repo.register(new User("asker", "Pass123!", "user"));
+
+        List<Integer> questionIds = new java.util.ArrayList<>();
+
+        for (int q = 0; q < 4; q++) {
+
+            questionIds.add(repo.createQuestion(new Question("Shared question " + q, "Everyone answers this one.", "asker")));
+
+        }
+
+        int threads = 8;
+
+        int perThread = 250;
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(threads);
+
+        try {
+
+            List<java.util.concurrent.Future<?>> futures = new java.util.ArrayList<>();
+
+            for (int t = 0; t < threads; t++) {
+
+                String name = "writer" + t;
+
+                repo.register(new User(name, "Pass123!", "user"));
+
+                futures.add(pool.submit(() -> {
+
+                    for (int i = 0; i < perThread; i++) {
+
+                        int questionId = questionIds.get(i % questionIds.size());
+
+                        int answerId = repo.createAnswer(new Answer(questionId, "Answer number " + i, name));
+
+                        repo.voteForAnswer(answerId, name);
+
+                        repo.voteForAnswer(answerId, name);
+
+                        repo.voteForAnswer(answerId, "asker");
+
+                    }
+
+                    return null;
+
+                }));
+
+            }
+
+            for (java.util.concurrent.Future<?> future : futures) {
+
+                future.get();
+
+            }
+
+        } finally {
+
+            pool.shutdown();
+
+        }
+
+        int answers = 0;
+
+        for (int questionId : questionIds) {
+
+            for (Answer answer : repo.getAnswersForQuestion(questionId)) {
+
+                assertEquals(2, answer.getUpvotes(), "One vote each from the writer and the asker");
+
+                answers++;
+
+            }
+
+        }
+
+        assertEquals(threads * perThread, answers);
+
+        assertEquals(4, repo.getAllQuestions("asker").size());
+
+    }
+
+
+
+    // The behaviour every QARepository backend must share; repo must be empty
+
+    private static void checkRepositoryConformance(databasePart1.QARepository repo) throws Exception {
+
+        // Users
+
+        User alice = new User("alice", "Admin123!", "admin");
+
+        repo.register(alice);
+
+        User bob = new User("bob", "Pass123!", "user");
+
+        bob.setMiddleInitial("q");
+
+        repo.register(bob);
+
+        assertThrows(SQLException.class, () -> repo.register(new User("bob", "Other123!", "user")));
+
+        assertFalse(repo.login(new User("bob", "Wrong123!", "user")));
+
+        User login = new User("bob", "Pass123!", "user");
+
+        assertTrue(repo.login(login));
+
+        assertEquals("Q", login.getMiddleInitial());
+
+        assertNull(login.getEmail(), "An empty email is stored as none");
+
+        assertTrue(repo.doesUserExist("bob"));
+
+        assertFalse(repo.doesUserExist("nobody"));
+
+        assertEquals("admin", repo.getUserRole("alice"));
+
+        assertNull(repo.getUserRole("nobody"));
+
+        assertEquals("Q", repo.getUserByUsername("bob").get().getMiddleInitial());
+
+        assertFalse(repo.getUserByUsername("nobody").isPresent());
+
+        assertEquals(java.util.Arrays.asList("alice", "bob"),
+
+                repo.getAllUsers().stream().map(User::getUserName).collect(java.util.stream.Collectors.toList()));
+
+        assertEquals(java.util.Arrays.asList("alice (admin)", "bob (user)"),
+
+                repo.getUserSummaries().stream().map(UserSummary::toString).collect(java.util.stream.Collectors.toList()));
+
+        assertEquals(2, repo.getUserCount());
+
+        assertTrue(repo.doesAdminExist());
+
+        assertTrue(repo.updateUserEmail("bob", "bob@example.com"));
+
+        assertEquals("bob@example.com", repo.getUserByUsername("bob").get().getEmail());
+
+        assertFalse(repo.updateUserEmail("nobody", "x@example.com"));
+
+        assertTrue(repo.updateUserMiddleInitial("bob", "  zed"));
+
+        assertEquals("Z", repo.getUserByUsername("bob").get().getMiddleInitial());
+
+        assertTrue(repo.updateUserPassword("bob", "Newer123!"));
+
+        assertTrue(repo.login(new User("bob", "Newer123!", "user")));
+
+        assertFalse(repo.updateUserRole("alice", "user"), "The last admin keeps the role");
+
+        assertFalse(repo.deleteUser("alice"), "The last admin cannot be deleted");
+
+        assertTrue(repo.updateUserRole("bob", "admin"));
+
+        assertTrue(repo.updateUserRole("alice", "user"));
+
+
+
+        // One-time passwords
+
+        assertTrue(repo.setOtp("bob", "123456"));
+
+        assertTrue(repo.isOtpValid("bob", "123456"));
+
+        assertFalse(repo.isOtpValid("bob", "000000"));
+
+        assertTrue(repo.consumeOtp("bob"));
+
+        assertFalse(repo.isOtpValid("bob", "123456"), "A consumed OTP is no longer valid");
+
+        assertTrue(repo.setOtp("bob", "654321", -1));
+
+        assertFalse(repo.isOtpValid("bob", "654321"), "An expired OTP is not valid");
+
+        assertEquals(1, repo.purgeExpiredOtps());
+
+        assertEquals(0, repo.purgeExpiredOtps());
+
+        assertFalse(repo.setOtp("nobody", "123456"));
+
+
+
+        // Invitation codes
+
+        List<String> codes = repo.generateInvitationCodes(5, 60);
+
+        assertEquals(5, new java.util.HashSet<>(codes).size());
+
+        assertTrue(repo.validateInvitationCode(codes.get(2)));
+
+        assertFalse(repo.validateInvitationCode(codes.get(2)), "A code is redeemed once");
+
+        String forever = repo.generateInvitationCode();
+
+        assertTrue(repo.validateInvitationCode(forever));
+
+        assertFalse(repo.validateInvitationCode("NOSUCHCODE"));
+
+        assertEquals(0, repo.purgeExpiredInvitationCodes());
+
+        assertThrows(IllegalArgumentException.class, () -> repo.generateInvitationCodes(0, 0));
+
+
+
+        // Questions
+
+        Question first = new Question("First question", "Asked by bob, first.", "bob");
+
+        int q1 = repo.createQuestion(first);
+
+        assertEquals(q1, first.getId());
+
+        Thread.sleep(5);
+
+        int q2 = repo.createQuestion(new Question("Second question", "Asked by alice, later.", "alice"));
+
+        assertThrows(SQLException.class, () -> repo.createQuestion(new Question("Ghost question", "Nobody asked this.", "ghost")));
+
+        assertEquals(java.util.Arrays.asList(q2, q1), ids(repo.getAllQuestions(null)), "Newest question first");
+
+        assertEquals(java.util.Arrays.asList(q1), ids(repo.getAllQuestions("bob")));
+
+        assertEquals("First question", repo.getQuestionById(q1).getTitle());
+
+        assertNull(repo.getQuestionById(-5));
+
+        Question edit = repo.getQuestionById(q1);
+
+        edit.setTitle("First question, edited");
+
+        assertTrue(repo.updateQuestion(edit));
+
+        assertEquals("First question, edited", repo.getQuestionById(q1).getTitle());
+
+        Question notMine = new Question(q1, "Hijacked title", "Not the asker.", "alice", first.getCreatedAt(), false, -1);
+
+        assertFalse(repo.updateQuestion(notMine), "Only the asker can edit");
+
+
+
+        // Answers
+
+        int a1 = repo.createAnswer(new Answer(q1, "Alice answers first.", "alice"));
+
+        Thread.sleep(5);
+
+        int a2 = repo.createAnswer(new Answer(q1, "Bob answers himself.", "bob"));
+
+        assertThrows(SQLException.class, () -> repo.createAnswer(new Answer(-5, "No such question.", "bob")));
+
+        assertThrows(SQLException.class, () -> repo.createAnswer(new Answer(q1, "By nobody at all.", "ghost")));
+
+        assertEquals(java.util.Arrays.asList(a1, a2), answerIds(repo.getAnswersForQuestion(q1)), "Oldest first at equal votes");
+
+        assertTrue(repo.voteForAnswer(a2, "alice"));
+
+        assertFalse(repo.voteForAnswer(-5, "alice"));
+
+        assertEquals(java.util.Arrays.asList(a2, a1), answerIds(repo.getAnswersForQuestion(q1)), "Most upvoted first");
+
+        assertTrue(repo.voteForAnswer(a1, "carol"));
+
+        assertFalse(repo.voteForAnswer(a1, "carol"), "One vote per user");
+
+        assertTrue(repo.hasVoted(a1, "carol"));
+
+        assertFalse(repo.hasVoted(a2, "carol"));
+
+        assertFalse(repo.voteForAnswer(-5, "carol"));
+
+        assertEquals(java.util.Arrays.asList(a1, a2), answerIds(repo.getAnswersForQuestion(q1)));
+
+        assertEquals(2, repo.getQuestionById(q1).getAnswers().size());
+
+        assertTrue(repo.markAnswerAsRead(a1));
+
+        assertFalse(repo.markAnswerAsRead(-5));
+
+        assertEquals(1, repo.markAnswersAsRead(q1, java.util.Arrays.asList(a1, a2, -5)));
+
+        assertEquals(0, repo.markAnswersAsRead(q2, java.util.Arrays.asList(a1, a2)), "Answers of another question are ignored");
+
+        assertTrue(repo.getAnswersForQuestion(q1).stream().allMatch(Answer::isRead));
+
+        Answer notMyAnswer = new Answer(a1, q1, "Rewritten by bob.", "bob", first.getCreatedAt(), true, 0);
+
+        assertFalse(repo.updateAnswer(notMyAnswer), "Only the author can edit");
+
+        Answer myAnswer = new Answer(a1, q1, "Alice rewrites her answer.", "alice", first.getCreatedAt(), true, 0);
+
+        assertTrue(repo.updateAnswer(myAnswer));
+
+        assertEquals("Alice rewrites her answer.", repo.getAnswersForQuestion(q1).get(0).getContent());
+
+
+
+        // Resolution and deletion
+
+        assertFalse(repo.markQuestionResolved(q1, a2, "alice"), "Only the asker can resolve");
+
+        assertTrue(repo.markQuestionResolved(q1, a2, "bob"));
+
+        assertEquals(a2, repo.getQuestionById(q1).getResolvedAnswerId());
+
+        assertEquals(java.util.Arrays.asList(q2), ids(repo.getUnresolvedQuestions()));
+
+        assertTrue(repo.closeQuestion(q2, "alice"));
+
+        assertTrue(repo.getUnresolvedQuestions().isEmpty());
+
+        assertThrows(SQLException.class, () -> repo.deleteUser("alice"), "A user with posts cannot be deleted");
+
+        assertFalse(repo.deleteAnswer(a1, "bob"), "Only the author can delete");
+
+        assertTrue(repo.deleteAnswer(a1, "alice"));
+
+        assertEquals(java.util.Arrays.asList(a2), answerIds(repo.getAnswersForQuestion(q1)));
+
+        assertFalse(repo.deleteQuestion(q1, "alice"), "Only the asker can delete");
+
+        assertTrue(repo.deleteQuestion(q1, "bob"));
+
+        assertNull(repo.getQuestionById(q1));
+
+        assertTrue(repo.getAnswersForQuestion(q1).isEmpty(), "Answers go with their question");
+
+        assertFalse(repo.markAnswerAsRead(a2));
+
+        assertTrue(repo.deleteQuestion(q2, "alice"));
+
+        assertTrue(repo.deleteUser("alice"), "A user without posts can be deleted");
+
+        assertFalse(repo.doesUserExist("alice"));
+
+        assertEquals(1, repo.getUserCount());
+
+    }
+
+
+
+    private static List<Integer> ids(List<Question> questions) {
+
+        return questions.stream().map(Question::getId).collect(java.util.stream.Collectors.toList());
+
+    }
+
+
+
+    private static List<Integer> answerIds(List<Answer> answers) {
+
+        return answers.stream().map(Answer::getId).collect(java.util.stream.Collectors.toList());
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 53: Card and admin projections match the full list views")
+
+    void testProjectionQueries() throws Exception {
+
+        withFreshDatabase("projectionTest", (helper, url) -> {
+
+            helper.register(new User("projAdmin", "Pass123!", "admin"));
+
+            helper.register(new User("projUser", "Pass123!", "user"));
+
+            helper.updateUserEmail("projUser", "proj@example.com");
+
+            int first = helper.createQuestion(new Question("Projection about lambdas", "How do lambdas capture variables?", "projUser"));
+
+            int second = helper.createQuestion(new Question("Projection about streams", "When should a stream be parallel?", "projAdmin"));
+
+            int answerId = helper.createAnswer(new Answer(first, "Effectively final locals only.", "projAdmin"));
+
+            helper.createAnswer(new Answer(first, "They are copied into the lambda.", "projAdmin"));
+
+            helper.createAnswer(new Answer(second, "Rarely, measure first.", "projUser"));
+
+            assertTrue(helper.markQuestionResolved(first, answerId, "projUser"));
+
+            // Cards list the same questions, in the same order, with the counts of the full view
+
+            List<Question> all = helper.getAllQuestions(null);
+
+            List<QuestionSummary> cards = helper.getAllQuestionSummaries(null);
+
+            assertEquals(ids(all), cards.stream().map(QuestionSummary::getId).collect(java.util.stream.Collectors.toList()));
+
+            for (int i = 0; i < all.size(); i++) {
+
+                assertEquals(all.get(i).getTitle(), cards.get(i).getTitle());
+
+                assertEquals(all.get(i).getAskedBy(), cards.get(i).getAskedBy());
+
+                assertEquals(all.get(i).isResolved(), cards.get(i).isResolved());
+
+                assertEquals(all.get(i).getAnswers().size(), cards.get(i).getAnswerCount());
+
+            }
+
+            assertEquals(java.util.Arrays.asList(first), helper.getAllQuestionSummaries("projUser").stream()
+
+                .map(QuestionSummary::getId).collect(java.util.stream.Collectors.toList()));
+
+            assertEquals(ids(helper.getUnresolvedQuestions()), helper.getUnresolvedQuestionSummaries().stream()
+
+                .map(QuestionSummary::getId).collect(java.util.stream.Collectors.toList()));
+
+            assertEquals(ids(helper.searchQuestions("lambdas", 10)), helper.searchQuestionSummaries("lambdas", 10).stream()
+
+                .map(QuestionSummary::getId).collect(java.util.stream.Collectors.toList()));
+
+            // The detail view still carries content and answers
+
+            Question detail = helper.getQuestionById(first);
+
+            assertEquals("How do lambdas capture variables?", detail.getContent());
+
+            assertEquals(answerId, detail.getResolvedAnswerId());
+
+            assertEquals(2, helper.getAnswersForQuestion(first).size());
+
+            // The admin view lists every user in getAllUsers order, without passwords
+
+            List<UserSummary> users = helper.getUserSummaries();
+
+            assertEquals(helper.getAllUsers().stream().map(User::getUserName).collect(java.util.stream.Collectors.toList()),
+
+                users.stream().map(UserSummary::getUserName).collect(java.util.stream.Collectors.toList()));
+
+            UserSummary projUser = users.stream().filter(u -> u.getUserName().equals("projUser")).findFirst().get();
+
+            assertEquals("proj@example.com", projUser.getEmail());
+
+            assertEquals("user", projUser.getRole());
+
+            assertNull(projUser.getMiddleInitial());
+
+        });
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 54: Every filter and sort combination pages in one query, in the order of its comparator")
+
+    void testQuestionSortsAndFilters() throws Exception {
+
+        withFreshDatabase("sortFilterTest", (helper, url) -> {
+
+            helper.register(new User("sortAsker", "Pass123!", "user"));
+
+            helper.register(new User("sortOther", "Pass123!", "user"));
+
+            java.time.LocalDateTime start = java.time.LocalDateTime.of(2024, 3, 1, 9, 0);
+
+            List<Integer> questionIds = new java.util.ArrayList<>();
+
+            for (int i = 0; i < 12; i++) {
+
+                questionIds.add(helper.createQuestion(new Question(0, "Sorting question number " + i, "Which order is right?",
+
+                    i % 3 == 0 ? "sortOther" : "sortAsker", start.plusDays(i), false, -1)));
+
+            }
+
+            // Answers make counts, upvotes and activity differ from the creation order
+
+            for (int i = 0; i < 12; i += 2) {
+
+                for (int a = 0; a <= i % 4; a++) {
+
+                    int answerId = helper.createAnswer(new Answer(0, questionIds.get(i), "Answer " + a + " to " + i, "sortOther",
+
+                        start.plusDays(20 + (11 - i)), false, 0));
+
+                    for (int v = 0; v < i % 5; v++) {
+
+                        helper.upvoteAnswer(answerId);
+
+                    }
+
+                }
+
+            }
+
+            int first = helper.getQuestionById(questionIds.get(0)).getAnswers().get(0).getId();
+
+            assertTrue(helper.markQuestionResolved(questionIds.get(0), first, "sortOther"));
+
+            List<Question> everything = helper.getAllQuestions(null);
+
+            List<QuestionSummary> everyCard = helper.getAllQuestionSummaries(null);
+
+            QuestionFilter[] filters = {
+
+                QuestionFilter.all(),
+
+                QuestionFilter.unresolved(),
+
+                QuestionFilter.resolved(),
+
+                QuestionFilter.all().withAnswers(QuestionFilter.AnswerState.ANSWERED),
+
+                QuestionFilter.unresolved().withAnswers(QuestionFilter.AnswerState.UNANSWERED).withAuthor("sortAsker"),
+
+                QuestionFilter.all().withCreatedBetween(start.plusDays(3), start.plusDays(9))
+
+            };
+
+            for (QuestionFilter filter : filters) {
+
+                for (databasePart1.QuestionSort sort : databasePart1.QuestionSort.values()) {
+
+                    List<Question> expected = everything.stream().filter(filter::matches)
+
+                        .sorted(sort.comparator()).collect(java.util.stream.Collectors.toList());
+
+                    List<Question> paged = new java.util.ArrayList<>();
+
+                    String cursor = null;
+
+                    do {
+
+                        databasePart1.Page<Question> page = helper.getQuestionPage(filter, sort, cursor, 2);
+
+                        paged.addAll(page.getItems());
+
+                        cursor = page.getNextCursor();
+
+                    } while (cursor != null);
+
+                    assertEquals(ids(expected), ids(paged), filter + " " + sort);
+
+                    List<QuestionSummary> cards = helper.getQuestionSummaryPage(filter, sort, null, DatabaseHelper.MAX_PAGE_SIZE).getItems();
+
+                    assertEquals(ids(expected), cards.stream().map(QuestionSummary::getId).collect(java.util.stream.Collectors.toList()));
+
+                    // Cards updated in place by change events use the same filter and order in memory
+
+                    assertEquals(ids(expected), everyCard.stream().filter(filter::matches).sorted(sort.summaryComparator())
+
+                        .map(QuestionSummary::getId).collect(java.util.stream.Collectors.toList()), filter + " " + sort);
+
+                }
+
+            }
+
+            // Answering an old question makes it the most recently active
+
+            helper.createAnswer(new Answer(0, questionIds.get(1), "A late answer.", "sortAsker", start.plusDays(40), false, 0));
+
+            assertEquals((int) questionIds.get(1), helper.getQuestionPage(QuestionFilter.all(), databasePart1.QuestionSort.RECENTLY_ACTIVE, null, 1)
+
+                .getItems().get(0).getId());
+
+            // A cursor only continues the order it came from
+
+            String newestCursor = helper.getQuestionPage(QuestionFilter.all(), databasePart1.QuestionSort.NEWEST, null, 2).getNextCursor();
+
+            assertThrows(IllegalArgumentException.class,
+
+                () -> helper.getQuestionPage(QuestionFilter.all(), databasePart1.QuestionSort.MOST_ANSWERED, newestCursor, 2));
+
+            assertThrows(IllegalArgumentException.class, () -> QuestionFilter.all().withCreatedBetween(start, start));
+
+        });
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 55: Trending scores decay, rank in memory, page with filters and survive a restart")
+
+    void testTrendingQuestions() throws Exception {
+
+        long hour = 60 * 60 * 1000L;
+
+        long[] now = {1_000_000L};
+
+        databasePart1.TrendingTracker tracker = new databasePart1.TrendingTracker(hour, () -> now[0]);
+
+        tracker.record(1, 4);
+
+        now[0] += hour;
+
+        tracker.record(2, 3);
+
+        // One half-life later the first question's 4 is worth 2, less than the fresh 3
+
+        assertEquals(2.0, tracker.getScore(1), 1e-9);
+
+        assertEquals(java.util.Arrays.asList(2, 1), tracker.top(0, 10));
+
+        tracker.record(3, 1);
+
+        assertEquals(java.util.Arrays.asList(1, 3), tracker.top(1, 5));
+
+        tracker.remove(2);
+
+        assertEquals(java.util.Arrays.asList(1, 3), tracker.top(0, 10));
+
+        databasePart1.TrendingTracker.Changes changes = tracker.drainChanges();
+
+        assertEquals(java.util.Set.of(1, 3), changes.getScores().keySet());
+
+        assertEquals(java.util.Set.of(2), changes.getRemoved());
+
+        assertTrue(tracker.drainChanges().isEmpty());
+
+        // Far in the future the epoch moves; the order holds and faded questions are forgotten
+
+        now[0] += 100 * hour;
+
+        tracker.record(4, 1);
+
+        tracker.record(5, 2);
+
+        assertEquals(java.util.Arrays.asList(5, 4), tracker.top(0, 10));
+
+        assertEquals(2, tracker.size());
+
+        withFreshDatabase("trendingTest", (helper, url) -> {
+
+            helper.register(new User("trendAsker", "Pass123!", "user"));
+
+            List<Integer> questionIds = new java.util.ArrayList<>();
+
+            for (int i = 0; i < 6; i++) {
+
+                questionIds.add(helper.createQuestion(new Question("Trending question number " + i, "Is this one popular?", "trendAsker")));
+
+            }
+
+            // Question 2 gets answers and votes, question 4 a single answer, question 5 views
+
+            int answerId = helper.createAnswer(new Answer(questionIds.get(2), "First answer.", "trendAsker"));
+
+            helper.createAnswer(new Answer(questionIds.get(2), "Second answer.", "trendAsker"));
+
+            helper.upvoteAnswer(answerId);
+
+            helper.createAnswer(new Answer(questionIds.get(4), "Only answer.", "trendAsker"));
+
+            helper.recordQuestionView(questionIds.get(5));
+
+            helper.recordQuestionView(questionIds.get(5));
+
+            assertTrue(helper.markQuestionResolved(questionIds.get(4), helper.getAnswersForQuestion(questionIds.get(4)).get(0).getId(), "trendAsker"));
+
+            List<Integer> expected = java.util.Arrays.asList(questionIds.get(2), questionIds.get(4), questionIds.get(5),
+
+                questionIds.get(3), questionIds.get(1), questionIds.get(0));
+
+            List<Question> paged = new java.util.ArrayList<>();
+
+            String cursor = null;
+
+            do {
+
+                databasePart1.Page<Question> page = helper.getTrendingQuestionPage(QuestionFilter.all(), cursor, 4);
+
+                paged.addAll(page.getItems());
+
+                cursor = page.getNextCursor();
+
+            } while (cursor != null);
+
+            assertEquals(expected, ids(paged));
+
+            assertEquals(2, paged.get(0).getAnswers().size(), "Trending pages carry the answers");
+
+            List<Question> unresolved = helper.getTrendingQuestionPage(QuestionFilter.unresolved(), null, 2).getItems();
+
+            assertEquals(java.util.Arrays.asList(questionIds.get(2), questionIds.get(5)), ids(unresolved));
+
+            List<Integer> cardIds = helper.getTrendingQuestionSummaryPage(QuestionFilter.all(), null, 10).getItems().stream()
+
+                .sorted(java.util.Comparator.comparing(QuestionSummary::getId, helper.getTrending().idComparator()))
+
+                .map(QuestionSummary::getId).collect(java.util.stream.Collectors.toList());
+
+            assertEquals(expected, cardIds, "The trending feed pages card views in the same ranking");
+
+            QuestionSummary card = helper.getQuestionSummaryById(questionIds.get(2));
+
+            assertEquals(2, card.getAnswerCount());
+
+            assertEquals(1, card.getTopUpvotes());
+
+            assertNull(helper.getQuestionSummaryById(-1));
+
+            assertThrows(IllegalArgumentException.class, () -> helper.getTrendingQuestionPage(QuestionFilter.all(),
+
+                helper.getQuestionPage(QuestionFilter.all(), null, 2).getNextCursor(), 2));
+
+            // Deleting a question drops it from the ranking
+
+            assertTrue(helper.deleteQuestion(questionIds.get(0), "trendAsker"));
+
+            assertFalse(helper.getTrending().top(0, 10).contains(questionIds.get(0)));
+
+            // Scores are saved on close and restored on the next connect
+
+            double score = helper.getTrending().getScore(questionIds.get(2));
+
+            helper.closeConnection();
+
+            DatabaseHelper reopened = new DatabaseHelper();
+
+            reopened.connectToDatabase(url);
+
+            try {
+
+                assertEquals(expected.subList(0, 5), reopened.getTrending().top(0, 10));
+
+                assertEquals(score, reopened.getTrending().getScore(questionIds.get(2)), score * 1e-3);
+
+                assertEquals(0, reopened.persistTrendingScores(), "Nothing changed since the restore");
+
+            } finally {
+
+                reopened.closeConnection();
+
+            }
+
+        });
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 56: Views are counted in memory, flushed in batches and sort the question pages")
+
+    void testQuestionViewCounts() throws Exception {
+
+        withFreshDatabase("viewCountTest", (helper, url) -> {
+
+            helper.register(new User("viewAsker", "Pass123!", "user"));
+
+            List<Integer> questionIds = new java.util.ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+
+                questionIds.add(helper.createQuestion(new Question("Viewed question number " + i, "How often is this read?", "viewAsker")));
+
+            }
+
+            // Views show up at once, before anything is written
+
+            assertEquals(0, helper.getQuestionById(questionIds.get(1)).getViewCount());
+
+            for (int i = 0; i < 3; i++) {
+
+                helper.recordQuestionView(questionIds.get(1));
+
+            }
+
+            helper.recordQuestionView(questionIds.get(3));
+
+            assertEquals(3, helper.getQuestionById(questionIds.get(1)).getViewCount());
+
+            assertEquals(1, helper.getAllQuestionSummaries(null).stream()
+
+                .filter(s -> s.getId() == questionIds.get(3)).findFirst().get().getViewCount());
+
+            // A flush writes both questions in one batch and leaves the counts unchanged
+
+            assertEquals(2, helper.flushViewCounts());
+
+            assertEquals(0, helper.flushViewCounts(), "Nothing left to write");
+
+            assertEquals(3, helper.getQuestionById(questionIds.get(1)).getViewCount());
+
+            try (java.sql.Connection conn = java.sql.DriverManager.getConnection(url, "sa", "");
+
+                 java.sql.Statement stmt = conn.createStatement();
+
+                 java.sql.ResultSet rs = stmt.executeQuery("SELECT viewCount FROM questions WHERE id = " + questionIds.get(1))) {
+
+                assertTrue(rs.next());
+
+                assertEquals(3, rs.getLong(1));
+
+            }
+
+            // Concurrent views are not lost
+
+            Thread[] viewers = new Thread[4];
+
+            for (int t = 0; t < viewers.length; t++) {
+
+                viewers[t] = new Thread(() -> {
+
+                    for (int i = 0; i < 500; i++) {
+
+                        helper.recordQuestionView(questionIds.get(2));
+
+                    }
+
+                });
+
+                viewers[t].start();
+
+            }
+
+            for (Thread viewer : viewers) {
+
+                viewer.join();
+
+            }
+
+            assertEquals(2000, helper.getQuestionById(questionIds.get(2)).getViewCount());
+
+            // Most viewed pages on the written counts, ties newest id first
+
+            assertEquals(1, helper.flushViewCounts());
+
+            List<Question> paged = new java.util.ArrayList<>();
+
+            String cursor = null;
+
+            do {
+
+                databasePart1.Page<Question> page = helper.getQuestionPage(QuestionFilter.all(), databasePart1.QuestionSort.MOST_VIEWED, cursor, 3);
+
+                paged.addAll(page.getItems());
+
+                cursor = page.getNextCursor();
+
+            } while (cursor != null);
+
+            List<Integer> expected = java.util.Arrays.asList(questionIds.get(2), questionIds.get(1), questionIds.get(3), questionIds.get(0));
+
+            assertEquals(expected, ids(paged));
+
+            // Unwritten views are flushed on close and read back on the next connect
+
+            helper.recordQuestionView(questionIds.get(0));
+
+            helper.closeConnection();
+
+            DatabaseHelper reopened = new DatabaseHelper();
+
+            reopened.connectToDatabase(url);
+
+            try {
+
+                assertEquals(2000, reopened.getQuestionById(questionIds.get(2)).getViewCount());
+
+                assertEquals(1, reopened.getQuestionById(questionIds.get(0)).getViewCount());
+
+                paged = reopened.getQuestionPage(QuestionFilter.all(), databasePart1.QuestionSort.MOST_VIEWED, null, 10).getItems();
+
+                assertEquals(expected, ids(paged));
+
+                paged = new java.util.ArrayList<>(paged);
+
+                paged.sort(databasePart1.QuestionSort.MOST_VIEWED.comparator());
+
+                assertEquals(expected, ids(paged));
+
+            } finally {
+
+                reopened.closeConnection();
+
+            }
+
+            // Flushes drop the counters they have fully written, without losing views recorded meanwhile
+
+            databasePart1.ViewCounter counter = new databasePart1.ViewCounter();
+
+            java.util.Map<Integer, Long> stored = new java.util.HashMap<>();
+
+            databasePart1.ViewCounter.Writer store = delta -> delta.forEach((id, views) -> stored.merge(id, views, Long::sum));
+
+            Thread[] busyViewers = new Thread[4];
+
+            for (int t = 0; t < busyViewers.length; t++) {
+
+                busyViewers[t] = new Thread(() -> {
+
+                    for (int i = 0; i < 1_000_000; i++) {
+
+                        counter.record(i % 64);
+
+                    }
+
+                });
+
+                busyViewers[t].start();
+
+            }
+
+            while (java.util.Arrays.stream(busyViewers).anyMatch(Thread::isAlive)) {
+
+                counter.flush(store);
+
+            }
+
+            counter.flush(store);
+
+            assertEquals(0, counter.getTrackedCount(), "Fully written counters are dropped");
+
+            assertEquals(0, counter.getPendingTotal());
+
+            for (int id = 0; id < 64; id++) {
+
+                assertEquals(62_500, stored.get(id), "Views of question " + id);
+
+            }
+
+        });
+
+    }
+
+    
+
+    @Test
+
+    @DisplayName("Test 57: Votes cast while flushes run are each counted once")
+
+    void testVotesDuringFlush() throws Exception {
+
+        int id = db.createQuestion(new Question("Votes during a flush", "Are votes cast mid-flush counted once?", testUser1.getUserName()));
+
+        List<Integer> answerIds = new java.util.ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+
+            answerIds.add(db.createAnswer(new Answer(id, "Answer number " + i + " to vote for", testUser2.getUserName())));
+
+        }
+
+        java.util.concurrent.atomic.AtomicReference<Throwable> failure = new java.util.concurrent.atomic.AtomicReference<>();
+
+        Thread[] voters = new Thread[8];
+
+        for (int t = 0; t < voters.length; t++) {
+
+            String voter = "flushVoter" + t;
+
+            voters[t] = new Thread(() -> {
+
+                try {
+
+                    for (int answerId : answerIds) {
+
+                        assertTrue(db.voteForAnswer(answerId, voter));
+
+                    }
+
+                } catch (Throwable e) {
+
+                    failure.compareAndSet(null, e);
+
+                }
+
+            });
+
+            voters[t].start();
+
+        }
+
+        // The first vote on each answer races these flushes
+
+        Thread flusher = new Thread(() -> {
+
+            try {
+
+                while (java.util.Arrays.stream(voters).anyMatch(Thread::isAlive)) {
+
+                    db.flushVotes();
+
+                }
+
+            } catch (Throwable e) {
+
+                failure.compareAndSet(null, e);
+
+            }
+
+        });
+
+        flusher.start();
+
+        // Meanwhile no read may lose a flushed vote or count it twice
+
+        int seen = 0;
+
+        while (flusher.isAlive()) {
+
+            int total = db.getAnswersForQuestion(id).stream().mapToInt(Answer::getUpvotes).sum();
+
+            assertTrue(total >= seen && total <= 800, "Read " + total + " votes after " + seen);
+
+            seen = total;
+
+        }
+
+        for (Thread voter : voters) {
+
+            voter.join();
+
+        }
+
+        assertNull(failure.get());
+
+        db.flushVotes();
+
+        for (Answer answer : db.getAnswersForQuestion(id)) {
+
+            assertEquals(8, answer.getUpvotes(), "Votes for answer " + answer.getId());
+
+        }
+
+        db.deleteQuestion(id, testUser1.getUserName());
+
+    }
+
 }
\ No newline at end of file
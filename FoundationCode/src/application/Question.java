@@ -18,6 +18,7 @@ public class Question {
     private boolean isResolved;
     private int resolvedAnswerId;
     private List<Answer> answers;
+    private long viewCount;
     
     // Constants for validation
     public static final int TITLE_MIN_LENGTH = 5;
@@ -88,9 +89,12 @@ public class Question {
     public int getUnreadAnswerCount() {
         return (int) answers.stream().filter(a -> !a.isRead()).count();
     }
+    // Times the question was opened, including views counted but not yet written
+    public long getViewCount() { return viewCount; }
     
     // Setters
     public void setId(int id) { this.id = id; }
+    public void setViewCount(long viewCount) { this.viewCount = viewCount; }
     
     public void setTitle(String title) {
         this.title = validateTitle(title);
@@ -0,0 +1,62 @@
+package application;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A read-only list view of a question: the fields a question card shows, with answer
+ * numbers taken from the counters stored on the question instead of its answers.
+ * Use Question when the content or the answers themselves are needed.
+ */
+public class QuestionSummary {
+    private final int id;
+    private final String title;
+    private final String askedBy;
+    private final LocalDateTime createdAt;
+    private final boolean isResolved;
+    private final int answerCount;
+    private final int unreadAnswerCount;
+    private final int topUpvotes;
+    private final LocalDateTime lastActivityAt;
+    private final long viewCount;
+
+    public QuestionSummary(int id, String title, String askedBy, LocalDateTime createdAt, boolean isResolved,
+                           int answerCount, int unreadAnswerCount, int topUpvotes, LocalDateTime lastActivityAt,
+                           long viewCount) {
+        this.id = id;
+        this.title = title;
+        this.askedBy = askedBy;
+        this.createdAt = createdAt;
+        this.isResolved = isResolved;
+        this.answerCount = answerCount;
+        this.unreadAnswerCount = unreadAnswerCount;
+        this.topUpvotes = topUpvotes;
+        this.lastActivityAt = lastActivityAt;
+        this.viewCount = viewCount;
+    }
+
+    public int getId() { return id; }
+    public String getTitle() { return title; }
+    public String getAskedBy() { return askedBy; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public boolean isResolved() { return isResolved; }
+    public int getAnswerCount() { return answerCount; }
+    public int getUnreadAnswerCount() { return unreadAnswerCount; }
+    // Most upvotes any single answer has, 0 without answers
+    public int getTopUpvotes() { return topUpvotes; }
+    // Latest of the question and its answers being posted
+    public LocalDateTime getLastActivityAt() { return lastActivityAt; }
+    // Times the question was opened, including views counted but not yet written
+    public long getViewCount() { return viewCount; }
+
+    public String getFormattedDate() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+        return createdAt.format(formatter);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Question #%d: %s (by %s, %d answers, %d unread, %s)",
+            id, title, askedBy, answerCount, unreadAnswerCount, isResolved ? "Resolved" : "Unresolved");
+    }
+}
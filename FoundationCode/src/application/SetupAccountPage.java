@@ -13,7 +13,6 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,6 +24,9 @@ import databasePart1.*;
  */
 public class SetupAccountPage {
     
+    // Result of the registration checks, decided on the database worker
+    private enum SetupOutcome { REGISTERED, USERNAME_TAKEN, INVALID_CODE }
+    
     private final DatabaseHelper databaseHelper;
     
     public SetupAccountPage(DatabaseHelper databaseHelper) {
@@ -161,6 +163,10 @@ public class SetupAccountPage {
         
         Button setupButton = new Button("Create Account");
         setupButton.setStyle("-fx-font-size: 14px; -fx-padding: 5 20; -fx-background-color: #0099ff; -fx-text-fill: white;");
+        // Shown while the account is being created in the background
+        ProgressIndicator setupProgress = new ProgressIndicator();
+        setupProgress.setPrefSize(20, 20);
+        setupProgress.setVisible(false);
         Button goBack = new Button("Cancel");
         goBack.setStyle("-fx-font-size: 14px; -fx-padding: 5 20; -fx-background-color: #666; -fx-text-fill: white;");
         // Navigate back to UserLoginPage
@@ -177,42 +183,49 @@ public class SetupAccountPage {
             String code = inviteCodeField.getText();
             
             if(usernameSet && passwordSet && emailSet && nameSet) {
-	            try {
+	            User user = new User(userName, password, "user");
+	            user.setEmail(email);
+	            user.setMiddleInitial(middleInitial);
+	            setupButton.setDisable(true);
+	            setupProgress.setVisible(true);
+	            databaseHelper.async().call(db -> {
 	                // Check if user already exists
-	                if(!databaseHelper.doesUserExist(userName)) {
-	                    
-	                    // Check if database is empty (first user becomes admin)
-	                    if(databaseHelper.isDatabaseEmpty()) {
-	                        // First user becomes admin automatically
-	                    	User user = new User(userName, password, "admin");
-	                        user.setEmail(email);
-	                        user.setMiddleInitial(middleInitial);
-	                        databaseHelper.register(user);
-	                        System.out.println("First admin created successfully!");
-	                        new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-	                        
-	                    } else if(databaseHelper.validateInvitationCode(code)) {
-	                        // Regular user with valid invitation code
-	                    	 User user = new User(userName, password, "user");
-	                         user.setEmail(email);
-	                         user.setMiddleInitial(middleInitial);
-	                         databaseHelper.register(user);
-	                        new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-	                        
-	                    } else {
-	                        errorLabel.setText("Please enter a valid invitation code. Contact an admin if you don't have one.");
-	                        errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
-	                    }
+	                if(db.doesUserExist(userName)) {
+	                    return SetupOutcome.USERNAME_TAKEN;
+	                }
+	                // Check if database is empty (first user becomes admin)
+	                if(db.isDatabaseEmpty()) {
+	                    // First user becomes admin automatically
+	                    user.setRole("admin");
+	                    db.register(user);
+	                    System.out.println("First admin created successfully!");
+	                    return SetupOutcome.REGISTERED;
+	                }
+	                if(db.validateInvitationCode(code)) {
+	                    // Regular user with valid invitation code
+	                    db.register(user);
+	                    return SetupOutcome.REGISTERED;
+	                }
+	                return SetupOutcome.INVALID_CODE;
+	            }, outcome -> {
+	                setupButton.setDisable(false);
+	                setupProgress.setVisible(false);
+	                if(outcome == SetupOutcome.REGISTERED) {
+	                    new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
+	                } else if(outcome == SetupOutcome.INVALID_CODE) {
+	                    errorLabel.setText("Please enter a valid invitation code. Contact an admin if you don't have one.");
+	                    errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
 	                } else {
 	                    errorLabel.setText("This username is taken! Please use another to setup an account");
 	                    errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
 	                }
-	                
-	            } catch (SQLException e) {
+	            }, e -> {
+	                setupButton.setDisable(false);
+	                setupProgress.setVisible(false);
 	                System.err.println("Database error: " + e.getMessage());
 	                e.printStackTrace();
 	                errorLabel.setText("Database error occurred");
-	            }
+	            });
            }else {
         	   errorLabel.setText("Fields cannot be left blank: Username, Password, Email, Name");
                errorLabel.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
@@ -245,6 +258,7 @@ public class SetupAccountPage {
         grid.add(errorLabel, 1, 9);
         grid.add(goBack, 0, 10);
         grid.add(setupButton, 1, 10);
+        grid.add(setupProgress, 2, 10);
         GridPane.setHalignment(userNameLabel, javafx.geometry.HPos.RIGHT);
         GridPane.setHalignment(passwordLabel, javafx.geometry.HPos.RIGHT);
         GridPane.setHalignment(emailLabel, javafx.geometry.HPos.RIGHT);
@@ -266,15 +280,14 @@ public class SetupAccountPage {
 		if (input.isEmpty()) {}
 		else
 		{
-			String errMessage = PasswordEvaluator.evaluateUsername(inputText);
-			//updateFlags();
-			if (errMessage != "") {
-				System.out.println(errMessage);
+			PasswordEvaluator.Evaluation result = PasswordEvaluator.checkUsername(inputText);
+			if (!result.isValid()) {
+				System.out.println(result.getErrorMessage());
 				label.setText("The username must be at least 4 characters long.\nCan only include: upper case and lower case letters and numbers.");
 				label.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
 				usernameSet=false;
 			}
-			else if (PasswordEvaluator.UfoundLongEnough) {
+			else if (result.foundLongEnough()) {
 				label.setText("Success! The username satisfies the requirements.");
 				label.setStyle("-fx-text-fill: green; -fx-font-size: 12px;");
 				usernameSet=true;
@@ -295,16 +308,15 @@ public class SetupAccountPage {
 		if (input.isEmpty()) {}
 		else
 		{
-			String errMessage = PasswordEvaluator.evaluatePassword(inputText);
-			//updateFlags();
-			if (errMessage != "") {
+			PasswordEvaluator.Evaluation result = PasswordEvaluator.checkPassword(inputText);
+			if (!result.isValid()) {
 				label.setText("Password must be at least 6 characters long and include:\nUpper case letter, lower case letter, a digit and a special symbol.");
 				label.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
 				passwordSet=false;
 			}
-			else if (PasswordEvaluator.PfoundUpperCase && PasswordEvaluator.PfoundLowerCase &&
-					PasswordEvaluator.PfoundNumericDigit && PasswordEvaluator.PfoundSpecialChar &&
-					PasswordEvaluator.PfoundLongEnough) {
+			else if (result.foundUpperCase() && result.foundLowerCase() &&
+					result.foundNumericDigit() && result.foundSpecialChar() &&
+					result.foundLongEnough()) {
 				label.setText("Success! The password satisfies the requirements.");
 				label.setStyle("-fx-text-fill: green; -fx-font-size: 12px;");
 				passwordSet=true;
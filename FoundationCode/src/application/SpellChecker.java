@@ -1,6 +1,11 @@
 package application;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * SpellChecker provides basic spell checking and grammar validation.
@@ -110,190 +115,431 @@ public class SpellChecker {
         }
     }
     
+    // Texts starting with one of these are treated as questions
+    private static final String[] QUESTION_WORDS = {
+        "what", "how", "why", "when", "where", "who", "is", "are", "can", "could", "would", "should"
+    };
+    
+    private static final Pattern HAS_LETTER = Pattern.compile(".*[a-zA-Z]+.*");
+    
+    // Suggestions offered per possible misspelling
+    private static final int MAX_SUGGESTIONS = 3;
+    
     /**
-     * Validates text for spelling and basic grammar
+     * The large word list, loaded on first use from the file named by the
+     * "spellchecker.dictionary" system property or ~/FoundationDictionary.dict (build it
+     * with CompactDictionary's main). Only when the file is missing and the
+     * "spellchecker.wordlist" property names a plain word list (such as
+     * /usr/share/dict/words) is the file built from it, in the background, which takes a
+     * few seconds once. Until then, or without either, suggestions come from the built-in
+     * words above.
      */
-    public static ValidationResult validateText(String text) {
-        ValidationResult result = new ValidationResult();
+    private static final class Words {
+        private static volatile CompactDictionary dictionary = load();
         
-        if (text == null || text.trim().isEmpty()) {
-            result.addError("Text cannot be empty");
-            return result;
+        static CompactDictionary get() {
+            return dictionary;
         }
         
-        String corrected = text;
-        
-        // Check for basic grammar issues
-        corrected = checkBasicGrammar(text, result);
-        
-        // Check spelling
-        corrected = checkSpelling(corrected, result);
-        
-        // Check for excessive punctuation
-        checkPunctuation(corrected, result);
-        
-        // Check for all caps (yelling)
-        checkAllCaps(corrected, result);
-        
-        // Check for repeated words
-        checkRepeatedWords(corrected, result);
+        private static CompactDictionary load() {
+            Path file = defaultDictionaryFile();
+            CompactDictionary loaded = CompactDictionary.load(file);
+            if (loaded != null) {
+                return loaded;
+            }
+            Path wordList = findWordList();
+            if (wordList != null) {
+                Thread builder = new Thread(() -> build(wordList, file), "dictionary-builder");
+                builder.setDaemon(true);
+                builder.start();
+            }
+            return CompactDictionary.of(SpellChecker.DICTIONARY);
+        }
         
-        result.setCorrectedText(corrected);
+        private static void build(Path wordList, Path file) {
+            try {
+                CompactDictionary.write(CompactDictionary.readWordList(wordList), file);
+                CompactDictionary built = CompactDictionary.load(file);
+                if (built != null) {
+                    dictionary = built;
+                }
+            } catch (IOException e) {
+                System.err.println("Could not build the dictionary from " + wordList + ": " + e.getMessage());
+            }
+        }
         
-        return result;
+        // Set explicitly, so a spell check never writes a file nobody asked for
+        private static Path findWordList() {
+            String configured = System.getProperty("spellchecker.wordlist");
+            if (configured == null || !Files.isReadable(Paths.get(configured))) {
+                return null;
+            }
+            return Paths.get(configured);
+        }
+    }
+    
+    static Path defaultDictionaryFile() {
+        String file = System.getProperty("spellchecker.dictionary");
+        return file != null ? Paths.get(file) : Paths.get(System.getProperty("user.home"), "FoundationDictionary.dict");
     }
     
     /**
-     * Checks for basic grammar issues
+     * Validates text for spelling and basic grammar.
+     * 
+     * All checks run in one walk over the text (see Scan): the corrected text is built
+     * as the walk goes, and spelling, punctuation, all-caps and repeated-word checks look
+     * at the corrected text as it is written.
      */
-    private static String checkBasicGrammar(String text, ValidationResult result) {
-        String corrected = text;
+    public static ValidationResult validateText(String text) {
+        ValidationResult result = new ValidationResult();
+        
+        if (text == null || text.trim().isEmpty()) {
+            result.addError("Text cannot be empty");
+            return result;
+        }
         
         // Check if starts with lowercase (should start with capital)
-        if (text.length() > 0 && Character.isLowerCase(text.charAt(0))) {
+        boolean capitalize = Character.isLowerCase(text.charAt(0));
+        if (capitalize) {
             result.addWarning("Sentence should start with a capital letter");
-            corrected = Character.toUpperCase(corrected.charAt(0)) + corrected.substring(1);
         }
         
         // Check for missing question mark on questions
-        if (text.toLowerCase().startsWith("what") || text.toLowerCase().startsWith("how") || 
-            text.toLowerCase().startsWith("why") || text.toLowerCase().startsWith("when") ||
-            text.toLowerCase().startsWith("where") || text.toLowerCase().startsWith("who") ||
-            text.toLowerCase().startsWith("is") || text.toLowerCase().startsWith("are") ||
-            text.toLowerCase().startsWith("can") || text.toLowerCase().startsWith("could") ||
-            text.toLowerCase().startsWith("would") || text.toLowerCase().startsWith("should")) {
-            if (!text.trim().endsWith("?")) {
-                result.addWarning("Question should end with a question mark (?)");
-            }
+        if (startsWithQuestionWord(text) && !endsWithQuestionMark(text)) {
+            result.addWarning("Question should end with a question mark (?)");
         }
         
-        // Check for double spaces
-        if (corrected.contains("  ")) {
+        // Check for double spaces; if there are any, every whitespace run becomes one space
+        boolean collapseSpaces = text.contains("  ");
+        if (collapseSpaces) {
             result.addWarning("Remove extra spaces between words");
-            corrected = corrected.replaceAll("\\s+", " ");
         }
         
-        // Check for space before punctuation
-        corrected = corrected.replaceAll("\\s+([.,!?;:])", "$1");
-        
-        return corrected;
+        Scan scan = new Scan(text.length(), result);
+        scan.run(text, capitalize, collapseSpaces);
+        scan.finish();
+        return result;
     }
     
-    /**
-     * Checks spelling against dictionary and common misspellings
-     */
-    private static String checkSpelling(String text, ValidationResult result) {
-        String corrected = text;
-        String[] words = text.toLowerCase().split("\\W+");
-        
-        List<String> misspelledWords = new ArrayList<>();
-        Map<String, String> corrections = new HashMap<>();
-        
-        for (String word : words) {
-            if (word.isEmpty() || word.length() <= 1) continue;
-            
-            // Check if it's a number
-            if (word.matches("\\d+")) continue;
-            
-            String lowerWord = word.toLowerCase();
-            
-            // Check common misspellings first
-            if (COMMON_MISSPELLINGS.containsKey(lowerWord)) {
-                String correction = COMMON_MISSPELLINGS.get(lowerWord);
-                corrections.put(word, correction);
-                misspelledWords.add(word + " → " + correction);
-            }
-            // Check dictionary
-            else if (!DICTIONARY.contains(lowerWord)) {
-                // Only flag as misspelled if it's not a technical term or proper noun
-                if (!looksLikeTechnicalTerm(word) && !Character.isUpperCase(word.charAt(0))) {
-                    result.addWarning("Possible misspelling: '" + word + "'");
-                }
+    private static boolean startsWithQuestionWord(String text) {
+        for (String word : QUESTION_WORDS) {
+            if (startsWithIgnoringAsciiCase(text, word)) {
+                return true;
             }
         }
-        
-        // Apply corrections
-        for (Map.Entry<String, String> entry : corrections.entrySet()) {
-            corrected = corrected.replaceAll("(?i)\\b" + entry.getKey() + "\\b", entry.getValue());
+        return false;
+    }
+    
+    // Only ASCII letters fold, so e.g. a dotted capital I does not count as "i"
+    private static boolean startsWithIgnoringAsciiCase(String text, String lowerPrefix) {
+        if (text.length() < lowerPrefix.length()) {
+            return false;
         }
-        
-        if (!misspelledWords.isEmpty()) {
-            result.addWarning("Auto-corrected: " + String.join(", ", misspelledWords));
+        for (int i = 0; i < lowerPrefix.length(); i++) {
+            if (asciiLower(text.charAt(i)) != lowerPrefix.charAt(i)) {
+                return false;
+            }
         }
-        
-        return corrected;
+        return true;
     }
     
-    /**
-     * Checks if a word looks like a technical term (camelCase, contains numbers, etc.)
-     */
-    private static boolean looksLikeTechnicalTerm(String word) {
-        // Check for camelCase
-        if (word.matches(".*[a-z][A-Z].*")) return true;
-        
-        // Check for mixed letters and numbers
-        if (word.matches(".*[a-zA-Z].*\\d.*") || word.matches(".*\\d.*[a-zA-Z].*")) return true;
-        
-        // Check for common technical patterns
-        if (word.contains("_") || word.contains("-")) return true;
-        
-        return false;
+    private static boolean endsWithQuestionMark(String text) {
+        int end = text.length() - 1;
+        while (end >= 0 && text.charAt(end) <= ' ') {
+            end--;
+        }
+        return end >= 0 && text.charAt(end) == '?';
     }
     
     /**
-     * Checks for excessive punctuation
+     * State of one validateText walk.
+     * 
+     * Characters are appended to the corrected text one at a time. A word (a run of
+     * letters, digits and underscores) is spell-checked and auto-corrected in place when
+     * it ends; a token (a run of non-whitespace) is checked for shouting and repetition
+     * when it ends, after the corrections inside it have been made.
      */
-    private static void checkPunctuation(String text, ValidationResult result) {
-        // Check for multiple exclamation marks
-        if (text.contains("!!")) {
-            result.addWarning("Avoid excessive exclamation marks");
+    private static final class Scan {
+        private final ValidationResult result;
+        private final StringBuilder out;
+        
+        private int wordStart = -1;
+        private int tokenStart = -1;
+        private int previousTokenStart = -1;
+        private int previousTokenEnd = -1;
+        private List<String> autoCorrected;
+        
+        // Punctuation
+        private char previous;
+        private int periods;
+        private boolean doubleExclamation;
+        private boolean doubleQuestion;
+        private boolean longEllipsis;
+        private boolean lineBreak;
+        
+        // All caps and repeated words
+        private int totalWords;
+        private int capsWords;
+        private List<String> repeatedWords;
+        
+        Scan(int length, ValidationResult result) {
+            this.result = result;
+            this.out = new StringBuilder(length + 16);
+        }
+        
+        void run(String text, boolean capitalize, boolean collapseSpaces) {
+            int length = text.length();
+            int i = 0;
+            while (i < length) {
+                char c = text.charAt(i);
+                if (!isSpace(c)) {
+                    append(i == 0 && capitalize ? Character.toUpperCase(c) : c);
+                    i++;
+                    continue;
+                }
+                int end = i + 1;
+                while (end < length && isSpace(text.charAt(end))) {
+                    end++;
+                }
+                // Check for space before punctuation: drop it
+                if (end < length && isClosingPunctuation(text.charAt(end))) {
+                    i = end;
+                    continue;
+                }
+                if (collapseSpaces) {
+                    append(' ');
+                } else {
+                    for (int k = i; k < end; k++) {
+                        append(text.charAt(k));
+                    }
+                }
+                i = end;
+            }
+            endWord();
+            endToken();
         }
         
-        // Check for multiple question marks
-        if (text.contains("??")) {
-            result.addWarning("Avoid multiple question marks");
+        void finish() {
+            if (autoCorrected != null) {
+                result.addWarning("Auto-corrected: " + String.join(", ", autoCorrected));
+            }
+            
+            // Check for excessive punctuation
+            if (doubleExclamation) {
+                result.addWarning("Avoid excessive exclamation marks");
+            }
+            if (doubleQuestion) {
+                result.addWarning("Avoid multiple question marks");
+            }
+            // Only reported for single-line text, as the ".*\\.{4,}.*" match always was
+            if (longEllipsis && !lineBreak) {
+                result.addWarning("Use proper ellipsis (...) instead of multiple periods");
+            }
+            
+            // Check for all caps text (considered shouting)
+            if (totalWords > 0 && (double) capsWords / totalWords > 0.5) {
+                result.addWarning("Avoid using ALL CAPS - it's considered shouting");
+            }
+            
+            // Check for repeated words
+            if (repeatedWords != null) {
+                for (String word : repeatedWords) {
+                    result.addWarning("Repeated word detected: '" + word + "'");
+                }
+            }
+            
+            result.setCorrectedText(out.toString());
         }
         
-        // Check for excessive periods
-        if (text.matches(".*\\.{4,}.*")) {
-            result.addWarning("Use proper ellipsis (...) instead of multiple periods");
+        private void append(char c) {
+            if (isWordChar(c)) {
+                if (wordStart < 0) {
+                    wordStart = out.length();
+                }
+            } else {
+                endWord();
+            }
+            if (isSpace(c)) {
+                endToken();
+            } else if (tokenStart < 0) {
+                tokenStart = out.length();
+            }
+            
+            if (c == '!' && previous == '!') {
+                doubleExclamation = true;
+            } else if (c == '?' && previous == '?') {
+                doubleQuestion = true;
+            }
+            periods = c == '.' ? periods + 1 : 0;
+            if (periods >= 4) {
+                longEllipsis = true;
+            }
+            if (isLineTerminator(c)) {
+                lineBreak = true;
+            }
+            previous = c;
+            out.append(c);
         }
-    }
-    
-    /**
-     * Checks for all caps text (considered shouting)
-     */
-    private static void checkAllCaps(String text, ValidationResult result) {
-        String[] words = text.split("\\s+");
-        int capsWords = 0;
-        int totalWords = 0;
         
-        for (String word : words) {
-            if (word.length() > 2) { // Ignore short words like "I"
+        /**
+         * Checks spelling of the word that just ended against the dictionary and common
+         * misspellings, correcting common misspellings in place.
+         */
+        private void endWord() {
+            if (wordStart < 0) {
+                return;
+            }
+            int start = wordStart;
+            wordStart = -1;
+            int end = out.length();
+            if (end - start <= 1) {
+                return;
+            }
+            
+            boolean letters = false;
+            boolean digits = false;
+            boolean underscore = false;
+            char[] lower = new char[end - start];
+            for (int k = start; k < end; k++) {
+                char c = out.charAt(k);
+                if (c >= '0' && c <= '9') {
+                    digits = true;
+                } else if (c == '_') {
+                    underscore = true;
+                } else {
+                    letters = true;
+                    c = (char) (c | 0x20);   // ASCII letter to lower case
+                }
+                lower[k - start] = c;
+            }
+            // Check if it's a number
+            if (!letters && !underscore) {
+                return;
+            }
+            
+            String word = new String(lower);
+            String correction = COMMON_MISSPELLINGS.get(word);
+            if (correction != null) {
+                out.replace(start, end, correction);
+                if (autoCorrected == null) {
+                    autoCorrected = new ArrayList<>();
+                }
+                autoCorrected.add(word + " → " + correction);
+            }
+            // Words are checked in lower case, so only mixed letters and digits or an
+            // underscore mark a technical term here
+            else if (!(letters && digits) && !underscore && !DICTIONARY.contains(word)
+                    && !Words.get().contains(word)) {
+                List<String> suggestions = Words.get().suggest(word, MAX_SUGGESTIONS);
+                result.addWarning("Possible misspelling: '" + word + "'"
+                    + (suggestions.isEmpty() ? "" : " (did you mean: " + String.join(", ", suggestions) + "?)"));
+            }
+        }
+        
+        /**
+         * Counts the token that just ended for the all-caps check and compares it with
+         * the token before it.
+         */
+        private void endToken() {
+            if (tokenStart < 0) {
+                return;
+            }
+            int start = tokenStart;
+            int end = out.length();
+            tokenStart = -1;
+            
+            boolean ascii = true;
+            boolean upper = false;
+            boolean lower = false;
+            boolean lineBreakInToken = false;
+            for (int k = start; k < end; k++) {
+                char c = out.charAt(k);
+                if (c >= 'A' && c <= 'Z') {
+                    upper = true;
+                } else if (c >= 'a' && c <= 'z') {
+                    lower = true;
+                } else if (c >= 0x80) {
+                    ascii = false;
+                    lineBreakInToken |= isLineTerminator(c);
+                }
+            }
+            
+            if (end - start > 2) { // Ignore short words like "I"
                 totalWords++;
-                if (word.equals(word.toUpperCase()) && word.matches(".*[A-Z].*")) {
+                // A line break inside the token never counted, as with the ".*[A-Z].*" match
+                if (upper && !lineBreakInToken && (ascii ? !lower : isUpperCase(out.substring(start, end)))) {
                     capsWords++;
                 }
             }
+            
+            if (previousTokenStart >= 0) {
+                String repeated = sameWord(previousTokenStart, previousTokenEnd, start, end, ascii);
+                if (repeated != null) {
+                    if (repeatedWords == null) {
+                        repeatedWords = new ArrayList<>();
+                    }
+                    repeatedWords.add(repeated);
+                }
+            }
+            previousTokenStart = start;
+            previousTokenEnd = end;
         }
         
-        if (totalWords > 0 && (double) capsWords / totalWords > 0.5) {
-            result.addWarning("Avoid using ALL CAPS - it's considered shouting");
+        // The lower-case word if both tokens are the same word of more than two characters
+        private String sameWord(int aStart, int aEnd, int bStart, int bEnd, boolean ascii) {
+            if (!ascii || !isAscii(aStart, aEnd)) {
+                String a = out.substring(aStart, aEnd).toLowerCase();
+                return a.length() > 2 && a.equals(out.substring(bStart, bEnd).toLowerCase()) ? a : null;
+            }
+            int length = aEnd - aStart;
+            if (length <= 2 || length != bEnd - bStart) {
+                return null;
+            }
+            for (int k = 0; k < length; k++) {
+                if (asciiLower(out.charAt(aStart + k)) != asciiLower(out.charAt(bStart + k))) {
+                    return null;
+                }
+            }
+            return out.substring(bStart, bEnd).toLowerCase();
         }
-    }
-    
-    /**
-     * Checks for repeated words
-     */
-    private static void checkRepeatedWords(String text, ValidationResult result) {
-        String[] words = text.toLowerCase().split("\\s+");
-        for (int i = 0; i < words.length - 1; i++) {
-            if (words[i].equals(words[i + 1]) && words[i].length() > 2) {
-                result.addWarning("Repeated word detected: '" + words[i] + "'");
+        
+        private boolean isAscii(int start, int end) {
+            for (int k = start; k < end; k++) {
+                if (out.charAt(k) >= 0x80) {
+                    return false;
+                }
             }
+            return true;
         }
     }
     
+    // Same as \w in Java regular expressions
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+    
+    // Same as \s in Java regular expressions
+    private static boolean isSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+    
+    private static boolean isClosingPunctuation(char c) {
+        return c == '.' || c == ',' || c == '!' || c == '?' || c == ';' || c == ':';
+    }
+    
+    // Characters that '.' does not match in Java regular expressions
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+    
+    private static char asciiLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c | 0x20) : c;
+    }
+    
+    private static boolean isUpperCase(String word) {
+        return word.equals(word.toUpperCase());
+    }
+    
     /**
      * Quick check for minimal validation
      */
@@ -302,7 +548,7 @@ public class SpellChecker {
         if (text.length() < 5) return false;
         
         // Must contain at least some letters
-        if (!text.matches(".*[a-zA-Z]+.*")) return false;
+        if (!HAS_LETTER.matcher(text).matches()) return false;
         
         return true;
     }
@@ -0,0 +1,90 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*******
+ * <p> Title: SpellCheckerBenchmark Class. </p>
+ *
+ * <p> Description: Measures SpellChecker.validateText, the check that runs on every pause
+ * in typing in the ask and answer editors. Inputs are generated titles and answer bodies
+ * up to the 500-character limit, mixing dictionary words, technical terms, misspellings,
+ * extra spaces, repeated words and shouting. Reports the time and the bytes allocated per
+ * call, after a warm-up so the JIT has compiled the checker. </p>
+ *
+ */
+public class SpellCheckerBenchmark {
+
+    private static final int INPUTS = 1_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+    private static final int[] LENGTHS = {60, 200, 500};
+
+    private static final String[] WORDS = {
+        "the", "method", "returns", "null", "when", "list", "is", "empty", "and", "loop", "never", "runs",
+        "how", "do", "I", "sort", "array", "in", "java", "without", "recursion", "teh", "recieve", "dont",
+        "hashMap", "node2", "my_var", "ArrayList", "EXCEPTION", "ERROR", "stack", "queue", "binary", "tree",
+        "because", "pointer", "it", "it", "works", "compile", "error", "syntax", "constructor", "override"
+    };
+    private static final String[] SEPARATORS = {" ", " ", " ", " ", "  ", ", ", ". ", " !! ", "?? ", ".... ", "\n"};
+
+    // HotSpot counts the bytes each thread allocates
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        System.out.println("______________________________________");
+        System.out.println("\nSpellChecker.validateText, " + INPUTS + " inputs per length");
+        System.out.printf("%n%8s %14s %16s%n", "length", "us/call", "bytes/call");
+        List<List<String>> inputsByLength = new ArrayList<>();
+        for (int length : LENGTHS) {
+            inputsByLength.add(inputs(length, new Random(length)));
+        }
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (List<String> inputs : inputsByLength) {
+                run(inputs);
+            }
+        }
+        for (int i = 0; i < LENGTHS.length; i++) {
+            int length = LENGTHS[i];
+            List<String> inputs = inputsByLength.get(i);
+            long[] nanos = new long[ROUNDS];
+            long allocated = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long bytesBefore = THREADS.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                run(inputs);
+                nanos[round] = System.nanoTime() - start;
+                allocated += THREADS.getCurrentThreadAllocatedBytes() - bytesBefore;
+            }
+            Arrays.sort(nanos);
+            long calls = (long) ROUNDS * inputs.size();
+            System.out.printf("%8d %14.2f %16d%n", length, nanos[ROUNDS / 2] / 1e3 / inputs.size(), allocated / calls);
+        }
+        System.out.println("____________________________________________________________________________");
+    }
+
+    private static int run(List<String> inputs) {
+        int warnings = 0;
+        for (String text : inputs) {
+            warnings += SpellChecker.validateText(text).getWarnings().size();
+        }
+        return warnings;
+    }
+
+    private static List<String> inputs(int length, Random random) {
+        List<String> inputs = new ArrayList<>(INPUTS);
+        for (int i = 0; i < INPUTS; i++) {
+            StringBuilder text = new StringBuilder(length + 16);
+            while (text.length() < length) {
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+                text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            inputs.add(text.substring(0, length));
+        }
+        return inputs;
+    }
+}
@@ -1,16 +1,30 @@
 package application;
 
+import databasePart1.AsyncDatabaseHelper;
 import databasePart1.DatabaseHelper;
+import databasePart1.QAEvent;
+import databasePart1.QAEventBus;
+import databasePart1.QuestionFilter;
+import databasePart1.QuestionSort;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import javafx.scene.control.Alert.AlertType;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 /**
@@ -25,7 +39,9 @@ public class StudentQAPage {
 
     
 
-    private final DatabaseHelper databaseHelper;
+    private final DatabaseHelper databaseHelper; // the card pages, events and trending are H2 read models, not QARepository
+
+    private final AsyncDatabaseHelper<DatabaseHelper> asyncDb; // all queries from this page run off the FX thread
 
     private final User currentUser;
 
@@ -49,10 +65,53 @@ public class StudentQAPage {
 
     
 
+    // Question lists, kept so change events can update single cards. Cards show the
+    // stored counters only; the full question is loaded when a card is opened
+
+    private PagedListView<QuestionSummary> myQuestionList;
+
+    private PagedListView<QuestionSummary> allQuestionList;
+
+    private QuestionFilter myQuestionsFilter;
+
+    private QuestionFilter allQuestionsFilter;
+
+    private QuestionSort allQuestionsSort = QuestionSort.NEWEST;   // null for the trending ranking
+
+    private static final String TRENDING = "Trending";
+
+    private QAEventBus.Subscription eventSubscription;
+
+    private final Set<Integer> pendingQuestionUpdates = new HashSet<>();
+
+    
+
+    // Duplicate suggestions: wait for a pause in typing, show at most a handful
+
+    private static final int DUPLICATE_CHECK_DELAY_MS = 300;
+
+    private static final int MAX_DUPLICATE_SUGGESTIONS = 5;
+
+    private int duplicateCheckSequence; // drops answers to checks that were superseded
+
+    
+
+    // Same order as DatabaseHelper.getQuestionSummaryPage: newest first, ties by id
+
+    private static final Comparator<QuestionSummary> FEED_ORDER = Comparator
+
+        .comparing(QuestionSummary::getCreatedAt, Comparator.reverseOrder())
+
+        .thenComparing(QuestionSummary::getId, Comparator.reverseOrder());
+
+    
+
     public StudentQAPage(DatabaseHelper databaseHelper, User currentUser) {
 
         this.databaseHelper = databaseHelper;
 
+        this.asyncDb = databaseHelper.async();
+
         this.currentUser = currentUser;
 
     }
@@ -88,14 +147,26 @@ public class StudentQAPage {
         Button backButton = new Button("Back to Home");
         backButton.setStyle("-fx-background-color: #666; -fx-text-fill: white; -fx-padding: 8 16;");
         backButton.setOnAction(e -> {
+            eventSubscription.close();
             new WelcomeLoginPage(databaseHelper).show(primaryStage, currentUser);
         });
         
         Button refreshButton = new Button("Refresh");
         refreshButton.setStyle("-fx-background-color: #0099ff; -fx-text-fill: white; -fx-padding: 8 16;");
-        refreshButton.setOnAction(e -> refreshAllTabs());
+        refreshButton.setOnAction(e -> reloadQuestionLists());
         
-        HBox buttonBox = new HBox(10, backButton, refreshButton);
+        // Mutations publish events on the database worker; apply them on the FX thread
+        if (eventSubscription != null) {
+            eventSubscription.close();
+        }
+        eventSubscription = databaseHelper.events().subscribe(event -> Platform.runLater(() -> onQAEvent(event)));
+        
+        // Spins while any database call from this page is still running
+        ProgressIndicator busyIndicator = new ProgressIndicator();
+        busyIndicator.setPrefSize(24, 24);
+        busyIndicator.visibleProperty().bind(asyncDb.pendingProperty().greaterThan(0));
+        
+        HBox buttonBox = new HBox(10, backButton, refreshButton, busyIndicator);
         buttonBox.setAlignment(Pos.CENTER);
         buttonBox.setPadding(new Insets(10, 0, 0, 0));
         
@@ -134,7 +205,7 @@ public class StudentQAPage {
         searchLabel.setStyle("-fx-font-weight: bold;");
         
         TextField searchField = new TextField();
-        searchField.setPromptText("Enter keywords to search...");
+        searchField.setPromptText("Search questions and answers...");
         searchField.setMaxWidth(400);
         
         VBox searchResultsBox = new VBox(5);
@@ -146,13 +217,15 @@ public class StudentQAPage {
         searchButton.setOnAction(e -> {
             String keyword = searchField.getText().trim();
             if (!keyword.isEmpty()) {
-                try {
-                    List<Question> results = databaseHelper.searchQuestions(keyword);
+                searchButton.setDisable(true);
+                asyncDb.call(db -> db.searchQuestionSummaries(keyword, DatabaseHelper.SEARCH_RESULT_LIMIT), results -> {
+                    searchButton.setDisable(false);
                     displaySearchResults(searchResultsBox, results);
                     searchResultsBox.setVisible(true);
-                } catch (SQLException ex) {
+                }, ex -> {
+                    searchButton.setDisable(false);
                     showAlert("Error", "Failed to search questions: " + ex.getMessage(), AlertType.ERROR);
-                }
+                });
             }
         });
         
@@ -177,6 +250,8 @@ public class StudentQAPage {
         titleValidation.setWrapText(true);
         titleValidation.setMaxWidth(600);
         
+        ValidationPipeline titleValidator = new ValidationPipeline(InputValidator::validateQuestionTitle,
+                report -> showValidation(titleValidation, report, "✓ Title looks good!"));
         titleField.textProperty().addListener((obs, old, newVal) -> {
             // Update counter
             titleCounter.setText(newVal.length() + "/" + Question.TITLE_MAX_LENGTH);
@@ -189,19 +264,11 @@ public class StudentQAPage {
                 titleField.setText(newVal.substring(0, Question.TITLE_MAX_LENGTH));
             }
             
-            // Real-time validation
+            // Real-time validation, run off the FX thread once typing pauses
             if (!newVal.trim().isEmpty()) {
-                InputValidator.ValidationReport report = InputValidator.validateQuestionTitle(newVal);
-                if (report.hasIssues()) {
-                    titleValidation.setText(report.getFullReport());
-                    titleValidation.setStyle(report.canSubmit() ? 
-                        "-fx-text-fill: orange; -fx-font-size: 11px;" : 
-                        "-fx-text-fill: red; -fx-font-size: 11px;");
-                } else {
-                    titleValidation.setText("✓ Title looks good!");
-                    titleValidation.setStyle("-fx-text-fill: green; -fx-font-size: 11px;");
-                }
+                titleValidator.submit(newVal);
             } else {
+                titleValidator.cancel();
                 titleValidation.setText("");
             }
         });
@@ -218,11 +285,25 @@ public class StudentQAPage {
         Label contentCounter = new Label("0/" + Question.CONTENT_MAX_LENGTH);
         contentCounter.setStyle("-fx-font-size: 10px; -fx-text-fill: #666;");
         
+        // Possible duplicates, looked up automatically as the question is typed
+        VBox duplicatesBox = new VBox(5);
+        duplicatesBox.setMaxWidth(600);
+        duplicatesBox.setStyle("-fx-border-color: #ffcc80; -fx-border-width: 1; -fx-padding: 10; -fx-background-color: #fff8e1;");
+        duplicatesBox.managedProperty().bind(duplicatesBox.visibleProperty());
+        duplicatesBox.setVisible(false);
+        
+        PauseTransition duplicateCheck = new PauseTransition(Duration.millis(DUPLICATE_CHECK_DELAY_MS));
+        duplicateCheck.setOnFinished(e -> checkForDuplicates(titleField.getText(), contentArea.getText(), duplicatesBox));
+        titleField.textProperty().addListener((obs, old, newVal) -> duplicateCheck.playFromStart());
+        contentArea.textProperty().addListener((obs, old, newVal) -> duplicateCheck.playFromStart());
+        
         // Validation feedback for content
         Label contentValidation = new Label();
         contentValidation.setWrapText(true);
         contentValidation.setMaxWidth(600);
         
+        ValidationPipeline contentValidator = new ValidationPipeline(InputValidator::validateQuestionContent,
+                report -> showValidation(contentValidation, report, "✓ Content looks good!"));
         contentArea.textProperty().addListener((obs, old, newVal) -> {
             // Update counter
             contentCounter.setText(newVal.length() + "/" + Question.CONTENT_MAX_LENGTH);
@@ -235,19 +316,11 @@ public class StudentQAPage {
                 contentArea.setText(newVal.substring(0, Question.CONTENT_MAX_LENGTH));
             }
             
-            // Real-time validation
+            // Real-time validation, run off the FX thread once typing pauses
             if (!newVal.trim().isEmpty()) {
-                InputValidator.ValidationReport report = InputValidator.validateQuestionContent(newVal);
-                if (report.hasIssues()) {
-                    contentValidation.setText(report.getFullReport());
-                    contentValidation.setStyle(report.canSubmit() ? 
-                        "-fx-text-fill: orange; -fx-font-size: 11px;" : 
-                        "-fx-text-fill: red; -fx-font-size: 11px;");
-                } else {
-                    contentValidation.setText("✓ Content looks good!");
-                    contentValidation.setStyle("-fx-text-fill: green; -fx-font-size: 11px;");
-                }
+                contentValidator.submit(newVal);
             } else {
+                contentValidator.cancel();
                 contentValidation.setText("");
             }
         });
@@ -341,9 +414,17 @@ public class StudentQAPage {
             }
             
             // Create and submit question
+            Question question;
             try {
-                Question question = new Question(finalTitle, finalContent, currentUser.getUserName());
-                databaseHelper.createQuestion(question);
+                question = new Question(finalTitle, finalContent, currentUser.getUserName());
+            } catch (IllegalArgumentException ex) {
+                errorLabel.setText("Validation error: " + ex.getMessage());
+                return;
+            }
+            
+            submitButton.setDisable(true);
+            asyncDb.call(db -> db.createQuestion(question), id -> {
+                submitButton.setDisable(false);
                 
                 // Show success message
                 Alert successAlert = new Alert(AlertType.INFORMATION);
@@ -359,21 +440,16 @@ public class StudentQAPage {
                 titleValidation.setText("");
                 contentValidation.setText("");
                 
-                // Refresh tabs to show the new question
-                refreshAllTabs();
-                
                 // Switch to "My Questions" tab to show the posted question
                 tabPane.getSelectionModel().select(1); // Index 1 is My Questions
-                
-            } catch (IllegalArgumentException ex) {
-                errorLabel.setText("Validation error: " + ex.getMessage());
-            } catch (SQLException ex) {
+            }, ex -> {
+                submitButton.setDisable(false);
                 Alert errorAlert = new Alert(AlertType.ERROR);
                 errorAlert.setTitle("Error");
                 errorAlert.setHeaderText("Failed to Post Question");
                 errorAlert.setContentText("Database error: " + ex.getMessage());
                 errorAlert.showAndWait();
-            }
+            });
         });
         
         content.getChildren().addAll(
@@ -381,7 +457,7 @@ public class StudentQAPage {
             new Label(""),
             searchLabel, searchBox, searchResultsBox,
             sep1,
-            titleLabel, titleField, titleCounter, titleValidation,
+            titleLabel, titleField, titleCounter, titleValidation, duplicatesBox,
             contentLabel, contentArea, contentCounter, contentValidation,
             errorLabel,
             buttonBox
@@ -395,7 +471,37 @@ public class StudentQAPage {
     }
     
 
-    private void displaySearchResults(VBox container, List<Question> results) {
+    private void checkForDuplicates(String title, String contentText, VBox container) {
+        int sequence = ++duplicateCheckSequence;
+        if (title.trim().length() < Question.TITLE_MIN_LENGTH) {
+            container.setVisible(false);
+            return;
+        }
+        asyncDb.call(db -> db.findSimilarQuestionSummaries(title, contentText, MAX_DUPLICATE_SUGGESTIONS), similar -> {
+            if (sequence != duplicateCheckSequence) {
+                return; // the text changed again while this check was running
+            }
+            container.getChildren().clear();
+            container.setVisible(!similar.isEmpty());
+            if (similar.isEmpty()) {
+                return;
+            }
+            Label header = new Label("This may already have been asked:");
+            header.setStyle("-fx-font-weight: bold; -fx-text-fill: #e65100;");
+            container.getChildren().add(header);
+            for (QuestionSummary q : similar) {
+                Hyperlink link = new Hyperlink(q.getTitle() + "  (" + q.getAnswerCount() + " answers"
+                    + (q.isResolved() ? ", resolved)" : ")"));
+                // The suggestion only carries the card fields; load the question when opened
+                link.setOnAction(e -> openQuestion(q, this::showAnswersDialog));
+                container.getChildren().add(link);
+            }
+        }, ex -> ex.printStackTrace());
+    }
+
+    
+
+    private void displaySearchResults(VBox container, List<QuestionSummary> results) {
 
         container.getChildren().clear();
 
@@ -419,7 +525,7 @@ public class StudentQAPage {
 
             
 
-            for (Question q : results) {
+            for (QuestionSummary q : results) {
 
                 VBox questionBox = new VBox(5);
 
@@ -433,7 +539,7 @@ public class StudentQAPage {
 
                 
 
-                Label metaLbl = new Label(q.getAnswers().size() + " answers • " + 
+                Label metaLbl = new Label(q.getAnswerCount() + " answers • " + 
 
                                          (q.isResolved() ? "✓ Resolved" : "Unresolved") + 
 
@@ -470,9 +576,7 @@ public class StudentQAPage {
     
 
     // ========== MY QUESTIONS TAB ==========
-
     
-
     private Tab createMyQuestionsTab() {
         Tab tab = new Tab("My Questions");
         tab.setClosable(false);
@@ -484,145 +588,111 @@ public class StudentQAPage {
         Label infoLabel = new Label("Your questions and their answers");
         infoLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666;");
         
-        VBox questionsContainer = new VBox(10);
+        // Virtualized list: only visible rows get (recycled) cards
+        myQuestionList = new PagedListView<>(
+            lv -> new MyQuestionCell(), "You haven't asked any questions yet.", FEED_ORDER);
+        VBox.setVgrow(myQuestionList.getListView(), Priority.ALWAYS);
         
-        try {
-            List<Question> myQuestions = databaseHelper.getAllQuestions(currentUser.getUserName());
-            displayMyQuestions(questionsContainer, myQuestions);
-        } catch (SQLException e) {
-            Label errorLabel = new Label("Error loading questions: " + e.getMessage());
-            errorLabel.setStyle("-fx-text-fill: red;");
-            questionsContainer.getChildren().add(errorLabel);
-            e.printStackTrace();
-        }
+        myQuestionsFilter = QuestionFilter.byAuthor(currentUser.getUserName());
+        loadQuestions(myQuestionList, myQuestionsFilter);
         
-        content.getChildren().addAll(infoLabel, questionsContainer);
-        
-        ScrollPane scrollPane = new ScrollPane(content);
-        scrollPane.setFitToWidth(true);
-        tab.setContent(scrollPane);
+        content.getChildren().addAll(infoLabel, myQuestionList.getListView());
+        tab.setContent(content);
         
         return tab;
     }
-
     
-
-    private void displayMyQuestions(VBox container, List<Question> questions) {
-
-        container.getChildren().clear();
-
-        
-
-        if (questions.isEmpty()) {
-
-            Label emptyLabel = new Label("You haven't asked any questions yet.");
-
-            emptyLabel.setStyle("-fx-text-fill: #999; -fx-font-style: italic;");
-
-            container.getChildren().add(emptyLabel);
-
-            return;
-
+    /**
+     * Card for one of the current user's questions. Cells are recycled by the
+     * ListView, so the card is built once and updateItem only refreshes its contents.
+     */
+    private class MyQuestionCell extends ListCell<QuestionSummary> {
+        private final VBox card = new VBox(10);
+        private final Label titleLabel = new Label();
+        private final Label statusLabel = new Label();
+        private final Label metaLabel = new Label();
+        private final Button viewAnswersBtn = new Button();
+        private final Button editBtn = new Button("Edit");
+        private final Button closeBtn = new Button("Close Question");
+        private final Button deleteBtn = new Button("Delete");
+        
+        MyQuestionCell() {
+            card.setPadding(new Insets(15));
+            card.setStyle("-fx-border-color: #ddd; -fx-border-width: 1; -fx-background-color: #fafafa;");
+            
+            titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+            HBox headerBox = new HBox(10, titleLabel, statusLabel);
+            headerBox.setAlignment(Pos.CENTER_LEFT);
+            
+            metaLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666;");
+            
+            viewAnswersBtn.setStyle("-fx-background-color: #0099ff; -fx-text-fill: white;");
+            viewAnswersBtn.setOnAction(e -> openQuestion(getItem(), StudentQAPage.this::showAnswersDialog));
+            
+            editBtn.setStyle("-fx-background-color: #ff9800; -fx-text-fill: white;");
+            editBtn.setOnAction(e -> openQuestion(getItem(), StudentQAPage.this::editQuestion));
+            
+            deleteBtn.setStyle("-fx-background-color: #f44336; -fx-text-fill: white;");
+            deleteBtn.setOnAction(e -> deleteQuestion(getItem()));
+            
+            closeBtn.setStyle("-fx-background-color: #9C27B0; -fx-text-fill: white;");
+            closeBtn.setOnAction(e -> closeQuestion(getItem()));
+            
+            HBox buttonBox = new HBox(10, viewAnswersBtn, editBtn, closeBtn, deleteBtn);
+            card.getChildren().addAll(headerBox, metaLabel, buttonBox);
+            
+            setStyle("-fx-background-color: transparent; -fx-padding: 5 0;");
         }
-
         
-
-        for (Question q : questions) {
-
-            VBox questionCard = createMyQuestionCard(q);
-
-            container.getChildren().add(questionCard);
-
+        @Override
+        protected void updateItem(QuestionSummary question, boolean empty) {
+            super.updateItem(question, empty);
+            if (empty || question == null) {
+                setGraphic(null);
+                return;
+            }
+            
+            titleLabel.setText(question.getTitle());
+            statusLabel.setText(question.isResolved() ? "✓ RESOLVED" : "UNRESOLVED");
+            statusLabel.setStyle(question.isResolved() ? 
+                "-fx-background-color: #4CAF50; -fx-text-fill: white; -fx-padding: 3 8; -fx-font-size: 10px;" :
+                "-fx-background-color: #ff9800; -fx-text-fill: white; -fx-padding: 3 8; -fx-font-size: 10px;");
+            
+            int answerCount = question.getAnswerCount();
+            int unreadCount = question.getUnreadAnswerCount();
+            metaLabel.setText(
+                answerCount + " answers" + 
+                (unreadCount > 0 ? " (" + unreadCount + " unread)" : "") +
+                " • " + question.getViewCount() + " views" +
+                " • Posted: " + question.getFormattedDate()
+            );
+            
+            viewAnswersBtn.setText("View Answers (" + answerCount + ")");
+            editBtn.setDisable(question.isResolved()); // Can't edit resolved questions
+            closeBtn.setVisible(!question.isResolved() && answerCount > 0); // Only show if unresolved and has answers
+            
+            card.setPrefWidth(getListView().getWidth() - 30);
+            setGraphic(card);
         }
-
-    }
-
-    
-
-    private VBox createMyQuestionCard(Question question) {
-        VBox card = new VBox(10);
-        card.setPadding(new Insets(15));
-        card.setStyle("-fx-border-color: #ddd; -fx-border-width: 1; -fx-background-color: #fafafa;");
-        
-        // Title and status
-        HBox headerBox = new HBox(10);
-        headerBox.setAlignment(Pos.CENTER_LEFT);
-        
-        Label titleLabel = new Label(question.getTitle());
-        titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
-        
-        Label statusLabel = new Label(question.isResolved() ? "✓ RESOLVED" : "UNRESOLVED");
-        statusLabel.setStyle(question.isResolved() ? 
-            "-fx-background-color: #4CAF50; -fx-text-fill: white; -fx-padding: 3 8; -fx-font-size: 10px;" :
-            "-fx-background-color: #ff9800; -fx-text-fill: white; -fx-padding: 3 8; -fx-font-size: 10px;");
-        
-        headerBox.getChildren().addAll(titleLabel, statusLabel);
-        
-        // Content preview
-        String contentPreview = question.getContent().length() > 150 ? 
-            question.getContent().substring(0, 150) + "..." : 
-            question.getContent();
-        Label contentLabel = new Label(contentPreview);
-        contentLabel.setWrapText(true);
-        contentLabel.setStyle("-fx-text-fill: #333;");
-        
-        // Metadata
-        int unreadCount = question.getUnreadAnswerCount();
-        Label metaLabel = new Label(
-            question.getAnswers().size() + " answers" + 
-            (unreadCount > 0 ? " (" + unreadCount + " unread)" : "") +
-            " • Posted: " + question.getFormattedDate()
-        );
-        metaLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666;");
-        
-        // Buttons
-        Button viewAnswersBtn = new Button("View Answers (" + question.getAnswers().size() + ")");
-        viewAnswersBtn.setStyle("-fx-background-color: #0099ff; -fx-text-fill: white;");
-        viewAnswersBtn.setOnAction(e -> showAnswersDialog(question));
-        
-        Button editBtn = new Button("Edit");
-        editBtn.setStyle("-fx-background-color: #ff9800; -fx-text-fill: white;");
-        editBtn.setOnAction(e -> editQuestion(question));
-        editBtn.setDisable(question.isResolved()); // Can't edit resolved questions
-        
-        Button deleteBtn = new Button("Delete");
-        deleteBtn.setStyle("-fx-background-color: #f44336; -fx-text-fill: white;");
-        deleteBtn.setOnAction(e -> deleteQuestion(question));
-        
-        // ADD CLOSE QUESTION BUTTON
-        Button closeBtn = new Button("Close Question");
-        closeBtn.setStyle("-fx-background-color: #9C27B0; -fx-text-fill: white;");
-        closeBtn.setOnAction(e -> closeQuestion(question));
-        closeBtn.setVisible(!question.isResolved() && question.getAnswers().size() > 0); // Only show if unresolved and has answers
-        
-        HBox buttonBox = new HBox(10, viewAnswersBtn, editBtn, closeBtn, deleteBtn);
-        
-        card.getChildren().addAll(headerBox, contentLabel, metaLabel, buttonBox);
-        
-        return card;
     }
     
     
-    private void closeQuestion(Question question) {
+    private void closeQuestion(QuestionSummary question) {
         Alert confirm = new Alert(AlertType.CONFIRMATION);
         confirm.setTitle("Close Question");
         confirm.setHeaderText("Close this question?");
         confirm.setContentText("This will mark your question as resolved. You've received " + 
-                              question.getAnswers().size() + " answer(s). Are you satisfied with the responses?");
+                              question.getAnswerCount() + " answer(s). Are you satisfied with the responses?");
         
         Optional<ButtonType> result = confirm.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                boolean success = databaseHelper.closeQuestion(question.getId(), currentUser.getUserName());
+            asyncDb.call(db -> db.closeQuestion(question.getId(), currentUser.getUserName()), success -> {
                 if (success) {
                     showAlert("Success", "Question closed successfully!", AlertType.INFORMATION);
-                    refreshAllTabs();
                 } else {
                     showAlert("Error", "Failed to close question.", AlertType.ERROR);
                 }
-            } catch (SQLException ex) {
-                showAlert("Error", "Database error: " + ex.getMessage(), AlertType.ERROR);
-            }
+            }, ex -> showAlert("Error", "Database error: " + ex.getMessage(), AlertType.ERROR));
         }
     }
 
@@ -649,239 +719,152 @@ public class StudentQAPage {
         filterCombo.getItems().addAll("All Questions", "Unresolved Only", "Resolved Only");
         filterCombo.setValue("Unresolved Only");
         
-        filterBox.getChildren().addAll(filterLabel, filterCombo);
-        
-        VBox questionsContainer = new VBox(10);
-        
-        // Load questions based on filter
-        filterCombo.setOnAction(e -> {
+        ComboBox<String> answersCombo = new ComboBox<>();
+        answersCombo.getItems().addAll("Any Answers", "Has Answers", "Unanswered");
+        answersCombo.setValue("Any Answers");
+        
+        TextField authorField = new TextField();
+        authorField.setPromptText("Asked by (anyone)");
+        authorField.setPrefWidth(130);
+        
+        DatePicker fromPicker = new DatePicker();
+        fromPicker.setPromptText("From");
+        fromPicker.setPrefWidth(120);
+        DatePicker toPicker = new DatePicker();
+        toPicker.setPromptText("To");
+        toPicker.setPrefWidth(120);
+        
+        Label sortLabel = new Label("Sort:");
+        ComboBox<String> sortCombo = new ComboBox<>();
+        sortCombo.getItems().add(TRENDING);
+        for (QuestionSort sort : QuestionSort.values()) {
+            sortCombo.getItems().add(sort.getLabel());
+        }
+        sortCombo.setValue(QuestionSort.NEWEST.getLabel());
+        
+        filterBox.getChildren().addAll(filterLabel, filterCombo, answersCombo, authorField,
+            fromPicker, toPicker, sortLabel, sortCombo);
+        
+        // Virtualized list: only visible rows get (recycled) cards
+        allQuestionList = new PagedListView<>(
+            lv -> new AllQuestionCell(), "No questions found.", FEED_ORDER);
+        VBox.setVgrow(allQuestionList.getListView(), Priority.ALWAYS);
+        
+        // Every option is part of the query; nothing is filtered here
+        Runnable applyOptions = () -> {
+            String filter = filterCombo.getValue();
+            QuestionFilter next = QuestionFilter.all()
+                .withResolved("Unresolved Only".equals(filter) ? Boolean.FALSE
+                    : "Resolved Only".equals(filter) ? Boolean.TRUE : null)
+                .withAuthor(authorField.getText().trim())
+                .withAnswers("Has Answers".equals(answersCombo.getValue()) ? QuestionFilter.AnswerState.ANSWERED
+                    : "Unanswered".equals(answersCombo.getValue()) ? QuestionFilter.AnswerState.UNANSWERED
+                    : QuestionFilter.AnswerState.ANY);
+            LocalDate from = fromPicker.getValue();
+            LocalDate to = toPicker.getValue();
             try {
-                String filter = filterCombo.getValue();
-                List<Question> questions;
-                
-                if ("Unresolved Only".equals(filter)) {
-                    questions = databaseHelper.getUnresolvedQuestions();
-                } else if ("Resolved Only".equals(filter)) {
-                    questions = databaseHelper.getAllQuestions(null);
-                    questions.removeIf(q -> !q.isResolved());
-                } else {
-                    questions = databaseHelper.getAllQuestions(null);
+                // The To day is included
+                next = next.withCreatedBetween(from == null ? null : from.atStartOfDay(),
+                    to == null ? null : to.plusDays(1).atStartOfDay());
+            } catch (IllegalArgumentException ex) {
+                showAlert("Error", "The From date must not be after the To date.", AlertType.ERROR);
+                return;
+            }
+            allQuestionsFilter = next;
+            allQuestionsSort = null;
+            for (QuestionSort sort : QuestionSort.values()) {
+                if (sort.getLabel().equals(sortCombo.getValue())) {
+                    allQuestionsSort = sort;
                 }
-                
-                displayAllQuestions(questionsContainer, questions);
-            } catch (SQLException ex) {
-                questionsContainer.getChildren().clear();
-                Label errorLabel = new Label("Error loading questions: " + ex.getMessage());
-                errorLabel.setStyle("-fx-text-fill: red;");
-                questionsContainer.getChildren().add(errorLabel);
-                ex.printStackTrace();
             }
-        });
+            loadQuestions(allQuestionList, allQuestionsFilter, allQuestionsSort);
+        };
+        filterCombo.setOnAction(e -> applyOptions.run());
+        answersCombo.setOnAction(e -> applyOptions.run());
+        authorField.setOnAction(e -> applyOptions.run());
+        fromPicker.setOnAction(e -> applyOptions.run());
+        toPicker.setOnAction(e -> applyOptions.run());
+        sortCombo.setOnAction(e -> applyOptions.run());
         
         // Initial load
-        try {
-            List<Question> questions = databaseHelper.getUnresolvedQuestions();
-            displayAllQuestions(questionsContainer, questions);
-        } catch (SQLException e) {
-            Label errorLabel = new Label("Error loading questions: " + e.getMessage());
-            errorLabel.setStyle("-fx-text-fill: red;");
-            questionsContainer.getChildren().add(errorLabel);
-            e.printStackTrace();
-        }
+        allQuestionsFilter = QuestionFilter.unresolved();
+        loadQuestions(allQuestionList, allQuestionsFilter, allQuestionsSort);
         
-        content.getChildren().addAll(filterBox, new Separator(), questionsContainer);
+        ScrollPane filterScroll = new ScrollPane(filterBox);
+        filterScroll.setFitToHeight(true);
+        filterScroll.setStyle("-fx-background-color: transparent;");
         
-        ScrollPane scrollPane = new ScrollPane(content);
-        scrollPane.setFitToWidth(true);
-        tab.setContent(scrollPane);
+        content.getChildren().addAll(filterScroll, new Separator(), allQuestionList.getListView());
+        tab.setContent(content);
         
         return tab;
     }
-
     
-
-    private void displayAllQuestions(VBox container, List<Question> questions) {
-
-        container.getChildren().clear();
-
-        
-
-        if (questions.isEmpty()) {
-
-            Label emptyLabel = new Label("No questions found.");
-
-            emptyLabel.setStyle("-fx-text-fill: #999; -fx-font-style: italic;");
-
-            container.getChildren().add(emptyLabel);
-
-            return;
-
-        }
-
-        
-
-        for (Question q : questions) {
-
-            VBox questionCard = createAllQuestionCard(q);
-
-            container.getChildren().add(questionCard);
-
+    /**
+     * Card for a question in the All Questions feed. Built once per recycled cell;
+     * the question body and the accepted answer are shown when it is opened.
+     */
+    private class AllQuestionCell extends ListCell<QuestionSummary> {
+        private final VBox card = new VBox(10);
+        private final Label titleLabel = new Label();
+        private final Label statusLabel = new Label("✓ RESOLVED");
+        private final Label metaLabel = new Label();
+        
+        AllQuestionCell() {
+            card.setPadding(new Insets(15));
+            card.setStyle("-fx-border-color: #ddd; -fx-border-width: 1; -fx-background-color: white;");
+            
+            titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+            statusLabel.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white; -fx-padding: 3 8; -fx-font-size: 10px;");
+            HBox headerBox = new HBox(10, titleLabel, statusLabel);
+            headerBox.setAlignment(Pos.CENTER_LEFT);
+            
+            metaLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666;");
+            
+            Button viewBtn = new Button("View All Answers");
+            viewBtn.setStyle("-fx-background-color: #0099ff; -fx-text-fill: white;");
+            viewBtn.setOnAction(e -> openQuestion(getItem(), StudentQAPage.this::showAnswersDialog));
+            
+            Button answerBtn = new Button("Provide Answer");
+            answerBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
+            answerBtn.setOnAction(e -> provideAnswer(getItem()));
+            
+            HBox buttonBox = new HBox(10, viewBtn, answerBtn);
+            card.getChildren().addAll(headerBox, metaLabel, buttonBox);
+            
+            setStyle("-fx-background-color: transparent; -fx-padding: 5 0;");
         }
-
-    }
-
-    
-
-    private VBox createAllQuestionCard(Question question) {
-
-        VBox card = new VBox(10);
-
-        card.setPadding(new Insets(15));
-
-        card.setStyle("-fx-border-color: #ddd; -fx-border-width: 1; -fx-background-color: white;");
-
-        
-
-        // Header
-
-        HBox headerBox = new HBox(10);
-
-        headerBox.setAlignment(Pos.CENTER_LEFT);
-
-        
-
-        Label titleLabel = new Label(question.getTitle());
-
-        titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
-
-        
-
-        Label statusLabel = new Label(question.isResolved() ? "✓ RESOLVED" : "");
-
-        statusLabel.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white; -fx-padding: 3 8; -fx-font-size: 10px;");
-
-        statusLabel.setVisible(question.isResolved());
-
-        
-
-        headerBox.getChildren().addAll(titleLabel, statusLabel);
-
-        
-
-        // Content
-
-        Label contentLabel = new Label(question.getContent());
-
-        contentLabel.setWrapText(true);
-
-        contentLabel.setStyle("-fx-text-fill: #333;");
-
-        
-
-        // Metadata
-
-        Label metaLabel = new Label(
-
-            "Asked by: " + question.getAskedBy() + 
-
-            " • " + question.getAnswers().size() + " answers" +
-
-            " • " + question.getFormattedDate()
-
-        );
-
-        metaLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666;");
-
         
-
-        // Show resolved answer if exists
-
-        if (question.isResolved()) {
-
-            Optional<Answer> resolvedAnswer = question.getAnswers().stream()
-
-                .filter(a -> a.getId() == question.getResolvedAnswerId())
-
-                .findFirst();
-
-            
-
-            if (resolvedAnswer.isPresent()) {
-
-                VBox resolvedBox = new VBox(5);
-
-                resolvedBox.setStyle("-fx-background-color: #e8f5e9; -fx-padding: 10; -fx-border-color: #4CAF50; -fx-border-width: 1;");
-
-                
-
-                Label resolvedLabel = new Label("✓ Accepted Answer:");
-
-                resolvedLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #2e7d32;");
-
-                
-
-                Label answerContent = new Label(resolvedAnswer.get().getContent());
-
-                answerContent.setWrapText(true);
-
-                
-
-                Label answerMeta = new Label("by " + resolvedAnswer.get().getAnsweredBy() + 
-
-                                            " • " + resolvedAnswer.get().getUpvotes() + " upvotes");
-
-                answerMeta.setStyle("-fx-font-size: 10px; -fx-text-fill: #666;");
-
-                
-
-                resolvedBox.getChildren().addAll(resolvedLabel, answerContent, answerMeta);
-
-                card.getChildren().add(resolvedBox);
-
+        @Override
+        protected void updateItem(QuestionSummary question, boolean empty) {
+            super.updateItem(question, empty);
+            if (empty || question == null) {
+                setGraphic(null);
+                return;
             }
-
+            
+            titleLabel.setText(question.getTitle());
+            statusLabel.setVisible(question.isResolved());
+            metaLabel.setText(
+                "Asked by: " + question.getAskedBy() + 
+                " • " + question.getAnswerCount() + " answers" +
+                " • " + question.getViewCount() + " views" +
+                " • " + question.getFormattedDate()
+            );
+            
+            card.setPrefWidth(getListView().getWidth() - 30);
+            setGraphic(card);
         }
-
-        
-
-        // Buttons
-
-        Button viewBtn = new Button("View All Answers");
-
-        viewBtn.setStyle("-fx-background-color: #0099ff; -fx-text-fill: white;");
-
-        viewBtn.setOnAction(e -> showAnswersDialog(question));
-
-        
-
-        Button answerBtn = new Button("Provide Answer");
-
-        answerBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
-
-        answerBtn.setOnAction(e -> provideAnswer(question));
-
-        
-
-        HBox buttonBox = new HBox(10, viewBtn, answerBtn);
-
-        
-
-        card.getChildren().addAll(headerBox, contentLabel, metaLabel, buttonBox);
-
-        
-
-        return card;
-
     }
-
     
-
     // ========== DIALOG METHODS ==========
 
     
 
     private void showAnswersDialog(Question question) {
 
+        databaseHelper.recordQuestionView(question.getId());
+
         Dialog<Void> dialog = new Dialog<>();
 
         dialog.setTitle("Answers for: " + question.getTitle());
@@ -898,6 +881,20 @@ public class StudentQAPage {
 
         
 
+        // The question itself; the feed cards only show its title and counters
+
+        Label questionLabel = new Label(question.getContent());
+
+        questionLabel.setWrapText(true);
+
+        Label askedLabel = new Label("Asked by " + question.getAskedBy() + " • " + question.getFormattedDate());
+
+        askedLabel.setStyle("-fx-font-size: 10px; -fx-text-fill: #666;");
+
+        content.getChildren().addAll(questionLabel, askedLabel, new Separator());
+
+        
+
         if (question.getAnswers().isEmpty()) {
 
             Label noAnswers = new Label("No answers yet. Be the first to answer!");
@@ -970,21 +967,24 @@ public class StudentQAPage {
 
                 upvoteBtn.setOnAction(e -> {
 
-                    try {
-
-                        databaseHelper.upvoteAnswer(answer.getId());
-
-                        showAlert("Success", "Upvoted!", AlertType.INFORMATION);
+                    upvoteBtn.setDisable(true);
 
-                        dialog.close();
-
-                        refreshAllTabs();
+                    asyncDb.call(db -> db.voteForAnswer(answer.getId(), currentUser.getUserName()), accepted -> {
+                        if (accepted) {
+                            // The vote is counted straight away; the database catches up in the background
+                            metaLabel.setText("by " + answer.getAnsweredBy() + " • " + (answer.getUpvotes() + 1)
+                                    + " upvotes • " + answer.getFormattedDate());
+                            upvoteBtn.setText("👍 Upvoted");
+                        } else {
+                            showAlert("Upvote", "You already upvoted this answer.", AlertType.INFORMATION);
+                        }
+                    }, ex -> {
 
-                    } catch (SQLException ex) {
+                        upvoteBtn.setDisable(false);
 
                         showAlert("Error", "Failed to upvote: " + ex.getMessage(), AlertType.ERROR);
 
-                    }
+                    });
 
                 });
 
@@ -1004,21 +1004,13 @@ public class StudentQAPage {
 
                     markResolvedBtn.setOnAction(e -> {
 
-                        try {
-
-                            databaseHelper.markQuestionResolved(question.getId(), answer.getId(), currentUser.getUserName());
+                        asyncDb.call(db -> db.markQuestionResolved(question.getId(), answer.getId(), currentUser.getUserName()), ok -> {
 
                             showAlert("Success", "Question marked as resolved!", AlertType.INFORMATION);
 
                             dialog.close();
 
-                            refreshAllTabs();
-
-                        } catch (SQLException ex) {
-
-                            showAlert("Error", "Failed to mark as resolved: " + ex.getMessage(), AlertType.ERROR);
-
-                        }
+                        }, ex -> showAlert("Error", "Failed to mark as resolved: " + ex.getMessage(), AlertType.ERROR));
 
                     });
 
@@ -1052,21 +1044,13 @@ public class StudentQAPage {
 
                     deleteBtn.setOnAction(e -> {
 
-                        try {
-
-                            databaseHelper.deleteAnswer(answer.getId(), currentUser.getUserName());
+                        asyncDb.call(db -> db.deleteAnswer(answer.getId(), currentUser.getUserName()), ok -> {
 
                             showAlert("Success", "Answer deleted!", AlertType.INFORMATION);
 
                             dialog.close();
 
-                            refreshAllTabs();
-
-                        } catch (SQLException ex) {
-
-                            showAlert("Error", "Failed to delete answer: " + ex.getMessage(), AlertType.ERROR);
-
-                        }
+                        }, ex -> showAlert("Error", "Failed to delete answer: " + ex.getMessage(), AlertType.ERROR));
 
                     });
 
@@ -1088,33 +1072,21 @@ public class StudentQAPage {
 
         
 
-        // Mark answers as read if this is the question owner
-
+        // Mark answers as read if this is the question owner: one batched write, and the
+        // resulting change event refreshes just this question's card and unread badge
         if (question.getAskedBy().equals(currentUser.getUserName())) {
-
+            List<Integer> unreadIds = new ArrayList<>();
             for (Answer answer : question.getAnswers()) {
-
                 if (!answer.isRead()) {
-
-                    try {
-
-                        databaseHelper.markAnswerAsRead(answer.getId());
-
-                    } catch (SQLException e) {
-
-                        // Silently fail
-
-                    }
-
+                    unreadIds.add(answer.getId());
                 }
-
             }
-
+            if (!unreadIds.isEmpty()) {
+                asyncDb.call(db -> db.markAnswersAsRead(question.getId(), unreadIds));
+            }
         }
 
-        
-
-        ScrollPane scrollPane = new ScrollPane(content);
+                ScrollPane scrollPane = new ScrollPane(content);
 
         scrollPane.setFitToWidth(true);
 
@@ -1130,13 +1102,11 @@ public class StudentQAPage {
 
         dialog.showAndWait();
 
-        refreshAllTabs();
-
     }
 
     
 
-    private void provideAnswer(Question question) {
+    private void provideAnswer(QuestionSummary question) {
         Dialog<String> dialog = new Dialog<>();
         dialog.setTitle("Provide Answer");
         dialog.setHeaderText("Answer to: " + question.getTitle());
@@ -1161,44 +1131,34 @@ public class StudentQAPage {
         validation.setWrapText(true);
         validation.setMaxWidth(500);
         
+        content.getChildren().addAll(infoLabel, answerArea, counter, validation);
+        
+        dialog.getDialogPane().setContent(content);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        
+        // Disable OK button when text is empty or too short
+        Button okButton = (Button) dialog.getDialogPane().lookupButton(ButtonType.OK);
+        okButton.setDisable(true);
+        // One listener for counter, OK button and validation, so each keystroke is handled once
+        ValidationPipeline answerValidator = new ValidationPipeline(InputValidator::validateAnswerContent,
+                report -> showValidation(validation, report, "✓ Answer looks good!"));
         answerArea.textProperty().addListener((obs, old, newVal) -> {
             counter.setText(newVal.length() + "/" + Answer.CONTENT_MAX_LENGTH);
             counter.setStyle(newVal.length() > Answer.CONTENT_MAX_LENGTH ? 
                 "-fx-font-size: 10px; -fx-text-fill: red;" : 
                 "-fx-font-size: 10px; -fx-text-fill: #666;");
-            
             if (newVal.length() > Answer.CONTENT_MAX_LENGTH) {
                 answerArea.setText(newVal.substring(0, Answer.CONTENT_MAX_LENGTH));
             }
-            
+            okButton.setDisable(newVal.trim().length() < Answer.CONTENT_MIN_LENGTH);
             if (!newVal.trim().isEmpty()) {
-                InputValidator.ValidationReport report = InputValidator.validateAnswerContent(newVal);
-                if (report.hasIssues()) {
-                    validation.setText(report.getFullReport());
-                    validation.setStyle(report.canSubmit() ? 
-                        "-fx-text-fill: orange; -fx-font-size: 11px;" : 
-                        "-fx-text-fill: red; -fx-font-size: 11px;");
-                } else {
-                    validation.setText("✓ Answer looks good!");
-                    validation.setStyle("-fx-text-fill: green; -fx-font-size: 11px;");
-                }
+                answerValidator.submit(newVal);
             } else {
+                answerValidator.cancel();
                 validation.setText("");
             }
         });
         
-        content.getChildren().addAll(infoLabel, answerArea, counter, validation);
-        
-        dialog.getDialogPane().setContent(content);
-        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
-        
-        // Disable OK button when text is empty or too short
-        Button okButton = (Button) dialog.getDialogPane().lookupButton(ButtonType.OK);
-        okButton.setDisable(true);
-        answerArea.textProperty().addListener((obs, old, newVal) -> {
-            okButton.setDisable(newVal.trim().length() < Answer.CONTENT_MIN_LENGTH);
-        });
-        
         dialog.setResultConverter(button -> {
             if (button == ButtonType.OK) {
                 return answerArea.getText().trim();
@@ -1251,31 +1211,32 @@ public class StudentQAPage {
                     }
                 }
                 
+                Answer answer;
                 try {
-                    Answer answer = new Answer(question.getId(), finalAnswer, currentUser.getUserName());
-                    databaseHelper.createAnswer(answer);
-                    
-                    Alert successAlert = new Alert(AlertType.INFORMATION);
-                    successAlert.initOwner(primaryStage); // ADD THIS
-                    successAlert.setTitle("Success");
-                    successAlert.setHeaderText("Answer Posted!");
-                    successAlert.setContentText("Your answer has been posted successfully.");
-                    successAlert.showAndWait();
-                    
-                    refreshAllTabs();
+                    answer = new Answer(question.getId(), finalAnswer, currentUser.getUserName());
                 } catch (IllegalArgumentException ex) {
                     Alert errorAlert = new Alert(AlertType.ERROR);
                     errorAlert.initOwner(primaryStage); // ADD THIS
                     errorAlert.setTitle("Error");
                     errorAlert.setContentText(ex.getMessage());
                     errorAlert.showAndWait();
-                } catch (SQLException ex) {
+                    return;
+                }
+                
+                asyncDb.call(db -> db.createAnswer(answer), id -> {
+                    Alert successAlert = new Alert(AlertType.INFORMATION);
+                    successAlert.initOwner(primaryStage); // ADD THIS
+                    successAlert.setTitle("Success");
+                    successAlert.setHeaderText("Answer Posted!");
+                    successAlert.setContentText("Your answer has been posted successfully.");
+                    successAlert.showAndWait();
+                }, ex -> {
                     Alert errorAlert = new Alert(AlertType.ERROR);
                     errorAlert.initOwner(primaryStage); // ADD THIS
                     errorAlert.setTitle("Database Error");
                     errorAlert.setContentText("Failed to post answer: " + ex.getMessage());
                     errorAlert.showAndWait();
-                }
+                });
             }
         });
     }
@@ -1358,19 +1319,11 @@ public class StudentQAPage {
 
         result.ifPresent(updatedQuestion -> {
 
-            try {
-
-                databaseHelper.updateQuestion(updatedQuestion);
+            asyncDb.call(db -> db.updateQuestion(updatedQuestion), ok -> {
 
                 showAlert("Success", "Question updated!", AlertType.INFORMATION);
 
-                refreshAllTabs();
-
-            } catch (SQLException ex) {
-
-                showAlert("Error", "Failed to update question: " + ex.getMessage(), AlertType.ERROR);
-
-            }
+            }, ex -> showAlert("Error", "Failed to update question: " + ex.getMessage(), AlertType.ERROR));
 
         });
 
@@ -1378,7 +1331,7 @@ public class StudentQAPage {
 
     
 
-    private void deleteQuestion(Question question) {
+    private void deleteQuestion(QuestionSummary question) {
 
         Alert confirm = new Alert(AlertType.CONFIRMATION);
 
@@ -1394,19 +1347,11 @@ public class StudentQAPage {
 
         if (result.isPresent() && result.get() == ButtonType.OK) {
 
-            try {
-
-                databaseHelper.deleteQuestion(question.getId(), currentUser.getUserName());
+            asyncDb.call(db -> db.deleteQuestion(question.getId(), currentUser.getUserName()), ok -> {
 
                 showAlert("Success", "Question deleted!", AlertType.INFORMATION);
 
-                refreshAllTabs();
-
-            } catch (SQLException ex) {
-
-                showAlert("Error", "Failed to delete question: " + ex.getMessage(), AlertType.ERROR);
-
-            }
+            }, ex -> showAlert("Error", "Failed to delete question: " + ex.getMessage(), AlertType.ERROR));
 
         }
 
@@ -1472,22 +1417,20 @@ public class StudentQAPage {
 
                 answer.setContent(newContent);
 
-                databaseHelper.updateAnswer(answer);
-
-                showAlert("Success", "Answer updated!", AlertType.INFORMATION);
-
-                refreshAllTabs();
-
             } catch (IllegalArgumentException ex) {
 
                 showAlert("Error", ex.getMessage(), AlertType.ERROR);
 
-            } catch (SQLException ex) {
-
-                showAlert("Error", "Failed to update answer: " + ex.getMessage(), AlertType.ERROR);
+                return;
 
             }
 
+            asyncDb.call(db -> db.updateAnswer(answer), ok -> {
+
+                showAlert("Success", "Answer updated!", AlertType.INFORMATION);
+
+            }, ex -> showAlert("Error", "Failed to update answer: " + ex.getMessage(), AlertType.ERROR));
+
         });
 
     }
@@ -1498,32 +1441,93 @@ public class StudentQAPage {
 
     
 
-    private void refreshAllTabs() {
-        // Store current selection
-        int selectedIndex = tabPane.getSelectionModel().getSelectedIndex();
-        
-        // Recreate the tabs
-        Tab newAskTab = createAskQuestionTab();
-        Tab newMyQuestionsTab = createMyQuestionsTab();
-        Tab newAllQuestionsTab = createAllQuestionsTab();
-        
-        // Replace tabs
-        tabPane.getTabs().clear();
-        tabPane.getTabs().addAll(newAskTab, newMyQuestionsTab, newAllQuestionsTab);
-        
-        // Restore selection
-        if (selectedIndex >= 0 && selectedIndex < tabPane.getTabs().size()) {
-            tabPane.getSelectionModel().select(selectedIndex);
+    private void loadQuestions(PagedListView<QuestionSummary> list, QuestionFilter filter) {
+        list.load(cursor -> asyncDb.call(db -> db.getQuestionSummaryPage(filter, cursor, DatabaseHelper.DEFAULT_PAGE_SIZE)));
+    }
+
+    // A null sort loads the trending ranking
+    private void loadQuestions(PagedListView<QuestionSummary> list, QuestionFilter filter, QuestionSort sort) {
+        if (sort == null) {
+            list.load(cursor -> asyncDb.call(db -> db.getTrendingQuestionSummaryPage(filter, cursor,
+                    DatabaseHelper.DEFAULT_PAGE_SIZE)),
+                Comparator.comparing(QuestionSummary::getId, databaseHelper.getTrending().idComparator()));
+            return;
         }
-        
-        // Update references
-        askQuestionTab = newAskTab;
-        myQuestionsTab = newMyQuestionsTab;
-        allQuestionsTab = newAllQuestionsTab;
+        list.load(cursor -> asyncDb.call(db -> db.getQuestionSummaryPage(filter, sort, cursor,
+                DatabaseHelper.DEFAULT_PAGE_SIZE)),
+            sort.summaryComparator());
+    }
+    
+    // Loads the full question behind a card (content and answers) and hands it on
+    private void openQuestion(QuestionSummary summary, Consumer<Question> then) {
+        asyncDb.call(db -> db.getQuestionById(summary.getId()), question -> {
+            if (question != null) {
+                then.accept(question);
+            } else {
+                showAlert("Error", "This question has been deleted.", AlertType.ERROR);
+            }
+        }, ex -> showAlert("Error", "Failed to load question: " + ex.getMessage(), AlertType.ERROR));
+    }
+
+    
+
+    // Full reload, only used by the Refresh button; changes made here arrive as events
+
+    private void reloadQuestionLists() {
+        myQuestionList.reload();
+        allQuestionList.reload();
+    }
+
+    
+
+    /**
+     * Applies one change event: deleted questions are dropped from the lists, anything
+     * else re-reads just that question's card view and updates its card in place. Bursts of events
+     * for the same question (e.g. marking every answer read) share one query.
+     */
+    private void onQAEvent(QAEvent event) {
+        int questionId = event.getQuestionId();
+        if (questionId < 0) {
+            return;
+        }
+        if (event.getType() == QAEvent.Type.QUESTION_DELETED) {
+            myQuestionList.removeIf(q -> q.getId() == questionId);
+            allQuestionList.removeIf(q -> q.getId() == questionId);
+            return;
+        }
+        if (!pendingQuestionUpdates.add(questionId)) {
+            return; // a re-read for this question is already queued
+        }
+        asyncDb.call(db -> db.getQuestionSummaryById(questionId), question -> {
+            pendingQuestionUpdates.remove(questionId);
+            if (question == null) {
+                myQuestionList.removeIf(q -> q.getId() == questionId);
+                allQuestionList.removeIf(q -> q.getId() == questionId);
+                return;
+            }
+            myQuestionList.upsert(question, q -> q.getId() == questionId, myQuestionsFilter.matches(question));
+            allQuestionList.upsert(question, q -> q.getId() == questionId, allQuestionsFilter.matches(question));
+        }, ex -> {
+            pendingQuestionUpdates.remove(questionId);
+            ex.printStackTrace();
+        });
     }
 
     
 
+    // Shows a live validation report under an input field
+    private void showValidation(Label label, InputValidator.ValidationReport report, String okText) {
+        if (report.hasIssues()) {
+            label.setText(report.getFullReport());
+            label.setStyle(report.canSubmit() ? 
+                "-fx-text-fill: orange; -fx-font-size: 11px;" : 
+                "-fx-text-fill: red; -fx-font-size: 11px;");
+        } else {
+            label.setText(okText);
+            label.setStyle("-fx-text-fill: green; -fx-font-size: 11px;");
+        }
+    }
+    
     private void showAlert(String title, String content, AlertType type) {
 
         Alert alert = new Alert(type);
@@ -1536,4 +1540,4 @@ public class StudentQAPage {
 
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,7 +1,9 @@
 package application;
 
 
+import databasePart1.AsyncDatabaseHelper;
 import databasePart1.DatabaseHelper;
+import databasePart1.QARepository;
 import javafx.application.Platform;
 import javafx.geometry.*;
 import javafx.scene.Scene;
@@ -25,7 +27,8 @@ public class UserDatabaseUI {
 
     
 
-    private final DatabaseHelper databaseHelper;
+    private final DatabaseHelper databaseHelper; // for navigation and logout
+    private final AsyncDatabaseHelper<? extends QARepository> asyncDb; // keeps user queries off the FX thread
     private final User user;
     private Stage primaryStage;
     private VBox layout;
@@ -36,6 +39,7 @@ public class UserDatabaseUI {
     public UserDatabaseUI(DatabaseHelper databaseHelper, User user) {
 
         this.databaseHelper = databaseHelper;
+        this.asyncDb = databaseHelper.async();
         this.user = user;
 
     }
@@ -103,15 +107,7 @@ public class UserDatabaseUI {
 
         refreshButton.setOnAction(a -> {
 
-            try {
-
-                loadUserData();
-
-            } catch (SQLException e) {
-
-                showAlert("Error", "Failed to refresh data: " + e.getMessage(), AlertType.ERROR);
-
-            }
+            loadUserData();
 
         });
 
@@ -141,7 +137,16 @@ public class UserDatabaseUI {
 
     
 
-    private void loadUserData() throws SQLException {
+    // Shows a spinner in place of the table and renders the users once they arrive.
+    private void loadUserData() {
+        databaseTable.getChildren().setAll(new ProgressIndicator());
+        asyncDb.call(QARepository::getUserSummaries, this::renderUserRows, ex -> {
+            databaseTable.getChildren().clear();
+            showAlert("Error", "Failed to load users: " + ex.getMessage(), AlertType.ERROR);
+        });
+    }
+
+    private void renderUserRows(List<UserSummary> users) {
         databaseTable.getChildren().clear();
         
         // Database table headers
@@ -166,11 +171,9 @@ public class UserDatabaseUI {
         databaseTable.add(roleLabel, 3, 0);
         databaseTable.add(actionsLabel, 4, 0);
         
-        // Fetch users and render rows
-        List<User> users = databaseHelper.getAllUsers();
-        
+        // Render one row per user
         int rowIndex = 1;
-        for (User u : users) {
+        for (UserSummary u : users) {
             String targetUsername = u.getUserName();
             
             Label userNameCell = new Label(targetUsername);
@@ -249,23 +252,22 @@ public class UserDatabaseUI {
             	            ? java.util.UUID.randomUUID().toString().substring(0, 6).toUpperCase()
             	            : raw;
 
-            	    try {
-            	        boolean ok;
-            	        String ttlText = ttlField.getText() == null ? "" : ttlField.getText().trim();
-            	        if (!ttlText.isEmpty()) {
-            	            int ttl;
-            	            try {
-            	                ttl = Integer.parseInt(ttlText);
-            	            } catch (NumberFormatException nfe) {
-            	                ttl = 30; // fallback
-            	            }
-            	            if (ttl <= 0) ttl = 30; // guard against 0 or negatives
-
-            	            ok = databaseHelper.setOtp(targetUsername, otp, ttl); // <-- uses expiry
-            	        } else {
-            	            ok = databaseHelper.setOtp(targetUsername, otp);      // <-- no expiry
+            	    String ttlText = ttlField.getText() == null ? "" : ttlField.getText().trim();
+            	    int ttl = 0; // 0 = no expiry
+            	    if (!ttlText.isEmpty()) {
+            	        try {
+            	            ttl = Integer.parseInt(ttlText);
+            	        } catch (NumberFormatException nfe) {
+            	            ttl = 30; // fallback
             	        }
+            	        if (ttl <= 0) ttl = 30; // guard against 0 or negatives
+            	    }
+            	    int ttlMinutes = ttl;
 
+            	    asyncDb.call(db -> ttlMinutes > 0
+            	            ? db.setOtp(targetUsername, otp, ttlMinutes) // <-- uses expiry
+            	            : db.setOtp(targetUsername, otp),            // <-- no expiry
+            	    ok -> {
             	        if (ok) {
             	            if (showCode.isSelected()) {
             	                showAlert("Success", "One-Time Password for " + targetUsername + ": " + otp, AlertType.INFORMATION);
@@ -275,9 +277,7 @@ public class UserDatabaseUI {
             	        } else {
             	            showAlert("Error", "Failed to set One-Time Password", AlertType.ERROR);
             	        }
-            	    } catch (SQLException e1) {
-            	        showAlert("Error", "Database error: " + e1.getMessage(), AlertType.ERROR);
-            	    }
+            	    }, e1 -> showAlert("Error", "Database error: " + e1.getMessage(), AlertType.ERROR));
             	});
 
             });
@@ -314,17 +314,17 @@ public class UserDatabaseUI {
                 return;
             }
             
-            try {
-                if (databaseHelper.updateUserMiddleInitial(username, newMI.trim())) {
+            asyncDb.call(db -> db.updateUserMiddleInitial(username, newMI.trim()), updated -> {
+                if (updated) {
                     showAlert("Success", "Middle initial updated successfully for " + username, AlertType.INFORMATION);
                     loadUserData(); // Refresh the display
                 } else {
                     showAlert("Error", "Failed to update middle initial", AlertType.ERROR);
                 }
-            } catch (SQLException ex) {
+            }, ex -> {
                 showAlert("Database Error", "Failed to update middle initial: " + ex.getMessage(), AlertType.ERROR);
                 ex.printStackTrace();
-            }
+            });
         });
     }
     
@@ -343,17 +343,17 @@ public class UserDatabaseUI {
                 return;
             }
             
-            try {
-                if (databaseHelper.updateUserEmail(username, newEmail.trim())) {
+            asyncDb.call(db -> db.updateUserEmail(username, newEmail.trim()), updated -> {
+                if (updated) {
                     showAlert("Success", "Email updated successfully for " + username, AlertType.INFORMATION);
                     loadUserData(); // Refresh the display
                 } else {
                     showAlert("Error", "Failed to update email", AlertType.ERROR);
                 }
-            } catch (SQLException ex) {
+            }, ex -> {
                 showAlert("Database Error", "Failed to update email: " + ex.getMessage(), AlertType.ERROR);
                 ex.printStackTrace();
-            }
+            });
         });
     }
     
@@ -374,9 +374,9 @@ public class UserDatabaseUI {
 
             if (!newRole.equals(currentRole)) {
 
-                try {
+                asyncDb.call(db -> db.updateUserRole(username, newRole), updated -> {
 
-                    if (databaseHelper.updateUserRole(username, newRole)) {
+                    if (updated) {
 
                         showAlert("Success", "Role updated for " + username, AlertType.INFORMATION);
 
@@ -388,11 +388,7 @@ public class UserDatabaseUI {
 
                     }
 
-                } catch (SQLException e) {
-
-                    showAlert("Error", "Database error: " + e.getMessage(), AlertType.ERROR);
-
-                }
+                }, e -> showAlert("Error", "Database error: " + e.getMessage(), AlertType.ERROR));
 
             }
 
@@ -416,9 +412,9 @@ public class UserDatabaseUI {
 
         if (result.isPresent() && result.get() == ButtonType.OK) {
 
-            try {
+            asyncDb.call(db -> db.deleteUser(username), deleted -> {
 
-                if (databaseHelper.deleteUser(username)) {
+                if (deleted) {
 
                     showAlert("Success", "User deleted: " + username, AlertType.INFORMATION);
 
@@ -428,11 +424,7 @@ public class UserDatabaseUI {
                     showAlert("Error", "Cannot delete user. This might be the last admin.", AlertType.ERROR);
                 }
 
-            } catch (SQLException e) {
-            	
-                showAlert("Error", "Database error: " + e.getMessage(), AlertType.ERROR);
-
-            }
+            }, e -> showAlert("Error", "Database error: " + e.getMessage(), AlertType.ERROR));
 
         }
 
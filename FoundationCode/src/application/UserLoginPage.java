@@ -16,8 +16,6 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
 import databasePart1.*;
 
 /**
@@ -26,6 +24,9 @@ import databasePart1.*;
  */
 public class UserLoginPage {
 	
+    // Result of checking the entered secret, decided on the database worker
+    private enum LoginOutcome { LOGGED_IN, OTP_ACCEPTED, WRONG_PASSWORD, UNKNOWN_USER }
+	
     private final DatabaseHelper databaseHelper;
 
     public UserLoginPage(DatabaseHelper databaseHelper) {
@@ -104,7 +105,11 @@ public class UserLoginPage {
         Button setupButton = new Button("Setup");
         setupButton.setStyle("-fx-font-size: 14px; -fx-padding: 5 20; -fx-background-color: transparent; -fx-text-fill: #0099ff;");
         // Wrap buttons in an HorizontalBox for side-by-side placement
-        HBox buttonBox = new HBox(10, setupButton, loginButton); // 10px spacing between buttons
+        // Shown while the credentials are checked in the background
+        ProgressIndicator loginProgress = new ProgressIndicator();
+        loginProgress.setPrefSize(20, 20);
+        loginProgress.setVisible(false);
+        HBox buttonBox = new HBox(10, setupButton, loginButton, loginProgress); // 10px spacing between buttons
         buttonBox.setAlignment(javafx.geometry.Pos.CENTER); // Center align buttons
         
         // Button for "fresh reset." Deletes and rebuilds database
@@ -133,35 +138,47 @@ public class UserLoginPage {
         loginButton.setOnAction(a -> {
             String userName = userNameField.getText();
             String secret   = passwordField.getText(); // could be permanent password OR OTP
-            try {
+            User user = new User(userName, secret, "");
+            loginButton.setDisable(true);
+            loginProgress.setVisible(true);
+            databaseHelper.async().call(db -> {
                 // 1) normal login attempt with permanent password
-                User user = new User(userName, secret, "");
-                String role = databaseHelper.getUserRole(userName);
-
-                if (role != null) {
-                    user.setRole(role);
-                    if (databaseHelper.login(user)) {
-                        if (!role.equals("user")) {
+                String role = db.getUserRole(userName);
+                if (role == null) {
+                    return LoginOutcome.UNKNOWN_USER;
+                }
+                user.setRole(role);
+                if (db.login(user)) {
+                    return LoginOutcome.LOGGED_IN;
+                }
+                // 2) fallback: treat the entered value as OTP
+                return db.isOtpValid(userName, secret) ? LoginOutcome.OTP_ACCEPTED : LoginOutcome.WRONG_PASSWORD;
+            }, outcome -> {
+                loginButton.setDisable(false);
+                loginProgress.setVisible(false);
+                switch (outcome) {
+                    case LOGGED_IN:
+                        if (!user.getRole().equals("user")) {
                             new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
                         } else {
                             new UserHomePage(databaseHelper).show(primaryStage, user);
                         }
-                        return;
-                    }
-
-                    // 2) fallback: treat the entered value as OTP
-                    if (databaseHelper.isOtpValid(userName, secret)) {
+                        break;
+                    case OTP_ACCEPTED:
                         showForceResetDialog(primaryStage, userName); // will consume OTP after setting new password
-                    } else {
+                        break;
+                    case WRONG_PASSWORD:
                         errorLabel.setText("Error logging in. Invalid password?");
-                    }
-                } else {
-                    errorLabel.setText("Username does not exist...!");
+                        break;
+                    default:
+                        errorLabel.setText("Username does not exist...!");
                 }
-            } catch (SQLException e) {
+            }, e -> {
+                loginButton.setDisable(false);
+                loginProgress.setVisible(false);
                 System.err.println("Database error: " + e.getMessage());
                 e.printStackTrace();
-            }
+            });
         });
         setupButton.setOnAction(a -> {
             new SetupAccountPage(databaseHelper).show(primaryStage);
@@ -201,23 +218,31 @@ public class UserLoginPage {
                 new Alert(Alert.AlertType.ERROR, "Passwords must match and not be empty.").showAndWait();
                 return;
             }
-            try {
+            // Keep the dialog open until the update has finished in the background
+            e.consume();
+            ok.setDisable(true);
+            databaseHelper.async().call(db -> {
                 // 1) update permanent password
-                if (databaseHelper.updateUserPassword(username, a)) {
-                    // 2) clear the one-time password so it cannot be reused
-                    databaseHelper.consumeOtp(username);
+                if (!db.updateUserPassword(username, a)) {
+                    return false;
+                }
+                // 2) clear the one-time password so it cannot be reused
+                db.consumeOtp(username);
+                return true;
+            }, updated -> {
+                ok.setDisable(false);
+                if (updated) {
                     // 3) notify and return to login
                     new Alert(Alert.AlertType.INFORMATION, "Password updated. Please log in.").showAndWait();
                     dlg.close();
                     new UserLoginPage(databaseHelper).show(owner);  // GUI Container: redirect to Login
                 } else {
-                    e.consume();
                     new Alert(Alert.AlertType.ERROR, "Failed to update password.").showAndWait();
                 }
-            } catch (SQLException ex) {
-                e.consume();
+            }, ex -> {
+                ok.setDisable(false);
                 new Alert(Alert.AlertType.ERROR, "Database error: " + ex.getMessage()).showAndWait();
-            }
+            });
         });
 
         dlg.initOwner(owner);
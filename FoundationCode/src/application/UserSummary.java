@@ -0,0 +1,32 @@
+package application;
+
+/**
+ * A read-only admin list view of a user account: the fields the user table shows.
+ * Deliberately has no password, so listing users never reads or holds one.
+ * Use User when the account itself is needed.
+ */
+public class UserSummary {
+    private final String userName;
+    private final String email;
+    private final String middleInitial;
+    private final String role;
+
+    public UserSummary(String userName, String email, String middleInitial, String role) {
+        this.userName = userName;
+        this.email = email;
+        this.middleInitial = middleInitial;
+        this.role = role;
+    }
+
+    public String getUserName() { return userName; }
+    // null when not set
+    public String getEmail() { return email; }
+    // null when not set
+    public String getMiddleInitial() { return middleInitial; }
+    public String getRole() { return role; }
+
+    @Override
+    public String toString() {
+        return userName + " (" + role + ")";
+    }
+}
@@ -0,0 +1,134 @@
+package application;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javafx.application.Platform;
+
+/**
+ * ValidationPipeline runs live input validation (spell and grammar checks) off the
+ * JavaFX Application Thread. Each edit restarts a short debounce timer; when typing
+ * pauses, the latest text is validated on a background worker and the report is handed
+ * to the callback on the callback executor (Platform.runLater by default).
+ *
+ * Every submit supersedes the runs before it: a run that has not started yet is
+ * cancelled, and a report for older text is dropped instead of overwriting a newer one.
+ */
+public class ValidationPipeline {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 150;
+    // Validations slower than this are logged; they would be felt as lag if run per keystroke
+    private static final long SLOW_VALIDATION_MILLIS = 50;
+
+    // One worker for every editor; validations are short and only the latest one matters
+    private static final ScheduledExecutorService WORKER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "input-validator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Function<String, InputValidator.ValidationReport> validator;
+    private final Consumer<InputValidator.ValidationReport> onResult;
+    private final long debounceMillis;
+    private final Executor callbackExecutor;
+
+    private final AtomicLong generation = new AtomicLong();  // bumped by every submit and cancel
+    private ScheduledFuture<?> scheduled;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong staleResults = new AtomicLong();
+    private final AtomicLong totalValidationNanos = new AtomicLong();
+    private final AtomicLong maxValidationNanos = new AtomicLong();
+    private volatile long lastLatencyNanos;
+
+    public ValidationPipeline(Function<String, InputValidator.ValidationReport> validator,
+                              Consumer<InputValidator.ValidationReport> onResult) {
+        this(validator, onResult, DEFAULT_DEBOUNCE_MILLIS, Platform::runLater);
+    }
+
+    // Tests pass Runnable::run so reports are delivered without a running FX toolkit.
+    public ValidationPipeline(Function<String, InputValidator.ValidationReport> validator,
+                              Consumer<InputValidator.ValidationReport> onResult,
+                              long debounceMillis, Executor callbackExecutor) {
+        this.validator = validator;
+        this.onResult = onResult;
+        this.debounceMillis = debounceMillis;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Schedules validation of text once typing pauses, replacing any earlier request.
+     */
+    public synchronized void submit(String text) {
+        long run = generation.incrementAndGet();
+        long submittedAt = System.nanoTime();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = WORKER.schedule(() -> validate(run, text, submittedAt), debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops any pending or running validation, e.g. when the field was cleared.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private void validate(long run, String text, long submittedAt) {
+        if (run != generation.get()) {
+            return;
+        }
+        long start = System.nanoTime();
+        InputValidator.ValidationReport report = validator.apply(text);
+        long took = System.nanoTime() - start;
+        runs.incrementAndGet();
+        totalValidationNanos.addAndGet(took);
+        maxValidationNanos.accumulateAndGet(took, Math::max);
+        if (took / 1_000_000 >= SLOW_VALIDATION_MILLIS) {
+            System.out.printf("Slow input validation: %.1f ms for %d characters%n", took / 1e6, text.length());
+        }
+        callbackExecutor.execute(() -> {
+            // Checked again on delivery: the user may have typed while this was queued
+            if (run != generation.get()) {
+                staleResults.incrementAndGet();
+                return;
+            }
+            lastLatencyNanos = System.nanoTime() - submittedAt;
+            onResult.accept(report);
+        });
+    }
+
+    /** Number of validations that actually ran (debounced keystrokes are not counted). */
+    public long getRuns() { return runs.get(); }
+
+    /** Reports that were computed but dropped because newer text had arrived. */
+    public long getStaleResults() { return staleResults.get(); }
+
+    public double getAverageValidationMillis() {
+        long count = runs.get();
+        return count == 0 ? 0 : totalValidationNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxValidationMillis() { return maxValidationNanos.get() / 1e6; }
+
+    /** Time from the last applied edit to its report being delivered, debounce included. */
+    public double getLastLatencyMillis() { return lastLatencyNanos / 1e6; }
+
+    @Override
+    public String toString() {
+        return String.format("ValidationPipeline[runs=%d, stale=%d, validation avg=%.2f ms, max=%.2f ms, "
+                + "last latency=%.1f ms]", getRuns(), getStaleResults(), getAverageValidationMillis(),
+                getMaxValidationMillis(), getLastLatencyMillis());
+    }
+}
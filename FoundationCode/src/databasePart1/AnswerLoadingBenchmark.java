@@ -0,0 +1,110 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import application.Question;
+import application.User;
+
+/*******
+ * <p> Title: AnswerLoadingBenchmark Class. </p>
+ *
+ * <p> Description: Compares loading the answers of a question list one question at a time
+ * (getAnswersForQuestion per row) against the batched paths: loadAnswersForQuestions, which
+ * binds ids into "questionId IN (...)" batches, and the single joined query that
+ * getAllQuestions now uses. Runs against a private in-memory H2 database so the real
+ * FoundationDatabase is untouched. </p>
+ *
+ */
+public class AnswerLoadingBenchmark {
+
+	private static final String BENCH_URL = "jdbc:h2:mem:answerLoadingBench;DB_CLOSE_DELAY=-1";
+	private static final int[] QUESTION_COUNTS = {1_000, 10_000, 100_000};
+	private static final int ANSWERS_PER_QUESTION = 3;
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) throws SQLException {
+		DatabaseHelper db = new DatabaseHelper();
+		db.connectToDatabase(BENCH_URL);
+		db.setReadCacheEnabled(false);   // measure the queries, not the read cache
+		db.register(new User("benchUser", "Bench1!", "user"));
+
+		System.out.println("______________________________________");
+		System.out.println("\nAnswer loading benchmark (median of " + RUNS + " runs)");
+		System.out.printf("%n%10s %14s %14s %14s %10s%n",
+				"questions", "per-row (ms)", "IN batch (ms)", "joined (ms)", "speedup");
+
+		try (Connection seed = DriverManager.getConnection(BENCH_URL, DatabaseHelper.USER, DatabaseHelper.PASS)) {
+			for (int count : QUESTION_COUNTS) {
+				seedQuestions(seed, count);
+				List<Question> questions = db.getAllQuestions(null);
+
+				long[] perRow = new long[RUNS];
+				long[] batched = new long[RUNS];
+				long[] joined = new long[RUNS];
+				for (int run = 0; run < RUNS; run++) {
+					long start = System.nanoTime();
+					for (Question q : questions) {
+						q.setAnswers(db.getAnswersForQuestion(q.getId()));
+					}
+					perRow[run] = System.nanoTime() - start;
+
+					start = System.nanoTime();
+					db.loadAnswersForQuestions(questions);
+					batched[run] = System.nanoTime() - start;
+
+					// Includes the question query itself, so it overstates the answer cost
+					start = System.nanoTime();
+					db.getAllQuestions(null);
+					joined[run] = System.nanoTime() - start;
+				}
+				double perRowMs = median(perRow) / 1e6;
+				double batchedMs = median(batched) / 1e6;
+				double joinedMs = median(joined) / 1e6;
+				System.out.printf("%10d %14.1f %14.1f %14.1f %9.1fx%n",
+						count, perRowMs, batchedMs, joinedMs, perRowMs / joinedMs);
+			}
+		}
+
+		System.out.println("____________________________________________________________________________");
+		db.closeConnection();
+	}
+
+	// Replaces the Q&A tables' contents with `count` questions that each have a few answers.
+	private static void seedQuestions(Connection conn, int count) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("DELETE FROM answers");
+			stmt.execute("DELETE FROM questions");
+		}
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		String questionSql = "INSERT INTO questions (title, content, askedBy, createdAt) VALUES (?, ?, ?, ?)";
+		try (PreparedStatement ps = conn.prepareStatement(questionSql, Statement.RETURN_GENERATED_KEYS)) {
+			for (int i = 0; i < count; i++) {
+				ps.setString(1, "Benchmark question " + i);
+				ps.setString(2, "Benchmark question body number " + i);
+				ps.setString(3, "benchUser");
+				ps.setTimestamp(4, now);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+		String answerSql = "INSERT INTO answers (questionId, content, answeredBy, createdAt) "
+				+ "SELECT q.id, 'Benchmark answer ' || r.X, 'benchUser', CURRENT_TIMESTAMP "
+				+ "FROM questions q CROSS JOIN SYSTEM_RANGE(1, " + ANSWERS_PER_QUESTION + ") r";
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(answerSql);
+		}
+	}
+
+	private static long median(long[] samples) {
+		long[] sorted = samples.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
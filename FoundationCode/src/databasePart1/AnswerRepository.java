@@ -0,0 +1,42 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+import application.Answer;
+
+/**
+ * Storage of answers, their read flags and upvotes. Implemented by DatabaseHelper (H2)
+ * and InMemoryRepository.
+ */
+public interface AnswerRepository {
+
+	/**
+	 * Stores a new, unread answer and sets its id.
+	 *
+	 * @return the new id
+	 * @throws SQLException if the question or the answering user does not exist
+	 */
+	int createAnswer(Answer answer) throws SQLException;
+
+	// Fresh copies, most upvotes first, then oldest first
+	List<Answer> getAnswersForQuestion(int questionId) throws SQLException;
+
+	// Changes the content; only the author can
+	boolean updateAnswer(Answer answer) throws SQLException;
+
+	// Only the author can delete an answer
+	boolean deleteAnswer(int answerId, String userName) throws SQLException;
+
+	// False if the answer does not exist
+	boolean markAnswerAsRead(int answerId) throws SQLException;
+
+	// Marks those of the ids that are unread answers of the question; returns how many changed
+	int markAnswersAsRead(int questionId, Collection<Integer> answerIds) throws SQLException;
+
+	// Adds userName's upvote, at most once per user; false if refused or the answer does not exist
+	boolean voteForAnswer(int answerId, String userName) throws SQLException;
+
+	boolean hasVoted(int answerId, String userName) throws SQLException;
+}
@@ -0,0 +1,149 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+/**
+ * AsyncDatabaseHelper runs calls against a repository (R, usually DatabaseHelper) on a
+ * background worker so the JavaFX Application Thread never blocks on I/O. Code that
+ * needs only the QARepository operations holds an AsyncDatabaseHelper<? extends
+ * QARepository>, so its calls work against any backend. Every call returns a CompletableFuture that
+ * is completed through the callback executor (Platform.runLater by default), so
+ * stages attached with thenAccept/exceptionally can touch the UI directly.
+ *
+ * Calls run one at a time, in submission order, so "write, then reload" sequences
+ * from the UI stay consistent: a reload never overtakes the write it follows. The
+ * connection pool serves other threads (housekeeping, flushes) concurrently.
+ */
+public class AsyncDatabaseHelper<R extends QARepository> {
+
+	/**
+	 * A unit of work against the wrapped repository.
+	 */
+	@FunctionalInterface
+	public interface DatabaseCall<R, T> {
+		T apply(R db) throws SQLException;
+	}
+
+	// Calls waiting beyond this are rejected instead of piling up behind a slow query
+	private static final int MAX_QUEUED_CALLS = 256;
+
+	private final R db;
+	private final Executor callbackExecutor;
+	private final ThreadPoolExecutor worker;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final ReadOnlyIntegerWrapper pending = new ReadOnlyIntegerWrapper(0);
+
+	public AsyncDatabaseHelper(R db) {
+		this(db, Platform::runLater);
+	}
+
+	// Tests pass Runnable::run so results complete without a running FX toolkit.
+	public AsyncDatabaseHelper(R db, Executor callbackExecutor) {
+		this.db = db;
+		this.callbackExecutor = callbackExecutor;
+		this.worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(MAX_QUEUED_CALLS), runnable -> {
+					Thread thread = new Thread(runnable, "database-worker");
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Runs the call on the database worker. The returned future completes on the
+	 * callback executor, either with the call's result or with the exception it threw.
+	 */
+	public <T> CompletableFuture<T> call(DatabaseCall<? super R, T> call) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		inFlight.incrementAndGet();
+		publishPending();
+		try {
+			worker.execute(() -> {
+				try {
+					T value = call.apply(db);
+					finish(() -> result.complete(value));
+				} catch (Throwable t) {
+					finish(() -> result.completeExceptionally(t));
+				}
+			});
+		} catch (RuntimeException rejected) {
+			finish(() -> result.completeExceptionally(rejected));
+		}
+		return result;
+	}
+
+	/**
+	 * Runs the call and hands its outcome to one of the two callbacks on the callback
+	 * executor. Errors are unwrapped to the exception the call actually threw.
+	 */
+	public <T> void call(DatabaseCall<? super R, T> call, Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+		call(call).whenComplete((value, error) -> {
+			if (error != null) {
+				onError.accept(rootCause(error));
+			} else {
+				onSuccess.accept(value);
+			}
+		});
+	}
+
+	/**
+	 * Number of calls submitted but not yet completed; UIs bind loading indicators to it.
+	 * Only updated through the callback executor.
+	 */
+	public ReadOnlyIntegerProperty pendingProperty() {
+		return pending.getReadOnlyProperty();
+	}
+
+	/**
+	 * Stops accepting calls, lets queued ones finish briefly, then stops the worker.
+	 */
+	public void shutdown() {
+		worker.shutdown();
+		try {
+			if (!worker.awaitTermination(2, TimeUnit.SECONDS)) {
+				worker.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			worker.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Strips the CompletionException/ExecutionException wrappers added by dependent stages.
+	 */
+	public static Throwable rootCause(Throwable error) {
+		Throwable cause = error;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+				&& cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+
+	private void finish(Runnable completion) {
+		inFlight.decrementAndGet();
+		callbackExecutor.execute(() -> {
+			pending.set(inFlight.get());
+			completion.run();
+		});
+	}
+
+	// Reads the counter when the update runs, so out-of-order posts still settle correctly
+	private void publishPending() {
+		callbackExecutor.execute(() -> pending.set(inFlight.get()));
+	}
+}
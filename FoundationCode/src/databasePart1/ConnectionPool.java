@@ -0,0 +1,577 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConnectionPool hands out JDBC connections from a bounded set of physical connections.
+ *
+ * Callers use the usual try-with-resources pattern; closing a borrowed connection
+ * returns it to the pool instead of closing it. Borrowing is reentrant per thread: a
+ * method that already holds a connection and calls another DatabaseHelper method gets
+ * the same connection back, so nested calls neither deadlock on an exhausted pool
+ * nor step outside an open transaction.
+ *
+ * Each connection also keeps its most recently used prepared statements (LRU,
+ * bounded by the statement cache size). Preparing the same SQL again hands back the
+ * already-parsed statement, and closing it only returns it to the cache.
+ *
+ * Connections idle for a while are validated before reuse, connections held longer
+ * than the leak threshold are reported with the borrowing thread (and the stack trace
+ * of the borrow when leak traces are enabled, which costs a stack walk per borrow),
+ * and counters are available through getStats().
+ */
+public class ConnectionPool implements AutoCloseable {
+
+	/**
+	 * Point-in-time pool counters.
+	 */
+	public static final class Stats {
+		private final int maxSize;
+		private final int open;
+		private final int idle;
+		private final long borrows;
+		private final long waits;
+		private final long timeouts;
+		private final long created;
+		private final long validationFailures;
+		private final long leaksDetected;
+		private final long totalWaitNanos;
+		private final long statementHits;
+		private final long statementMisses;
+
+		Stats(int maxSize, int open, int idle, long borrows, long waits, long timeouts, long created,
+				long validationFailures, long leaksDetected, long totalWaitNanos, long statementHits,
+				long statementMisses) {
+			this.maxSize = maxSize;
+			this.open = open;
+			this.idle = idle;
+			this.borrows = borrows;
+			this.waits = waits;
+			this.timeouts = timeouts;
+			this.created = created;
+			this.validationFailures = validationFailures;
+			this.leaksDetected = leaksDetected;
+			this.totalWaitNanos = totalWaitNanos;
+			this.statementHits = statementHits;
+			this.statementMisses = statementMisses;
+		}
+
+		public int getMaxSize() { return maxSize; }
+		public int getOpen() { return open; }
+		public int getIdle() { return idle; }
+		public int getActive() { return open - idle; }
+		public long getBorrows() { return borrows; }
+		public long getWaits() { return waits; }
+		public long getTimeouts() { return timeouts; }
+		public long getCreated() { return created; }
+		public long getValidationFailures() { return validationFailures; }
+		public long getLeaksDetected() { return leaksDetected; }
+		public double getAverageWaitMillis() { return waits == 0 ? 0 : totalWaitNanos / 1e6 / waits; }
+		public long getStatementHits() { return statementHits; }
+		public long getStatementMisses() { return statementMisses; }
+		public double getStatementHitRate() {
+			long total = statementHits + statementMisses;
+			return total == 0 ? 0 : (double) statementHits / total;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("pool[open=%d/%d, idle=%d, borrows=%d, waits=%d (avg %.2f ms), timeouts=%d, "
+					+ "created=%d, validationFailures=%d, leaks=%d, statements %d hits/%d misses]", open, maxSize,
+					idle, borrows, waits, getAverageWaitMillis(), timeouts, created, validationFailures, leaksDetected,
+					statementHits, statementMisses);
+		}
+	}
+
+	public static final int DEFAULT_MAX_SIZE = 8;
+	public static final String DEFAULT_VALIDATION_QUERY = "SELECT 1";
+	// Prepared statements kept per connection; DatabaseHelper has a few dozen distinct queries
+	public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+	// Idle connections younger than this are trusted without running the validation query
+	private static final long VALIDATE_AFTER_IDLE_MILLIS = 1_000;
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int maxSize;
+	private final Semaphore permits;
+	private final Deque<PhysicalConnection> idle = new ArrayDeque<>();
+	private final Map<PhysicalConnection, Boolean> all = new ConcurrentHashMap<>();
+	private final ThreadLocal<PhysicalConnection> heldByThread = new ThreadLocal<>();
+	private final ScheduledExecutorService leakChecker;
+
+	private volatile String validationQuery = DEFAULT_VALIDATION_QUERY;
+	private volatile long borrowTimeoutMillis = 5_000;
+	private volatile long leakThresholdMillis = 30_000;
+	private volatile boolean leakTraces;
+	private volatile int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+	private volatile boolean closed;
+
+	private final AtomicLong borrows = new AtomicLong();
+	private final AtomicLong waits = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong validationFailures = new AtomicLong();
+	private final AtomicLong leaksDetected = new AtomicLong();
+	private final AtomicLong statementHits = new AtomicLong();
+	private final AtomicLong statementMisses = new AtomicLong();
+
+	public ConnectionPool(String url, String user, String password, int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Pool size must be at least 1");
+		}
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.maxSize = maxSize;
+		this.permits = new Semaphore(maxSize, true);
+		this.leakChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "connection-leak-checker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		leakChecker.scheduleWithFixedDelay(this::checkForLeaks, 1, 1, TimeUnit.SECONDS);
+	}
+
+	public void setValidationQuery(String validationQuery) { this.validationQuery = validationQuery; }
+	public void setBorrowTimeoutMillis(long borrowTimeoutMillis) { this.borrowTimeoutMillis = borrowTimeoutMillis; }
+	// 0 or less turns leak detection off
+	public void setLeakThresholdMillis(long leakThresholdMillis) { this.leakThresholdMillis = leakThresholdMillis; }
+	// Debugging aid: record where each connection was borrowed so leak reports can show it
+	public void setLeakTracesEnabled(boolean leakTraces) { this.leakTraces = leakTraces; }
+	// 0 turns statement caching off; connections shrink their caches on next use
+	public void setStatementCacheSize(int statementCacheSize) { this.statementCacheSize = Math.max(0, statementCacheSize); }
+	public int getMaxSize() { return maxSize; }
+	public boolean isClosed() { return closed; }
+
+	/**
+	 * Borrows a connection; close it to give it back. Waits up to the borrow timeout
+	 * when every connection is in use, then fails with an SQLException.
+	 */
+	public Connection getConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+		PhysicalConnection held = heldByThread.get();
+		if (held != null) {
+			held.holds++;
+			return held.lease();
+		}
+
+		borrows.incrementAndGet();
+		if (!permits.tryAcquire()) {
+			waits.incrementAndGet();
+			long start = System.nanoTime();
+			boolean acquired;
+			try {
+				acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a database connection", e);
+			}
+			totalWaitNanos.addAndGet(System.nanoTime() - start);
+			if (!acquired) {
+				timeouts.incrementAndGet();
+				throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection; "
+						+ getStats());
+			}
+		}
+
+		try {
+			PhysicalConnection physical = takeIdleOrCreate();
+			physical.holds = 1;
+			physical.borrowedAt = System.currentTimeMillis();
+			physical.borrower = Thread.currentThread();
+			physical.borrowTrace = leakTraces && leakThresholdMillis > 0
+					? new Exception("Connection borrowed by " + physical.borrower.getName()) : null;
+			physical.leakReported = false;
+			heldByThread.set(physical);
+			return physical.lease();
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public Stats getStats() {
+		int idleCount;
+		synchronized (idle) {
+			idleCount = idle.size();
+		}
+		return new Stats(maxSize, all.size(), idleCount, borrows.get(), waits.get(), timeouts.get(), created.get(),
+				validationFailures.get(), leaksDetected.get(), totalWaitNanos.get(), statementHits.get(),
+				statementMisses.get());
+	}
+
+	/**
+	 * Closes idle connections now and borrowed ones as they are returned.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		leakChecker.shutdownNow();
+		synchronized (idle) {
+			for (PhysicalConnection physical : idle) {
+				discard(physical);
+			}
+			idle.clear();
+		}
+	}
+
+	private PhysicalConnection takeIdleOrCreate() throws SQLException {
+		while (true) {
+			PhysicalConnection physical;
+			synchronized (idle) {
+				physical = idle.pollFirst();   // most recently used first, so spare ones can age out
+			}
+			if (physical == null) {
+				physical = new PhysicalConnection(DriverManager.getConnection(url, user, password));
+				all.put(physical, Boolean.TRUE);
+				created.incrementAndGet();
+				return physical;
+			}
+			if (isUsable(physical)) {
+				return physical;
+			}
+			validationFailures.incrementAndGet();
+			discard(physical);
+		}
+	}
+
+	private boolean isUsable(PhysicalConnection physical) {
+		try {
+			if (physical.connection.isClosed()) {
+				return false;
+			}
+			if (System.currentTimeMillis() - physical.returnedAt < VALIDATE_AFTER_IDLE_MILLIS) {
+				return true;
+			}
+			try (Statement stmt = physical.connection.createStatement()) {
+				stmt.setQueryTimeout(2);
+				stmt.execute(validationQuery);
+			}
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	// Called when the outermost lease of a thread is closed
+	private void release(PhysicalConnection physical) {
+		heldByThread.remove();
+		physical.borrower = null;
+		physical.borrowTrace = null;
+		physical.statements.reclaim();
+		boolean reusable = !closed;
+		try {
+			if (!physical.connection.getAutoCommit()) {
+				// Never hand the next borrower someone else's half-finished transaction
+				physical.connection.rollback();
+				physical.connection.setAutoCommit(true);
+			}
+			reusable &= !physical.connection.isClosed();
+		} catch (SQLException e) {
+			reusable = false;
+		}
+		if (reusable) {
+			physical.returnedAt = System.currentTimeMillis();
+			synchronized (idle) {
+				idle.addFirst(physical);
+			}
+		} else {
+			discard(physical);
+		}
+		permits.release();
+	}
+
+	private void discard(PhysicalConnection physical) {
+		all.remove(physical);
+		try {
+			physical.connection.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void checkForLeaks() {
+		long threshold = leakThresholdMillis;
+		if (threshold <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (PhysicalConnection physical : all.keySet()) {
+			Thread borrower = physical.borrower;
+			if (borrower != null && !physical.leakReported && now - physical.borrowedAt > threshold) {
+				physical.leakReported = true;
+				leaksDetected.incrementAndGet();
+				System.err.println("Possible connection leak: held by " + borrower.getName() + " for "
+						+ (now - physical.borrowedAt) + " ms");
+				Exception trace = physical.borrowTrace;
+				if (trace != null) {
+					trace.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * A real JDBC connection plus the bookkeeping for its current borrower.
+	 */
+	private final class PhysicalConnection {
+		final Connection connection;
+		final StatementCache statements = new StatementCache(this);
+		int holds;                        // nested leases on the owning thread
+		volatile long borrowedAt;
+		volatile Thread borrower;         // null while idle
+		volatile Exception borrowTrace;   // where it was borrowed, only with leak traces on
+		volatile boolean leakReported;
+		long returnedAt;
+
+		PhysicalConnection(Connection connection) {
+			this.connection = connection;
+		}
+
+		Connection lease() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] {Connection.class}, new Lease(this));
+		}
+	}
+
+	/**
+	 * The Connection handed to callers: everything is forwarded except close(), which
+	 * ends this lease, and use after close, which fails like a closed connection would.
+	 */
+	private final class Lease implements InvocationHandler {
+		private final PhysicalConnection physical;
+		private boolean leaseClosed;
+
+		Lease(PhysicalConnection physical) {
+			this.physical = physical;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!leaseClosed) {
+						leaseClosed = true;
+						if (--physical.holds == 0) {
+							release(physical);
+						}
+					}
+					return null;
+				case "isClosed":
+					return leaseClosed || physical.connection.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "PooledConnection[" + physical.connection + "]";
+				default:
+					if (leaseClosed) {
+						throw new SQLException("Connection has been returned to the pool");
+					}
+					if (method.getName().equals("prepareStatement")) {
+						return physical.statements.prepare((Connection) proxy, method, args);
+					}
+					return invokeOn(physical.connection, method, args);
+			}
+		}
+	}
+
+	/**
+	 * LRU cache of one connection's prepared statements, keyed by the prepareStatement
+	 * arguments. Only touched by the thread holding the connection.
+	 */
+	private final class StatementCache {
+		private final PhysicalConnection physical;
+		private final LinkedHashMap<List<Object>, CachedStatement> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+		StatementCache(PhysicalConnection physical) {
+			this.physical = physical;
+		}
+
+		Object prepare(Connection lease, Method method, Object[] args) throws Throwable {
+			trimTo(statementCacheSize);
+			List<Object> key = cacheKey(args);
+			if (key == null || statementCacheSize == 0) {
+				statementMisses.incrementAndGet();
+				return invokeOn(physical.connection, method, args);
+			}
+			CachedStatement cached = cache.get(key);
+			if (cached != null && cached.evicted) {
+				cache.remove(key);
+				cached = null;
+			}
+			if (cached != null && cached.handle == null) {
+				statementHits.incrementAndGet();
+				return cached.checkOut(lease);
+			}
+			statementMisses.incrementAndGet();
+			PreparedStatement prepared = (PreparedStatement) invokeOn(physical.connection, method, args);
+			if (cached != null) {
+				// Same SQL already open further up this thread's call stack: use a throwaway copy
+				return prepared;
+			}
+			cached = new CachedStatement(prepared);
+			cache.put(key, cached);
+			trimTo(statementCacheSize);
+			return cached.checkOut(lease);
+		}
+
+		// Takes back statements a borrower forgot to close before returning the connection
+		void reclaim() {
+			for (CachedStatement cached : cache.values()) {
+				if (cached.handle != null) {
+					cached.handle.checkIn();
+				}
+			}
+		}
+
+		private void trimTo(int size) {
+			Iterator<CachedStatement> eldestFirst = cache.values().iterator();
+			while (cache.size() > size && eldestFirst.hasNext()) {
+				CachedStatement eldest = eldestFirst.next();
+				eldestFirst.remove();
+				eldest.evicted = true;
+				if (eldest.handle == null) {
+					eldest.closeQuietly();
+				}
+			}
+		}
+
+		// Array arguments (column lists) are rare and not worth comparing; leave them uncached
+		private List<Object> cacheKey(Object[] args) {
+			for (Object arg : args) {
+				if (arg != null && arg.getClass().isArray()) {
+					return null;
+				}
+			}
+			return Arrays.asList(args);
+		}
+	}
+
+	/**
+	 * A cached statement and, while it is checked out, the handle its user holds.
+	 */
+	private static final class CachedStatement {
+		final PreparedStatement statement;
+		StatementHandle handle;
+		boolean evicted;
+
+		CachedStatement(PreparedStatement statement) {
+			this.statement = statement;
+		}
+
+		PreparedStatement checkOut(Connection lease) {
+			handle = new StatementHandle(this, lease);
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] {PreparedStatement.class}, handle);
+		}
+
+		void closeQuietly() {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * The PreparedStatement handed to callers. close() clears it and puts it back in the
+	 * cache; the result set it opened is closed with it, as a real close would.
+	 */
+	private static final class StatementHandle implements InvocationHandler {
+		private final CachedStatement cached;
+		private final Connection lease;
+		private ResultSet lastResult;
+		private boolean handleClosed;
+
+		StatementHandle(CachedStatement cached, Connection lease) {
+			this.cached = cached;
+			this.lease = lease;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					checkIn();
+					return null;
+				case "isClosed":
+					return handleClosed || cached.statement.isClosed();
+				case "getConnection":
+					return lease;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "CachedStatement[" + cached.statement + "]";
+				default:
+					if (handleClosed) {
+						throw new SQLException("Statement is closed");
+					}
+					Object result = invokeOn(cached.statement, method, args);
+					if (result instanceof ResultSet && method.getName().equals("executeQuery")) {
+						lastResult = (ResultSet) result;
+					}
+					return result;
+			}
+		}
+
+		void checkIn() {
+			if (handleClosed) {
+				return;
+			}
+			handleClosed = true;
+			try {
+				if (lastResult != null) {
+					lastResult.close();
+				}
+				cached.statement.clearParameters();
+				cached.statement.clearBatch();
+			} catch (SQLException e) {
+				cached.evicted = true;   // in doubt, do not reuse it
+			}
+			cached.handle = null;
+			if (cached.evicted) {
+				cached.closeQuietly();
+			}
+		}
+	}
+
+	private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
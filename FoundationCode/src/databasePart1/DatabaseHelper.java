@@ -5,10 +5,17 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.function.ToIntFunction;
 import application.Question;  
 import application.Answer;    
+import application.QuestionSummary;
 
 import application.User;
+import application.UserSummary;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
 
@@ -16,8 +23,9 @@ import javafx.scene.control.Alert;
 /**
  * The DatabaseHelper class is responsible for managing the connection to the database,
  * performing operations such as user registration, login validation, and handling invitation codes.
+ * It is the H2 backend of QARepository; InMemoryRepository is the other.
  */
-public class DatabaseHelper {
+public class DatabaseHelper implements QARepository {
 
 	// JDBC driver name and database URL 
 	static final String JDBC_DRIVER = "org.h2.Driver";   
@@ -27,18 +35,100 @@ public class DatabaseHelper {
 	static final String USER = "sa"; 
 	static final String PASS = ""; 
 
-	private Connection connection = null;
-	private Statement statement = null; 
-	//	PreparedStatement pstmt
+	// Largest number of question ids bound into one "questionId IN (...)" query.
+	// Smaller batches are padded up to the next bucket so only a few SQL shapes exist.
+	private static final int[] ANSWER_BATCH_BUCKETS = {16, 64, 256};
+
+	// Page sizes for getQuestionPage
+	public static final int DEFAULT_PAGE_SIZE = 25;
+	public static final int MAX_PAGE_SIZE = 200;
+
+	// Columns behind QuestionSummary; deliberately excludes content and never joins answers
+	private static final String SUMMARY_COLUMNS =
+			"id, title, askedBy, createdAt, isResolved, answerCount, unreadAnswerCount, topUpvotes, lastActivityAt, viewCount";
+	// Columns behind Question and Answer, named so later schema additions are not read along
+	private static final String QUESTION_COLUMNS =
+			"id, title, content, askedBy, createdAt, isResolved, resolvedAnswerId, viewCount";
+	private static final String ANSWER_COLUMNS =
+			"id, questionId, content, answeredBy, createdAt, isRead, upvotes";
+	private static final String JOINED_ANSWER_COLUMNS = "a." + ANSWER_COLUMNS.replace(", ", ", a.");
+	// Columns behind UserSummary; never the password or one-time password
+	private static final String USER_SUMMARY_COLUMNS = "userName, email, middleInitial, role";
+
+	// Most questions searchQuestions returns, best match first
+	public static final int SEARCH_RESULT_LIMIT = 50;
+
+	// Connections per database; the UI needs few, background loaders and tests more
+	public static final int DEFAULT_POOL_SIZE = ConnectionPool.DEFAULT_MAX_SIZE;
+
+	// Background purges of expired credentials; see getHousekeeping to change the intervals
+	public static final String PURGE_EXPIRED_OTPS = "expired one-time passwords";
+	public static final String PURGE_EXPIRED_INVITATION_CODES = "expired invitation codes";
+	public static final long DEFAULT_PURGE_INTERVAL_MILLIS = 10 * 60 * 1000;
+	// Rows changed per statement by the purges, so no statement holds its locks for long
+	public static final int PURGE_BATCH_SIZE = 500;
+
+	// Most invitation codes generateInvitationCodes makes at once (a large course roster)
+	public static final int MAX_INVITATION_CODES_PER_CALL = 2_000;
+	// Longest validity the invitation page offers for generated codes (a school year)
+	public static final int MAX_INVITATION_VALID_DAYS = 365;
+	// Rounds of replacing colliding codes before giving up on a nearly full code space
+	static final int INVITATION_CODE_ATTEMPTS = 8;
+
+	// Background save of the trending scores that changed; see getTrending
+	public static final String PERSIST_TRENDING_SCORES = "trending scores";
+	public static final long DEFAULT_TRENDING_PERSIST_INTERVAL_MILLIS = 60 * 1000;
+	// Background write of the question views counted in memory; see recordQuestionView
+	public static final String FLUSH_VIEW_COUNTS = "view counts";
+	public static final long DEFAULT_VIEW_FLUSH_INTERVAL_MILLIS = 5 * 1000;
+
+	private volatile ConnectionPool pool;
+	private String dbUrl = DB_URL;
+	private AsyncDatabaseHelper<DatabaseHelper> async;
+	private final QAEventBus events = new QAEventBus();
+	private volatile SearchIndex searchIndex = new SearchIndex();
+	private volatile SimilarQuestionIndex similarIndex = new SimilarQuestionIndex();
+	private QAEventBus.Subscription searchIndexSubscription;
+
+	// Read caches in front of the question and answer queries, invalidated by publishChange.
+	// The TTL only matters for rows changed outside this helper (another process, raw SQL).
+	public static final long READ_CACHE_MAX_BYTES = 8L * 1024 * 1024;
+	public static final long READ_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+	private final EntityCache<Integer, Question> questionCache = new EntityCache<>("questions",
+			READ_CACHE_MAX_BYTES, READ_CACHE_TTL_MILLIS, DatabaseHelper::estimateBytes);
+	private final EntityCache<Integer, List<Answer>> answerCache = new EntityCache<>("answers by question",
+			READ_CACHE_MAX_BYTES, READ_CACHE_TTL_MILLIS, DatabaseHelper::estimateAnswerBytes);
+	private final EntityCache<String, List<Question>> questionListCache = new EntityCache<>("question lists",
+			READ_CACHE_MAX_BYTES, READ_CACHE_TTL_MILLIS, DatabaseHelper::estimateListBytes);
+	private volatile boolean readCacheEnabled = true;
+	private volatile VoteAggregator votes;
+	private volatile HousekeepingScheduler housekeeping;
+	private volatile InvitationCodeGenerator invitationCodes = new InvitationCodeGenerator();
+	private volatile TrendingTracker trending = new TrendingTracker();
+	private QAEventBus.Subscription trendingSubscription;
+	private final ViewCounter views = new ViewCounter();
 
 	public void connectToDatabase() throws SQLException {
+		connectToDatabase(DB_URL);
+	}
+
+	// Connects to the given H2 url instead of the default file database (used by benchmarks).
+	public void connectToDatabase(String dbUrl) throws SQLException {
+		connectToDatabase(dbUrl, DEFAULT_POOL_SIZE);
+	}
+
+	// Connects with a pool of at most poolSize connections shared by all threads.
+	public void connectToDatabase(String dbUrl, int poolSize) throws SQLException {
+		this.dbUrl = dbUrl;
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
 			System.out.println("Connecting to database...");
-			try {
-				connection = DriverManager.getConnection(DB_URL, USER, PASS);
-				statement = connection.createStatement(); 
+			pool = new ConnectionPool(dbUrl, USER, PASS, poolSize);
+			// Borrow once up front so an unreachable or locked database is reported here
+			try (Connection conn = pool.getConnection()) {
+				conn.isValid(2);
 			} catch (SQLException e) {
+			    pool.close();
 			    Platform.runLater(() ->
 			        new Alert(Alert.AlertType.ERROR,
 			            "Couldn’t open the database.\nClose any other running copy and try again.\n\n" + e.getMessage()
@@ -49,51 +139,50 @@ public class DatabaseHelper {
 			// You can use this command to clear the database and restart from fresh.
 			//statement.execute("DROP ALL OBJECTS");
 
-			 createTables();  // Create the necessary tables if they don't exist
-		        updateDatabaseSchema();  // Update schema for existing databases
+			migrateSchema();  // Create or upgrade the tables and indexes
+			openSearchIndex();
+			openTrending();
+			votes = new VoteAggregator(this, VoteAggregator.DEFAULT_FLUSH_INTERVAL_MILLIS);
+			housekeeping = startHousekeeping();
 			
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
 	}
 
-	private void createTables() throws SQLException {
-	    String userTable = "CREATE TABLE IF NOT EXISTS cse360users ("
-	            + "id INT AUTO_INCREMENT PRIMARY KEY, "
-	            + "userName VARCHAR(20) UNIQUE, "
-	            + "email VARCHAR(255), "
-	            + "firstName VARCHAR(20), "
-	            + "middleInitial VARCHAR(1), "  // Add middle initial field (1 character max)
-	            + "lastName VARCHAR(20), "
-	            + "password VARCHAR(20), "
-	            + "otp VARCHAR(16), "
-	            + "role VARCHAR(20))";
-	    statement.execute(userTable);
-	    
-	    createQATables();  // Create Q&A system tables
-	    // Create the invitation codes table
-	    String invitationCodesTable = "CREATE TABLE IF NOT EXISTS InvitationCodes ("
-	            + "code VARCHAR(10) PRIMARY KEY, "
-	            + "isUsed BOOLEAN DEFAULT FALSE, "
-	            + "expiresAt TIMESTAMP)";
-	    statement.execute(invitationCodesTable);
+	private HousekeepingScheduler startHousekeeping() {
+		HousekeepingScheduler scheduler = new HousekeepingScheduler();
+		scheduler.schedule(PURGE_EXPIRED_OTPS, DEFAULT_PURGE_INTERVAL_MILLIS, this::purgeExpiredOtps);
+		scheduler.schedule(PURGE_EXPIRED_INVITATION_CODES, DEFAULT_PURGE_INTERVAL_MILLIS, this::purgeExpiredInvitationCodes);
+		scheduler.schedule(PERSIST_TRENDING_SCORES, DEFAULT_TRENDING_PERSIST_INTERVAL_MILLIS, this::persistTrendingScores);
+		scheduler.schedule(FLUSH_VIEW_COUNTS, DEFAULT_VIEW_FLUSH_INTERVAL_MILLIS, this::flushViewCounts);
+		return scheduler;
+	}
+
+	// Applies any schema migrations this database has not seen yet.
+	private void migrateSchema() throws SQLException {
+	    try (Connection conn = pool.getConnection()) {
+	        new SchemaMigrator(SchemaMigrations.all()).migrate(conn);
+	    }
 	}
 
 
 	// Check if the database is empty
 	public boolean isDatabaseEmpty() throws SQLException {
 		String query = "SELECT COUNT(*) AS count FROM cse360users";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			return resultSet.getInt("count") == 0;
+		try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement();
+		     ResultSet resultSet = statement.executeQuery(query)) {
+			if (resultSet.next()) {
+				return resultSet.getInt("count") == 0;
+			}
+			return true;
 		}
-		return true;
 	}
 
 	// Registers a new user in the database.
 	public void register(User user) throws SQLException {
 	    String insertUser = "INSERT INTO cse360users (userName, email, middleInitial, password, role) VALUES (?, ?, ?, ?, ?)";
-	    try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(insertUser)) {
 	        pstmt.setString(1, user.getUserName());
 	        
 	        if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
@@ -117,7 +206,7 @@ public class DatabaseHelper {
 	// Also add a method to update user email
 	public boolean updateUserEmail(String username, String newEmail) throws SQLException {
 	    String sql = "UPDATE cse360users SET email = ? WHERE userName = ?";  // Should already be correct
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        if (newEmail == null || newEmail.trim().isEmpty()) {
 	            pstmt.setNull(1, java.sql.Types.VARCHAR);
 	        } else {
@@ -132,7 +221,7 @@ public class DatabaseHelper {
 	// Validates a user's login credentials.
 	public boolean login(User user) throws SQLException {
 	    String query = "SELECT * FROM cse360users WHERE userName = ? AND password = ? AND role = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, user.getUserName());
 	        pstmt.setString(2, user.getPassword());
 	        pstmt.setString(3, user.getRole());
@@ -155,18 +244,20 @@ public class DatabaseHelper {
 	// Check if any admin exists in the database
 	public boolean doesAdminExist() throws SQLException {
 	    String query = "SELECT COUNT(*) AS count FROM cse360users WHERE role = 'admin'";
-	    ResultSet resultSet = statement.executeQuery(query);
-	    if (resultSet.next()) {
-	        return resultSet.getInt("count") > 0;
+	    try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement();
+	         ResultSet resultSet = statement.executeQuery(query)) {
+	        if (resultSet.next()) {
+	            return resultSet.getInt("count") > 0;
+	        }
+	        return false;
 	    }
-	    return false;
 	}
 	
 	
 	// Checks if a user already exists in the database based on their userName.
 	public boolean doesUserExist(String userName) {
 	    String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        
 	        pstmt.setString(1, userName);
 	        ResultSet rs = pstmt.executeQuery();
@@ -186,7 +277,7 @@ public class DatabaseHelper {
 	    List<User> users = new ArrayList<>();
 	    String sql = "SELECT username, email, middleInitial, role, password FROM cse360users ORDER BY role";
 	    
-	    try (PreparedStatement ps = connection.prepareStatement(sql);
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql);
 	         ResultSet rs = ps.executeQuery()) {
 	        
 	        while (rs.next()) {
@@ -204,10 +295,24 @@ public class DatabaseHelper {
 	    }
 	    return users;
 	}
+
+	// Admin view of getAllUsers, in the same order, without reading any password
+	public List<UserSummary> getUserSummaries() throws SQLException {
+	    List<UserSummary> users = new ArrayList<>();
+	    String sql = "SELECT " + USER_SUMMARY_COLUMNS + " FROM cse360users ORDER BY role";
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql);
+	         ResultSet rs = ps.executeQuery()) {
+	        while (rs.next()) {
+	            users.add(new UserSummary(rs.getString("userName"), rs.getString("email"),
+	                rs.getString("middleInitial"), rs.getString("role")));
+	        }
+	    }
+	    return users;
+	}
 	
 	public boolean updateUserMiddleInitial(String username, String newMiddleInitial) throws SQLException {
 	    String sql = "UPDATE cse360users SET middleInitial = ? WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        if (newMiddleInitial == null || newMiddleInitial.trim().isEmpty()) {
 	            pstmt.setNull(1, java.sql.Types.VARCHAR);
 	        } else {
@@ -227,7 +332,7 @@ public class DatabaseHelper {
 	// Retrieves the role of a user from the database using their UserName.
 	public String getUserRole(String userName) {
 	    String query = "SELECT role FROM cse360users WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, userName);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -248,7 +353,7 @@ public class DatabaseHelper {
 	    }
 	    
 	    String sql = "DELETE FROM cse360users WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, username);
 	        int rowsAffected = pstmt.executeUpdate();
 	        return rowsAffected > 0;
@@ -257,7 +362,7 @@ public class DatabaseHelper {
 	
 	private boolean isLastAdmin(String username) throws SQLException {
 	    String roleQuery = "SELECT role FROM cse360users WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(roleQuery)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(roleQuery)) {
 	        pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next() && !"admin".equals(rs.getString("role"))) {
@@ -266,7 +371,7 @@ public class DatabaseHelper {
 	    }
 	    
 	    String countQuery = "SELECT COUNT(*) AS count FROM cse360users WHERE role = 'admin'";
-	    try (PreparedStatement pstmt = connection.prepareStatement(countQuery)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(countQuery)) {
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
 	            return rs.getInt("count") <= 1;
@@ -279,7 +384,7 @@ public class DatabaseHelper {
 	public int getUserCount() throws SQLException {
 	    String sql = "SELECT COUNT(*) AS count FROM cse360users";  // Changed from "users" to "cse360users"
 	    
-	    try (PreparedStatement ps = connection.prepareStatement(sql);
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql);
 	         ResultSet rs = ps.executeQuery()) {
 	        
 	        if (rs.next()) {
@@ -291,9 +396,9 @@ public class DatabaseHelper {
 	
 	// Single user lookup via userName
 	public Optional<User> getUserByUsername(String username) throws SQLException {
-	    String sql = "SELECT username, role, password FROM cse360users WHERE username = ?";  // Changed from "users" to "cse360users"
+	    String sql = "SELECT username, email, middleInitial, role, password FROM cse360users WHERE username = ?";
 	    
-	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
 	        ps.setString(1, username);
 	        
 	        try (ResultSet rs = ps.executeQuery()) {
@@ -301,13 +406,8 @@ public class DatabaseHelper {
 	                String role = rs.getString("role");
 	                String passwordHash = rs.getString("password");
 	                User user = new User(username, passwordHash, role);
-	                // Try to get email if it exists
-	                try {
-	                    String email = rs.getString("email");
-	                    user.setEmail(email);
-	                } catch (SQLException e) {
-	                    // Email column might not exist
-	                }
+	                user.setEmail(rs.getString("email"));
+	                user.setMiddleInitial(rs.getString("middleInitial"));
 	                return Optional.of(user);
 	            }
 	        }
@@ -318,7 +418,7 @@ public class DatabaseHelper {
 	// Update user's password
 	public boolean updateUserPassword(String username, String newPassword) throws SQLException {
 	    String sql = "UPDATE cse360users SET password = ? WHERE userName = ?";  // Changed from "users" to "cse360users"
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, newPassword);
 	        pstmt.setString(2, username);
 	        int rowsAffected = pstmt.executeUpdate();
@@ -331,7 +431,7 @@ public class DatabaseHelper {
 	// Existing behavior (no expiration)
 	public boolean setOtp(String username, String otp) throws SQLException {
 	    String sql = "UPDATE cse360users SET otp = ?, otpIsUsed = FALSE, otpExpiresAt = NULL WHERE userName = ?";
-	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
 	        ps.setString(1, otp);
 	        ps.setString(2, username);
 	        return ps.executeUpdate() > 0;
@@ -342,7 +442,7 @@ public class DatabaseHelper {
 	public boolean setOtp(String username, String otp, int ttlMinutes) throws SQLException {
 	    String sql = "UPDATE cse360users SET otp = ?, otpIsUsed = FALSE, otpExpiresAt = ? WHERE userName = ?";
 	    java.sql.Timestamp expiresAt = new java.sql.Timestamp(System.currentTimeMillis() + ttlMinutes * 60L * 1000L);
-	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
 	        ps.setString(1, otp);
 	        ps.setTimestamp(2, expiresAt);
 	        ps.setString(3, username);
@@ -355,7 +455,7 @@ public class DatabaseHelper {
 	               "WHERE userName = ? AND otp = ? " +
 	               "AND (otpIsUsed = FALSE OR otpIsUsed IS NULL) " +
 	               "AND (otpExpiresAt IS NULL OR otpExpiresAt > CURRENT_TIMESTAMP)";
-	    try (PreparedStatement ps = connection.prepareStatement(q)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(q)) {
 	        ps.setString(1, username);
 	        ps.setString(2, otp);
 	        try (ResultSet rs = ps.executeQuery()) {
@@ -367,23 +467,23 @@ public class DatabaseHelper {
 	// Consume OTP after successful password change
 	public boolean consumeOtp(String username) throws SQLException {
 	    String q = "UPDATE cse360users SET otp = NULL, otpIsUsed = TRUE, otpExpiresAt = NULL WHERE userName = ?";
-	    try (PreparedStatement ps = connection.prepareStatement(q)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(q)) {
 	        ps.setString(1, username);
 	        return ps.executeUpdate() > 0;
 	    }
 	}
 
-	// Optional: clear any expired OTPs (housekeeping, not required for flow)
+	// Clears expired OTPs (run periodically by the housekeeping scheduler). The expiry is
+	// cleared too, so a purged row is not matched again by the next run.
 	public int purgeExpiredOtps() throws SQLException {
-	    String q = "UPDATE cse360users SET otp = NULL, otpIsUsed = TRUE WHERE otpExpiresAt IS NOT NULL AND otpExpiresAt <= CURRENT_TIMESTAMP";
-	    try (PreparedStatement ps = connection.prepareStatement(q)) {
-	        return ps.executeUpdate();
-	    }
+	    String q = "UPDATE cse360users SET otp = NULL, otpIsUsed = TRUE, otpExpiresAt = NULL "
+	            + "WHERE otpExpiresAt <= CURRENT_TIMESTAMP FETCH FIRST ? ROWS ONLY";
+	    return updateInBatches(q);
 	}
 	
 	public boolean resetUserPassword(String username, String newPassword) throws SQLException {
 	    String sql = "UPDATE cse360users SET password = ? WHERE userName = ?";  // Changed from "users" to "cse360users"
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, newPassword);
 	        pstmt.setString(2, username);
 	        int rowsAffected = pstmt.executeUpdate();
@@ -399,7 +499,7 @@ public class DatabaseHelper {
 	    }
 	    
 	    String sql = "UPDATE cse360users SET role = ? WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, newRole);
 	        pstmt.setString(2, username);
 	        int rowsAffected = pstmt.executeUpdate();
@@ -414,22 +514,68 @@ public class DatabaseHelper {
 	    return generateInvitationCode(0); // 0 = no expiry (NULL)
 	}
 
-	// Generate with TTL (minutes); returns the code
+	// Generate with TTL (minutes); returns the code, or null if it could not be stored
 	public String generateInvitationCode(int ttlMinutes) {
-	    String code = java.util.UUID.randomUUID().toString().substring(0, 4); // 4-char style
-	    String sql = "INSERT INTO InvitationCodes (code, isUsed, expiresAt) VALUES (?, FALSE, ?)";
-	    java.sql.Timestamp expiresAt = (ttlMinutes > 0)
-	            ? new java.sql.Timestamp(System.currentTimeMillis() + ttlMinutes * 60L * 1000L)
-	            : null;
-	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
-	        ps.setString(1, code);
-	        if (expiresAt == null) ps.setNull(2, java.sql.Types.TIMESTAMP);
-	        else ps.setTimestamp(2, expiresAt);
-	        ps.executeUpdate();
+	    try {
+	        return generateInvitationCodes(1, ttlMinutes).get(0);
 	    } catch (SQLException e) {
 	        e.printStackTrace();
+	        return null;
+	    }
+	}
+
+	/**
+	 * Generates and stores count new invitation codes (e.g. one per student on a course
+	 * roster) in one transaction. Codes come from the invitation code generator; any that
+	 * collide with a stored code, or with another code of the same call, are replaced
+	 * with fresh ones, so exactly count distinct codes are returned.
+	 *
+	 * @param ttlMinutes minutes until the codes expire; 0 or less for no expiry
+	 * @throws SQLException if the codes could not be stored; none are stored then
+	 */
+	public List<String> generateInvitationCodes(int count, int ttlMinutes) throws SQLException {
+	    if (count < 1 || count > MAX_INVITATION_CODES_PER_CALL) {
+	        throw new IllegalArgumentException("Can generate 1 to " + MAX_INVITATION_CODES_PER_CALL + " codes at once: " + count);
 	    }
-	    return code;
+	    InvitationCodeGenerator generator = invitationCodes;
+	    java.sql.Timestamp expiresAt = (ttlMinutes > 0)
+	            ? new java.sql.Timestamp(System.currentTimeMillis() + ttlMinutes * 60L * 1000L)
+	            : null;
+	    // Inserts nothing (update count 0) when the code is taken, instead of failing the batch
+	    String sql = "INSERT INTO InvitationCodes (code, isUsed, expiresAt) SELECT ?, FALSE, ? FROM DUAL "
+	            + "WHERE NOT EXISTS (SELECT 1 FROM InvitationCodes WHERE code = ?)";
+	    return inTransaction(conn -> {
+	        List<String> codes = new ArrayList<>(count);
+	        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+	            for (int attempt = 0; codes.size() < count; attempt++) {
+	                if (attempt == INVITATION_CODE_ATTEMPTS) {
+	                    throw new SQLException("Could not find " + count + " unused invitation codes; "
+	                            + "the invitation code space is nearly exhausted");
+	                }
+	                List<String> candidates = new ArrayList<>(count - codes.size());
+	                for (int i = codes.size(); i < count; i++) {
+	                    String code = generator.next();
+	                    candidates.add(code);
+	                    ps.setString(1, code);
+	                    ps.setTimestamp(2, expiresAt);
+	                    ps.setString(3, code);
+	                    ps.addBatch();
+	                }
+	                int[] inserted = ps.executeBatch();
+	                for (int i = 0; i < inserted.length; i++) {
+	                    if (inserted[i] > 0) {
+	                        codes.add(candidates.get(i));
+	                    }
+	                }
+	            }
+	        }
+	        return codes;
+	    });
+	}
+
+	// Replaces the generator behind generateInvitationCodes, e.g. with another alphabet or length.
+	public void setInvitationCodeGenerator(InvitationCodeGenerator generator) {
+	    invitationCodes = Objects.requireNonNull(generator);
 	}
 
 	// Validate: must be unused and not expired
@@ -437,7 +583,7 @@ public class DatabaseHelper {
 	    String q = "SELECT 1 FROM InvitationCodes " +
 	               "WHERE code = ? AND isUsed = FALSE " +
 	               "AND (expiresAt IS NULL OR expiresAt > CURRENT_TIMESTAMP)";
-	    try (PreparedStatement ps = connection.prepareStatement(q)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(q)) {
 	        ps.setString(1, code);
 	        try (ResultSet rs = ps.executeQuery()) {
 	            if (rs.next()) {
@@ -451,19 +597,33 @@ public class DatabaseHelper {
 	    return false;
 	}
 
-	// Optional: housekeeping
+	// Deletes expired codes, used or not: none of them can be redeemed any more
+	// (run periodically by the housekeeping scheduler).
 	public int purgeExpiredInvitationCodes() throws SQLException {
-	    String q = "UPDATE InvitationCodes SET isUsed = TRUE WHERE expiresAt IS NOT NULL AND expiresAt <= CURRENT_TIMESTAMP AND isUsed = FALSE";
-	    try (PreparedStatement ps = connection.prepareStatement(q)) {
-	        return ps.executeUpdate();
+	    String q = "DELETE FROM InvitationCodes WHERE expiresAt <= CURRENT_TIMESTAMP FETCH FIRST ? ROWS ONLY";
+	    return updateInBatches(q);
+	}
+
+	// Repeats a statement limited to PURGE_BATCH_SIZE rows (its only parameter) until a
+	// batch comes back short. Each batch commits on its own, releasing its locks.
+	private int updateInBatches(String sql) throws SQLException {
+	    int total = 0;
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+	        ps.setInt(1, PURGE_BATCH_SIZE);
+	        int rows;
+	        do {
+	            rows = ps.executeUpdate();
+	            total += rows;
+	        } while (rows == PURGE_BATCH_SIZE);
 	    }
+	    return total;
 	}
 
 	
 	// Marks the invitation code as used in the database.
 	private void markInvitationCodeAsUsed(String code) {
 	    String query = "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        pstmt.executeUpdate();
 	    } catch (SQLException e) {
@@ -471,119 +631,9 @@ public class DatabaseHelper {
 	    }
 	}
 	
-	public void updateDatabaseSchema() {
-	    try {
-	        // Use metadata to detect columns one-by-one
-	        DatabaseMetaData meta = connection.getMetaData();
-
-	        // EMAIL
-	        try (ResultSet rs = meta.getColumns(null, null, "CSE360USERS", "EMAIL")) {
-	            if (!rs.next()) {
-	                System.out.println("Adding email column to database...");
-	                statement.execute("ALTER TABLE cse360users ADD COLUMN email VARCHAR(255)");
-	                System.out.println("Email column added successfully!");
-	            }
-	        }
-
-	        // MIDDLEINITIAL
-	        try (ResultSet rs = meta.getColumns(null, null, "CSE360USERS", "MIDDLEINITIAL")) {
-	            if (!rs.next()) {
-	                System.out.println("Adding middleInitial column to database...");
-	                statement.execute("ALTER TABLE cse360users ADD COLUMN middleInitial VARCHAR(1)");
-	                System.out.println("Middle Initial column added successfully!");
-	            }
-	        }
-
-	        // otpIsUsed (boolean flag)
-	        try (ResultSet rs = meta.getColumns(null, null, "CSE360USERS", "OTPISUSED")) {
-	            if (!rs.next()) {
-	                boolean hasOld;
-	                try (ResultSet rsOld = meta.getColumns(null, null, "CSE360USERS", "TEMPPASSWORD_ISUSED")) {
-	                    hasOld = rsOld.next();
-	                }
-	                System.out.println("Adding otpIsUsed column to database...");
-	                statement.execute("ALTER TABLE cse360users ADD COLUMN otpIsUsed BOOLEAN DEFAULT FALSE");
-	                if (hasOld) {
-	                    statement.execute("UPDATE cse360users SET otpIsUsed = tempPassword_IsUsed WHERE tempPassword_IsUsed IS NOT NULL");
-	                    System.out.println("otpIsUsed backfilled from tempPassword_IsUsed.");
-	                }
-	            }
-	        }
-
-	        // otpExpiresAt (timestamp)
-	        try (ResultSet rs = meta.getColumns(null, null, "CSE360USERS", "OTPEXPIRESAT")) {
-	            if (!rs.next()) {
-	                System.out.println("Adding otpExpiresAt column to database...");
-	                statement.execute("ALTER TABLE cse360users ADD COLUMN otpExpiresAt TIMESTAMP");
-	                System.out.println("otpExpiresAt column added successfully!");
-	            }
-	        }
-
-	        // InvitationCodes.expiresAt
-	        try (ResultSet rs = meta.getColumns(null, null, "INVITATIONCODES", "EXPIRESAT")) {
-	            if (!rs.next()) {
-	                System.out.println("Adding expiresAt column to InvitationCodes...");
-	                statement.execute("ALTER TABLE InvitationCodes ADD COLUMN expiresAt TIMESTAMP");
-	                System.out.println("expiresAt column added successfully!");
-	            }
-	        }
-
-
-	    } catch (SQLException e) {
-	        System.out.println("Note: Could not add columns — they may already exist: " + e.getMessage());
-	    }
-	}
-	
 	// ============ Q&A System Database Methods ============
 
 
-	/**
-
-	 * Creates tables for the Q&A system if they don't exist
-
-	 */
-
-	private void createQATables() throws SQLException {
-
-	    // Questions table
-
-	    String questionsTable = "CREATE TABLE IF NOT EXISTS questions ("
-	            + "id INT AUTO_INCREMENT PRIMARY KEY, "
-	            + "title VARCHAR(100) NOT NULL, "  // CHANGED FROM 200
-	            + "content VARCHAR(500) NOT NULL, "  // CHANGED FROM 2000
-	            + "askedBy VARCHAR(20) NOT NULL, "
-	            + "createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
-	            + "isResolved BOOLEAN DEFAULT FALSE, "
-	            + "resolvedAnswerId INT DEFAULT -1, "
-	            + "FOREIGN KEY (askedBy) REFERENCES cse360users(userName))";
-	    statement.execute(questionsTable);
-
-	    
-
-	    // Answers table
-
-	    String answersTable = "CREATE TABLE IF NOT EXISTS answers ("
-	            + "id INT AUTO_INCREMENT PRIMARY KEY, "
-	            + "questionId INT NOT NULL, "
-	            + "content VARCHAR(500) NOT NULL, "  // CHANGED FROM 2000
-	            + "answeredBy VARCHAR(20) NOT NULL, "
-	            + "createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
-	            + "isRead BOOLEAN DEFAULT FALSE, "
-	            + "upvotes INT DEFAULT 0, "
-	            + "FOREIGN KEY (questionId) REFERENCES questions(id) ON DELETE CASCADE, "
-	            + "FOREIGN KEY (answeredBy) REFERENCES cse360users(userName))";
-	    statement.execute(answersTable);
-
-	}
-
-
-	// Update the existing createTables() method to call createQATables()
-
-	// Add this line inside createTables():
-
-//	     createQATables();
-
-
 	// ============ CRUD Operations for Questions ============
 
 
@@ -595,9 +645,9 @@ public class DatabaseHelper {
 
 	public int createQuestion(Question question) throws SQLException {
 
-	    String sql = "INSERT INTO questions (title, content, askedBy, createdAt) VALUES (?, ?, ?, ?)";
+	    String sql = "INSERT INTO questions (title, content, askedBy, createdAt, lastActivityAt) VALUES (?, ?, ?, ?, ?)";
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
 	        pstmt.setString(1, question.getTitle());
 
@@ -607,6 +657,8 @@ public class DatabaseHelper {
 
 	        pstmt.setTimestamp(4, Timestamp.valueOf(question.getCreatedAt()));
 
+	        pstmt.setTimestamp(5, Timestamp.valueOf(question.getCreatedAt()));
+
 	        
 
 	        int affectedRows = pstmt.executeUpdate();
@@ -627,6 +679,8 @@ public class DatabaseHelper {
 
 	                question.setId(generatedId);
 
+	                publishChange(QAEvent.forQuestion(QAEvent.Type.QUESTION_CREATED, generatedId));
+
 	                return generatedId;
 
 	            } else {
@@ -649,10 +703,17 @@ public class DatabaseHelper {
 	 */
 
 	public Question getQuestionById(int id) throws SQLException {
+	    return withVoteCounts(() -> {
+	        Question cached = readCacheEnabled ? questionCache.get(id, this::loadQuestionById) : loadQuestionById(id);
+	        return cached == null ? null : copyOf(cached);
+	    });
+	}
+
+	private Question loadQuestionById(int id) throws SQLException {
 
-	    String sql = "SELECT * FROM questions WHERE id = ?";
+	    String sql = "SELECT " + QUESTION_COLUMNS + " FROM questions WHERE id = ?";
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
 	        pstmt.setInt(1, id);
 
@@ -678,9 +739,11 @@ public class DatabaseHelper {
 
 	                );
 
+	                q.setViewCount(rs.getLong("viewCount"));
+
 	                // Load answers for this question
 
-	                q.setAnswers(getAnswersForQuestion(id));
+	                q.setAnswers(cachedAnswersForQuestion(id));
 
 	                return q;
 
@@ -702,18 +765,25 @@ public class DatabaseHelper {
 	 */
 
 	public List<Question> getAllQuestions(String username) throws SQLException {
+	    String key = username == null ? "all" : "askedBy:" + username;
+	    return withVoteCounts(() -> copyOfQuestions(readCacheEnabled
+	        ? questionListCache.get(key, k -> loadAllQuestions(username))
+	        : loadAllQuestions(username)));
+	}
+
+	private List<Question> loadAllQuestions(String username) throws SQLException {
 
 	    List<Question> questions = new ArrayList<>();
 
 	    String sql = username == null ? 
 
-	        "SELECT * FROM questions ORDER BY createdAt DESC" :
+	        "SELECT " + QUESTION_COLUMNS + " FROM questions ORDER BY createdAt DESC" :
 
-	        "SELECT * FROM questions WHERE askedBy = ? ORDER BY createdAt DESC";
+	        "SELECT " + QUESTION_COLUMNS + " FROM questions WHERE askedBy = ? ORDER BY createdAt DESC";
 
 	    
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
 	        if (username != null) {
 
@@ -745,9 +815,7 @@ public class DatabaseHelper {
 
 	                );
 
-	                // Load answers for each question
-
-	                q.setAnswers(getAnswersForQuestion(q.getId()));
+	                q.setViewCount(rs.getLong("viewCount"));
 
 	                questions.add(q);
 
@@ -757,6 +825,18 @@ public class DatabaseHelper {
 
 	    }
 
+	    // Load every answer for the listed questions with one joined query
+
+	    if (username == null) {
+
+	        attachAnswers(questions, "TRUE");
+
+	    } else {
+
+	        attachAnswers(questions, "q.askedBy = ?", username);
+
+	    }
+
 	    return questions;
 
 	}
@@ -769,14 +849,20 @@ public class DatabaseHelper {
 	 */
 
 	public List<Question> getUnresolvedQuestions() throws SQLException {
+	    return withVoteCounts(() -> copyOfQuestions(readCacheEnabled
+	        ? questionListCache.get("unresolved", k -> loadUnresolvedQuestions())
+	        : loadUnresolvedQuestions()));
+	}
+
+	private List<Question> loadUnresolvedQuestions() throws SQLException {
 
 	    List<Question> questions = new ArrayList<>();
 
-	    String sql = "SELECT * FROM questions WHERE isResolved = FALSE ORDER BY createdAt DESC";
+	    String sql = "SELECT " + QUESTION_COLUMNS + " FROM questions WHERE isResolved = FALSE ORDER BY createdAt DESC";
 
 	    
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
 	        try (ResultSet rs = pstmt.executeQuery()) {
 
@@ -800,7 +886,7 @@ public class DatabaseHelper {
 
 	                );
 
-	                q.setAnswers(getAnswersForQuestion(q.getId()));
+	                q.setViewCount(rs.getLong("viewCount"));
 
 	                questions.add(q);
 
@@ -810,123 +896,597 @@ public class DatabaseHelper {
 
 	    }
 
+	    attachAnswers(questions, "q.isResolved = FALSE");
+
 	    return questions;
 
 	}
 
 
 	/**
-
-	 * Searches for questions containing keywords
-
+	 * Full-text search over question titles, question content and answers, ranked
+	 * by relevance (BM25) using the search index. Returns at most SEARCH_RESULT_LIMIT
+	 * questions, best match first.
 	 */
-
 	public List<Question> searchQuestions(String keyword) throws SQLException {
+	    return searchQuestions(keyword, SEARCH_RESULT_LIMIT);
+	}
 
-	    List<Question> questions = new ArrayList<>();
-
-	    String sql = "SELECT * FROM questions WHERE LOWER(title) LIKE ? OR LOWER(content) LIKE ? ORDER BY createdAt DESC";
-
-	    
-
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-
-	        String searchPattern = "%" + keyword.toLowerCase() + "%";
+	public List<Question> searchQuestions(String query, int limit) throws SQLException {
+	    List<Integer> ids = new ArrayList<>();
+	    for (SearchIndex.Hit hit : searchIndex.search(query, limit)) {
+	        ids.add(hit.getQuestionId());
+	    }
+	    return getQuestionsInOrder(ids);
+	}
 
-	        pstmt.setString(1, searchPattern);
+	/**
+	 * Likely duplicates of a question that is still being written, most similar first.
+	 * Uses the MinHash/LSH similarity index, so the cost does not grow with the number
+	 * of stored questions. Content may be empty.
+	 */
+	public List<Question> findSimilarQuestions(String title, String content, int limit) throws SQLException {
+	    List<Integer> ids = new ArrayList<>();
+	    for (SimilarQuestionIndex.Match match : similarIndex.findSimilar(title, content, limit)) {
+	        ids.add(match.getQuestionId());
+	    }
+	    return getQuestionsInOrder(ids);
+	}
 
-	        pstmt.setString(2, searchPattern);
+	// Loads the given questions (with answers) in the order of ids; missing rows are skipped
+	private List<Question> getQuestionsInOrder(List<Integer> ids) throws SQLException {
+	    List<Question> questions = readQuestionsInOrder(ids, QuestionFilter.all());
+	    loadAnswersForQuestions(questions);
+	    return questions;
+	}
 
-	        
+	// The given questions that match the filter, in the order of ids, without their answers
+	private List<Question> readQuestionsInOrder(List<Integer> ids, QuestionFilter filter) throws SQLException {
+	    return readInOrder(QUESTION_COLUMNS, ids, filter, this::readQuestion, Question::getId);
+	}
 
+	// The given questions that match the filter, read with mapper, in the order of ids
+	private <T> List<T> readInOrder(String columns, List<Integer> ids, QuestionFilter filter, RowMapper<T> mapper,
+	        ToIntFunction<T> idOf) throws SQLException {
+	    if (ids.isEmpty()) {
+	        return new ArrayList<>();
+	    }
+	    StringBuilder placeholders = new StringBuilder();
+	    for (int i = 0; i < ids.size(); i++) {
+	        placeholders.append(i == 0 ? "?" : ", ?");
+	    }
+	    Map<Integer, T> byId = new HashMap<>();
+	    String sql = "SELECT " + columns + " FROM questions WHERE id IN (" + placeholders + ") AND "
+	            + filter.whereClause();
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        for (int i = 0; i < ids.size(); i++) {
+	            pstmt.setInt(i + 1, ids.get(i));
+	        }
+	        List<Object> params = filter.whereParameters();
+	        for (int i = 0; i < params.size(); i++) {
+	            pstmt.setObject(ids.size() + i + 1, params.get(i));
+	        }
 	        try (ResultSet rs = pstmt.executeQuery()) {
-
 	            while (rs.next()) {
+	                T item = mapper.map(rs);
+	                byId.put(idOf.applyAsInt(item), item);
+	            }
+	        }
+	    }
+	    List<T> items = new ArrayList<>(byId.size());
+	    for (int id : ids) {
+	        T item = byId.get(id);
+	        if (item != null) {
+	            items.add(item);
+	        }
+	    }
+	    return items;
+	}
 
-	                Question q = new Question(
-
-	                    rs.getInt("id"),
-
-	                    rs.getString("title"),
-
-	                    rs.getString("content"),
-
-	                    rs.getString("askedBy"),
-
-	                    rs.getTimestamp("createdAt").toLocalDateTime(),
+	/**
+	 * Card views of getAllQuestions and getUnresolvedQuestions: the same questions in the
+	 * same order, read from the summary columns only, without content or answers.
+	 */
+	public List<QuestionSummary> getAllQuestionSummaries(String username) throws SQLException {
+	    return username == null
+	        ? querySummaries("SELECT " + SUMMARY_COLUMNS + " FROM questions ORDER BY createdAt DESC")
+	        : querySummaries("SELECT " + SUMMARY_COLUMNS + " FROM questions WHERE askedBy = ? ORDER BY createdAt DESC",
+	            username);
+	}
 
-	                    rs.getBoolean("isResolved"),
+	public List<QuestionSummary> getUnresolvedQuestionSummaries() throws SQLException {
+	    return querySummaries("SELECT " + SUMMARY_COLUMNS + " FROM questions WHERE isResolved = FALSE "
+	        + "ORDER BY createdAt DESC");
+	}
 
-	                    rs.getInt("resolvedAnswerId")
+	// Card views of searchQuestions and findSimilarQuestions, in the same order
+	public List<QuestionSummary> searchQuestionSummaries(String query, int limit) throws SQLException {
+	    List<Integer> ids = new ArrayList<>();
+	    for (SearchIndex.Hit hit : searchIndex.search(query, limit)) {
+	        ids.add(hit.getQuestionId());
+	    }
+	    return getSummariesInOrder(ids);
+	}
 
-	                );
+	public List<QuestionSummary> findSimilarQuestionSummaries(String title, String content, int limit)
+	        throws SQLException {
+	    List<Integer> ids = new ArrayList<>();
+	    for (SimilarQuestionIndex.Match match : similarIndex.findSimilar(title, content, limit)) {
+	        ids.add(match.getQuestionId());
+	    }
+	    return getSummariesInOrder(ids);
+	}
 
-	                q.setAnswers(getAnswersForQuestion(q.getId()));
+	private List<QuestionSummary> getSummariesInOrder(List<Integer> ids) throws SQLException {
+	    return readInOrder(SUMMARY_COLUMNS, ids, QuestionFilter.all(), this::readSummary, QuestionSummary::getId);
+	}
 
-	                questions.add(q);
+	/**
+	 * Card view of one question, or null if it does not exist. List cards refresh
+	 * from this when a change event names their question.
+	 */
+	public QuestionSummary getQuestionSummaryById(int id) throws SQLException {
+	    List<QuestionSummary> found = querySummaries("SELECT " + SUMMARY_COLUMNS + " FROM questions WHERE id = ?", id);
+	    return found.isEmpty() ? null : found.get(0);
+	}
 
+	private List<QuestionSummary> querySummaries(String sql, Object... params) throws SQLException {
+	    List<QuestionSummary> summaries = new ArrayList<>();
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        for (int i = 0; i < params.length; i++) {
+	            pstmt.setObject(i + 1, params[i]);
+	        }
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                summaries.add(readSummary(rs));
 	            }
-
 	        }
-
 	    }
+	    return summaries;
+	}
 
-	    return questions;
-
+	// Loads the saved search index if it matches the database, otherwise rebuilds it,
+	// builds the similar-question index, then keeps both current from the change events.
+	private void openSearchIndex() throws SQLException {
+	    if (searchIndexSubscription != null) {
+	        searchIndexSubscription.close();
+	    }
+	    Path file = searchIndexFile();
+	    SearchIndex loaded = file == null ? null : SearchIndex.load(file, searchIndexFingerprint());
+	    if (loaded != null) {
+	        searchIndex = loaded;
+	    } else {
+	        rebuildSearchIndex();
+	    }
+	    rebuildSimilarQuestionIndex();
+	    searchIndexSubscription = events.subscribe(this::updateSearchIndex);
 	}
 
+	// Loads the saved trending scores and keeps them current from the change events
+	private void openTrending() throws SQLException {
+	    if (trendingSubscription != null) {
+	        trendingSubscription.close();
+	    }
+	    TrendingTracker tracker = new TrendingTracker();
+	    String sql = "SELECT questionId, score, scoredAt FROM question_trending";
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql);
+	         ResultSet rs = pstmt.executeQuery()) {
+	        while (rs.next()) {
+	            tracker.restore(rs.getInt("questionId"), rs.getDouble("score"), rs.getTimestamp("scoredAt").getTime());
+	        }
+	    }
+	    trending = tracker;
+	    trendingSubscription = events.subscribe(tracker::onEvent);
+	}
 
 	/**
-
-	 * Updates an existing question
-
+	 * The trending ranking: recent answers, upvotes, views and new questions, decaying
+	 * with a half-life of TrendingTracker.DEFAULT_HALF_LIFE_MILLIS.
 	 */
+	public TrendingTracker getTrending() {
+	    return trending;
+	}
 
-	public boolean updateQuestion(Question question) throws SQLException {
-
-	    String sql = "UPDATE questions SET title = ?, content = ? WHERE id = ? AND askedBy = ?";
+	/**
+	 * Counts a question being opened, towards its view count and its trending score.
+	 * Only memory is touched; the counts are written by the FLUSH_VIEW_COUNTS task, and
+	 * the questions this helper returns include views not written yet.
+	 */
+	public void recordQuestionView(int questionId) {
+	    views.record(questionId);
+	    trending.recordView(questionId);
+	}
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	/**
+	 * Writes the views counted since the last flush, one batched UPDATE in one
+	 * transaction, then drops the cached reads of the questions it changed.
+	 *
+	 * @return the number of questions whose count changed
+	 */
+	public int flushViewCounts() throws SQLException {
+	    Map<Integer, Long> written = views.flush(this::writeViewCounts);
+	    if (!written.isEmpty()) {
+	        for (int questionId : written.keySet()) {
+	            questionCache.invalidate(questionId);
+	        }
+	        questionListCache.invalidateAll();
+	    }
+	    return written.size();
+	}
 
-	        pstmt.setString(1, question.getTitle());
+	private void writeViewCounts(Map<Integer, Long> viewsByQuestion) throws SQLException {
+	    inTransaction(conn -> {
+	        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE questions SET viewCount = viewCount + ? WHERE id = ?")) {
+	            for (Map.Entry<Integer, Long> entry : viewsByQuestion.entrySet()) {
+	                pstmt.setLong(1, entry.getValue());
+	                pstmt.setInt(2, entry.getKey());
+	                pstmt.addBatch();
+	            }
+	            pstmt.executeBatch();
+	        }
+	        return null;
+	    });
+	}
 
-	        pstmt.setString(2, question.getContent());
+	/**
+	 * Saves the trending scores that changed since the last save, in one transaction.
+	 * Runs on the housekeeping schedule (PERSIST_TRENDING_SCORES) and on close.
+	 *
+	 * @return the number of rows written or deleted
+	 */
+	public int persistTrendingScores() throws SQLException {
+	    TrendingTracker tracker = trending;
+	    TrendingTracker.Changes changes = tracker.drainChanges();
+	    if (changes.isEmpty()) {
+	        return 0;
+	    }
+	    // Questions deleted meanwhile match no source row, so nothing is written for them
+	    String merge = "MERGE INTO question_trending t USING (SELECT id FROM questions WHERE id = ?) q "
+	            + "ON t.questionId = q.id "
+	            + "WHEN MATCHED THEN UPDATE SET score = ?, scoredAt = ? "
+	            + "WHEN NOT MATCHED THEN INSERT (questionId, score, scoredAt) VALUES (q.id, ?, ?)";
+	    try {
+	        return inTransaction(conn -> {
+	            Timestamp at = new Timestamp(changes.getAtMillis());
+	            int rows = 0;
+	            try (PreparedStatement pstmt = conn.prepareStatement(merge)) {
+	                for (Map.Entry<Integer, Double> score : changes.getScores().entrySet()) {
+	                    pstmt.setInt(1, score.getKey());
+	                    pstmt.setDouble(2, score.getValue());
+	                    pstmt.setTimestamp(3, at);
+	                    pstmt.setDouble(4, score.getValue());
+	                    pstmt.setTimestamp(5, at);
+	                    pstmt.addBatch();
+	                }
+	                for (int count : pstmt.executeBatch()) {
+	                    rows += Math.max(count, 0);
+	                }
+	            }
+	            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM question_trending WHERE questionId = ?")) {
+	                for (int questionId : changes.getRemoved()) {
+	                    pstmt.setInt(1, questionId);
+	                    pstmt.addBatch();
+	                }
+	                for (int count : pstmt.executeBatch()) {
+	                    rows += Math.max(count, 0);
+	                }
+	            }
+	            return rows;
+	        });
+	    } catch (SQLException | RuntimeException e) {
+	        tracker.requeue(changes);
+	        throw e;
+	    }
+	}
 
-	        pstmt.setInt(3, question.getId());
+	/**
+	 * Re-reads every question and answer into a fresh search index.
+	 */
+	public void rebuildSearchIndex() throws SQLException {
+	    SearchIndex index = new SearchIndex();
+	    for (Question q : getAllQuestions(null)) {
+	        index.index(q);
+	    }
+	    searchIndex = index;
+	}
 
-	        pstmt.setString(4, question.getAskedBy());
+	// Titles and content only, so this is a single light scan
+	private void rebuildSimilarQuestionIndex() throws SQLException {
+	    SimilarQuestionIndex index = new SimilarQuestionIndex();
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement("SELECT id, title, content FROM questions");
+	         ResultSet rs = pstmt.executeQuery()) {
+	        while (rs.next()) {
+	            index.index(rs.getInt("id"), rs.getString("title"), rs.getString("content"));
+	        }
+	    }
+	    similarIndex = index;
+	}
 
-	        
+	private void updateSearchIndex(QAEvent event) {
+	    switch (event.getType()) {
+	        case QUESTION_RESOLVED:
+	        case ANSWER_UPVOTED:
+	        case ANSWER_READ:
+	            return;   // no indexed text changed
+	        default:
+	            break;
+	    }
+	    try {
+	        Question q = event.getType() == QAEvent.Type.QUESTION_DELETED ? null : getQuestionById(event.getQuestionId());
+	        if (q == null) {
+	            searchIndex.remove(event.getQuestionId());
+	            similarIndex.remove(event.getQuestionId());
+	            return;
+	        }
+	        searchIndex.index(q);
+	        // Answers do not affect duplicate detection
+	        if (event.getType() == QAEvent.Type.QUESTION_CREATED || event.getType() == QAEvent.Type.QUESTION_UPDATED) {
+	            similarIndex.index(q.getId(), q.getTitle(), q.getContent());
+	        }
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	    }
+	}
 
-	        int rowsAffected = pstmt.executeUpdate();
+	private void saveSearchIndex() {
+	    Path file = searchIndexFile();
+	    if (file == null || !searchIndex.isDirty() || pool == null || pool.isClosed()) {
+	        return;
+	    }
+	    try {
+	        searchIndex.save(file, searchIndexFingerprint());
+	    } catch (IOException | SQLException e) {
+	        e.printStackTrace();
+	    }
+	}
 
-	        return rowsAffected > 0;
+	// The index file sits next to the database file; in-memory databases get none
+	private Path searchIndexFile() {
+	    String path = dbUrl.substring("jdbc:h2:".length());
+	    int options = path.indexOf(';');
+	    if (options >= 0) {
+	        path = path.substring(0, options);
+	    }
+	    if (path.startsWith("mem:")) {
+	        return null;
+	    }
+	    if (path.startsWith("file:")) {
+	        path = path.substring("file:".length());
+	    }
+	    if (path.startsWith("~")) {
+	        path = System.getProperty("user.home") + path.substring(1);
+	    }
+	    return Paths.get(path + ".search.idx");
+	}
 
+	// Summary of the indexed text of the Q&A tables, down to a hash of every row, so an
+	// edit that keeps the length still invalidates a saved index
+	private String searchIndexFingerprint() throws SQLException {
+	    StringBuilder fingerprint = new StringBuilder();
+	    String[] queries = {
+	        "SELECT COUNT(*), COALESCE(MAX(id), 0), COALESCE(SUM(ORA_HASH(CONCAT(id, ':', title, ':', content))), 0) FROM questions",
+	        "SELECT COUNT(*), COALESCE(MAX(id), 0), COALESCE(SUM(ORA_HASH(CONCAT(id, ':', questionId, ':', content))), 0) FROM answers"
+	    };
+	    for (String sql : queries) {
+	        try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql);
+	             ResultSet rs = pstmt.executeQuery()) {
+	            rs.next();
+	            fingerprint.append(rs.getLong(1)).append('/').append(rs.getLong(2)).append('/').append(rs.getLong(3)).append(';');
+	        }
 	    }
+	    return fingerprint.toString();
+	}
 
+	/**
+	 * Returns one page of questions in newest-first order using keyset pagination on
+	 * (createdAt, id). Pass a null cursor for the first page and the page's next cursor
+	 * for each following page; every page costs the same regardless of its depth.
+	 */
+	public Page<Question> getQuestionPage(QuestionFilter filter, String cursor, int pageSize) throws SQLException {
+	    return getQuestionPage(filter, QuestionSort.NEWEST, cursor, pageSize);
 	}
 
+	/**
+	 * Same as getQuestionPage in the given order. Filter and sort run as one query over
+	 * the questions table; a cursor only continues the sort it came from.
+	 */
+	public Page<Question> getQuestionPage(QuestionFilter filter, QuestionSort sort, String cursor, int pageSize)
+	        throws SQLException {
+	    Page<Question> page = queryQuestionPage(QUESTION_COLUMNS, filter, sort, cursor, pageSize, this::readQuestion);
+	    loadAnswersForQuestions(page.getItems());
+	    return page;
+	}
 
 	/**
+	 * Same page as getQuestionPage, but as QuestionSummary rows read from the questions
+	 * table alone: answer, unread and top-upvote counts come from the denormalized
+	 * columns, so no answer rows (or question content) are loaded.
+	 */
+	public Page<QuestionSummary> getQuestionSummaryPage(QuestionFilter filter, String cursor, int pageSize) throws SQLException {
+	    return getQuestionSummaryPage(filter, QuestionSort.NEWEST, cursor, pageSize);
+	}
 
-	 * Deletes a question (and its answers via CASCADE)
+	public Page<QuestionSummary> getQuestionSummaryPage(QuestionFilter filter, QuestionSort sort, String cursor,
+	        int pageSize) throws SQLException {
+	    return queryQuestionPage(SUMMARY_COLUMNS, filter, sort, cursor, pageSize, this::readSummary);
+	}
 
+	/**
+	 * One page of the trending ranking (see getTrending) among the questions that match
+	 * the filter. The ranking is read from memory and only its candidates are queried,
+	 * with the filter in the same query. The ranking moves as activity arrives, so a
+	 * later page can repeat or skip a question whose rank changed in between.
 	 */
+	public Page<Question> getTrendingQuestionPage(QuestionFilter filter, String cursor, int pageSize) throws SQLException {
+	    Page<Question> page = queryTrendingPage(QUESTION_COLUMNS, filter, cursor, pageSize, this::readQuestion,
+	        Question::getId);
+	    loadAnswersForQuestions(page.getItems());
+	    return page;
+	}
 
-	public boolean deleteQuestion(int questionId, String username) throws SQLException {
+	// Card view of getTrendingQuestionPage; the cursors are interchangeable
+	public Page<QuestionSummary> getTrendingQuestionSummaryPage(QuestionFilter filter, String cursor, int pageSize)
+	        throws SQLException {
+	    return queryTrendingPage(SUMMARY_COLUMNS, filter, cursor, pageSize, this::readSummary, QuestionSummary::getId);
+	}
 
-	    String sql = "DELETE FROM questions WHERE id = ? AND askedBy = ?";
+	private <T> Page<T> queryTrendingPage(String columns, QuestionFilter filter, String cursor, int pageSize,
+	        RowMapper<T> mapper, ToIntFunction<T> idOf) throws SQLException {
+	    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+	        throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+	    }
+	    int rank = cursor == null ? 0 : PageCursor.decodeRank(cursor);
+	    // Read a few pages' worth of candidates at a time in case the filter rejects many
+	    int chunk = Math.min(pageSize * 4, MAX_PAGE_SIZE);
+	    List<T> items = new ArrayList<>();
+	    String next = null;
+	    while (next == null) {
+	        List<Integer> candidates = trending.top(rank, chunk);
+	        Map<Integer, T> matching = new HashMap<>();
+	        for (T item : readInOrder(columns, candidates, filter, mapper, idOf)) {
+	            matching.put(idOf.applyAsInt(item), item);
+	        }
+	        for (int i = 0; i < candidates.size() && next == null; i++) {
+	            T item = matching.get(candidates.get(i));
+	            if (item == null) {
+	                continue;
+	            }
+	            if (items.size() == pageSize) {
+	                next = PageCursor.encodeRank(rank + i);
+	            } else {
+	                items.add(item);
+	            }
+	        }
+	        if (candidates.size() < chunk) {
+	            break;   // reached the end of the ranking
+	        }
+	        rank += candidates.size();
+	    }
+	    return new Page<>(items, next);
+	}
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	/**
+	 * Maps the current row of a result set.
+	 */
+	@FunctionalInterface
+	private interface RowMapper<T> {
+		T map(ResultSet rs) throws SQLException;
+	}
 
-	        pstmt.setInt(1, questionId);
+	private <T> Page<T> queryQuestionPage(String columns, QuestionFilter filter, QuestionSort sort, String cursor,
+	        int pageSize, RowMapper<T> mapper) throws SQLException {
+	    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+	        throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+	    }
+	    List<Object> params = new ArrayList<>(filter.whereParameters());
+	    String sql = "SELECT " + columns + ", " + sort.keyColumn() + " AS sortKey FROM questions WHERE "
+	            + filter.whereClause();
+	    if (cursor != null) {
+	        PageCursor after = PageCursor.decode(cursor, sort);
+	        sql += " AND " + sort.afterCondition();
+	        params.add(sort.bindKey(after.key));
+	        params.add(sort.bindKey(after.key));
+	        params.add(after.id);
+	    }
+	    // Fetch one extra row to learn whether another page exists
+	    sql += " ORDER BY " + sort.orderBy() + " LIMIT ?";
+	    params.add(pageSize + 1);
+
+	    List<T> items = new ArrayList<>();
+	    PageCursor last = null;
+	    boolean hasMore = false;
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        for (int i = 0; i < params.size(); i++) {
+	            pstmt.setObject(i + 1, params.get(i));
+	        }
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                if (items.size() == pageSize) {
+	                    hasMore = true;
+	                    break;
+	                }
+	                items.add(mapper.map(rs));
+	                last = new PageCursor(sort, sort.readKey(rs), rs.getInt("id"));
+	            }
+	        }
+	    }
+	    return new Page<>(items, hasMore ? last.encode() : null);
+	}
 
-	        pstmt.setString(2, username);
+	// Row mappers for reads that are not cached, so they include the unwritten views
+	private QuestionSummary readSummary(ResultSet rs) throws SQLException {
+	    return new QuestionSummary(
+	        rs.getInt("id"),
+	        rs.getString("title"),
+	        rs.getString("askedBy"),
+	        rs.getTimestamp("createdAt").toLocalDateTime(),
+	        rs.getBoolean("isResolved"),
+	        rs.getInt("answerCount"),
+	        rs.getInt("unreadAnswerCount"),
+	        rs.getInt("topUpvotes"),
+	        rs.getTimestamp("lastActivityAt").toLocalDateTime(),
+	        rs.getLong("viewCount") + views.getPending(rs.getInt("id"))
+	    );
+	}
+
+	private Question readQuestion(ResultSet rs) throws SQLException {
+	    Question q = new Question(
+	        rs.getInt("id"),
+	        rs.getString("title"),
+	        rs.getString("content"),
+	        rs.getString("askedBy"),
+	        rs.getTimestamp("createdAt").toLocalDateTime(),
+	        rs.getBoolean("isResolved"),
+	        rs.getInt("resolvedAnswerId")
+	    );
+	    q.setViewCount(rs.getLong("viewCount") + views.getPending(q.getId()));
+	    return q;
+	}
+
+	// Maps an answer row with its stored upvotes; copyOfAnswers adds the votes not yet written
+	private static Answer readAnswer(ResultSet rs) throws SQLException {
+	    return new Answer(
+	        rs.getInt("id"),
+	        rs.getInt("questionId"),
+	        rs.getString("content"),
+	        rs.getString("answeredBy"),
+	        rs.getTimestamp("createdAt").toLocalDateTime(),
+	        rs.getBoolean("isRead"),
+	        rs.getInt("upvotes")
+	    );
+	}
+
+
+	/**
+
+	 * Updates an existing question
+
+	 */
+
+	public boolean updateQuestion(Question question) throws SQLException {
+
+	    String sql = "UPDATE questions SET title = ?, content = ? WHERE id = ? AND askedBy = ?";
+
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+	        pstmt.setString(1, question.getTitle());
+
+	        pstmt.setString(2, question.getContent());
+
+	        pstmt.setInt(3, question.getId());
+
+	        pstmt.setString(4, question.getAskedBy());
 
 	        
 
 	        int rowsAffected = pstmt.executeUpdate();
 
+	        if (rowsAffected > 0) {
+
+	            publishChange(QAEvent.forQuestion(QAEvent.Type.QUESTION_UPDATED, question.getId()));
+
+	        }
+
 	        return rowsAffected > 0;
 
 	    }
@@ -936,26 +1496,30 @@ public class DatabaseHelper {
 
 	/**
 
-	 * Marks a question as resolved with a specific answer
+	 * Deletes a question (and its answers via CASCADE)
 
 	 */
 
-	public boolean markQuestionResolved(int questionId, int answerId, String username) throws SQLException {
-
-	    String sql = "UPDATE questions SET isResolved = TRUE, resolvedAnswerId = ? WHERE id = ? AND askedBy = ?";
+	public boolean deleteQuestion(int questionId, String username) throws SQLException {
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    String sql = "DELETE FROM questions WHERE id = ? AND askedBy = ?";
 
-	        pstmt.setInt(1, answerId);
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-	        pstmt.setInt(2, questionId);
+	        pstmt.setInt(1, questionId);
 
-	        pstmt.setString(3, username);
+	        pstmt.setString(2, username);
 
 	        
 
 	        int rowsAffected = pstmt.executeUpdate();
 
+	        if (rowsAffected > 0) {
+
+	            publishChange(QAEvent.forQuestion(QAEvent.Type.QUESTION_DELETED, questionId));
+
+	        }
+
 	        return rowsAffected > 0;
 
 	    }
@@ -963,61 +1527,74 @@ public class DatabaseHelper {
 	}
 
 
-	// ============ CRUD Operations for Answers ============
-
-
 	/**
 
-	 * Creates a new answer for a question
+	 * Marks a question as resolved with a specific answer
 
 	 */
 
-	public int createAnswer(Answer answer) throws SQLException {
-
-	    String sql = "INSERT INTO answers (questionId, content, answeredBy, createdAt) VALUES (?, ?, ?, ?)";
+	public boolean markQuestionResolved(int questionId, int answerId, String username) throws SQLException {
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+	    String sql = "UPDATE questions SET isResolved = TRUE, resolvedAnswerId = ? WHERE id = ? AND askedBy = ?";
 
-	        pstmt.setInt(1, answer.getQuestionId());
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-	        pstmt.setString(2, answer.getContent());
+	        pstmt.setInt(1, answerId);
 
-	        pstmt.setString(3, answer.getAnsweredBy());
+	        pstmt.setInt(2, questionId);
 
-	        pstmt.setTimestamp(4, Timestamp.valueOf(answer.getCreatedAt()));
+	        pstmt.setString(3, username);
 
 	        
 
-	        int affectedRows = pstmt.executeUpdate();
+	        int rowsAffected = pstmt.executeUpdate();
 
-	        if (affectedRows == 0) {
+	        if (rowsAffected > 0) {
 
-	            throw new SQLException("Creating answer failed, no rows affected.");
+	            publishChange(new QAEvent(QAEvent.Type.QUESTION_RESOLVED, questionId, answerId));
 
 	        }
 
-	        
+	        return rowsAffected > 0;
 
-	        try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+	    }
 
-	            if (generatedKeys.next()) {
+	}
 
-	                int generatedId = generatedKeys.getInt(1);
 
-	                answer.setId(generatedId);
+	// ============ CRUD Operations for Answers ============
 
-	                return generatedId;
 
-	            } else {
+	/**
+
+	 * Creates a new answer for a question
 
-	                throw new SQLException("Creating answer failed, no ID obtained.");
+	 */
 
+	public int createAnswer(Answer answer) throws SQLException {
+	    String sql = "INSERT INTO answers (questionId, content, answeredBy, createdAt) VALUES (?, ?, ?, ?)";
+	    int generatedId = inTransaction(conn -> {
+	        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+	            pstmt.setInt(1, answer.getQuestionId());
+	            pstmt.setString(2, answer.getContent());
+	            pstmt.setString(3, answer.getAnsweredBy());
+	            pstmt.setTimestamp(4, Timestamp.valueOf(answer.getCreatedAt()));
+	            if (pstmt.executeUpdate() == 0) {
+	                throw new SQLException("Creating answer failed, no rows affected.");
+	            }
+	            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+	                if (!generatedKeys.next()) {
+	                    throw new SQLException("Creating answer failed, no ID obtained.");
+	                }
+	                adjustAnswerCounts(conn, answer.getQuestionId(), 1, 1);
+	                recordActivity(conn, answer.getQuestionId(), answer.getCreatedAt());
+	                return generatedKeys.getInt(1);
 	            }
-
 	        }
-
-	    }
-
+	    });
+	    answer.setId(generatedId);
+	    publishChange(new QAEvent(QAEvent.Type.ANSWER_CREATED, answer.getQuestionId(), generatedId));
+	    return generatedId;
 	}
 
 
@@ -1028,14 +1605,25 @@ public class DatabaseHelper {
 	 */
 
 	public List<Answer> getAnswersForQuestion(int questionId) throws SQLException {
+	    return withVoteCounts(() -> copyOfAnswers(cachedAnswersForQuestion(questionId)));
+	}
+
+	// Shared cached list; only ever handed out through copyOfAnswers
+	private List<Answer> cachedAnswersForQuestion(int questionId) throws SQLException {
+	    return readCacheEnabled
+	        ? answerCache.get(questionId, this::loadAnswersForQuestion)
+	        : loadAnswersForQuestion(questionId);
+	}
+
+	private List<Answer> loadAnswersForQuestion(int questionId) throws SQLException {
 
 	    List<Answer> answers = new ArrayList<>();
 
-	    String sql = "SELECT * FROM answers WHERE questionId = ? ORDER BY upvotes DESC, createdAt ASC";
+	    String sql = "SELECT " + ANSWER_COLUMNS + " FROM answers WHERE questionId = ? ORDER BY upvotes DESC, createdAt ASC";
 
 	    
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
 	        pstmt.setInt(1, questionId);
 
@@ -1045,34 +1633,95 @@ public class DatabaseHelper {
 
 	            while (rs.next()) {
 
-	                Answer a = new Answer(
-
-	                    rs.getInt("id"),
-
-	                    rs.getInt("questionId"),
+	                answers.add(readAnswer(rs));
 
-	                    rs.getString("content"),
+	            }
 
-	                    rs.getString("answeredBy"),
+	        }
 
-	                    rs.getTimestamp("createdAt").toLocalDateTime(),
+	    }
 
-	                    rs.getBoolean("isRead"),
+	    return answers;
 
-	                    rs.getInt("upvotes")
+	}
 
-	                );
 
-	                answers.add(a);
+	/**
+	 * Loads the answers for every question in the list using one
+	 * "questionId IN (...)" query per batch instead of one query per question.
+	 */
+	public void loadAnswersForQuestions(List<Question> questions) throws SQLException {
+	    if (questions.isEmpty()) {
+	        return;
+	    }
+	    Map<Integer, List<Answer>> answersByQuestion = withVoteCounts(() -> loadAnswersByQuestion(questions));
+	    for (Question q : questions) {
+	        q.setAnswers(answersByQuestion.getOrDefault(q.getId(), Collections.emptyList()));
+	    }
+	}
 
+	private Map<Integer, List<Answer>> loadAnswersByQuestion(List<Question> questions) throws SQLException {
+	    Map<Integer, List<Answer>> answersByQuestion = new HashMap<>();
+	    int maxBatch = ANSWER_BATCH_BUCKETS[ANSWER_BATCH_BUCKETS.length - 1];
+	    for (int from = 0; from < questions.size(); from += maxBatch) {
+	        List<Question> batch = questions.subList(from, Math.min(from + maxBatch, questions.size()));
+	        int bucket = answerBatchBucket(batch.size());
+	        String placeholders = String.join(", ", Collections.nCopies(bucket, "?"));
+	        String sql = "SELECT " + ANSWER_COLUMNS + " FROM answers WHERE questionId IN (" + placeholders + ") "
+	                + "ORDER BY questionId, upvotes DESC, createdAt ASC";
+	        try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	            for (int i = 0; i < bucket; i++) {
+	                // Pad unused slots with the last id; duplicates in IN (...) are harmless
+	                pstmt.setInt(i + 1, batch.get(Math.min(i, batch.size() - 1)).getId());
+	            }
+	            try (ResultSet rs = pstmt.executeQuery()) {
+	                while (rs.next()) {
+	                    Answer a = readAnswer(rs);
+	                    answersByQuestion.computeIfAbsent(a.getQuestionId(), k -> new ArrayList<>()).add(a);
+	                }
 	            }
-
 	        }
-
 	    }
+	    // Not cached, so the votes not yet written are added here rather than on the way out
+	    answersByQuestion.replaceAll((questionId, answers) -> copyOfAnswers(answers));
+	    return answersByQuestion;
+	}
 
-	    return answers;
+	/**
+	 * Attaches answers to questions that were just listed with the given WHERE clause
+	 * over questions (aliased q). One joined query replaces the per-question lookups.
+	 */
+	private void attachAnswers(List<Question> questions, String questionWhere, Object... params) throws SQLException {
+	    if (questions.isEmpty()) {
+	        return;
+	    }
+	    Map<Integer, List<Answer>> answersByQuestion = new HashMap<>();
+	    String sql = "SELECT " + JOINED_ANSWER_COLUMNS + " FROM answers a JOIN questions q ON q.id = a.questionId "
+	            + "WHERE (" + questionWhere + ") ORDER BY a.upvotes DESC, a.createdAt ASC";
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        for (int i = 0; i < params.length; i++) {
+	            pstmt.setObject(i + 1, params[i]);
+	        }
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                Answer a = readAnswer(rs);
+	                answersByQuestion.computeIfAbsent(a.getQuestionId(), k -> new ArrayList<>()).add(a);
+	            }
+	        }
+	    }
+	    for (Question q : questions) {
+	        q.setAnswers(answersByQuestion.getOrDefault(q.getId(), Collections.emptyList()));
+	    }
+	}
 
+	// Smallest bucket that fits the batch, so the padded IN list stays short
+	private static int answerBatchBucket(int size) {
+	    for (int bucket : ANSWER_BATCH_BUCKETS) {
+	        if (size <= bucket) {
+	            return bucket;
+	        }
+	    }
+	    return ANSWER_BATCH_BUCKETS[ANSWER_BATCH_BUCKETS.length - 1];
 	}
 
 
@@ -1086,7 +1735,7 @@ public class DatabaseHelper {
 
 	    String sql = "UPDATE answers SET content = ? WHERE id = ? AND answeredBy = ?";
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
 	        pstmt.setString(1, answer.getContent());
 
@@ -1098,6 +1747,12 @@ public class DatabaseHelper {
 
 	        int rowsAffected = pstmt.executeUpdate();
 
+	        if (rowsAffected > 0) {
+
+	            publishChange(new QAEvent(QAEvent.Type.ANSWER_UPDATED, answer.getQuestionId(), answer.getId()));
+
+	        }
+
 	        return rowsAffected > 0;
 
 	    }
@@ -1112,112 +1767,502 @@ public class DatabaseHelper {
 	 */
 
 	public boolean deleteAnswer(int answerId, String username) throws SQLException {
+	    int[] questionId = {-1};
+	    boolean deleted = inTransaction(conn -> {
+	        boolean wasRead;
+	        String find = "SELECT questionId, isRead FROM answers WHERE id = ? AND answeredBy = ? FOR UPDATE";
+	        try (PreparedStatement pstmt = conn.prepareStatement(find)) {
+	            pstmt.setInt(1, answerId);
+	            pstmt.setString(2, username);
+	            try (ResultSet rs = pstmt.executeQuery()) {
+	                if (!rs.next()) {
+	                    return false;
+	                }
+	                questionId[0] = rs.getInt("questionId");
+	                wasRead = rs.getBoolean("isRead");
+	            }
+	        }
+	        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM answers WHERE id = ?")) {
+	            pstmt.setInt(1, answerId);
+	            pstmt.executeUpdate();
+	        }
+	        adjustAnswerCounts(conn, questionId[0], -1, wasRead ? 0 : -1);
+	        refreshTopUpvotes(conn, questionId[0]);
+	        return true;
+	    });
+	    if (deleted) {
+	        publishChange(new QAEvent(QAEvent.Type.ANSWER_DELETED, questionId[0], answerId));
+	    }
+	    return deleted;
+	}
 
-	    String sql = "DELETE FROM answers WHERE id = ? AND answeredBy = ?";
-
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-
-	        pstmt.setInt(1, answerId);
-
-	        pstmt.setString(2, username);
 
-	        
+	/**
 
-	        int rowsAffected = pstmt.executeUpdate();
+	 * Marks an answer as read
 
-	        return rowsAffected > 0;
+	 */
 
+	public boolean markAnswerAsRead(int answerId) throws SQLException {
+	    int questionId = questionIdForAnswer(answerId);
+	    if (questionId < 0) {
+	        return false;
 	    }
+	    markAnswersAsRead(questionId, Collections.singletonList(answerId));
+	    return true;
+	}
 
+	/**
+	 * Marks several answers of one question as read with a single batched UPDATE in
+	 * one transaction, adjusting the question's unread counter once. Ids that are
+	 * already read or belong to another question are ignored.
+	 *
+	 * @return the number of answers that changed from unread to read
+	 */
+	public int markAnswersAsRead(int questionId, Collection<Integer> answerIds) throws SQLException {
+	    if (answerIds.isEmpty()) {
+	        return 0;
+	    }
+	    String sql = "UPDATE answers SET isRead = TRUE WHERE id = ? AND questionId = ? AND isRead = FALSE";
+	    int marked = inTransaction(conn -> {
+	        int changed = 0;
+	        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	            for (int answerId : answerIds) {
+	                pstmt.setInt(1, answerId);
+	                pstmt.setInt(2, questionId);
+	                pstmt.addBatch();
+	            }
+	            for (int count : pstmt.executeBatch()) {
+	                changed += Math.max(count, 0);
+	            }
+	        }
+	        if (changed > 0) {
+	            adjustAnswerCounts(conn, questionId, 0, -changed);
+	        }
+	        return changed;
+	    });
+	    if (marked > 0) {
+	        // One event for the whole batch; answerId is only set when a single answer changed
+	        int answerId = answerIds.size() == 1 ? answerIds.iterator().next() : -1;
+	        publishChange(new QAEvent(QAEvent.Type.ANSWER_READ, questionId, answerId));
+	    }
+	    return marked;
 	}
 
 
+
 	/**
 
-	 * Marks an answer as read
+	 * Increments upvotes for an answer
+
+	 * This upvote belongs to no user and can be repeated, so it is not part of
+
+	 * AnswerRepository; votes from users go through voteForAnswer (one per user)
 
 	 */
 
-	public boolean markAnswerAsRead(int answerId) throws SQLException {
+	public boolean upvoteAnswer(int answerId) throws SQLException {
+	    int questionId = questionIdForAnswer(answerId);
+	    if (questionId < 0) {
+	        return false;
+	    }
+	    boolean upvoted = inTransaction(conn -> {
+	        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE answers SET upvotes = upvotes + 1 WHERE id = ?")) {
+	            pstmt.setInt(1, answerId);
+	            if (pstmt.executeUpdate() == 0) {
+	                return false;
+	            }
+	        }
+	        String top = "UPDATE questions SET topUpvotes = GREATEST(topUpvotes, "
+	                + "(SELECT upvotes FROM answers WHERE id = ?)) WHERE id = ?";
+	        try (PreparedStatement pstmt = conn.prepareStatement(top)) {
+	            pstmt.setInt(1, answerId);
+	            pstmt.setInt(2, questionId);
+	            pstmt.executeUpdate();
+	        }
+	        return true;
+	    });
+	    if (upvoted) {
+	        publishChange(new QAEvent(QAEvent.Type.ANSWER_UPVOTED, questionId, answerId));
+	    }
+	    return upvoted;
+	}
+	/**
+	 * Records userName's upvote for an answer, at most one per user and answer. The vote
+	 * counts immediately in every answer this helper returns and is written to the
+	 * database by the vote aggregator's next batch.
+	 *
+	 * @return false if the user already voted for the answer or it does not exist
+	 */
+	public boolean voteForAnswer(int answerId, String userName) throws SQLException {
+	    int questionId = questionIdForAnswer(answerId);
+	    if (questionId < 0 || !votes.vote(answerId, userName)) {
+	        return false;
+	    }
+	    publishChange(new QAEvent(QAEvent.Type.ANSWER_UPVOTED, questionId, answerId));
+	    return true;
+	}
 
-	    String sql = "UPDATE answers SET isRead = TRUE WHERE id = ?";
+	// True once userName has voted for the answer, whether or not the vote is written yet
+	public boolean hasVoted(int answerId, String userName) throws SQLException {
+	    return votes.hasPendingVote(answerId, userName) || hasVotedInDatabase(answerId, userName);
+	}
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	// Writes any votes still held in memory; normally left to the periodic flush.
+	public void flushVotes() throws SQLException {
+	    votes.flush();
+	}
 
+	boolean hasVotedInDatabase(int answerId, String userName) throws SQLException {
+	    String sql = "SELECT 1 FROM votes WHERE answerId = ? AND userName = ?";
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setInt(1, answerId);
+	        pstmt.setString(2, userName);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            return rs.next();
+	        }
+	    }
+	}
 
-	        
+	/**
+	 * Writes a batch of votes for VoteAggregator in one transaction: the vote rows, then
+	 * one upvote increment per answer and the questions' top-upvote counters. Votes that
+	 * are already recorded or whose answer was deleted meanwhile are skipped.
+	 *
+	 * @return the ids of the questions whose answers received votes
+	 */
+	Set<Integer> writeVotes(List<VoteAggregator.Vote> batch) throws SQLException {
+	    return inTransaction(conn -> {
+	        String insert = "INSERT INTO votes (answerId, userName) SELECT ?, ? FROM DUAL "
+	                + "WHERE EXISTS (SELECT 1 FROM answers WHERE id = ?) "
+	                + "AND NOT EXISTS (SELECT 1 FROM votes WHERE answerId = ? AND userName = ?)";
+	        Map<Integer, Integer> addedByAnswer = new HashMap<>();
+	        try (PreparedStatement pstmt = conn.prepareStatement(insert)) {
+	            for (VoteAggregator.Vote vote : batch) {
+	                pstmt.setInt(1, vote.answerId);
+	                pstmt.setString(2, vote.userName);
+	                pstmt.setInt(3, vote.answerId);
+	                pstmt.setInt(4, vote.answerId);
+	                pstmt.setString(5, vote.userName);
+	                pstmt.addBatch();
+	            }
+	            int[] counts = pstmt.executeBatch();
+	            for (int i = 0; i < counts.length; i++) {
+	                if (counts[i] > 0) {
+	                    addedByAnswer.merge(batch.get(i).answerId, 1, Integer::sum);
+	                }
+	            }
+	        }
+	        if (addedByAnswer.isEmpty()) {
+	            return Collections.<Integer>emptySet();
+	        }
+	        try (PreparedStatement upvotes = conn.prepareStatement("UPDATE answers SET upvotes = upvotes + ? WHERE id = ?");
+	             PreparedStatement top = conn.prepareStatement("UPDATE questions SET topUpvotes = GREATEST(topUpvotes, "
+	                     + "(SELECT upvotes FROM answers WHERE id = ?)) WHERE id = (SELECT questionId FROM answers WHERE id = ?)")) {
+	            for (Map.Entry<Integer, Integer> added : addedByAnswer.entrySet()) {
+	                upvotes.setInt(1, added.getValue());
+	                upvotes.setInt(2, added.getKey());
+	                upvotes.addBatch();
+	                top.setInt(1, added.getKey());
+	                top.setInt(2, added.getKey());
+	                top.addBatch();
+	            }
+	            upvotes.executeBatch();
+	            top.executeBatch();
+	        }
+	        Set<Integer> questionIds = new HashSet<>();
+	        for (int answerId : addedByAnswer.keySet()) {
+	            questionIds.add(questionIdForAnswer(answerId));
+	        }
+	        return questionIds;
+	    });
+	}
 
-	        int rowsAffected = pstmt.executeUpdate();
+	// Cached reads hold the old database counts; drop them once the batch has landed
+	void votesWritten(Set<Integer> questionIds) {
+	    for (int questionId : questionIds) {
+	        invalidateCachedReads(questionId);
+	    }
+	}
 
-	        return rowsAffected > 0;
 
+	/**
+	 * Closes a question (marks as resolved without specifying an answer)
+	 */
+	public boolean closeQuestion(int questionId, String username) throws SQLException {
+	    String sql = "UPDATE questions SET isResolved = TRUE WHERE id = ? AND askedBy = ?";
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setInt(1, questionId);
+	        pstmt.setString(2, username);
+	        
+	        int rowsAffected = pstmt.executeUpdate();
+	        if (rowsAffected > 0) {
+	            publishChange(QAEvent.forQuestion(QAEvent.Type.QUESTION_RESOLVED, questionId));
+	        }
+	        return rowsAffected > 0;
 	    }
+	}
 
+	/**
+	 * Change notifications for questions and answers. Listeners run on the thread
+	 * that made the change.
+	 */
+	public QAEventBus events() {
+		return events;
 	}
 
+	// Drops every cached read the change can affect, then notifies listeners (which may
+	// read the changed question straight away).
+	private void publishChange(QAEvent event) {
+		invalidateCachedReads(event.getQuestionId());
+		events.publish(event);
+	}
+
+	private void invalidateCachedReads(int questionId) {
+		questionCache.invalidate(questionId);
+		answerCache.invalidate(questionId);
+		questionListCache.invalidateAll();
+	}
 
 	/**
+	 * Counters of the question, answer and question-list read caches.
+	 */
+	public List<EntityCache.Stats> getReadCacheStats() {
+		return Arrays.asList(questionCache.getStats(), answerCache.getStats(), questionListCache.getStats());
+	}
 
-	 * Increments upvotes for an answer
+	// Benchmarks turn the read caches off to measure the queries themselves.
+	public void setReadCacheEnabled(boolean enabled) {
+		readCacheEnabled = enabled;
+		clearReadCaches();
+	}
 
-	 */
+	private void clearReadCaches() {
+		questionCache.invalidateAll();
+		answerCache.invalidateAll();
+		questionListCache.invalidateAll();
+	}
 
-	public boolean upvoteAnswer(int answerId) throws SQLException {
+	// Cached values are shared, so callers always get their own copies to modify
+	private Question copyOf(Question q) {
+		Question copy = new Question(q.getId(), q.getTitle(), q.getContent(), q.getAskedBy(),
+				q.getCreatedAt(), q.isResolved(), q.getResolvedAnswerId());
+		copy.setAnswers(copyOfAnswers(q.getAnswers()));
+		copy.setViewCount(q.getViewCount() + views.getPending(q.getId()));   // cached rows hold the stored count
+		return copy;
+	}
 
-	    String sql = "UPDATE answers SET upvotes = upvotes + 1 WHERE id = ?";
+	private List<Question> copyOfQuestions(List<Question> questions) {
+		List<Question> copies = new ArrayList<>(questions.size());
+		for (Question q : questions) {
+			copies.add(copyOf(q));
+		}
+		return copies;
+	}
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	// Answers are read with their database counts (readAnswer); the copies add the votes
+	// not yet written, the one place pending votes are applied
+	private List<Answer> copyOfAnswers(List<Answer> answers) {
+		List<Answer> copies = new ArrayList<>(answers.size());
+		boolean pending = false;
+		for (Answer a : answers) {
+			int votes = pendingVotes(a.getId());
+			pending |= votes > 0;
+			copies.add(new Answer(a.getId(), a.getQuestionId(), a.getContent(), a.getAnsweredBy(),
+					a.getCreatedAt(), a.isRead(), a.getUpvotes() + votes));
+		}
+		if (pending) {
+			copies.sort(ANSWER_ORDER);   // the votes may have changed the order
+		}
+		return copies;
+	}
 
-	        pstmt.setInt(1, answerId);
+	// Display order of answers, as in the answer queries; stable, so ties keep the query's order
+	private static final Comparator<Answer> ANSWER_ORDER = Comparator.comparingInt((Answer a) -> -a.getUpvotes())
+			.thenComparing(Answer::getCreatedAt);
 
-	        
+	private int pendingVotes(int answerId) {
+		VoteAggregator current = votes;
+		return current == null ? 0 : current.getPendingVotes(answerId);
+	}
 
-	        int rowsAffected = pstmt.executeUpdate();
+	// Public reads that hand out answers run here, so each sees a vote flush whole
+	private <T> T withVoteCounts(VoteAggregator.CountedRead<T> read) throws SQLException {
+		VoteAggregator current = votes;
+		return current == null ? read.read() : current.countedRead(read);
+	}
 
-	        return rowsAffected > 0;
+	// Rough heap size: object headers and fields plus two bytes per character
+	private static long estimateBytes(Question q) {
+		return 96 + 2L * (q.getTitle().length() + q.getContent().length() + q.getAskedBy().length())
+				+ estimateAnswerBytes(q.getAnswers());
+	}
 
-	    }
+	private static long estimateAnswerBytes(List<Answer> answers) {
+		long bytes = 32;
+		for (Answer a : answers) {
+			bytes += 80 + 2L * (a.getContent().length() + a.getAnsweredBy().length());
+		}
+		return bytes;
+	}
 
+	private static long estimateListBytes(List<Question> questions) {
+		long bytes = 32;
+		for (Question q : questions) {
+			bytes += estimateBytes(q);
+		}
+		return bytes;
 	}
 
 	/**
-	 * Closes a question (marks as resolved without specifying an answer)
+	 * Work done on one connection inside a transaction; see inTransaction.
 	 */
-	public boolean closeQuestion(int questionId, String username) throws SQLException {
-	    String sql = "UPDATE questions SET isResolved = TRUE WHERE id = ? AND askedBy = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-	        pstmt.setInt(1, questionId);
-	        pstmt.setString(2, username);
-	        
-	        int rowsAffected = pstmt.executeUpdate();
-	        return rowsAffected > 0;
-	    }
+	@FunctionalInterface
+	private interface TransactionWork<T> {
+		T run(Connection conn) throws SQLException;
+	}
+
+	// Runs work in a transaction, committing on success and rolling back on any exception.
+	// Nested calls on the same thread join the transaction already open.
+	private <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+		try (Connection conn = pool.getConnection()) {
+			if (!conn.getAutoCommit()) {
+				return work.run(conn);
+			}
+			conn.setAutoCommit(false);
+			try {
+				T result = work.run(conn);
+				conn.commit();
+				return result;
+			} catch (SQLException | RuntimeException e) {
+				conn.rollback();
+				throw e;
+			} finally {
+				conn.setAutoCommit(true);
+			}
+		}
 	}
 
-	// Closes the database connection and statement.
+	// Keeps the denormalized answer counters on questions in step with the answers table
+	private static void adjustAnswerCounts(Connection conn, int questionId, int answerDelta, int unreadDelta) throws SQLException {
+		String sql = "UPDATE questions SET answerCount = answerCount + ?, unreadAnswerCount = unreadAnswerCount + ? WHERE id = ?";
+		try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			pstmt.setInt(1, answerDelta);
+			pstmt.setInt(2, unreadDelta);
+			pstmt.setInt(3, questionId);
+			pstmt.executeUpdate();
+		}
+	}
+
+	// Moves the question's lastActivityAt (RECENTLY_ACTIVE order) forward to at
+	private static void recordActivity(Connection conn, int questionId, LocalDateTime at) throws SQLException {
+		String sql = "UPDATE questions SET lastActivityAt = GREATEST(lastActivityAt, ?) WHERE id = ?";
+		try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			pstmt.setTimestamp(1, Timestamp.valueOf(at));
+			pstmt.setInt(2, questionId);
+			pstmt.executeUpdate();
+		}
+	}
+
+	// A removed answer may have held the maximum, so recompute it from the remaining ones
+	private static void refreshTopUpvotes(Connection conn, int questionId) throws SQLException {
+		String sql = "UPDATE questions SET topUpvotes = COALESCE((SELECT MAX(upvotes) FROM answers WHERE questionId = ?), 0) WHERE id = ?";
+		try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			pstmt.setInt(1, questionId);
+			pstmt.setInt(2, questionId);
+			pstmt.executeUpdate();
+		}
+	}
+
+	// Question an answer belongs to, or -1 if the answer does not exist.
+	private int questionIdForAnswer(int answerId) throws SQLException {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement("SELECT questionId FROM answers WHERE id = ?")) {
+			pstmt.setInt(1, answerId);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : -1;
+			}
+		}
+	}
+
+	/**
+	 * The scheduler running the background purges (PURGE_EXPIRED_OTPS and
+	 * PURGE_EXPIRED_INVITATION_CODES), for changing their intervals, running them now
+	 * or reading their run times and row counts; null before connectToDatabase.
+	 */
+	public HousekeepingScheduler getHousekeeping() {
+		return housekeeping;
+	}
+
+	// Background facade for UI code; created on first use and stopped by closeConnection.
+	public synchronized AsyncDatabaseHelper<DatabaseHelper> async() {
+		if (async == null) {
+			async = new AsyncDatabaseHelper<>(this);
+		}
+		return async;
+	}
+
+	/**
+	 * Counters of the connection pool (sizes, waits, timeouts, leaks), or null before
+	 * connectToDatabase.
+	 */
+	public ConnectionPool.Stats getPoolStats() {
+		ConnectionPool current = pool;
+		return current == null ? null : current.getStats();
+	}
+
+	// Prepared statements cached per pooled connection; 0 prepares every statement afresh.
+	public void setStatementCacheSize(int size) {
+		pool.setStatementCacheSize(size);
+	}
+
+	// Closes the connection pool.
 	public void closeConnection() {
-		try{ 
-			if(statement!=null) statement.close(); 
-		} catch(SQLException se2) { 
-			se2.printStackTrace();
-		} 
-		try { 
-			if(connection!=null) connection.close(); 
-		} catch(SQLException se){ 
-			se.printStackTrace(); 
-		} 
+		synchronized (this) {
+			if (async != null) {
+				async.shutdown();
+				async = null;
+			}
+		}
+		if (housekeeping != null) {
+			housekeeping.close();
+		}
+		if (votes != null) {
+			votes.close();   // writes the votes still in memory
+		}
+		if (pool != null && !pool.isClosed()) {
+			try {
+				flushViewCounts();
+				persistTrendingScores();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		saveSearchIndex();
+		if (pool != null) {
+			pool.close();
+		}
 	}
 	
 	public void truncate() {
 		// Clears and rebuilds databases. Fresh start. 
 		try {
 		Class.forName(JDBC_DRIVER);
-		System.out.println("Connecting to database...");
-		connection = DriverManager.getConnection(DB_URL, USER, PASS);
-		statement = connection.createStatement(); 
-		statement.execute("DROP ALL OBJECTS");
-		createTables();
+		if (pool == null || pool.isClosed()) {
+			System.out.println("Connecting to database...");
+			pool = new ConnectionPool(dbUrl, USER, PASS, DEFAULT_POOL_SIZE);
+		}
+		try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+		}
+		migrateSchema();
+		if (votes != null) {
+			votes.discardPending();
+		}
+		views.discardPending();
+		clearReadCaches();
+		searchIndex.clear();
+		similarIndex = new SimilarQuestionIndex();
+		openTrending();
 		}catch (ClassNotFoundException | SQLException e) {
 				e.printStackTrace();
 		}
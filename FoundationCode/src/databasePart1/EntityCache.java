@@ -0,0 +1,180 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * EntityCache is a bounded read-through cache for values loaded from the database.
+ *
+ * Entries are evicted least-recently-used first once the summed weight of the cached
+ * values (roughly their size in bytes, as estimated by the weigher) passes the limit,
+ * and expire a fixed time after they were loaded. Writers invalidate the keys they
+ * change; a load that overlaps an invalidation is returned to its caller but not
+ * cached, so a value read before a write can never be stored after it.
+ *
+ * Loaders return null for "not found"; null results are not cached.
+ */
+public class EntityCache<K, V> {
+
+	/**
+	 * Loads the value for a key on a cache miss.
+	 */
+	@FunctionalInterface
+	public interface Loader<K, V> {
+		V load(K key) throws SQLException;
+	}
+
+	/**
+	 * Point-in-time cache counters.
+	 */
+	public static final class Stats {
+		private final String name;
+		private final int size;
+		private final long weight;
+		private final long maxWeight;
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final long expirations;
+		private final long invalidations;
+
+		Stats(String name, int size, long weight, long maxWeight, long hits, long misses, long evictions,
+				long expirations, long invalidations) {
+			this.name = name;
+			this.size = size;
+			this.weight = weight;
+			this.maxWeight = maxWeight;
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.expirations = expirations;
+			this.invalidations = invalidations;
+		}
+
+		public String getName() { return name; }
+		public int getSize() { return size; }
+		public long getWeight() { return weight; }
+		public long getMaxWeight() { return maxWeight; }
+		public long getHits() { return hits; }
+		public long getMisses() { return misses; }
+		public long getEvictions() { return evictions; }
+		public long getExpirations() { return expirations; }
+		public long getInvalidations() { return invalidations; }
+		public double getHitRatio() { return hits + misses == 0 ? 0 : (double) hits / (hits + misses); }
+
+		@Override
+		public String toString() {
+			return String.format("%s[size=%d, weight=%d/%d, hit ratio=%.1f%% (%d/%d), evictions=%d, "
+					+ "expirations=%d, invalidations=%d]", name, size, weight, maxWeight, 100 * getHitRatio(),
+					hits, hits + misses, evictions, expirations, invalidations);
+		}
+	}
+
+	private static final class Entry<V> {
+		final V value;
+		final long weight;
+		final long expiresAt;
+
+		Entry(V value, long weight, long expiresAt) {
+			this.value = value;
+			this.weight = weight;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private final String name;
+	private final long maxWeight;
+	private final long ttlNanos;
+	private final ToLongFunction<V> weigher;
+	private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(64, 0.75f, true);
+	private long weight;
+	// Bumped by every invalidation; a load only caches its result if this did not move
+	private long generation;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+	private long invalidations;
+
+	public EntityCache(String name, long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+		this.name = name;
+		this.maxWeight = maxWeight;
+		this.ttlNanos = ttlMillis * 1_000_000L;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Returns the cached value for key, or loads, caches and returns it.
+	 */
+	public V get(K key, Loader<K, V> loader) throws SQLException {
+		long loadGeneration;
+		synchronized (this) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (System.nanoTime() - entry.expiresAt < 0) {
+					hits++;
+					return entry.value;
+				}
+				remove(key);
+				expirations++;
+			}
+			misses++;
+			loadGeneration = generation;
+		}
+		// Load outside the lock so one slow query does not block every other reader
+		V value = loader.load(key);
+		if (value != null) {
+			put(key, value, loadGeneration);
+		}
+		return value;
+	}
+
+	public synchronized void invalidate(K key) {
+		generation++;
+		if (remove(key) != null) {
+			invalidations++;
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		invalidations += entries.size();
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized Stats getStats() {
+		return new Stats(name, entries.size(), weight, maxWeight, hits, misses, evictions, expirations, invalidations);
+	}
+
+	private synchronized void put(K key, V value, long loadGeneration) {
+		if (generation != loadGeneration) {
+			return;
+		}
+		long valueWeight = weigher.applyAsLong(value);
+		if (valueWeight > maxWeight) {
+			return;
+		}
+		remove(key);
+		entries.put(key, new Entry<>(value, valueWeight, System.nanoTime() + ttlNanos));
+		weight += valueWeight;
+		Iterator<Map.Entry<K, Entry<V>>> eldestFirst = entries.entrySet().iterator();
+		while (weight > maxWeight && eldestFirst.hasNext()) {
+			weight -= eldestFirst.next().getValue().weight;
+			eldestFirst.remove();
+			evictions++;
+		}
+	}
+
+	private Entry<V> remove(K key) {
+		Entry<V> entry = entries.remove(key);
+		if (entry != null) {
+			weight -= entry.weight;
+		}
+		return entry;
+	}
+}
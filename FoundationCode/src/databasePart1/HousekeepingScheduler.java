@@ -0,0 +1,248 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HousekeepingScheduler runs periodic cleanup work (purging expired one-time passwords
+ * and invitation codes, and whatever is added later) on one background thread, so
+ * expired rows are removed as they expire instead of piling up behind the queries
+ * that skip them.
+ *
+ * Each task reports how many rows it changed; the scheduler keeps per-task counts and
+ * timings (see getStats). A failing run is logged and retried at the next interval.
+ */
+public class HousekeepingScheduler implements AutoCloseable {
+
+	/**
+	 * One unit of cleanup work. Implementations should work in bounded batches so no
+	 * single statement holds its locks for long.
+	 *
+	 * @return the number of rows changed
+	 */
+	@FunctionalInterface
+	public interface Task {
+		int run() throws SQLException;
+	}
+
+	/**
+	 * Counters of one task, as of the moment getStats was called.
+	 */
+	public static final class TaskStats {
+		private final String name;
+		private final long intervalMillis;
+		private final long runs;
+		private final long failures;
+		private final long rowsAffected;
+		private final int lastRowsAffected;
+		private final long lastRunNanos;
+		private final long totalRunNanos;
+
+		TaskStats(String name, long intervalMillis, long runs, long failures, long rowsAffected,
+				int lastRowsAffected, long lastRunNanos, long totalRunNanos) {
+			this.name = name;
+			this.intervalMillis = intervalMillis;
+			this.runs = runs;
+			this.failures = failures;
+			this.rowsAffected = rowsAffected;
+			this.lastRowsAffected = lastRowsAffected;
+			this.lastRunNanos = lastRunNanos;
+			this.totalRunNanos = totalRunNanos;
+		}
+
+		public String getName() { return name; }
+		public long getIntervalMillis() { return intervalMillis; }
+		public long getRuns() { return runs; }
+		public long getFailures() { return failures; }
+		public long getRowsAffected() { return rowsAffected; }
+		public int getLastRowsAffected() { return lastRowsAffected; }
+		public double getLastRunMillis() { return lastRunNanos / 1e6; }
+		public double getAverageRunMillis() { return runs == 0 ? 0 : totalRunNanos / 1e6 / runs; }
+
+		@Override
+		public String toString() {
+			return String.format("%s[every %d ms, runs=%d, failures=%d, rows=%d (last %d), last %.2f ms, avg %.2f ms]",
+					name, intervalMillis, runs, failures, rowsAffected, lastRowsAffected, getLastRunMillis(),
+					getAverageRunMillis());
+		}
+	}
+
+	// A registered task with its schedule and counters (guarded by the entry itself)
+	private static final class Entry {
+		final String name;
+		final Task task;
+		final Object runLock = new Object();   // one run of a task at a time
+		long intervalMillis;
+		ScheduledFuture<?> scheduled;
+		long runs;
+		long failures;
+		long rowsAffected;
+		int lastRowsAffected;
+		long lastRunNanos;
+		long totalRunNanos;
+
+		Entry(String name, Task task, long intervalMillis) {
+			this.name = name;
+			this.task = task;
+			this.intervalMillis = intervalMillis;
+		}
+
+		synchronized void record(int rows, boolean failed, long nanos) {
+			runs++;
+			if (failed) {
+				failures++;
+			} else {
+				lastRowsAffected = rows;
+				rowsAffected += rows;
+			}
+			lastRunNanos = nanos;
+			totalRunNanos += nanos;
+		}
+
+		synchronized TaskStats stats() {
+			return new TaskStats(name, intervalMillis, runs, failures, rowsAffected, lastRowsAffected,
+					lastRunNanos, totalRunNanos);
+		}
+	}
+
+	private final ScheduledExecutorService worker;
+	private final Map<String, Entry> tasks = new ConcurrentHashMap<>();
+	private final List<String> order = new ArrayList<>();   // registration order, for getStats
+	private volatile boolean closed;
+
+	public HousekeepingScheduler() {
+		this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "housekeeping");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	/**
+	 * Registers a task that first runs one interval from now and then an interval
+	 * after each run finishes.
+	 */
+	public synchronized void schedule(String name, long intervalMillis, Task task) {
+		if (closed) {
+			throw new IllegalStateException("Housekeeping scheduler is closed");
+		}
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+		}
+		if (tasks.containsKey(name)) {
+			throw new IllegalArgumentException("A housekeeping task is already named " + name);
+		}
+		Entry entry = new Entry(name, task, intervalMillis);
+		tasks.put(name, entry);
+		order.add(name);
+		start(entry);
+	}
+
+	/**
+	 * Changes how often a task runs; the next run is one new interval from now.
+	 */
+	public synchronized void setInterval(String name, long intervalMillis) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+		}
+		Entry entry = entry(name);
+		entry.scheduled.cancel(false);
+		synchronized (entry) {
+			entry.intervalMillis = intervalMillis;
+		}
+		if (!closed) {
+			start(entry);
+		}
+	}
+
+	/**
+	 * Runs a task now on the calling thread (waiting for a scheduled run of it to
+	 * finish first) and counts it like a scheduled run.
+	 *
+	 * @return the number of rows the task changed
+	 */
+	public int runNow(String name) throws SQLException {
+		return run(entry(name));
+	}
+
+	public List<TaskStats> getStats() {
+		List<String> names;
+		synchronized (this) {
+			names = new ArrayList<>(order);
+		}
+		List<TaskStats> stats = new ArrayList<>(names.size());
+		for (String name : names) {
+			stats.add(tasks.get(name).stats());
+		}
+		return stats;
+	}
+
+	public TaskStats getStats(String name) {
+		return entry(name).stats();
+	}
+
+	/**
+	 * Stops scheduling; a run in progress is given a moment to finish.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		worker.shutdown();   // cancels the periodic runs without interrupting a statement
+		try {
+			worker.awaitTermination(2, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void start(Entry entry) {
+		long interval;
+		synchronized (entry) {
+			interval = entry.intervalMillis;
+		}
+		entry.scheduled = worker.scheduleWithFixedDelay(() -> runQuietly(entry), interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	private Entry entry(String name) {
+		Entry entry = tasks.get(name);
+		if (entry == null) {
+			throw new IllegalArgumentException("No housekeeping task named " + name);
+		}
+		return entry;
+	}
+
+	private static int run(Entry entry) throws SQLException {
+		synchronized (entry.runLock) {
+			long start = System.nanoTime();
+			int rows = 0;
+			boolean failed = true;
+			try {
+				rows = entry.task.run();
+				failed = false;
+				return rows;
+			} finally {
+				entry.record(rows, failed, System.nanoTime() - start);
+			}
+		}
+	}
+
+	private void runQuietly(Entry entry) {
+		if (closed) {
+			return;
+		}
+		try {
+			run(entry);
+		} catch (SQLException | RuntimeException e) {
+			// Retried at the next interval
+			System.err.println("Housekeeping task " + entry.name + " failed: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,768 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import application.Answer;
+import application.Question;
+import application.User;
+import application.UserSummary;
+
+/**
+ * InMemoryRepository keeps users, invitation codes, questions and answers in concurrent
+ * maps, with the same behaviour as the H2 backend (DatabaseHelper) and no disk or SQL
+ * in the way: for tests and load runs that need many operations per second.
+ *
+ * Secondary indexes (questions by author, answers and voters by answer) replace the
+ * database indexes. Each question and its answers are guarded by one of a fixed set of
+ * striped locks, so changes to different questions proceed in parallel; each user row
+ * is guarded by itself. The database's constraints are kept: duplicate user names,
+ * questions or answers by unknown users, answers to missing questions and deleting a
+ * user who still has posts all fail with SQLException.
+ */
+public class InMemoryRepository implements QARepository {
+
+	private static final int LOCK_STRIPES = 64;
+	// Column widths of cse360users; longer values are refused like the database does
+	private static final int NAME_WIDTH = 20;
+	private static final int EMAIL_WIDTH = 255;
+	private static final int OTP_WIDTH = 16;
+
+	private static final class UserRow {
+		final String userName;
+		String email;
+		String middleInitial;
+		String password;
+		String role;
+		String otp;
+		boolean otpUsed;
+		long otpExpiresAt;      // 0 = never
+		int posts;              // questions and answers by this user
+		boolean deleted;
+
+		UserRow(String userName) {
+			this.userName = userName;
+		}
+
+		User toUser() {
+			User user = new User(userName, password, role);
+			user.setEmail(email);
+			user.setMiddleInitial(middleInitial);
+			return user;
+		}
+	}
+
+	private static final class InvitationRow {
+		final long expiresAt;   // 0 = never
+		boolean used;
+
+		InvitationRow(long expiresAt) {
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return expiresAt != 0 && expiresAt <= now;
+		}
+	}
+
+	private static final class QuestionRow {
+		final int id;
+		final String askedBy;
+		final LocalDateTime createdAt;
+		String title;
+		String content;
+		boolean resolved;
+		int resolvedAnswerId = -1;
+
+		QuestionRow(int id, Question question) {
+			this.id = id;
+			this.askedBy = question.getAskedBy();
+			this.createdAt = question.getCreatedAt();
+			this.title = question.getTitle();
+			this.content = question.getContent();
+		}
+	}
+
+	private static final class AnswerRow {
+		final int id;
+		final int questionId;
+		final String answeredBy;
+		final LocalDateTime createdAt;
+		String content;
+		boolean read;
+		int upvotes;
+
+		AnswerRow(int id, Answer answer) {
+			this.id = id;
+			this.questionId = answer.getQuestionId();
+			this.answeredBy = answer.getAnsweredBy();
+			this.createdAt = answer.getCreatedAt();
+			this.content = answer.getContent();
+		}
+
+		Answer toAnswer() {
+			return new Answer(id, questionId, content, answeredBy, createdAt, read, upvotes);
+		}
+	}
+
+	// Display order of answers, as in DatabaseHelper's answer queries
+	private static final Comparator<AnswerRow> ANSWER_ORDER = Comparator.<AnswerRow>comparingInt(a -> -a.upvotes)
+			.thenComparing(a -> a.createdAt)
+			.thenComparingInt(a -> a.id);
+	// Newest question first
+	private static final Comparator<Question> QUESTION_ORDER = Comparator.comparing(Question::getCreatedAt)
+			.thenComparingInt(Question::getId)
+			.reversed();
+
+	private final Map<String, UserRow> users = new ConcurrentHashMap<>();
+	private final Object accounts = new Object();   // serializes role changes and deletions (last-admin rule)
+	private final Map<String, InvitationRow> invitations = new ConcurrentHashMap<>();
+	private final Map<Integer, QuestionRow> questions = new ConcurrentHashMap<>();
+	private final Map<Integer, AnswerRow> answers = new ConcurrentHashMap<>();
+	private final Map<String, Set<Integer>> questionsByAuthor = new ConcurrentHashMap<>();
+	private final Map<Integer, Set<Integer>> answersByQuestion = new ConcurrentHashMap<>();
+	private final Map<Integer, Set<String>> votersByAnswer = new ConcurrentHashMap<>();
+	private final AtomicInteger nextQuestionId = new AtomicInteger(1);
+	private final AtomicInteger nextAnswerId = new AtomicInteger(1);
+	private final Object[] stripes = new Object[LOCK_STRIPES];
+	private volatile InvitationCodeGenerator invitationCodes = new InvitationCodeGenerator();
+
+	public InMemoryRepository() {
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Object();
+		}
+	}
+
+	// The lock guarding a question and its answers
+	private Object lockFor(int questionId) {
+		return stripes[Math.floorMod(questionId, LOCK_STRIPES)];
+	}
+
+	// ============ Users ============
+
+	@Override
+	public void register(User user) throws SQLException {
+		if (user.getUserName() == null) {
+			throw new SQLException("A user name is required");
+		}
+		UserRow row = new UserRow(checkWidth("userName", user.getUserName(), NAME_WIDTH));
+		row.email = checkWidth("email", blankToNull(user.getEmail()), EMAIL_WIDTH);
+		String initial = blankToNull(user.getMiddleInitial());
+		row.middleInitial = checkWidth("middleInitial", initial == null ? null : initial.toUpperCase(), 1);
+		row.password = checkWidth("password", user.getPassword(), NAME_WIDTH);
+		row.role = checkWidth("role", user.getRole(), NAME_WIDTH);
+		if (users.putIfAbsent(row.userName, row) != null) {
+			throw new SQLException("User name already exists: " + row.userName);
+		}
+	}
+
+	@Override
+	public boolean login(User user) throws SQLException {
+		UserRow row = user.getUserName() == null ? null : users.get(user.getUserName());
+		if (row == null) {
+			return false;
+		}
+		synchronized (row) {
+			if (row.deleted || !sqlEquals(row.password, user.getPassword()) || !sqlEquals(row.role, user.getRole())) {
+				return false;
+			}
+			user.setEmail(row.email);
+			user.setMiddleInitial(row.middleInitial);
+			return true;
+		}
+	}
+
+	@Override
+	public boolean doesUserExist(String userName) {
+		return userName != null && users.containsKey(userName);
+	}
+
+	@Override
+	public String getUserRole(String userName) {
+		UserRow row = userName == null ? null : users.get(userName);
+		if (row == null) {
+			return null;
+		}
+		synchronized (row) {
+			return row.role;
+		}
+	}
+
+	@Override
+	public Optional<User> getUserByUsername(String userName) throws SQLException {
+		UserRow row = userName == null ? null : users.get(userName);
+		if (row == null) {
+			return Optional.empty();
+		}
+		synchronized (row) {
+			return Optional.of(row.toUser());
+		}
+	}
+
+	@Override
+	public List<User> getAllUsers() throws SQLException {
+		List<User> result = new ArrayList<>(users.size());
+		for (UserRow row : users.values()) {
+			synchronized (row) {
+				result.add(row.toUser());
+			}
+		}
+		result.sort(Comparator.comparing(User::getRole, Comparator.nullsFirst(Comparator.naturalOrder()))
+				.thenComparing(User::getUserName));
+		return result;
+	}
+
+	@Override
+	public List<UserSummary> getUserSummaries() throws SQLException {
+		List<UserSummary> result = new ArrayList<>();
+		for (User user : getAllUsers()) {
+			result.add(new UserSummary(user.getUserName(), user.getEmail(), user.getMiddleInitial(), user.getRole()));
+		}
+		return result;
+	}
+
+	@Override
+	public int getUserCount() throws SQLException {
+		return users.size();
+	}
+
+	@Override
+	public boolean doesAdminExist() throws SQLException {
+		return countAdmins() > 0;
+	}
+
+	@Override
+	public boolean updateUserEmail(String userName, String newEmail) throws SQLException {
+		String email = checkWidth("email", blankToNull(newEmail), EMAIL_WIDTH);
+		return updateUser(userName, row -> row.email = email);
+	}
+
+	@Override
+	public boolean updateUserMiddleInitial(String userName, String newMiddleInitial) throws SQLException {
+		String initial = blankToNull(newMiddleInitial);
+		String stored = initial == null ? null : initial.trim().toUpperCase().substring(0, 1);
+		return updateUser(userName, row -> row.middleInitial = stored);
+	}
+
+	@Override
+	public boolean updateUserPassword(String userName, String newPassword) throws SQLException {
+		String password = checkWidth("password", newPassword, NAME_WIDTH);
+		return updateUser(userName, row -> row.password = password);
+	}
+
+	@Override
+	public boolean updateUserRole(String userName, String newRole) throws SQLException {
+		String role = checkWidth("role", newRole, NAME_WIDTH);
+		synchronized (accounts) {
+			if (isLastAdmin(userName) && !"admin".equals(role)) {
+				System.err.println("Cannot remove admin role from the last admin!");
+				return false;
+			}
+			return updateUser(userName, row -> row.role = role);
+		}
+	}
+
+	@Override
+	public boolean deleteUser(String userName) throws SQLException {
+		synchronized (accounts) {
+			if (isLastAdmin(userName)) {
+				System.err.println("Cannot delete the last admin user!");
+				return false;
+			}
+			UserRow row = users.get(userName);
+			if (row == null) {
+				return false;
+			}
+			synchronized (row) {
+				if (row.posts > 0) {
+					throw new SQLException("User " + userName + " still has questions or answers");
+				}
+				row.deleted = true;   // refuses posts that race with the removal
+				users.remove(userName);
+			}
+			return true;
+		}
+	}
+
+	@Override
+	public boolean setOtp(String userName, String otp) throws SQLException {
+		return setOtp(userName, otp, 0L);
+	}
+
+	@Override
+	public boolean setOtp(String userName, String otp, int ttlMinutes) throws SQLException {
+		return setOtp(userName, otp, System.currentTimeMillis() + ttlMinutes * 60L * 1000L);
+	}
+
+	private boolean setOtp(String userName, String otp, long expiresAt) throws SQLException {
+		String value = checkWidth("otp", otp, OTP_WIDTH);
+		return updateUser(userName, row -> {
+			row.otp = value;
+			row.otpUsed = false;
+			row.otpExpiresAt = expiresAt;
+		});
+	}
+
+	@Override
+	public boolean isOtpValid(String userName, String otp) throws SQLException {
+		UserRow row = userName == null ? null : users.get(userName);
+		if (row == null || otp == null) {
+			return false;
+		}
+		synchronized (row) {
+			return otp.equals(row.otp) && !row.otpUsed
+					&& (row.otpExpiresAt == 0 || row.otpExpiresAt > System.currentTimeMillis());
+		}
+	}
+
+	@Override
+	public boolean consumeOtp(String userName) throws SQLException {
+		return updateUser(userName, InMemoryRepository::clearOtp);
+	}
+
+	@Override
+	public int purgeExpiredOtps() throws SQLException {
+		long now = System.currentTimeMillis();
+		int purged = 0;
+		for (UserRow row : users.values()) {
+			synchronized (row) {
+				if (row.otpExpiresAt != 0 && row.otpExpiresAt <= now) {
+					clearOtp(row);
+					purged++;
+				}
+			}
+		}
+		return purged;
+	}
+
+	private static void clearOtp(UserRow row) {
+		row.otp = null;
+		row.otpUsed = true;
+		row.otpExpiresAt = 0;
+	}
+
+	// A change to one user row
+	@FunctionalInterface
+	private interface RowUpdate {
+		void apply(UserRow row);
+	}
+
+	private boolean updateUser(String userName, RowUpdate update) {
+		UserRow row = userName == null ? null : users.get(userName);
+		if (row == null) {
+			return false;
+		}
+		synchronized (row) {
+			if (row.deleted) {
+				return false;
+			}
+			update.apply(row);
+			return true;
+		}
+	}
+
+	// Same rule as DatabaseHelper: true unless the user exists and is not an admin, and
+	// there is at most one admin
+	private boolean isLastAdmin(String userName) {
+		String role = getUserRole(userName);
+		if (role != null && !"admin".equals(role)) {
+			return false;
+		}
+		return countAdmins() <= 1;
+	}
+
+	private int countAdmins() {
+		int admins = 0;
+		for (UserRow row : users.values()) {
+			synchronized (row) {
+				if ("admin".equals(row.role)) {
+					admins++;
+				}
+			}
+		}
+		return admins;
+	}
+
+	// Counts a new post against its author, failing like the database's foreign key
+	private void addPost(String userName) throws SQLException {
+		UserRow row = userName == null ? null : users.get(userName);
+		if (row != null) {
+			synchronized (row) {
+				if (!row.deleted) {
+					row.posts++;
+					return;
+				}
+			}
+		}
+		throw new SQLException("No user named " + userName);
+	}
+
+	private void removePost(String userName) {
+		UserRow row = users.get(userName);
+		if (row != null) {
+			synchronized (row) {
+				row.posts--;
+			}
+		}
+	}
+
+	// ============ Invitation codes ============
+
+	@Override
+	public String generateInvitationCode() {
+		return generateInvitationCode(0);
+	}
+
+	@Override
+	public String generateInvitationCode(int ttlMinutes) {
+		try {
+			return generateInvitationCodes(1, ttlMinutes).get(0);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	@Override
+	public List<String> generateInvitationCodes(int count, int ttlMinutes) throws SQLException {
+		if (count < 1 || count > DatabaseHelper.MAX_INVITATION_CODES_PER_CALL) {
+			throw new IllegalArgumentException("Can generate 1 to " + DatabaseHelper.MAX_INVITATION_CODES_PER_CALL
+					+ " codes at once: " + count);
+		}
+		InvitationCodeGenerator generator = invitationCodes;
+		long expiresAt = ttlMinutes > 0 ? System.currentTimeMillis() + ttlMinutes * 60L * 1000L : 0;
+		List<String> codes = new ArrayList<>(count);
+		for (int attempt = 0; codes.size() < count; attempt++) {
+			if (attempt == DatabaseHelper.INVITATION_CODE_ATTEMPTS) {
+				for (String code : codes) {
+					invitations.remove(code);   // all or nothing, like the database transaction
+				}
+				throw new SQLException("Could not find " + count + " unused invitation codes; "
+						+ "the invitation code space is nearly exhausted");
+			}
+			for (int i = codes.size(); i < count; i++) {
+				String code = generator.next();
+				if (invitations.putIfAbsent(code, new InvitationRow(expiresAt)) == null) {
+					codes.add(code);
+				}
+			}
+		}
+		return codes;
+	}
+
+	// Replaces the generator behind generateInvitationCodes, e.g. with another alphabet or length.
+	public void setInvitationCodeGenerator(InvitationCodeGenerator generator) {
+		invitationCodes = Objects.requireNonNull(generator);
+	}
+
+	@Override
+	public boolean validateInvitationCode(String code) {
+		InvitationRow row = code == null ? null : invitations.get(code);
+		if (row == null) {
+			return false;
+		}
+		synchronized (row) {
+			if (row.used || row.isExpired(System.currentTimeMillis())) {
+				return false;
+			}
+			row.used = true;
+			return true;
+		}
+	}
+
+	@Override
+	public int purgeExpiredInvitationCodes() throws SQLException {
+		long now = System.currentTimeMillis();
+		int purged = 0;
+		for (Map.Entry<String, InvitationRow> entry : invitations.entrySet()) {
+			if (entry.getValue().isExpired(now) && invitations.remove(entry.getKey(), entry.getValue())) {
+				purged++;
+			}
+		}
+		return purged;
+	}
+
+	// ============ Questions ============
+
+	@Override
+	public int createQuestion(Question question) throws SQLException {
+		int id = nextQuestionId.getAndIncrement();
+		QuestionRow row = new QuestionRow(id, question);
+		synchronized (lockFor(id)) {
+			addPost(row.askedBy);
+			questions.put(id, row);
+			questionsByAuthor.computeIfAbsent(row.askedBy, k -> ConcurrentHashMap.newKeySet()).add(id);
+		}
+		question.setId(id);
+		return id;
+	}
+
+	@Override
+	public Question getQuestionById(int id) throws SQLException {
+		synchronized (lockFor(id)) {
+			QuestionRow row = questions.get(id);
+			return row == null ? null : toQuestion(row);
+		}
+	}
+
+	@Override
+	public List<Question> getAllQuestions(String userName) throws SQLException {
+		Collection<Integer> ids = userName == null
+				? questions.keySet()
+				: questionsByAuthor.getOrDefault(userName, Collections.emptySet());
+		return snapshot(ids, false);
+	}
+
+	@Override
+	public List<Question> getUnresolvedQuestions() throws SQLException {
+		return snapshot(questions.keySet(), true);
+	}
+
+	// Copies of the questions that still exist, newest first
+	private List<Question> snapshot(Collection<Integer> ids, boolean unresolvedOnly) {
+		List<Question> result = new ArrayList<>(ids.size());
+		for (int id : ids) {
+			synchronized (lockFor(id)) {
+				QuestionRow row = questions.get(id);
+				if (row != null && !(unresolvedOnly && row.resolved)) {
+					result.add(toQuestion(row));
+				}
+			}
+		}
+		result.sort(QUESTION_ORDER);
+		return result;
+	}
+
+	@Override
+	public boolean updateQuestion(Question question) throws SQLException {
+		return updateOwnQuestion(question.getId(), question.getAskedBy(), row -> {
+			row.title = question.getTitle();
+			row.content = question.getContent();
+		});
+	}
+
+	@Override
+	public boolean deleteQuestion(int questionId, String userName) throws SQLException {
+		synchronized (lockFor(questionId)) {
+			QuestionRow row = questions.get(questionId);
+			if (row == null || !row.askedBy.equals(userName)) {
+				return false;
+			}
+			Set<Integer> answerIds = answersByQuestion.remove(questionId);
+			if (answerIds != null) {
+				for (int answerId : answerIds) {
+					AnswerRow answer = answers.remove(answerId);
+					votersByAnswer.remove(answerId);
+					removePost(answer.answeredBy);
+				}
+			}
+			questions.remove(questionId);
+			Set<Integer> byAuthor = questionsByAuthor.get(row.askedBy);
+			if (byAuthor != null) {
+				byAuthor.remove(questionId);
+			}
+			removePost(row.askedBy);
+			return true;
+		}
+	}
+
+	@Override
+	public boolean markQuestionResolved(int questionId, int answerId, String userName) throws SQLException {
+		return updateOwnQuestion(questionId, userName, row -> {
+			row.resolved = true;
+			row.resolvedAnswerId = answerId;
+		});
+	}
+
+	@Override
+	public boolean closeQuestion(int questionId, String userName) throws SQLException {
+		return updateOwnQuestion(questionId, userName, row -> row.resolved = true);
+	}
+
+	// A change to one question, made by its asker
+	@FunctionalInterface
+	private interface QuestionUpdate {
+		void apply(QuestionRow row);
+	}
+
+	private boolean updateOwnQuestion(int questionId, String userName, QuestionUpdate update) {
+		synchronized (lockFor(questionId)) {
+			QuestionRow row = questions.get(questionId);
+			if (row == null || !row.askedBy.equals(userName)) {
+				return false;
+			}
+			update.apply(row);
+			return true;
+		}
+	}
+
+	// Caller holds the question's lock
+	private Question toQuestion(QuestionRow row) {
+		Question question = new Question(row.id, row.title, row.content, row.askedBy, row.createdAt,
+				row.resolved, row.resolvedAnswerId);
+		question.setAnswers(answersOf(row.id));
+		return question;
+	}
+
+	// ============ Answers ============
+
+	@Override
+	public int createAnswer(Answer answer) throws SQLException {
+		int questionId = answer.getQuestionId();
+		synchronized (lockFor(questionId)) {
+			if (!questions.containsKey(questionId)) {
+				throw new SQLException("No question with id " + questionId);
+			}
+			addPost(answer.getAnsweredBy());
+			int id = nextAnswerId.getAndIncrement();
+			answers.put(id, new AnswerRow(id, answer));
+			answersByQuestion.computeIfAbsent(questionId, k -> ConcurrentHashMap.newKeySet()).add(id);
+			answer.setId(id);
+			return id;
+		}
+	}
+
+	@Override
+	public List<Answer> getAnswersForQuestion(int questionId) throws SQLException {
+		synchronized (lockFor(questionId)) {
+			return answersOf(questionId);
+		}
+	}
+
+	// Caller holds the question's lock
+	private List<Answer> answersOf(int questionId) {
+		Set<Integer> ids = answersByQuestion.get(questionId);
+		if (ids == null) {
+			return new ArrayList<>();
+		}
+		List<AnswerRow> rows = new ArrayList<>(ids.size());
+		for (int id : ids) {
+			rows.add(answers.get(id));
+		}
+		rows.sort(ANSWER_ORDER);
+		List<Answer> result = new ArrayList<>(rows.size());
+		for (AnswerRow row : rows) {
+			result.add(row.toAnswer());
+		}
+		return result;
+	}
+
+	@Override
+	public boolean updateAnswer(Answer answer) throws SQLException {
+		return updateAnswerRow(answer.getId(), row -> {
+			if (!row.answeredBy.equals(answer.getAnsweredBy())) {
+				return false;
+			}
+			row.content = answer.getContent();
+			return true;
+		});
+	}
+
+	@Override
+	public boolean deleteAnswer(int answerId, String userName) throws SQLException {
+		AnswerRow found = answers.get(answerId);
+		if (found == null) {
+			return false;
+		}
+		synchronized (lockFor(found.questionId)) {
+			AnswerRow row = answers.get(answerId);
+			if (row == null || !row.answeredBy.equals(userName)) {
+				return false;
+			}
+			answers.remove(answerId);
+			votersByAnswer.remove(answerId);
+			Set<Integer> ids = answersByQuestion.get(row.questionId);
+			if (ids != null) {
+				ids.remove(answerId);
+			}
+			removePost(row.answeredBy);
+			return true;
+		}
+	}
+
+	@Override
+	public boolean markAnswerAsRead(int answerId) throws SQLException {
+		return updateAnswerRow(answerId, row -> {
+			row.read = true;
+			return true;
+		});
+	}
+
+	@Override
+	public int markAnswersAsRead(int questionId, Collection<Integer> answerIds) throws SQLException {
+		int changed = 0;
+		synchronized (lockFor(questionId)) {
+			for (int answerId : answerIds) {
+				AnswerRow row = answers.get(answerId);
+				if (row != null && row.questionId == questionId && !row.read) {
+					row.read = true;
+					changed++;
+				}
+			}
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean voteForAnswer(int answerId, String userName) throws SQLException {
+		return updateAnswerRow(answerId, row -> {
+			if (!votersByAnswer.computeIfAbsent(answerId, k -> ConcurrentHashMap.newKeySet()).add(userName)) {
+				return false;
+			}
+			row.upvotes++;
+			return true;
+		});
+	}
+
+	@Override
+	public boolean hasVoted(int answerId, String userName) throws SQLException {
+		Set<String> voters = votersByAnswer.get(answerId);
+		return voters != null && voters.contains(userName);
+	}
+
+	// A change to one answer; returns whether it was made
+	@FunctionalInterface
+	private interface AnswerUpdate {
+		boolean apply(AnswerRow row);
+	}
+
+	private boolean updateAnswerRow(int answerId, AnswerUpdate update) {
+		AnswerRow found = answers.get(answerId);
+		if (found == null) {
+			return false;
+		}
+		synchronized (lockFor(found.questionId)) {
+			AnswerRow row = answers.get(answerId);   // may have been deleted meanwhile
+			return row != null && update.apply(row);
+		}
+	}
+
+	// ============ Helpers ============
+
+	// SQL equality: NULL matches nothing
+	private static boolean sqlEquals(String stored, String value) {
+		return stored != null && stored.equals(value);
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.trim().isEmpty() ? null : value;
+	}
+
+	private static String checkWidth(String column, String value, int width) throws SQLException {
+		if (value != null && value.length() > width) {
+			throw new SQLException("Value too long for column " + column + " (" + width + "): " + value);
+		}
+		return value;
+	}
+}
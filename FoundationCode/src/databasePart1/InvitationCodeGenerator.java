@@ -0,0 +1,65 @@
+package databasePart1;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * InvitationCodeGenerator makes random invitation codes from a SecureRandom, so codes
+ * cannot be predicted from ones already handed out.
+ *
+ * The default alphabet leaves out letters and digits that are easily confused when a
+ * code is read aloud or copied by hand (0/O, 1/I/L). Eight characters from its 31 give
+ * 31^8 (about 8.5 * 10^11) codes, so even a database holding many rosters' worth of codes
+ * rarely sees a collision; DatabaseHelper.generateInvitationCodes still detects them.
+ */
+public class InvitationCodeGenerator {
+
+	public static final String DEFAULT_ALPHABET = "ABCDEFGHJKMNPQRSTUVWXYZ23456789";
+	public static final int DEFAULT_LENGTH = 8;
+	// Width of InvitationCodes.code
+	public static final int MAX_LENGTH = 10;
+
+	private final char[] alphabet;
+	private final int length;
+	private final Random random;
+
+	public InvitationCodeGenerator() {
+		this(DEFAULT_ALPHABET, DEFAULT_LENGTH);
+	}
+
+	public InvitationCodeGenerator(String alphabet, int length) {
+		this(alphabet, length, new SecureRandom());
+	}
+
+	// Tests pass a seeded Random for repeatable codes.
+	public InvitationCodeGenerator(String alphabet, int length, Random random) {
+		if (length < 1 || length > MAX_LENGTH) {
+			throw new IllegalArgumentException("Code length must be between 1 and " + MAX_LENGTH + ": " + length);
+		}
+		if (alphabet.length() < 2 || alphabet.chars().distinct().count() != alphabet.length()) {
+			throw new IllegalArgumentException("The alphabet needs at least two distinct characters: " + alphabet);
+		}
+		this.alphabet = alphabet.toCharArray();
+		this.length = length;
+		this.random = random;
+	}
+
+	public String next() {
+		char[] code = new char[length];
+		for (int i = 0; i < length; i++) {
+			code[i] = alphabet[random.nextInt(alphabet.length)];
+		}
+		return new String(code);
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Number of distinct codes this generator can make.
+	 */
+	public double getCodeSpace() {
+		return Math.pow(alphabet.length, length);
+	}
+}
@@ -0,0 +1,30 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage of the invitation codes admins hand out for account setup. Implemented by
+ * DatabaseHelper (H2) and InMemoryRepository.
+ */
+public interface InvitationRepository {
+
+	// A new code that never expires, or null if it could not be stored
+	String generateInvitationCode();
+
+	// A new code valid for ttlMinutes (no expiry if 0 or less), or null if it could not be stored
+	String generateInvitationCode(int ttlMinutes);
+
+	/**
+	 * Stores count new distinct codes at once, or none if that is not possible.
+	 *
+	 * @throws IllegalArgumentException if count is outside 1..DatabaseHelper.MAX_INVITATION_CODES_PER_CALL
+	 */
+	List<String> generateInvitationCodes(int count, int ttlMinutes) throws SQLException;
+
+	// Redeems the code: true, once, if it exists and has not expired
+	boolean validateInvitationCode(String code);
+
+	// Removes expired codes; returns how many were removed
+	int purgeExpiredInvitationCodes() throws SQLException;
+}
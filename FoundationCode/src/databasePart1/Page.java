@@ -0,0 +1,25 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page holds one page of a keyset-paginated query together with the opaque cursor
+ * that fetches the next page. The cursor is null when there are no more rows.
+ */
+public final class Page<T> {
+
+	private final List<T> items;
+	private final String nextCursor;
+
+	public Page(List<T> items, String nextCursor) {
+		this.items = Collections.unmodifiableList(new ArrayList<>(items));
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getItems() { return items; }
+	public String getNextCursor() { return nextCursor; }
+	public boolean hasMore() { return nextCursor != null; }
+	public boolean isEmpty() { return items.isEmpty(); }
+}
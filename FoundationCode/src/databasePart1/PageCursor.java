@@ -0,0 +1,63 @@
+package databasePart1;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * PageCursor is the position of the last row of a page in the (sort key, id) order of
+ * a QuestionSort. Callers only ever see it as an opaque url-safe string, which is only
+ * valid for the sort it was made for.
+ */
+final class PageCursor {
+
+	final QuestionSort sort;
+	final Object key;
+	final int id;
+
+	PageCursor(QuestionSort sort, Object key, int id) {
+		this.sort = sort;
+		this.key = key;
+		this.id = id;
+	}
+
+	String encode() {
+		String raw = sort.name() + "|" + key + "|" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static PageCursor decode(String cursor, QuestionSort sort) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = raw.split("\\|");
+			if (parts.length != 3 || !parts[0].equals(sort.name())) {
+				throw new IllegalArgumentException("Page cursor is not for " + sort.name() + " order: " + cursor);
+			}
+			return new PageCursor(sort, sort.parseKey(parts[1]), Integer.parseInt(parts[2]));
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+		}
+	}
+
+	// Position in a ranking that is not a keyset order (the trending ranking)
+	static String encodeRank(int rank) {
+		String raw = "RANK|" + rank;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static int decodeRank(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!raw.startsWith("RANK|")) {
+				throw new IllegalArgumentException("Page cursor is not for the trending ranking: " + cursor);
+			}
+			int rank = Integer.parseInt(raw.substring("RANK|".length()));
+			if (rank < 0) {
+				throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+			}
+			return rank;
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+		}
+	}
+}
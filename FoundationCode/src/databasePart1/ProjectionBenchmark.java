@@ -0,0 +1,188 @@
+package databasePart1;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import application.User;
+
+/*******
+ * <p> Title: ProjectionBenchmark Class. </p>
+ *
+ * <p> Description: Compares listing questions as full Question objects (every question
+ * column plus the answers) against the card projection (the summary columns only), both
+ * as whole lists (getAllQuestions, getAllQuestionSummaries) and on the feed path the
+ * question lists use: the first page, and every page of DEFAULT_PAGE_SIZE read through
+ * the cursors (getQuestionPage, getQuestionSummaryPage). For each it reports the median
+ * time, the bytes allocated per listed question, the heap the returned list keeps alive
+ * per question, and an estimate of the row bytes read per question (string characters
+ * plus fixed-width values of the columns selected). Runs against a private in-memory H2
+ * database so the real FoundationDatabase is untouched. </p>
+ *
+ */
+public class ProjectionBenchmark {
+
+	private static final String BENCH_URL = "jdbc:h2:mem:projectionBench;DB_CLOSE_DELAY=-1";
+	private static final int QUESTIONS = 10_000;
+	private static final int ANSWERS_PER_QUESTION = 3;
+	private static final int RUNS = 7;
+	private static final int RETAINED_ROWS = 10 * QUESTIONS;
+
+	// Estimated bytes of the rows each view reads: characters plus 8 (timestamp), 4 (int), 1 (boolean)
+	private static final String FULL_ROW_BYTES = "SELECT "
+			+ "(SELECT SUM(LENGTH(title) + LENGTH(content) + LENGTH(askedBy) + 8 + 1 + 4) FROM questions) + "
+			+ "(SELECT SUM(4 + 4 + LENGTH(content) + LENGTH(answeredBy) + 8 + 1 + 4) FROM answers)";
+	private static final String CARD_ROW_BYTES =
+			"SELECT SUM(4 + LENGTH(title) + LENGTH(askedBy) + 8 + 1 + 4 + 4 + 4 + 8 + 8) FROM questions";
+
+	@FunctionalInterface
+	private interface Listing {
+		List<?> list() throws SQLException;
+	}
+
+	@FunctionalInterface
+	private interface PageSource {
+		Page<?> page(String cursor) throws SQLException;
+	}
+
+	public static void main(String[] args) throws SQLException {
+		DatabaseHelper db = new DatabaseHelper();
+		db.connectToDatabase(BENCH_URL);
+		db.setReadCacheEnabled(false);   // measure the queries, not the read cache
+		db.register(new User("benchUser", "Bench1!", "user"));
+
+		System.out.println("______________________________________");
+		System.out.println("\nProjection benchmark, " + QUESTIONS + " questions with " + ANSWERS_PER_QUESTION
+				+ " answers each (median of " + RUNS + " runs)");
+		System.out.printf("%n%-32s %10s %16s %16s %16s%n",
+				"view", "time (ms)", "alloc/question", "heap/question", "row bytes/question");
+
+		try (Connection seed = DriverManager.getConnection(BENCH_URL, DatabaseHelper.USER, DatabaseHelper.PASS)) {
+			seedQuestions(seed);
+			long fullRowBytes = scalar(seed, FULL_ROW_BYTES);
+			long cardRowBytes = scalar(seed, CARD_ROW_BYTES);
+			measure("getAllQuestions (full)", () -> db.getAllQuestions(null), fullRowBytes);
+			measure("getAllQuestionSummaries", () -> db.getAllQuestionSummaries(null), cardRowBytes);
+
+			// The feed path: what opening the list reads, then what scrolling to its end reads
+			int pageSize = DatabaseHelper.DEFAULT_PAGE_SIZE;
+			QuestionFilter all = QuestionFilter.all();
+			measure("getQuestionPage, first page", () -> db.getQuestionPage(all, null, pageSize).getItems(),
+					fullRowBytes * pageSize / QUESTIONS);
+			measure("getQuestionSummaryPage, first", () -> db.getQuestionSummaryPage(all, null, pageSize).getItems(),
+					cardRowBytes * pageSize / QUESTIONS);
+			measure("getQuestionPage, all pages", () -> allPages(cursor -> db.getQuestionPage(all, cursor, pageSize)),
+					fullRowBytes);
+			measure("getQuestionSummaryPage, all", () -> allPages(cursor -> db.getQuestionSummaryPage(all, cursor, pageSize)),
+					cardRowBytes);
+		}
+
+		System.out.println("____________________________________________________________________________");
+		db.closeConnection();
+	}
+
+	private static void measure(String name, Listing listing, long rowBytes) throws SQLException {
+		for (int i = 0; i < 3; i++) {
+			listing.list();   // warm up
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		long[] nanos = new long[RUNS];
+		long[] allocated = new long[RUNS];
+		for (int run = 0; run < RUNS; run++) {
+			long bytesBefore = threads.getThreadAllocatedBytes(thread);
+			long start = System.nanoTime();
+			listing.list();
+			nanos[run] = System.nanoTime() - start;
+			allocated[run] = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+		}
+
+		// Keep enough lists alive at once (RETAINED_ROWS rows) that the heap they retain
+		// stands out from the database's own heap churn, even for a single page
+		List<List<?>> kept = new ArrayList<>();
+		long keptRows = 0;
+		long heapBefore = usedHeap();
+		while (keptRows < RETAINED_ROWS) {
+			kept.add(listing.list());
+			keptRows += kept.get(kept.size() - 1).size();
+		}
+		long retained = Math.max(0, usedHeap() - heapBefore);
+		int listed = kept.get(0).size();
+		System.out.printf("%-32s %10.2f %16d %16d %16d%n", name, median(nanos) / 1e6,
+				median(allocated) / listed, retained / keptRows, rowBytes / listed);
+	}
+
+	// Follows the cursors from the first page to the last, as scrolling the feed does
+	private static List<?> allPages(PageSource pages) throws SQLException {
+		List<Object> items = new ArrayList<>();
+		String cursor = null;
+		do {
+			Page<?> page = pages.page(cursor);
+			items.addAll(page.getItems());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return items;
+	}
+
+	// Replaces the Q&A tables' contents with questions and answers of typical length.
+	private static void seedQuestions(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("DELETE FROM answers");
+			stmt.execute("DELETE FROM questions");
+		}
+		String body = "How should the project handle this case when the input is empty or contains "
+				+ "characters outside the expected range? I tried validating it first but the error "
+				+ "message still shows up after submitting the form, and the documentation does not "
+				+ "say which of the two checks runs first. ";
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		String questionSql = "INSERT INTO questions (title, content, askedBy, createdAt) VALUES (?, ?, ?, ?)";
+		try (PreparedStatement ps = conn.prepareStatement(questionSql)) {
+			for (int i = 0; i < QUESTIONS; i++) {
+				ps.setString(1, "Benchmark question about validation order " + i);
+				ps.setString(2, body + i);
+				ps.setString(3, "benchUser");
+				ps.setTimestamp(4, now);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+		String answerSql = "INSERT INTO answers (questionId, content, answeredBy, createdAt) "
+				+ "SELECT q.id, 'The second check runs first, so validate in the listener instead of on submit; "
+				+ "answer ' || r.X, 'benchUser', CURRENT_TIMESTAMP "
+				+ "FROM questions q CROSS JOIN SYSTEM_RANGE(1, " + ANSWERS_PER_QUESTION + ") r";
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(answerSql);
+			stmt.execute("UPDATE questions SET answerCount = " + ANSWERS_PER_QUESTION + ", unreadAnswerCount = "
+					+ ANSWERS_PER_QUESTION);
+		}
+	}
+
+	private static long scalar(Connection conn, String sql) throws SQLException {
+		try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static long median(long[] samples) {
+		long[] sorted = samples.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
@@ -0,0 +1,44 @@
+package databasePart1;
+
+/**
+ * QAEvent describes one change to the Q&A tables, published by DatabaseHelper after
+ * the change has been written. Listeners use the ids to update just the affected
+ * question instead of reloading every list.
+ */
+public final class QAEvent {
+
+	public enum Type {
+		QUESTION_CREATED,
+		QUESTION_UPDATED,
+		QUESTION_RESOLVED,
+		QUESTION_DELETED,
+		ANSWER_CREATED,
+		ANSWER_UPDATED,
+		ANSWER_DELETED,
+		ANSWER_UPVOTED,
+		ANSWER_READ
+	}
+
+	private final Type type;
+	private final int questionId;
+	private final int answerId;    // -1 for question events and batched answer changes
+
+	public QAEvent(Type type, int questionId, int answerId) {
+		this.type = type;
+		this.questionId = questionId;
+		this.answerId = answerId;
+	}
+
+	public static QAEvent forQuestion(Type type, int questionId) {
+		return new QAEvent(type, questionId, -1);
+	}
+
+	public Type getType() { return type; }
+	public int getQuestionId() { return questionId; }
+	public int getAnswerId() { return answerId; }
+
+	@Override
+	public String toString() {
+		return "QAEvent[" + type + ", question=" + questionId + ", answer=" + answerId + "]";
+	}
+}
@@ -0,0 +1,43 @@
+package databasePart1;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * QAEventBus delivers QAEvents to subscribers synchronously, on the thread that made
+ * the change (the database worker when called through AsyncDatabaseHelper). UI
+ * listeners must hop to the FX thread themselves.
+ */
+public class QAEventBus {
+
+	/**
+	 * Handle returned by subscribe; close it to stop receiving events.
+	 */
+	public interface Subscription extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	private final List<Consumer<QAEvent>> listeners = new CopyOnWriteArrayList<>();
+
+	public Subscription subscribe(Consumer<QAEvent> listener) {
+		listeners.add(listener);
+		return () -> listeners.remove(listener);
+	}
+
+	// A failing listener is logged and skipped so it cannot undo or block the write
+	public void publish(QAEvent event) {
+		for (Consumer<QAEvent> listener : listeners) {
+			try {
+				listener.accept(event);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	public int getListenerCount() {
+		return listeners.size();
+	}
+}
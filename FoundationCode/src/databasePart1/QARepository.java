@@ -0,0 +1,8 @@
+package databasePart1;
+
+/**
+ * Everything the application stores, as one backend: DatabaseHelper for the H2
+ * database, or InMemoryRepository for tests and load runs that should not touch disk.
+ */
+public interface QARepository extends UserRepository, InvitationRepository, QuestionRepository, AnswerRepository {
+}
@@ -0,0 +1,176 @@
+package databasePart1;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import application.Question;
+import application.QuestionSummary;
+
+/**
+ * QuestionFilter describes which questions a paged question query should return.
+ * It is immutable; start from one of the static factories and narrow it with the
+ * with... methods, each of which returns a new filter, e.g.
+ * QuestionFilter.unresolved().withAnswers(AnswerState.UNANSWERED).
+ */
+public final class QuestionFilter {
+
+	/**
+	 * Whether a question has answers yet.
+	 */
+	public enum AnswerState {
+		ANY, ANSWERED, UNANSWERED
+	}
+
+	private final Boolean resolved;          // null = resolved and unresolved
+	private final String author;             // null = any author
+	private final LocalDateTime createdFrom;     // inclusive; null = no lower bound
+	private final LocalDateTime createdBefore;   // exclusive; null = no upper bound
+	private final AnswerState answers;
+
+	private QuestionFilter(Boolean resolved, String author, LocalDateTime createdFrom, LocalDateTime createdBefore,
+			AnswerState answers) {
+		this.resolved = resolved;
+		this.author = author;
+		this.createdFrom = createdFrom;
+		this.createdBefore = createdBefore;
+		this.answers = answers;
+	}
+
+	public static QuestionFilter all() {
+		return new QuestionFilter(null, null, null, null, AnswerState.ANY);
+	}
+
+	public static QuestionFilter unresolved() {
+		return all().withResolved(Boolean.FALSE);
+	}
+
+	public static QuestionFilter resolved() {
+		return all().withResolved(Boolean.TRUE);
+	}
+
+	public static QuestionFilter byAuthor(String author) {
+		if (author == null || author.isEmpty()) {
+			throw new IllegalArgumentException("Author cannot be empty");
+		}
+		return all().withAuthor(author);
+	}
+
+	// null for resolved and unresolved questions
+	public QuestionFilter withResolved(Boolean resolved) {
+		return new QuestionFilter(resolved, author, createdFrom, createdBefore, answers);
+	}
+
+	// null or empty for any author
+	public QuestionFilter withAuthor(String author) {
+		String value = author == null || author.isEmpty() ? null : author;
+		return new QuestionFilter(resolved, value, createdFrom, createdBefore, answers);
+	}
+
+	/**
+	 * Questions asked at or after from and before before; either bound may be null.
+	 */
+	public QuestionFilter withCreatedBetween(LocalDateTime from, LocalDateTime before) {
+		if (from != null && before != null && !from.isBefore(before)) {
+			throw new IllegalArgumentException("The date range is empty: " + from + " to " + before);
+		}
+		return new QuestionFilter(resolved, author, from, before, answers);
+	}
+
+	public QuestionFilter withAnswers(AnswerState answers) {
+		if (answers == null) {
+			throw new IllegalArgumentException("Answer state cannot be null");
+		}
+		return new QuestionFilter(resolved, author, createdFrom, createdBefore, answers);
+	}
+
+	public Boolean getResolved() { return resolved; }
+	public String getAuthor() { return author; }
+	public LocalDateTime getCreatedFrom() { return createdFrom; }
+	public LocalDateTime getCreatedBefore() { return createdBefore; }
+	public AnswerState getAnswers() { return answers; }
+
+	// Same condition as whereClause(), for questions already loaded in memory (with their answers)
+	public boolean matches(Question question) {
+		return matches(question.isResolved(), question.getAskedBy(), question.getCreatedAt(),
+				question.getAnswers().size());
+	}
+
+	// Same condition for a card view, using its stored answer count
+	public boolean matches(QuestionSummary question) {
+		return matches(question.isResolved(), question.getAskedBy(), question.getCreatedAt(),
+				question.getAnswerCount());
+	}
+
+	private boolean matches(boolean isResolved, String askedBy, LocalDateTime createdAt, int answerCount) {
+		if (resolved != null && isResolved != resolved) {
+			return false;
+		}
+		if (author != null && !author.equals(askedBy)) {
+			return false;
+		}
+		if (createdFrom != null && createdAt.isBefore(createdFrom)) {
+			return false;
+		}
+		if (createdBefore != null && !createdAt.isBefore(createdBefore)) {
+			return false;
+		}
+		switch (answers) {
+			case ANSWERED:
+				return answerCount > 0;
+			case UNANSWERED:
+				return answerCount == 0;
+			default:
+				return true;
+		}
+	}
+
+	// SQL condition over the questions table; parameters come from whereParameters() in order
+	String whereClause() {
+		List<String> conditions = new ArrayList<>();
+		if (resolved != null) {
+			conditions.add("isResolved = ?");
+		}
+		if (author != null) {
+			conditions.add("askedBy = ?");
+		}
+		if (createdFrom != null) {
+			conditions.add("createdAt >= ?");
+		}
+		if (createdBefore != null) {
+			conditions.add("createdAt < ?");
+		}
+		// Uses the denormalized counter, so no answers are joined
+		if (answers == AnswerState.ANSWERED) {
+			conditions.add("answerCount > 0");
+		} else if (answers == AnswerState.UNANSWERED) {
+			conditions.add("answerCount = 0");
+		}
+		return conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions);
+	}
+
+	List<Object> whereParameters() {
+		List<Object> params = new ArrayList<>();
+		if (resolved != null) {
+			params.add(resolved);
+		}
+		if (author != null) {
+			params.add(author);
+		}
+		if (createdFrom != null) {
+			params.add(Timestamp.valueOf(createdFrom));
+		}
+		if (createdBefore != null) {
+			params.add(Timestamp.valueOf(createdBefore));
+		}
+		return Collections.unmodifiableList(params);
+	}
+
+	@Override
+	public String toString() {
+		return "QuestionFilter[resolved=" + resolved + ", author=" + author + ", createdFrom=" + createdFrom
+				+ ", createdBefore=" + createdBefore + ", answers=" + answers + "]";
+	}
+}
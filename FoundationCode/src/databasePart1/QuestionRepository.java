@@ -0,0 +1,42 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import application.Question;
+
+/**
+ * Storage of questions. Questions are returned as fresh copies with their answers
+ * attached, best answer first (most upvotes, then oldest). Implemented by
+ * DatabaseHelper (H2) and InMemoryRepository.
+ */
+public interface QuestionRepository {
+
+	/**
+	 * Stores a new question and sets its id.
+	 *
+	 * @return the new id
+	 * @throws SQLException if the asking user does not exist
+	 */
+	int createQuestion(Question question) throws SQLException;
+
+	// The question, or null if there is none with this id
+	Question getQuestionById(int id) throws SQLException;
+
+	// Every question, or only those asked by userName when it is not null; newest first
+	List<Question> getAllQuestions(String userName) throws SQLException;
+
+	// Questions not yet resolved or closed; newest first
+	List<Question> getUnresolvedQuestions() throws SQLException;
+
+	// Changes title and content; only the asker can
+	boolean updateQuestion(Question question) throws SQLException;
+
+	// Deletes the question and its answers; only the asker can
+	boolean deleteQuestion(int questionId, String userName) throws SQLException;
+
+	boolean markQuestionResolved(int questionId, int answerId, String userName) throws SQLException;
+
+	// Resolves the question without choosing an answer
+	boolean closeQuestion(int questionId, String userName) throws SQLException;
+}
@@ -0,0 +1,143 @@
+package databasePart1;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+import application.Answer;
+import application.Question;
+import application.QuestionSummary;
+
+/**
+ * QuestionSort is the order of a paged question query. Every order is keyset-paginated
+ * on (its column, id) in one direction and is backed by an index of the same shape,
+ * so each filter and sort combination is a single indexed query.
+ */
+public enum QuestionSort {
+
+	NEWEST("Newest", "createdAt", true, true),
+	OLDEST("Oldest", "createdAt", false, true),
+	MOST_UPVOTED("Most upvoted", "topUpvotes", true, false),
+	MOST_ANSWERED("Most answered", "answerCount", true, false),
+	// Latest of the question and its answers being posted
+	RECENTLY_ACTIVE("Recently active", "lastActivityAt", true, true),
+	MOST_VIEWED("Most viewed", "viewCount", true, false);
+
+	private final String label;
+	private final String column;
+	private final boolean descending;
+	private final boolean timestampKey;   // otherwise an integer column
+
+	QuestionSort(String label, String column, boolean descending, boolean timestampKey) {
+		this.label = label;
+		this.column = column;
+		this.descending = descending;
+		this.timestampKey = timestampKey;
+	}
+
+	public String getLabel() { return label; }
+
+	/**
+	 * The same order for questions already loaded in memory (with their answers), so
+	 * a changed question can be put in place without reloading the list.
+	 */
+	public Comparator<Question> comparator() {
+		Comparator<Question> order;
+		switch (this) {
+			case MOST_UPVOTED:
+				order = Comparator.comparingInt(QuestionSort::topUpvotes);
+				break;
+			case MOST_ANSWERED:
+				order = Comparator.comparingInt(q -> q.getAnswers().size());
+				break;
+			case RECENTLY_ACTIVE:
+				order = Comparator.comparing(QuestionSort::lastActivity);
+				break;
+			case MOST_VIEWED:
+				order = Comparator.comparingLong(Question::getViewCount);
+				break;
+			default:
+				order = Comparator.comparing(Question::getCreatedAt);
+				break;
+		}
+		order = order.thenComparingInt(Question::getId);
+		return descending ? order.reversed() : order;
+	}
+
+	// The same order for card views, from their stored counters
+	public Comparator<QuestionSummary> summaryComparator() {
+		Comparator<QuestionSummary> order;
+		switch (this) {
+			case MOST_UPVOTED:
+				order = Comparator.comparingInt(QuestionSummary::getTopUpvotes);
+				break;
+			case MOST_ANSWERED:
+				order = Comparator.comparingInt(QuestionSummary::getAnswerCount);
+				break;
+			case RECENTLY_ACTIVE:
+				order = Comparator.comparing(QuestionSummary::getLastActivityAt);
+				break;
+			case MOST_VIEWED:
+				order = Comparator.comparingLong(QuestionSummary::getViewCount);
+				break;
+			default:
+				order = Comparator.comparing(QuestionSummary::getCreatedAt);
+				break;
+		}
+		order = order.thenComparingInt(QuestionSummary::getId);
+		return descending ? order.reversed() : order;
+	}
+
+	@Override
+	public String toString() {
+		return label;
+	}
+
+	// ORDER BY clause; the sort key is selected as sortKey
+	String orderBy() {
+		String direction = descending ? " DESC" : " ASC";
+		return column + direction + ", id" + direction;
+	}
+
+	String keyColumn() {
+		return column;
+	}
+
+	// Rows that come after the cursor row; binds key, key, id
+	String afterCondition() {
+		String beyond = descending ? " < ?" : " > ?";
+		return "(" + column + beyond + " OR (" + column + " = ? AND id" + beyond + "))";
+	}
+
+	Object readKey(ResultSet rs) throws SQLException {
+		return timestampKey ? rs.getTimestamp("sortKey").toLocalDateTime() : (Object) rs.getLong("sortKey");
+	}
+
+	Object parseKey(String key) {
+		return timestampKey ? LocalDateTime.parse(key) : (Object) Long.parseLong(key);
+	}
+
+	Object bindKey(Object key) {
+		return timestampKey ? Timestamp.valueOf((LocalDateTime) key) : key;
+	}
+
+	private static int topUpvotes(Question question) {
+		int top = 0;
+		for (Answer answer : question.getAnswers()) {
+			top = Math.max(top, answer.getUpvotes());
+		}
+		return top;
+	}
+
+	private static LocalDateTime lastActivity(Question question) {
+		LocalDateTime last = question.getCreatedAt();
+		for (Answer answer : question.getAnswers()) {
+			if (answer.getCreatedAt().isAfter(last)) {
+				last = answer.getCreatedAt();
+			}
+		}
+		return last;
+	}
+}
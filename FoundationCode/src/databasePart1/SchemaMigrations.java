@@ -0,0 +1,153 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The schema of the application database as an ordered list of migrations. Databases
+ * created before the migration history existed are brought in line by the same list:
+ * every statement tolerates objects that are already there.
+ *
+ * Append new migrations with the next version number; never edit an applied one.
+ */
+public final class SchemaMigrations {
+
+	private SchemaMigrations() {
+	}
+
+	public static List<SchemaMigrator.Migration> all() {
+		return Arrays.asList(
+			SchemaMigrator.Migration.sql(1, "Create user, invitation code, question and answer tables",
+				"CREATE TABLE IF NOT EXISTS cse360users ("
+					+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+					+ "userName VARCHAR(20) UNIQUE, "
+					+ "email VARCHAR(255), "
+					+ "firstName VARCHAR(20), "
+					+ "middleInitial VARCHAR(1), "
+					+ "lastName VARCHAR(20), "
+					+ "password VARCHAR(20), "
+					+ "otp VARCHAR(16), "
+					+ "role VARCHAR(20))",
+				"CREATE TABLE IF NOT EXISTS questions ("
+					+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+					+ "title VARCHAR(100) NOT NULL, "
+					+ "content VARCHAR(500) NOT NULL, "
+					+ "askedBy VARCHAR(20) NOT NULL, "
+					+ "createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+					+ "isResolved BOOLEAN DEFAULT FALSE, "
+					+ "resolvedAnswerId INT DEFAULT -1, "
+					+ "FOREIGN KEY (askedBy) REFERENCES cse360users(userName))",
+				"CREATE TABLE IF NOT EXISTS answers ("
+					+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+					+ "questionId INT NOT NULL, "
+					+ "content VARCHAR(500) NOT NULL, "
+					+ "answeredBy VARCHAR(20) NOT NULL, "
+					+ "createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+					+ "isRead BOOLEAN DEFAULT FALSE, "
+					+ "upvotes INT DEFAULT 0, "
+					+ "FOREIGN KEY (questionId) REFERENCES questions(id) ON DELETE CASCADE, "
+					+ "FOREIGN KEY (answeredBy) REFERENCES cse360users(userName))",
+				"CREATE TABLE IF NOT EXISTS InvitationCodes ("
+					+ "code VARCHAR(10) PRIMARY KEY, "
+					+ "isUsed BOOLEAN DEFAULT FALSE, "
+					+ "expiresAt TIMESTAMP)"),
+
+			// Columns the old startup code added by probing metadata on every launch
+			SchemaMigrator.Migration.withStep(2, "Add contact, one-time password and invitation expiry columns",
+				SchemaMigrations::addOtpIsUsed,
+				"ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS email VARCHAR(255)",
+				"ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS middleInitial VARCHAR(1)",
+				"ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS otpExpiresAt TIMESTAMP",
+				"ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS expiresAt TIMESTAMP"),
+
+			SchemaMigrator.Migration.sql(3, "Index the question and answer lookups",
+				// Answers of a question in display order (also serves questionId lookups)
+				"CREATE INDEX IF NOT EXISTS idx_answers_question_order ON answers(questionId, upvotes DESC, createdAt)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_asked_by ON questions(askedBy, createdAt DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_resolved_created ON questions(isResolved, createdAt DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_created ON questions(createdAt DESC, id DESC)"),
+
+			// Kept up to date by DatabaseHelper in the same transaction as the answer change
+			SchemaMigrator.Migration.sql(4, "Add denormalized answer, unread and top-upvote counts to questions",
+				"ALTER TABLE questions ADD COLUMN IF NOT EXISTS answerCount INT DEFAULT 0 NOT NULL",
+				"ALTER TABLE questions ADD COLUMN IF NOT EXISTS unreadAnswerCount INT DEFAULT 0 NOT NULL",
+				"ALTER TABLE questions ADD COLUMN IF NOT EXISTS topUpvotes INT DEFAULT 0 NOT NULL",
+				"UPDATE questions q SET "
+					+ "answerCount = (SELECT COUNT(*) FROM answers a WHERE a.questionId = q.id), "
+					+ "unreadAnswerCount = (SELECT COUNT(*) FROM answers a WHERE a.questionId = q.id AND a.isRead = FALSE), "
+					+ "topUpvotes = COALESCE((SELECT MAX(a.upvotes) FROM answers a WHERE a.questionId = q.id), 0)"),
+
+			// One row per user and answer, so each user can upvote an answer once
+			SchemaMigrator.Migration.sql(5, "Record who voted for which answer",
+				"CREATE TABLE IF NOT EXISTS votes ("
+					+ "answerId INT NOT NULL, "
+					+ "userName VARCHAR(20) NOT NULL, "
+					+ "votedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+					+ "PRIMARY KEY (answerId, userName), "
+					+ "FOREIGN KEY (answerId) REFERENCES answers(id) ON DELETE CASCADE)"),
+
+			// For the housekeeping purges, which look rows up by expiry
+			SchemaMigrator.Migration.sql(6, "Index one-time password and invitation code expiry",
+				"CREATE INDEX IF NOT EXISTS idx_users_otp_expires ON cse360users(otpExpiresAt)",
+				"CREATE INDEX IF NOT EXISTS idx_invitation_codes_expires ON InvitationCodes(expiresAt)"),
+
+			// Each QuestionSort key in the (key, id) shape its keyset pages scan, alone for the
+			// unfiltered feed and after isResolved for the resolved and unresolved feeds.
+			// Oldest-first scans idx_questions_created backwards.
+			SchemaMigrator.Migration.sql(7, "Add question last activity and index the question sort orders",
+				"ALTER TABLE questions ADD COLUMN IF NOT EXISTS lastActivityAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL",
+				"UPDATE questions q SET lastActivityAt = GREATEST(q.createdAt, "
+					+ "COALESCE((SELECT MAX(a.createdAt) FROM answers a WHERE a.questionId = q.id), q.createdAt))",
+				"CREATE INDEX IF NOT EXISTS idx_questions_top_upvotes ON questions(topUpvotes DESC, id DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_answer_count ON questions(answerCount DESC, id DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_last_activity ON questions(lastActivityAt DESC, id DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_resolved_top_upvotes ON questions(isResolved, topUpvotes DESC, id DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_resolved_answer_count ON questions(isResolved, answerCount DESC, id DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_resolved_last_activity ON questions(isResolved, lastActivityAt DESC, id DESC)"),
+
+			// Saved TrendingTracker scores, each as of scoredAt. Seeded from existing questions,
+			// answers and votes with TrendingTracker's weights and 6 hour half-life.
+			SchemaMigrator.Migration.sql(8, "Store trending question scores",
+				"CREATE TABLE IF NOT EXISTS question_trending ("
+					+ "questionId INT PRIMARY KEY, "
+					+ "score DOUBLE PRECISION NOT NULL, "
+					+ "scoredAt TIMESTAMP NOT NULL, "
+					+ "FOREIGN KEY (questionId) REFERENCES questions(id) ON DELETE CASCADE)",
+				"INSERT INTO question_trending (questionId, score, scoredAt) "
+					+ "SELECT questionId, SUM(weight * POWER(2, -DATEDIFF('MILLISECOND', at, CURRENT_TIMESTAMP) / 21600000.0)), "
+					+ "CURRENT_TIMESTAMP FROM ("
+					+ "SELECT id AS questionId, 1.0 AS weight, createdAt AS at FROM questions "
+					+ "UNION ALL SELECT questionId, 3.0, createdAt FROM answers "
+					+ "UNION ALL SELECT a.questionId, 1.0, v.votedAt FROM votes v JOIN answers a ON a.id = v.answerId) activity "
+					+ "GROUP BY questionId "
+					+ "HAVING SUM(weight * POWER(2, -DATEDIFF('MILLISECOND', at, CURRENT_TIMESTAMP) / 21600000.0)) >= 0.046875"),
+			SchemaMigrator.Migration.sql(9, "Count question views",
+				"ALTER TABLE questions ADD COLUMN IF NOT EXISTS viewCount BIGINT DEFAULT 0 NOT NULL",
+				"CREATE INDEX IF NOT EXISTS idx_questions_view_count ON questions(viewCount DESC, id DESC)",
+				"CREATE INDEX IF NOT EXISTS idx_questions_resolved_view_count ON questions(isResolved, viewCount DESC, id DESC)")
+		);
+	}
+
+	// otpIsUsed replaced tempPassword_IsUsed; carry the old flags over only when the column is new
+	private static void addOtpIsUsed(Connection conn) throws SQLException {
+		if (hasColumn(conn, "CSE360USERS", "OTPISUSED")) {
+			return;
+		}
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("ALTER TABLE cse360users ADD COLUMN otpIsUsed BOOLEAN DEFAULT FALSE");
+			if (hasColumn(conn, "CSE360USERS", "TEMPPASSWORD_ISUSED")) {
+				stmt.execute("UPDATE cse360users SET otpIsUsed = tempPassword_IsUsed WHERE tempPassword_IsUsed IS NOT NULL");
+			}
+		}
+	}
+
+	private static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+		try (ResultSet rs = conn.getMetaData().getColumns(null, null, table, column)) {
+			return rs.next();
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package databasePart1;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * SchemaMigrator brings a database up to the current schema by applying numbered
+ * migrations in order, each exactly once.
+ *
+ * Applied migrations are recorded in the schema_history table with a checksum of their
+ * definition. On every start the recorded checksums are compared with the migrations in
+ * the code, so an already-applied migration that was edited afterwards is reported
+ * instead of silently leaving databases in different shapes. Add a new migration
+ * rather than changing an old one.
+ */
+public class SchemaMigrator {
+
+	/**
+	 * Code run by a migration that needs more than plain SQL (for example, a data fix-up
+	 * that depends on what an old database contains).
+	 */
+	@FunctionalInterface
+	public interface Step {
+		void apply(Connection conn) throws SQLException;
+	}
+
+	/**
+	 * One numbered schema change.
+	 */
+	public static final class Migration {
+		private final int version;
+		private final String description;
+		private final List<String> statements;
+		private final Step step;
+
+		private Migration(int version, String description, List<String> statements, Step step) {
+			if (version < 1) {
+				throw new IllegalArgumentException("Migration versions start at 1");
+			}
+			this.version = version;
+			this.description = description;
+			this.statements = statements;
+			this.step = step;
+		}
+
+		// A migration made of SQL statements run in order
+		public static Migration sql(int version, String description, String... statements) {
+			return new Migration(version, description, Arrays.asList(statements), null);
+		}
+
+		// SQL statements followed by a code step; only the SQL and description are checksummed
+		public static Migration withStep(int version, String description, Step step, String... statements) {
+			return new Migration(version, description, Arrays.asList(statements), step);
+		}
+
+		public int getVersion() { return version; }
+		public String getDescription() { return description; }
+
+		public long checksum() {
+			CRC32 crc = new CRC32();
+			crc.update(description.getBytes(StandardCharsets.UTF_8));
+			for (String sql : statements) {
+				crc.update(0);
+				crc.update(sql.getBytes(StandardCharsets.UTF_8));
+			}
+			return crc.getValue();
+		}
+	}
+
+	private static final String HISTORY_TABLE = "CREATE TABLE IF NOT EXISTS schema_history ("
+			+ "version INT PRIMARY KEY, "
+			+ "description VARCHAR(200) NOT NULL, "
+			+ "checksum BIGINT NOT NULL, "
+			+ "installedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+			+ "executionMillis INT NOT NULL)";
+
+	private final List<Migration> migrations;
+
+	public SchemaMigrator(List<Migration> migrations) {
+		List<Migration> sorted = new ArrayList<>(migrations);
+		sorted.sort((a, b) -> Integer.compare(a.version, b.version));
+		for (int i = 1; i < sorted.size(); i++) {
+			if (sorted.get(i).version == sorted.get(i - 1).version) {
+				throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).version);
+			}
+		}
+		this.migrations = Collections.unmodifiableList(sorted);
+	}
+
+	public List<Migration> getMigrations() {
+		return migrations;
+	}
+
+	/**
+	 * Verifies the recorded history and applies every migration newer than it. Each
+	 * migration runs in its own transaction together with its history row. H2 commits
+	 * DDL immediately, so schema statements should be safe to repeat (IF NOT EXISTS) in
+	 * case a migration fails halfway and is run again.
+	 *
+	 * @return the number of migrations applied
+	 * @throws SQLException if a migration fails or an applied migration was changed
+	 */
+	public int migrate(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(HISTORY_TABLE);
+		}
+		Map<Integer, Long> applied = appliedChecksums(conn);
+		for (Migration migration : migrations) {
+			Long recorded = applied.get(migration.version);
+			if (recorded != null && recorded != migration.checksum()) {
+				throw new SQLException("Migration " + migration.version + " (" + migration.description
+						+ ") was changed after it was applied to this database");
+			}
+		}
+
+		int count = 0;
+		for (Migration migration : migrations) {
+			if (!applied.containsKey(migration.version)) {
+				apply(conn, migration);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Highest applied version, or 0 for a database without history.
+	 */
+	public static int currentVersion(Connection conn) throws SQLException {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(HISTORY_TABLE);
+			try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_history")) {
+				rs.next();
+				return rs.getInt(1);
+			}
+		}
+	}
+
+	private void apply(Connection conn, Migration migration) throws SQLException {
+		System.out.println("Applying schema migration " + migration.version + ": " + migration.description);
+		long start = System.nanoTime();
+		boolean autoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		try {
+			try (Statement stmt = conn.createStatement()) {
+				for (String sql : migration.statements) {
+					stmt.execute(sql);
+				}
+			}
+			if (migration.step != null) {
+				migration.step.apply(conn);
+			}
+			String record = "INSERT INTO schema_history (version, description, checksum, executionMillis) VALUES (?, ?, ?, ?)";
+			try (PreparedStatement ps = conn.prepareStatement(record)) {
+				ps.setInt(1, migration.version);
+				ps.setString(2, migration.description);
+				ps.setLong(3, migration.checksum());
+				ps.setInt(4, (int) ((System.nanoTime() - start) / 1_000_000));
+				ps.executeUpdate();
+			}
+			conn.commit();
+		} catch (SQLException | RuntimeException e) {
+			conn.rollback();
+			throw e;
+		} finally {
+			conn.setAutoCommit(autoCommit);
+		}
+	}
+
+	private static Map<Integer, Long> appliedChecksums(Connection conn) throws SQLException {
+		Map<Integer, Long> applied = new HashMap<>();
+		try (Statement stmt = conn.createStatement();
+		     ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_history")) {
+			while (rs.next()) {
+				applied.put(rs.getInt(1), rs.getLong(2));
+			}
+		}
+		return applied;
+	}
+}
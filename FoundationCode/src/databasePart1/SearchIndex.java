@@ -0,0 +1,215 @@
+package databasePart1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import application.Answer;
+import application.Question;
+
+/**
+ * SearchIndex is an in-memory inverted index over questions, ranked with BM25.
+ * Each question is one document made of its title, its content and the content of
+ * its answers; title terms count more than body terms, answer terms less.
+ *
+ * The index is kept current by calling index()/remove() as questions and answers
+ * change, and can be saved to and loaded from a file together with a fingerprint of
+ * the database it was built from, so a stale file is detected and rebuilt.
+ */
+public class SearchIndex {
+
+	/**
+	 * One ranked result.
+	 */
+	public static final class Hit {
+		private final int questionId;
+		private final double score;
+
+		Hit(int questionId, double score) {
+			this.questionId = questionId;
+			this.score = score;
+		}
+
+		public int getQuestionId() { return questionId; }
+		public double getScore() { return score; }
+	}
+
+	// Field weights applied to term frequencies
+	static final float TITLE_WEIGHT = 3.0f;
+	static final float CONTENT_WEIGHT = 1.0f;
+	static final float ANSWER_WEIGHT = 0.5f;
+
+	// Standard BM25 parameters
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private static final int FILE_MAGIC = 0x51415358; // "QASX"
+	private static final int FILE_VERSION = 1;
+
+	// term -> (question id -> weighted term frequency)
+	private final Map<String, Map<Integer, Float>> postings = new HashMap<>();
+	// question id -> its term frequencies, kept so a document can be removed again
+	private final Map<Integer, Map<String, Float>> documents = new HashMap<>();
+	private final Map<Integer, Float> lengths = new HashMap<>();
+	private double totalLength;
+	private boolean dirty;
+
+	/**
+	 * Adds the question (with the answers it carries) or replaces its previous entry.
+	 */
+	public synchronized void index(Question question) {
+		Map<String, Float> terms = new HashMap<>();
+		addTerms(terms, question.getTitle(), TITLE_WEIGHT);
+		addTerms(terms, question.getContent(), CONTENT_WEIGHT);
+		for (Answer answer : question.getAnswers()) {
+			addTerms(terms, answer.getContent(), ANSWER_WEIGHT);
+		}
+		put(question.getId(), terms);
+	}
+
+	public synchronized void remove(int questionId) {
+		Map<String, Float> terms = documents.remove(questionId);
+		if (terms == null) {
+			return;
+		}
+		for (String term : terms.keySet()) {
+			Map<Integer, Float> docs = postings.get(term);
+			docs.remove(questionId);
+			if (docs.isEmpty()) {
+				postings.remove(term);
+			}
+		}
+		totalLength -= lengths.remove(questionId);
+		dirty = true;
+	}
+
+	public synchronized void clear() {
+		postings.clear();
+		documents.clear();
+		lengths.clear();
+		totalLength = 0;
+		dirty = true;
+	}
+
+	public synchronized int size() {
+		return documents.size();
+	}
+
+	// True when the index changed since it was last loaded or saved
+	public synchronized boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Returns up to limit questions ranked by BM25 score for the query's terms.
+	 */
+	public synchronized List<Hit> search(String query, int limit) {
+		Set<String> queryTerms = new LinkedHashSet<>(TextAnalyzer.analyze(query));
+		Map<Integer, Double> scores = new HashMap<>();
+		int n = documents.size();
+		double averageLength = n == 0 ? 0 : totalLength / n;
+		for (String term : queryTerms) {
+			Map<Integer, Float> docs = postings.get(term);
+			if (docs == null) {
+				continue;
+			}
+			double idf = Math.log(1 + (n - docs.size() + 0.5) / (docs.size() + 0.5));
+			for (Map.Entry<Integer, Float> posting : docs.entrySet()) {
+				double tf = posting.getValue();
+				double norm = K1 * (1 - B + B * lengths.get(posting.getKey()) / averageLength);
+				scores.merge(posting.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+			}
+		}
+		List<Hit> hits = new ArrayList<>(scores.size());
+		scores.forEach((id, score) -> hits.add(new Hit(id, score)));
+		// Best score first; newer (higher id) questions win ties
+		hits.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score) : Integer.compare(b.questionId, a.questionId));
+		return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+	}
+
+	/**
+	 * Writes the index to file (via a temporary file, so a crash never leaves half an
+	 * index behind) together with the fingerprint of the data it reflects.
+	 */
+	public synchronized void save(Path file, String fingerprint) throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeUTF(fingerprint);
+			out.writeInt(documents.size());
+			for (Map.Entry<Integer, Map<String, Float>> doc : documents.entrySet()) {
+				out.writeInt(doc.getKey());
+				out.writeInt(doc.getValue().size());
+				for (Map.Entry<String, Float> term : doc.getValue().entrySet()) {
+					out.writeUTF(term.getKey());
+					out.writeFloat(term.getValue());
+				}
+			}
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		dirty = false;
+	}
+
+	/**
+	 * Loads a saved index, or returns null when the file is missing, unreadable or was
+	 * saved for different data than expectedFingerprint describes.
+	 */
+	public static SearchIndex load(Path file, String expectedFingerprint) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION
+					|| !in.readUTF().equals(expectedFingerprint)) {
+				return null;
+			}
+			SearchIndex index = new SearchIndex();
+			int documentCount = in.readInt();
+			for (int i = 0; i < documentCount; i++) {
+				int questionId = in.readInt();
+				int termCount = in.readInt();
+				Map<String, Float> terms = new HashMap<>(termCount * 2);
+				for (int t = 0; t < termCount; t++) {
+					terms.put(in.readUTF(), in.readFloat());
+				}
+				index.put(questionId, terms);
+			}
+			index.dirty = false;
+			return index;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			System.err.println("Ignoring unreadable search index " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private void put(int questionId, Map<String, Float> terms) {
+		remove(questionId);
+		float length = 0;
+		for (Map.Entry<String, Float> term : terms.entrySet()) {
+			postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(questionId, term.getValue());
+			length += term.getValue();
+		}
+		documents.put(questionId, terms);
+		lengths.put(questionId, length);
+		totalLength += length;
+		dirty = true;
+	}
+
+	private static void addTerms(Map<String, Float> terms, String text, float weight) {
+		for (String term : TextAnalyzer.analyze(text)) {
+			terms.merge(term, weight, Float::sum);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package databasePart1;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*******
+ * <p> Title: SimilarQuestionBenchmark Class. </p>
+ *
+ * <p> Description: Measures the duplicate-question lookup of SimilarQuestionIndex on a
+ * large synthetic corpus (1,000,000 questions unless a count is given as the first
+ * argument). Queries are existing titles with one word dropped and one word swapped,
+ * the way a user would retype a question; recall is how often the original question
+ * comes back in the top five. Needs no database. </p>
+ *
+ */
+public class SimilarQuestionBenchmark {
+
+	private static final int DEFAULT_QUESTIONS = 1_000_000;
+	private static final int QUERIES = 1_000;
+	private static final int TOP_K = 5;
+	private static final int VOCABULARY = 20_000;
+	private static final int TITLE_WORDS = 8;
+	private static final int CONTENT_WORDS = 30;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_QUESTIONS;
+		Random random = new Random(42);
+		String[] words = vocabulary(random);
+
+		System.out.println("______________________________________");
+		System.out.println("\nSimilar question lookup, " + count + " questions");
+
+		SimilarQuestionIndex index = new SimilarQuestionIndex();
+		String[][] titles = new String[count][];
+		long start = System.nanoTime();
+		for (int id = 0; id < count; id++) {
+			titles[id] = pick(words, TITLE_WORDS, random);
+			index.index(id, String.join(" ", titles[id]), String.join(" ", pick(words, CONTENT_WORDS, random)));
+		}
+		System.out.printf("%nBuild: %.1f s%n", (System.nanoTime() - start) / 1e9);
+
+		long[] latencies = new long[QUERIES];
+		int found = 0;
+		for (int q = 0; q < QUERIES; q++) {
+			int target = random.nextInt(count);
+			String[] title = titles[target].clone();
+			title[random.nextInt(title.length)] = words[random.nextInt(words.length)];
+			String query = String.join(" ", Arrays.copyOf(title, title.length - 1));
+
+			start = System.nanoTime();
+			List<SimilarQuestionIndex.Match> matches = index.findSimilar(query, "", TOP_K);
+			latencies[q] = System.nanoTime() - start;
+			if (matches.stream().anyMatch(m -> m.getQuestionId() == target)) {
+				found++;
+			}
+		}
+		Arrays.sort(latencies);
+		System.out.printf("Query latency: median %.3f ms, p99 %.3f ms, max %.3f ms%n",
+				latencies[QUERIES / 2] / 1e6, latencies[QUERIES * 99 / 100] / 1e6, latencies[QUERIES - 1] / 1e6);
+		System.out.printf("Recall@%d for retyped titles: %.1f%%%n", TOP_K, 100.0 * found / QUERIES);
+		System.out.println("____________________________________________________________________________");
+	}
+
+	// Pronounceable made-up words, so the analyzer's stop words and stemmer rarely interfere
+	private static String[] vocabulary(Random random) {
+		String consonants = "bcdfghjkmnprtvz";
+		String vowels = "aeiou";
+		String[] words = new String[VOCABULARY];
+		for (int i = 0; i < VOCABULARY; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int syllable = 0; syllable < 3; syllable++) {
+				word.append(consonants.charAt(random.nextInt(consonants.length())));
+				word.append(vowels.charAt(random.nextInt(vowels.length())));
+			}
+			words[i] = word.append(consonants.charAt(random.nextInt(consonants.length()))).toString();
+		}
+		return words;
+	}
+
+	private static String[] pick(String[] words, int n, Random random) {
+		String[] picked = new String[n];
+		for (int i = 0; i < n; i++) {
+			picked[i] = words[random.nextInt(words.length)];
+		}
+		return picked;
+	}
+}
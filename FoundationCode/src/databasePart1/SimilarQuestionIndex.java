@@ -0,0 +1,337 @@
+package databasePart1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * SimilarQuestionIndex finds likely duplicates of a question while it is being typed.
+ *
+ * Every question is reduced to shingles (its analyzed terms plus adjacent term pairs)
+ * and summarized by MinHash signatures: one over the title, a shorter one over the
+ * content. Title signatures are split into bands and hashed into buckets (LSH), so a
+ * lookup only compares against questions that share at least one band instead of
+ * scanning every title. Candidates are ranked by their estimated Jaccard similarity;
+ * the content signature refines the score once the asker has typed some content.
+ *
+ * Storage is kept in flat int arrays indexed by slot so a million questions fit in
+ * a few hundred megabytes.
+ */
+public class SimilarQuestionIndex {
+
+	/**
+	 * One similar question and its estimated similarity in [0, 1].
+	 */
+	public static final class Match {
+		private final int questionId;
+		private final double similarity;
+
+		Match(int questionId, double similarity) {
+			this.questionId = questionId;
+			this.similarity = similarity;
+		}
+
+		public int getQuestionId() { return questionId; }
+		public double getSimilarity() { return similarity; }
+	}
+
+	// 12 bands of 3 rows: titles about 50% similar are found with high probability
+	private static final int BANDS = 12;
+	private static final int ROWS = 3;
+	private static final int TITLE_HASHES = BANDS * ROWS;
+	private static final int CONTENT_HASHES = 16;
+
+	// Weight of the title when content is also compared
+	private static final double TITLE_SHARE = 0.7;
+	// Matches below this estimated similarity are not worth showing
+	public static final double MIN_SIMILARITY = 0.25;
+
+	private static final int EMPTY = Integer.MIN_VALUE;
+
+	private static final long[] TITLE_SEEDS = seeds(TITLE_HASHES, 0x5EED_7171L);
+	private static final long[] CONTENT_SEEDS = seeds(CONTENT_HASHES, 0x5EED_C0C0L);
+
+	private int[] slotQuestion = new int[1024];
+	private int[] titleSignatures = new int[1024 * TITLE_HASHES];
+	private int[] contentSignatures = new int[1024 * CONTENT_HASHES];
+	private int[] bandNext = new int[1024 * BANDS];   // next slot in the same bucket, -1 = end
+	private boolean[] banded = new boolean[1024];     // false for titles without any terms
+	private final BucketTable[] buckets = new BucketTable[BANDS];   // one per band, so chains never mix bands
+	private final Map<Integer, Integer> slotById = new HashMap<>();
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+	private int slotCount;
+
+	public SimilarQuestionIndex() {
+		for (int band = 0; band < BANDS; band++) {
+			buckets[band] = new BucketTable();
+		}
+	}
+
+	/**
+	 * Adds the question or replaces its previous entry.
+	 */
+	public synchronized void index(int questionId, String title, String content) {
+		remove(questionId);
+		int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+		ensureCapacity(slot + 1);
+		slotQuestion[slot] = questionId;
+		slotById.put(questionId, slot);
+
+		Set<Integer> titleShingles = shingles(title);
+		minHash(titleShingles, TITLE_SEEDS, titleSignatures, slot * TITLE_HASHES);
+		minHash(shingles(content), CONTENT_SEEDS, contentSignatures, slot * CONTENT_HASHES);
+		banded[slot] = !titleShingles.isEmpty();
+		if (banded[slot]) {
+			for (int band = 0; band < BANDS; band++) {
+				int key = bandKey(titleSignatures, slot * TITLE_HASHES, band);
+				bandNext[slot * BANDS + band] = buckets[band].get(key);
+				buckets[band].put(key, slot);
+			}
+		}
+	}
+
+	public synchronized void remove(int questionId) {
+		Integer slot = slotById.remove(questionId);
+		if (slot == null) {
+			return;
+		}
+		if (banded[slot]) {
+			for (int band = 0; band < BANDS; band++) {
+				unlink(slot, band);
+			}
+		}
+		banded[slot] = false;
+		slotQuestion[slot] = EMPTY;
+		freeSlots.push(slot);
+	}
+
+	public synchronized int size() {
+		return slotById.size();
+	}
+
+	/**
+	 * Returns up to limit questions most similar to the given title (and content, which
+	 * may be empty), best first, leaving out anything below MIN_SIMILARITY.
+	 */
+	public synchronized List<Match> findSimilar(String title, String content, int limit) {
+		Set<Integer> titleShingles = shingles(title);
+		if (titleShingles.isEmpty()) {
+			return new ArrayList<>();
+		}
+		int[] titleSignature = new int[TITLE_HASHES];
+		minHash(titleShingles, TITLE_SEEDS, titleSignature, 0);
+		Set<Integer> contentShingles = shingles(content);
+		int[] contentSignature = null;
+		if (!contentShingles.isEmpty()) {
+			contentSignature = new int[CONTENT_HASHES];
+			minHash(contentShingles, CONTENT_SEEDS, contentSignature, 0);
+		}
+
+		Set<Integer> candidates = new HashSet<>();
+		for (int band = 0; band < BANDS; band++) {
+			int key = bandKey(titleSignature, 0, band);
+			for (int slot = buckets[band].get(key); slot >= 0; slot = bandNext[slot * BANDS + band]) {
+				candidates.add(slot);
+			}
+		}
+
+		List<Match> matches = new ArrayList<>();
+		for (int slot : candidates) {
+			double similarity = agreement(titleSignature, titleSignatures, slot * TITLE_HASHES, TITLE_HASHES);
+			if (contentSignature != null) {
+				similarity = TITLE_SHARE * similarity + (1 - TITLE_SHARE)
+						* agreement(contentSignature, contentSignatures, slot * CONTENT_HASHES, CONTENT_HASHES);
+			}
+			if (similarity >= MIN_SIMILARITY) {
+				matches.add(new Match(slotQuestion[slot], similarity));
+			}
+		}
+		matches.sort((a, b) -> a.similarity != b.similarity
+				? Double.compare(b.similarity, a.similarity)
+				: Integer.compare(b.questionId, a.questionId));
+		return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+	}
+
+	// Removes slot from its bucket chain for one band
+	private void unlink(int slot, int band) {
+		int key = bandKey(titleSignatures, slot * TITLE_HASHES, band);
+		int next = bandNext[slot * BANDS + band];
+		BucketTable table = buckets[band];
+		int current = table.get(key);
+		if (current == slot) {
+			if (next < 0) {
+				table.remove(key);
+			} else {
+				table.put(key, next);
+			}
+			return;
+		}
+		while (current >= 0) {
+			int after = bandNext[current * BANDS + band];
+			if (after == slot) {
+				bandNext[current * BANDS + band] = next;
+				return;
+			}
+			current = after;
+		}
+	}
+
+	// Terms plus adjacent term pairs, as hashes
+	private static Set<Integer> shingles(String text) {
+		List<String> terms = TextAnalyzer.analyze(text);
+		Set<Integer> shingles = new HashSet<>();
+		for (int i = 0; i < terms.size(); i++) {
+			shingles.add(terms.get(i).hashCode());
+			if (i + 1 < terms.size()) {
+				shingles.add((terms.get(i) + ' ' + terms.get(i + 1)).hashCode());
+			}
+		}
+		return shingles;
+	}
+
+	private static void minHash(Set<Integer> shingles, long[] seeds, int[] out, int offset) {
+		for (int i = 0; i < seeds.length; i++) {
+			int min = Integer.MAX_VALUE;
+			for (int shingle : shingles) {
+				int h = (int) mix(shingle ^ seeds[i]);
+				if (h < min) {
+					min = h;
+				}
+			}
+			out[offset + i] = min;
+		}
+	}
+
+	private static int bandKey(int[] signatures, int offset, int band) {
+		long h = band;
+		for (int row = 0; row < ROWS; row++) {
+			h = mix(h * 31 + signatures[offset + band * ROWS + row]);
+		}
+		return (int) h;
+	}
+
+	// Fraction of equal positions: an unbiased estimate of the Jaccard similarity
+	private static double agreement(int[] query, int[] signatures, int offset, int length) {
+		int equal = 0;
+		for (int i = 0; i < length; i++) {
+			if (query[i] == signatures[offset + i]) {
+				equal++;
+			}
+		}
+		return (double) equal / length;
+	}
+
+	// SplitMix64 finalizer
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long[] seeds(int count, long seed) {
+		Random random = new Random(seed);
+		long[] seeds = new long[count];
+		for (int i = 0; i < count; i++) {
+			seeds[i] = random.nextLong();
+		}
+		return seeds;
+	}
+
+	private void ensureCapacity(int slots) {
+		if (slots <= slotQuestion.length) {
+			return;
+		}
+		int capacity = Math.max(slots, slotQuestion.length * 2);
+		slotQuestion = Arrays.copyOf(slotQuestion, capacity);
+		titleSignatures = Arrays.copyOf(titleSignatures, capacity * TITLE_HASHES);
+		contentSignatures = Arrays.copyOf(contentSignatures, capacity * CONTENT_HASHES);
+		bandNext = Arrays.copyOf(bandNext, capacity * BANDS);
+		banded = Arrays.copyOf(banded, capacity);
+	}
+
+	/**
+	 * Open-addressing map from bucket key to the first slot in that bucket, for one
+	 * band. Avoids a boxed HashMap entry for each of the millions of buckets a large
+	 * index has.
+	 */
+	private static final class BucketTable {
+		private int[] keys = new int[1 << 10];
+		private int[] heads = new int[1 << 10];
+		private boolean[] used = new boolean[1 << 10];
+		private int size;
+
+		int get(int key) {
+			for (int i = index(key); used[i]; i = (i + 1) & (keys.length - 1)) {
+				if (keys[i] == key) {
+					return heads[i];
+				}
+			}
+			return -1;
+		}
+
+		void put(int key, int head) {
+			if ((size + 1) * 2 > keys.length) {
+				grow();
+			}
+			int i = index(key);
+			while (used[i] && keys[i] != key) {
+				i = (i + 1) & (keys.length - 1);
+			}
+			if (!used[i]) {
+				used[i] = true;
+				keys[i] = key;
+				size++;
+			}
+			heads[i] = head;
+		}
+
+		void remove(int key) {
+			int mask = keys.length - 1;
+			int i = index(key);
+			while (used[i] && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			if (!used[i]) {
+				return;
+			}
+			// Backward-shift deletion keeps every probe sequence unbroken
+			int hole = i;
+			for (int j = (hole + 1) & mask; used[j]; j = (j + 1) & mask) {
+				int home = index(keys[j]);
+				if (((j - home) & mask) >= ((j - hole) & mask)) {
+					keys[hole] = keys[j];
+					heads[hole] = heads[j];
+					hole = j;
+				}
+			}
+			used[hole] = false;
+			size--;
+		}
+
+		private int index(int key) {
+			return (int) mix(key) & (keys.length - 1);
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			int[] oldHeads = heads;
+			boolean[] oldUsed = used;
+			keys = new int[oldKeys.length * 2];
+			heads = new int[oldKeys.length * 2];
+			used = new boolean[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldUsed[i]) {
+					put(oldKeys[i], oldHeads[i]);
+				}
+			}
+		}
+	}
+}
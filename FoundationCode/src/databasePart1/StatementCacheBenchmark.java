@@ -0,0 +1,84 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import application.Answer;
+import application.Question;
+import application.User;
+
+/*******
+ * <p> Title: StatementCacheBenchmark Class. </p>
+ *
+ * <p> Description: Times two hot paths, getAnswersForQuestion and login, with the
+ * pooled connections' prepared-statement cache switched off and on. Each round warms
+ * up first and reports the median of several timed runs, so JIT compilation and the
+ * first prepare of each query are not counted. Runs against a private in-memory H2
+ * database so the real FoundationDatabase is untouched. </p>
+ *
+ */
+public class StatementCacheBenchmark {
+
+	private static final String BENCH_URL = "jdbc:h2:mem:statementCacheBench;DB_CLOSE_DELAY=-1";
+	private static final int QUESTIONS = 200;
+	private static final int CALLS = 20_000;
+	private static final int WARMUP_RUNS = 3;
+	private static final int RUNS = 7;
+
+	interface Operation {
+		void run(int i) throws SQLException;
+	}
+
+	public static void main(String[] args) throws SQLException {
+		DatabaseHelper db = new DatabaseHelper();
+		db.connectToDatabase(BENCH_URL);
+		db.setReadCacheEnabled(false);   // measure the queries, not the read cache
+		User user = new User("benchUser", "Bench1!", "user");
+		db.register(user);
+		int[] questionIds = new int[QUESTIONS];
+		for (int i = 0; i < QUESTIONS; i++) {
+			questionIds[i] = db.createQuestion(new Question("Benchmark question " + i, "Benchmark question body " + i, "benchUser"));
+			db.createAnswer(new Answer(questionIds[i], "Benchmark answer " + i, "benchUser"));
+		}
+
+		Operation answers = i -> db.getAnswersForQuestion(questionIds[i % QUESTIONS]);
+		Operation login = i -> db.login(user);
+
+		System.out.println("______________________________________");
+		System.out.println("\nPrepared-statement cache benchmark (" + CALLS + " calls, median of " + RUNS + " runs)");
+		System.out.printf("%n%24s %14s %14s %10s%n", "operation", "uncached (us)", "cached (us)", "speedup");
+		report("getAnswersForQuestion", db, answers);
+		report("login", db, login);
+		System.out.println("\n" + db.getPoolStats());
+		System.out.println("____________________________________________________________________________");
+		db.closeConnection();
+	}
+
+	private static void report(String name, DatabaseHelper db, Operation operation) throws SQLException {
+		db.setStatementCacheSize(0);
+		double uncached = perCallMicros(operation);
+		db.setStatementCacheSize(ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+		double cached = perCallMicros(operation);
+		System.out.printf("%24s %14.2f %14.2f %9.1fx%n", name, uncached, cached, uncached / cached);
+	}
+
+	private static double perCallMicros(Operation operation) throws SQLException {
+		for (int run = 0; run < WARMUP_RUNS; run++) {
+			time(operation);
+		}
+		long[] samples = new long[RUNS];
+		for (int run = 0; run < RUNS; run++) {
+			samples[run] = time(operation);
+		}
+		Arrays.sort(samples);
+		return samples[RUNS / 2] / 1e3 / CALLS;
+	}
+
+	private static long time(Operation operation) throws SQLException {
+		long start = System.nanoTime();
+		for (int i = 0; i < CALLS; i++) {
+			operation.run(i);
+		}
+		return System.nanoTime() - start;
+	}
+}
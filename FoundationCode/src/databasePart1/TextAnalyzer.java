@@ -0,0 +1,93 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * TextAnalyzer turns question and answer text into search terms: lower-cased
+ * letter/digit runs, minus common English stop words, reduced by a light suffix
+ * stemmer so "loops", "looping" and "looped" all index as "loop".
+ */
+public final class TextAnalyzer {
+
+	private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+		"a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "do", "does", "for",
+		"from", "has", "have", "how", "i", "if", "in", "into", "is", "it", "its", "my", "no",
+		"not", "of", "on", "or", "so", "such", "that", "the", "their", "then", "there", "these",
+		"they", "this", "to", "was", "we", "what", "when", "where", "which", "while", "who",
+		"why", "will", "with", "you", "your"
+	));
+
+	// Stems shorter than this are left alone ("is", "bus", "gas")
+	private static final int MIN_STEM_LENGTH = 3;
+
+	private TextAnalyzer() {
+	}
+
+	/**
+	 * Splits text into stemmed, stop-word-free terms, in order and with repeats.
+	 */
+	public static List<String> analyze(String text) {
+		List<String> terms = new ArrayList<>();
+		if (text == null) {
+			return terms;
+		}
+		String lower = text.toLowerCase(Locale.ROOT);
+		int start = -1;
+		for (int i = 0; i <= lower.length(); i++) {
+			boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				addTerm(terms, lower.substring(start, i));
+				start = -1;
+			}
+		}
+		return terms;
+	}
+
+	private static void addTerm(List<String> terms, String token) {
+		if (token.length() < 2 || STOP_WORDS.contains(token)) {
+			return;
+		}
+		terms.add(stem(token));
+	}
+
+	/**
+	 * Strips common inflectional suffixes (plurals, -ing, -ed, -ly, final e). Deliberately light:
+	 * it only has to map a word and its variants to the same key, not produce real roots.
+	 */
+	static String stem(String word) {
+		if (!Character.isLetter(word.charAt(word.length() - 1))) {
+			return word;
+		}
+		String stem = word;
+		if (stem.endsWith("ies") && stem.length() > 4) {
+			stem = stem.substring(0, stem.length() - 3) + "y";
+		} else if (stem.endsWith("sses")) {
+			stem = stem.substring(0, stem.length() - 2);
+		} else if (stem.endsWith("s") && !stem.endsWith("ss") && !stem.endsWith("us") && !stem.endsWith("is")) {
+			stem = stem.substring(0, stem.length() - 1);
+		}
+		for (String suffix : new String[] {"ing", "ed", "ly"}) {
+			if (stem.endsWith(suffix) && stem.length() - suffix.length() >= MIN_STEM_LENGTH) {
+				stem = stem.substring(0, stem.length() - suffix.length());
+				// "running" -> "runn" -> "run"
+				int n = stem.length();
+				if (n >= 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+					stem = stem.substring(0, n - 1);
+				}
+				break;
+			}
+		}
+		// "create", "creates", "created" and "creating" all end up as "creat"
+		if (stem.endsWith("e") && stem.length() > MIN_STEM_LENGTH + 1) {
+			stem = stem.substring(0, stem.length() - 1);
+		}
+		return stem;
+	}
+}
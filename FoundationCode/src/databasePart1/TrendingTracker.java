@@ -0,0 +1,249 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+import application.Question;
+
+/**
+ * TrendingTracker ranks questions by recent activity: answers, upvotes, views and
+ * being asked each add a weight that halves every half-life. Scores are updated as the
+ * change events arrive and kept in a sorted index, so the top of the ranking is read
+ * in O(K) without touching the database.
+ *
+ * Scores are stored relative to a fixed epoch ("forward decay"): an event at time t
+ * adds weight * 2^((t - epoch) / halfLife). Every score then decays by the same factor,
+ * so the ranking never has to be recomputed as time passes; the epoch is only moved
+ * forward now and then to keep the numbers in range. DatabaseHelper saves the changed
+ * scores in the question_trending table on a housekeeping schedule.
+ */
+public class TrendingTracker {
+
+	public static final double ANSWER_WEIGHT = 3.0;
+	public static final double UPVOTE_WEIGHT = 1.0;
+	public static final double VIEW_WEIGHT = 0.2;
+	public static final double QUESTION_WEIGHT = 1.0;
+	// Also used by schema migration 8 to seed the scores from existing answers and votes
+	public static final long DEFAULT_HALF_LIFE_MILLIS = 6 * 60 * 60 * 1000L;
+	// Scores that decayed below this are dropped when the epoch moves (an answer 6 half-lives old)
+	public static final double FORGET_BELOW = ANSWER_WEIGHT / 64;
+	// Move the epoch after this many half-lives, long before 2^x leaves the range of a double
+	private static final int REBASE_HALF_LIVES = 64;
+
+	/**
+	 * Scores that changed since the last call to drainChanges, as of the same moment.
+	 */
+	public static final class Changes {
+		private final Map<Integer, Double> scores;
+		private final Set<Integer> removed;
+		private final long atMillis;
+
+		Changes(Map<Integer, Double> scores, Set<Integer> removed, long atMillis) {
+			this.scores = Collections.unmodifiableMap(scores);
+			this.removed = Collections.unmodifiableSet(removed);
+			this.atMillis = atMillis;
+		}
+
+		public Map<Integer, Double> getScores() { return scores; }
+		public Set<Integer> getRemoved() { return removed; }
+		public long getAtMillis() { return atMillis; }
+		public boolean isEmpty() { return scores.isEmpty() && removed.isEmpty(); }
+	}
+
+	// A question's score relative to the epoch; only changed while out of the ranking
+	private static final class Entry {
+		final int questionId;
+		double score;
+
+		Entry(int questionId) {
+			this.questionId = questionId;
+		}
+	}
+
+	// Highest score first, newer question first on ties
+	private static final Comparator<Entry> RANKING = Comparator.<Entry>comparingDouble(e -> -e.score)
+			.thenComparing(e -> -e.questionId);
+
+	private final long halfLifeMillis;
+	private final LongSupplier clock;
+	private long epochMillis;
+	private final Map<Integer, Entry> entries = new HashMap<>();
+	private final TreeSet<Entry> ranking = new TreeSet<>(RANKING);
+	private final Set<Integer> changed = new HashSet<>();
+	private final Set<Integer> removed = new HashSet<>();
+
+	public TrendingTracker() {
+		this(DEFAULT_HALF_LIFE_MILLIS, System::currentTimeMillis);
+	}
+
+	// Tests pass their own clock
+	public TrendingTracker(long halfLifeMillis, LongSupplier clock) {
+		if (halfLifeMillis <= 0) {
+			throw new IllegalArgumentException("Half-life must be positive: " + halfLifeMillis);
+		}
+		this.halfLifeMillis = halfLifeMillis;
+		this.clock = clock;
+		this.epochMillis = clock.getAsLong();
+	}
+
+	/**
+	 * Feeds a change event: answers, upvotes and new questions add to the question's
+	 * score, a deleted question is dropped.
+	 */
+	public void onEvent(QAEvent event) {
+		switch (event.getType()) {
+			case QUESTION_CREATED:
+				record(event.getQuestionId(), QUESTION_WEIGHT);
+				break;
+			case ANSWER_CREATED:
+				record(event.getQuestionId(), ANSWER_WEIGHT);
+				break;
+			case ANSWER_UPVOTED:
+				record(event.getQuestionId(), UPVOTE_WEIGHT);
+				break;
+			case QUESTION_DELETED:
+				remove(event.getQuestionId());
+				break;
+			default:
+				break;
+		}
+	}
+
+	public void recordView(int questionId) {
+		record(questionId, VIEW_WEIGHT);
+	}
+
+	public synchronized void record(int questionId, double weight) {
+		long now = clock.getAsLong();
+		rebaseIfDue(now);
+		Entry entry = entries.computeIfAbsent(questionId, Entry::new);
+		ranking.remove(entry);
+		entry.score += weight * Math.pow(2, (double) (now - epochMillis) / halfLifeMillis);
+		ranking.add(entry);
+		changed.add(questionId);
+		removed.remove(questionId);
+	}
+
+	/**
+	 * Restores a saved score, which was the question's score at scoredAtMillis.
+	 */
+	public synchronized void restore(int questionId, double score, long scoredAtMillis) {
+		Entry entry = entries.computeIfAbsent(questionId, Entry::new);
+		ranking.remove(entry);
+		entry.score = score * Math.pow(2, (double) (scoredAtMillis - epochMillis) / halfLifeMillis);
+		ranking.add(entry);
+	}
+
+	public synchronized void remove(int questionId) {
+		Entry entry = entries.remove(questionId);
+		if (entry != null) {
+			ranking.remove(entry);
+			changed.remove(questionId);
+			removed.add(questionId);
+		}
+	}
+
+	/**
+	 * Ids of the questions ranked offset to offset + count - 1, highest score first.
+	 */
+	public synchronized List<Integer> top(int offset, int count) {
+		List<Integer> ids = new ArrayList<>(Math.min(count, ranking.size()));
+		Iterator<Entry> it = ranking.iterator();
+		for (int skipped = 0; skipped < offset && it.hasNext(); skipped++) {
+			it.next();
+		}
+		while (ids.size() < count && it.hasNext()) {
+			ids.add(it.next().questionId);
+		}
+		return ids;
+	}
+
+	// The question's current (decayed) score, 0 if it has none
+	public synchronized double getScore(int questionId) {
+		Entry entry = entries.get(questionId);
+		return entry == null ? 0 : entry.score * decayFactor(clock.getAsLong());
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * The ranking order for questions already loaded in memory, so a changed question
+	 * can be put in place without reloading the list.
+	 */
+	public Comparator<Question> comparator() {
+		return Comparator.comparing(Question::getId, idComparator());
+	}
+
+	// The same order on question ids, for card views and other id-keyed lists
+	public Comparator<Integer> idComparator() {
+		return Comparator.<Integer>comparingDouble(id -> -getScore(id))
+				.thenComparing(id -> -id);
+	}
+
+	/**
+	 * Returns the scores changed and the questions removed since the last call, and
+	 * starts collecting afresh. Pass them back to requeue if they could not be saved.
+	 */
+	public synchronized Changes drainChanges() {
+		long now = clock.getAsLong();
+		rebaseIfDue(now);
+		double decay = decayFactor(now);
+		Map<Integer, Double> scores = new HashMap<>();
+		for (int questionId : changed) {
+			scores.put(questionId, entries.get(questionId).score * decay);
+		}
+		Changes changes = new Changes(scores, new HashSet<>(removed), now);
+		changed.clear();
+		removed.clear();
+		return changes;
+	}
+
+	public synchronized void requeue(Changes changes) {
+		for (int questionId : changes.getScores().keySet()) {
+			if (entries.containsKey(questionId)) {
+				changed.add(questionId);
+			}
+		}
+		for (int questionId : changes.getRemoved()) {
+			if (!entries.containsKey(questionId)) {
+				removed.add(questionId);
+			}
+		}
+	}
+
+	private double decayFactor(long now) {
+		return Math.pow(2, -(double) (now - epochMillis) / halfLifeMillis);
+	}
+
+	// Moves the epoch to now, scaling every score to match, and forgets faded questions
+	private void rebaseIfDue(long now) {
+		if (now - epochMillis < REBASE_HALF_LIVES * halfLifeMillis) {
+			return;
+		}
+		double decay = decayFactor(now);
+		ranking.clear();
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+			Entry entry = it.next();
+			entry.score *= decay;
+			if (entry.score < FORGET_BELOW) {
+				it.remove();
+				changed.remove(entry.questionId);
+				removed.add(entry.questionId);
+			} else {
+				ranking.add(entry);
+			}
+		}
+		epochMillis = now;
+	}
+}
@@ -0,0 +1,71 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import application.User;
+import application.UserSummary;
+
+/**
+ * Storage of user accounts and their admin-issued one-time passwords. Implemented by
+ * DatabaseHelper (H2) and InMemoryRepository.
+ */
+public interface UserRepository {
+
+	/**
+	 * Stores a new user; an empty email or middle initial is stored as none.
+	 *
+	 * @throws SQLException if the user name is taken
+	 */
+	void register(User user) throws SQLException;
+
+	/**
+	 * True if the name, password and role match a stored user, whose email and middle
+	 * initial are then copied into user.
+	 */
+	boolean login(User user) throws SQLException;
+
+	boolean doesUserExist(String userName);
+
+	// The user's role, or null if there is no such user
+	String getUserRole(String userName);
+
+	Optional<User> getUserByUsername(String userName) throws SQLException;
+
+	// Every user, ordered by role
+	List<User> getAllUsers() throws SQLException;
+
+	// getAllUsers as the admin user table shows it, in the same order, without passwords
+	List<UserSummary> getUserSummaries() throws SQLException;
+
+	int getUserCount() throws SQLException;
+
+	boolean doesAdminExist() throws SQLException;
+
+	boolean updateUserEmail(String userName, String newEmail) throws SQLException;
+
+	// Stores the first letter, upper-cased; null or blank clears it
+	boolean updateUserMiddleInitial(String userName, String newMiddleInitial) throws SQLException;
+
+	boolean updateUserPassword(String userName, String newPassword) throws SQLException;
+
+	// Refused (false) when it would take the admin role from the last admin
+	boolean updateUserRole(String userName, String newRole) throws SQLException;
+
+	// Refused (false) for the last admin
+	boolean deleteUser(String userName) throws SQLException;
+
+	// Sets a one-time password that never expires
+	boolean setOtp(String userName, String otp) throws SQLException;
+
+	boolean setOtp(String userName, String otp, int ttlMinutes) throws SQLException;
+
+	// True if otp is the user's unused, unexpired one-time password
+	boolean isOtpValid(String userName, String otp) throws SQLException;
+
+	boolean consumeOtp(String userName) throws SQLException;
+
+	// Clears expired one-time passwords; returns how many were cleared
+	int purgeExpiredOtps() throws SQLException;
+}
@@ -0,0 +1,130 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ViewCounter counts question views in memory and hands them to the database in
+ * periodic batches, so opening a question costs an uncontended increment instead of
+ * a row update.
+ *
+ * Each question being viewed has a counter that is never reset; a flush writes the
+ * difference between its sum and what was already written, then drops the counters
+ * with nothing left to write so questions nobody opens any more take no memory. Views
+ * that have not been written yet are reported by getPending, which DatabaseHelper adds
+ * to the view counts it returns.
+ */
+public class ViewCounter {
+
+	/**
+	 * Adds view counts to the stored ones, in one transaction.
+	 */
+	@FunctionalInterface
+	public interface Writer {
+		void write(Map<Integer, Long> viewsByQuestion) throws SQLException;
+	}
+
+	// A dropped counter's value; views that still reach it keep it negative and move on
+	private static final long DROPPED = Long.MIN_VALUE / 2;
+
+	private static final class Counter {
+		final AtomicLong views = new AtomicLong();
+		volatile long written;   // changed only by flush, under its lock
+	}
+
+	// Counters are removed only once dropped (see evictWritten)
+	private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+	public void record(int questionId) {
+		while (true) {
+			Counter counter = counters.get(questionId);
+			if (counter == null) {
+				counter = counters.computeIfAbsent(questionId, id -> new Counter());
+			}
+			if (counter.views.getAndIncrement() >= 0) {
+				return;
+			}
+			counters.remove(questionId, counter);   // flush is removing it too
+		}
+	}
+
+	// Views of the question that are not in the database yet
+	public long getPending(int questionId) {
+		Counter counter = counters.get(questionId);
+		return counter == null ? 0 : pending(counter);
+	}
+
+	public long getPendingTotal() {
+		long total = 0;
+		for (Counter counter : counters.values()) {
+			total += pending(counter);
+		}
+		return total;
+	}
+
+	// Questions with a counter in memory; idle ones are dropped by flush
+	public int getTrackedCount() {
+		return counters.size();
+	}
+
+	/**
+	 * Writes every pending view through writer. Views stay pending until the write has
+	 * returned, so readers never see them missing in between; if it fails they are
+	 * written by the next flush. The flip side is that between the write committing and
+	 * flush recording it, a reader can count the same views twice (stored and pending).
+	 * The window is the few assignments after the write, the count is only displayed, and
+	 * the next read is exact again.
+	 *
+	 * @return the questions whose counts were written, with how many views each gained
+	 */
+	public synchronized Map<Integer, Long> flush(Writer writer) throws SQLException {
+		Map<Integer, Long> delta = new HashMap<>();
+		Map<Integer, Long> totals = new HashMap<>();
+		for (Map.Entry<Integer, Counter> entry : counters.entrySet()) {
+			long total = entry.getValue().views.get();
+			long pending = total - entry.getValue().written;
+			if (pending > 0) {
+				delta.put(entry.getKey(), pending);
+				totals.put(entry.getKey(), total);
+			}
+		}
+		if (!delta.isEmpty()) {
+			writer.write(delta);
+			for (Map.Entry<Integer, Long> total : totals.entrySet()) {
+				counters.get(total.getKey()).written = total.getValue();
+			}
+		}
+		evictWritten();
+		return delta;
+	}
+
+	// Forgets views not yet written (after the tables were cleared)
+	public synchronized void discardPending() {
+		for (Counter counter : counters.values()) {
+			counter.written = counter.views.get();
+		}
+		evictWritten();
+	}
+
+	/*
+	 * Drops the counters whose views are all written. Dropping is a compare-and-set from
+	 * the written count, so it fails if a view arrived after the write, and a view that
+	 * comes after it finds the counter negative and goes to a new counter instead.
+	 */
+	private void evictWritten() {
+		for (Map.Entry<Integer, Counter> entry : counters.entrySet()) {
+			Counter counter = entry.getValue();
+			if (counter.views.compareAndSet(counter.written, DROPPED)) {
+				counters.remove(entry.getKey(), counter);
+			}
+		}
+	}
+
+	private static long pending(Counter counter) {
+		long views = counter.views.get();
+		return views < 0 ? 0 : views - counter.written;
+	}
+}
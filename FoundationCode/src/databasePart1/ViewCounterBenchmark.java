@@ -0,0 +1,112 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import application.Question;
+import application.User;
+
+/*******
+ * <p> Title: ViewCounterBenchmark Class. </p>
+ *
+ * <p> Description: Compares the cost of counting a question view by writing it at once
+ * (one UPDATE of the viewCount column per view) against recordQuestionView, which
+ * counts the view in memory and leaves the write to a batched flush. Several threads
+ * open a small set of popular questions, the case where per-view writes contend on the
+ * same rows. It reports the median nanoseconds per view, and the time of the flush
+ * that writes what recordQuestionView counted. Runs against a private in-memory H2
+ * database so the real FoundationDatabase is untouched. </p>
+ *
+ */
+public class ViewCounterBenchmark {
+
+	private static final String BENCH_URL = "jdbc:h2:mem:viewCounterBench;DB_CLOSE_DELAY=-1";
+	private static final int QUESTIONS = 50;
+	private static final int THREADS = 4;
+	private static final int VIEWS_PER_THREAD = 20_000;
+	private static final int RUNS = 5;
+
+	@FunctionalInterface
+	private interface ViewSink {
+		void view(int questionId) throws SQLException;
+	}
+
+	@FunctionalInterface
+	private interface SinkFactory {
+		ViewSink open() throws SQLException;
+	}
+
+	public static void main(String[] args) throws Exception {
+		DatabaseHelper db = new DatabaseHelper();
+		db.connectToDatabase(BENCH_URL);
+		db.register(new User("benchUser", "Bench1!", "user"));
+		int[] questionIds = new int[QUESTIONS];
+		for (int i = 0; i < QUESTIONS; i++) {
+			questionIds[i] = db.createQuestion(new Question("Benchmark question " + i, "Benchmark question body " + i, "benchUser"));
+		}
+
+		System.out.println("______________________________________");
+		System.out.println("\nView counter benchmark, " + THREADS + " threads x " + VIEWS_PER_THREAD + " views over "
+				+ QUESTIONS + " questions (median of " + RUNS + " runs)");
+		System.out.printf("%n%-32s %14s%n", "counting", "ns/view");
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			measure("UPDATE per view", pool, questionIds, () -> {
+				Connection conn = DriverManager.getConnection(BENCH_URL, DatabaseHelper.USER, DatabaseHelper.PASS);
+				PreparedStatement update = conn.prepareStatement("UPDATE questions SET viewCount = viewCount + 1 WHERE id = ?");
+				return questionId -> {
+					update.setInt(1, questionId);
+					update.executeUpdate();
+				};
+			});
+			ViewCounter counter = new ViewCounter();
+			measure("ViewCounter.record", pool, questionIds, () -> counter::record);
+			measure("recordQuestionView", pool, questionIds, () -> db::recordQuestionView);   // plus the trending score
+
+			long start = System.nanoTime();
+			int flushed = db.flushViewCounts();
+			System.out.printf("%nFlush of the counted views: %d questions in %.2f ms%n", flushed,
+					(System.nanoTime() - start) / 1e6);
+		} finally {
+			pool.shutdown();
+		}
+
+		System.out.println("______________________________________");
+		db.closeConnection();
+	}
+
+	private static void measure(String name, ExecutorService pool, int[] questionIds, SinkFactory sinks) throws Exception {
+		long[] nanosPerView = new long[RUNS + 1];
+		for (int run = 0; run <= RUNS; run++) {   // the first run warms up
+			List<Callable<Void>> workers = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				ViewSink sink = sinks.open();
+				int offset = t;
+				workers.add(() -> {
+					for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+						sink.view(questionIds[(i + offset) % questionIds.length]);
+					}
+					return null;
+				});
+			}
+			long start = System.nanoTime();
+			for (Future<Void> done : pool.invokeAll(workers)) {
+				done.get();
+			}
+			nanosPerView[run] = (System.nanoTime() - start) / ((long) THREADS * VIEWS_PER_THREAD);
+		}
+		long[] measured = Arrays.copyOfRange(nanosPerView, 1, nanosPerView.length);
+		Arrays.sort(measured);
+		System.out.printf("%-32s %14d%n", name, measured[measured.length / 2]);
+	}
+}
@@ -0,0 +1,240 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * VoteAggregator collects answer upvotes in memory and writes them to the database in
+ * periodic batches, so a burst of clicks on a popular answer becomes one batched write
+ * instead of one locked row update per click.
+ *
+ * Each user can vote for an answer once: a vote is refused if the same user already
+ * has one waiting here or recorded in the votes table. Accepted votes are counted
+ * straight away (see getPendingVotes), which DatabaseHelper adds to the upvote counts
+ * it returns, so readers see the vote before it reaches the database. Those reads go
+ * through countedRead, so a flush never makes a vote vanish or count twice.
+ */
+public class VoteAggregator implements AutoCloseable {
+
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 500;
+	// Flush early once this many votes are waiting
+	public static final int FLUSH_THRESHOLD = 1_000;
+	// A dropped counter's value; votes that still reach it keep it negative and move on
+	private static final int DROPPED = Integer.MIN_VALUE / 2;
+
+	/**
+	 * A read that adds pending votes to counts from the database or the read caches.
+	 */
+	@FunctionalInterface
+	interface CountedRead<T> {
+		T read() throws SQLException;
+	}
+
+	/**
+	 * One user's vote for one answer.
+	 */
+	static final class Vote {
+		final int answerId;
+		final String userName;
+
+		Vote(int answerId, String userName) {
+			this.answerId = answerId;
+			this.userName = userName;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Vote)) {
+				return false;
+			}
+			Vote other = (Vote) o;
+			return answerId == other.answerId && userName.equals(other.userName);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * answerId + userName.hashCode();
+		}
+	}
+
+	private final DatabaseHelper db;
+	private final Set<Vote> pending = ConcurrentHashMap.newKeySet();
+	// Counters are removed only once dropped (see dropEmptyCounters)
+	private final Map<Integer, AtomicInteger> pendingByAnswer = new ConcurrentHashMap<>();
+	private final LongAdder pendingTotal = new LongAdder();
+	// Held for writing while a flush moves votes from pending to stored
+	private final StampedLock flushLock = new StampedLock();
+	private final ScheduledExecutorService flusher;
+	private volatile boolean closed;
+
+	VoteAggregator(DatabaseHelper db, long flushIntervalMillis) {
+		this.db = db;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "vote-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Records a vote unless this user already voted for the answer.
+	 *
+	 * @return true if the vote was accepted
+	 */
+	public boolean vote(int answerId, String userName) throws SQLException {
+		if (closed) {
+			throw new SQLException("Vote aggregator is closed");
+		}
+		Vote vote = new Vote(answerId, userName);
+		if (pending.contains(vote) || db.hasVotedInDatabase(answerId, userName)) {
+			return false;
+		}
+		// Counted before it is added, so a flush that picks the vote up always finds the
+		// count to take it off again
+		AtomicInteger answerVotes = countVote(answerId);
+		if (!pending.add(vote)) {
+			answerVotes.decrementAndGet();
+			return false;   // the same user's other click got here first
+		}
+		pendingTotal.increment();
+		if (pendingTotal.sum() >= FLUSH_THRESHOLD) {
+			flusher.execute(this::flushQuietly);
+		}
+		return true;
+	}
+
+	// Adds one to the answer's pending count, moving past a counter that flush dropped
+	private AtomicInteger countVote(int answerId) {
+		while (true) {
+			AtomicInteger answerVotes = pendingByAnswer.computeIfAbsent(answerId, id -> new AtomicInteger());
+			if (answerVotes.getAndIncrement() >= 0) {
+				return answerVotes;
+			}
+			pendingByAnswer.remove(answerId, answerVotes);   // flush is removing it too
+		}
+	}
+
+	public boolean hasPendingVote(int answerId, String userName) {
+		return pending.contains(new Vote(answerId, userName));
+	}
+
+	// Accepted votes for the answer that are not in the database yet
+	public int getPendingVotes(int answerId) {
+		AtomicInteger answerVotes = pendingByAnswer.get(answerId);
+		int count = answerVotes == null ? 0 : answerVotes.get();
+		return Math.max(count, 0);
+	}
+
+	public int getPendingVoteCount() {
+		return (int) pendingTotal.sum();
+	}
+
+	/**
+	 * Runs read so that it sees every flush either not started or finished. Halfway
+	 * through, a cached count from before the write plus the pending count after it would
+	 * miss the flushed votes, and a fresh count plus the pending count before it would
+	 * add them twice. The read runs without locking and is repeated, holding flushes
+	 * off, only if a flush overlapped it.
+	 */
+	<T> T countedRead(CountedRead<T> read) throws SQLException {
+		long stamp = flushLock.tryOptimisticRead();
+		if (stamp != 0) {
+			T result = read.read();
+			if (flushLock.validate(stamp)) {
+				return result;
+			}
+		}
+		stamp = flushLock.readLock();
+		try {
+			return read.read();
+		} finally {
+			flushLock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Writes every waiting vote in one transaction. The write, the invalidation of the
+	 * cached reads and the removal from pending happen under the flush lock, so reads
+	 * through countedRead see the votes counted exactly once throughout.
+	 */
+	public synchronized void flush() throws SQLException {
+		List<Vote> batch = new ArrayList<>(pending);
+		if (batch.isEmpty()) {
+			dropEmptyCounters();   // left by refused votes
+			return;
+		}
+		long stamp = flushLock.writeLock();
+		try {
+			Set<Integer> questionIds = db.writeVotes(batch);
+			for (Vote vote : batch) {
+				pending.remove(vote);
+				AtomicInteger answerVotes = pendingByAnswer.get(vote.answerId);
+				if (answerVotes != null) {   // gone if discardPending ran meanwhile
+					answerVotes.decrementAndGet();
+				}
+				pendingTotal.decrement();
+			}
+			db.votesWritten(questionIds);
+		} finally {
+			flushLock.unlockWrite(stamp);
+		}
+		dropEmptyCounters();
+	}
+
+	/*
+	 * Drops the counters with no votes waiting, so answers nobody votes for any more take
+	 * no memory. As in ViewCounter, dropping is a compare-and-set from zero, so it fails if
+	 * a vote arrived meanwhile, and a vote that comes after it finds the counter negative
+	 * and goes to a new counter instead.
+	 */
+	private void dropEmptyCounters() {
+		for (Map.Entry<Integer, AtomicInteger> entry : pendingByAnswer.entrySet()) {
+			AtomicInteger answerVotes = entry.getValue();
+			if (answerVotes.compareAndSet(0, DROPPED)) {
+				pendingByAnswer.remove(entry.getKey(), answerVotes);
+			}
+		}
+	}
+
+	// Drops waiting votes without writing them (the database is being cleared)
+	synchronized void discardPending() {
+		pending.clear();
+		pendingByAnswer.clear();
+		pendingTotal.reset();
+	}
+
+	/**
+	 * Stops the periodic flush and writes whatever is still waiting.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(2, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flushQuietly();
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (SQLException | RuntimeException e) {
+			// Votes stay pending and are retried on the next flush
+			e.printStackTrace();
+		}
+	}
+}